@@ -0,0 +1,50 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.vertexium.Vertex;
+import org.visallo.core.security.ACLProvider;
+import org.visallo.core.security.AllowAllAclProvider;
+import org.visallo.core.util.ClientApiConverter;
+import org.visallo.web.clientapi.model.ClientApiElementAcl;
+import org.visallo.web.clientapi.model.ClientApiObject;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AclProviderBenchmark {
+    private GraphFixture fixture;
+    private ACLProvider aclProvider;
+    private Vertex vertex;
+    private ClientApiVertex clientApiVertex;
+
+    @Setup(Level.Trial)
+    public void setup(GraphFixture fixture) {
+        this.fixture = fixture;
+        aclProvider = new AllowAllAclProvider(
+                fixture.getGraph(),
+                fixture.getUserRepository(),
+                fixture.getOntologyRepository(),
+                fixture.getPrivilegeRepository()
+        );
+        vertex = fixture.getGraph().getVertex(fixture.getVertexIds().get(0), fixture.getAuthorizations());
+        clientApiVertex = ClientApiConverter.toClientApiVertex(vertex, null, fixture.getAuthorizations());
+    }
+
+    @Benchmark
+    public ClientApiElementAcl elementAcl() {
+        return aclProvider.elementACL(clientApiVertex, fixture.getUser(), null);
+    }
+
+    @Benchmark
+    public ClientApiObject appendAcl() {
+        return aclProvider.appendACL(clientApiVertex, fixture.getUser(), null);
+    }
+
+    @Benchmark
+    public boolean canUpdateElement() {
+        return aclProvider.canUpdateElement(vertex, fixture.getUser(), null);
+    }
+}
@@ -0,0 +1,50 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.vertexium.Vertex;
+import org.visallo.core.util.ClientApiConverter;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.vertexium.util.IterableUtils.toList;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClientApiConverterBenchmark {
+    private static final int PAGE_SIZE = 100;
+    private GraphFixture fixture;
+    private List<Vertex> vertices;
+
+    @Setup(Level.Trial)
+    public void setup(GraphFixture fixture) {
+        this.fixture = fixture;
+        this.vertices = toList(fixture.getGraph().getVertices(
+                fixture.getVertexIds().subList(0, PAGE_SIZE),
+                ClientApiConverter.SEARCH_FETCH_HINTS,
+                fixture.getAuthorizations()
+        ));
+    }
+
+    @Benchmark
+    public ClientApiVertex toClientApiVertex() {
+        return ClientApiConverter.toClientApiVertex(vertices.get(0), null, fixture.getAuthorizations());
+    }
+
+    @Benchmark
+    public List<ClientApiVertex> toClientApiVertices() {
+        return ClientApiConverter.toClientApiVertices(vertices, null, fixture.getAuthorizations());
+    }
+
+    @Benchmark
+    public List<ClientApiVertex> getAndConvertVertices() {
+        Iterable<Vertex> vertices = fixture.getGraph().getVertices(
+                fixture.getVertexIds().subList(0, PAGE_SIZE),
+                ClientApiConverter.SEARCH_FETCH_HINTS,
+                fixture.getAuthorizations()
+        );
+        return ClientApiConverter.toClientApiVertices(vertices, null, fixture.getAuthorizations());
+    }
+}
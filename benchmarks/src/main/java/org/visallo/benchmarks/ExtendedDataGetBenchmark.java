@@ -0,0 +1,107 @@
+package org.visallo.benchmarks;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.*;
+import org.vertexium.*;
+import org.vertexium.mutation.ExistingElementMutation;
+import org.visallo.core.util.ClientApiConverter;
+import org.visallo.web.clientapi.model.ClientApiExtendedDataRow;
+import org.visallo.web.routes.extendedData.ExtendedDataGet;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a page of a 1,000,000 row extended data table the way the table product does, from the start of the
+ * table, after a cursor in the middle of the table and for a range of row ids with one column, compared to
+ * converting the whole table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExtendedDataGetBenchmark {
+    private static final String TABLE_NAME = "http://visallo.org/benchmark#transactions";
+    private static final int ROW_COUNT = 1000000;
+    private static final int COLUMN_COUNT = 5;
+    private static final int BATCH_SIZE = 10000;
+    private static final int PAGE_SIZE = 100;
+    private static final Set<String> PROJECTION = Collections.singleton(getColumnName(0));
+    private GraphFixture fixture;
+    private ExtendedDataGet extendedDataGet;
+    private String elementId;
+
+    @Setup(Level.Trial)
+    public void setup(GraphFixture fixture) {
+        this.fixture = fixture;
+        this.extendedDataGet = new ExtendedDataGet(fixture.getGraph());
+        this.elementId = fixture.getVertexIds().get(0);
+
+        Authorizations authorizations = fixture.getAuthorizations();
+        Visibility visibility = fixture.getVisibilityTranslator().getDefaultVisibility();
+        for (int batchStart = 0; batchStart < ROW_COUNT; batchStart += BATCH_SIZE) {
+            Vertex vertex = fixture.getGraph().getVertex(elementId, authorizations);
+            ExistingElementMutation<Vertex> m = vertex.prepareMutation();
+            for (int i = batchStart; i < batchStart + BATCH_SIZE; i++) {
+                String rowId = getRowId(i);
+                for (int column = 0; column < COLUMN_COUNT; column++) {
+                    m.addExtendedData(TABLE_NAME, rowId, getColumnName(column), "value " + i + " " + column, visibility);
+                }
+            }
+            m.save(authorizations);
+        }
+        fixture.getGraph().flush();
+    }
+
+    @Benchmark
+    public void firstPage() throws IOException {
+        writeRows(0, null, null, null, null);
+    }
+
+    @Benchmark
+    public void pageAfterCursor() throws IOException {
+        writeRows(0, getRowId(ROW_COUNT / 2), null, null, null);
+    }
+
+    @Benchmark
+    public void projectedRange() throws IOException {
+        writeRows(0, null, getRowId(ROW_COUNT / 4), getRowId(ROW_COUNT / 4 + PAGE_SIZE), PROJECTION);
+    }
+
+    @Benchmark
+    public List<ClientApiExtendedDataRow> wholeTable() {
+        Iterable<ExtendedDataRow> rows = fixture.getGraph().getExtendedData(
+                ElementType.VERTEX,
+                elementId,
+                TABLE_NAME,
+                fixture.getAuthorizations()
+        );
+        return ClientApiConverter.toClientApiExtendedDataRows(rows);
+    }
+
+    private void writeRows(int offset, String afterRowId, String startRowId, String endRowId, Set<String> propertyNames) throws IOException {
+        extendedDataGet.writeRows(
+                new NullOutputStream(),
+                ElementType.VERTEX,
+                elementId,
+                TABLE_NAME,
+                offset,
+                PAGE_SIZE,
+                afterRowId,
+                startRowId,
+                endRowId,
+                propertyNames,
+                fixture.getAuthorizations()
+        );
+    }
+
+    private static String getRowId(int i) {
+        return String.format("%08d", i);
+    }
+
+    private static String getColumnName(int column) {
+        return "http://visallo.org/benchmark#column" + column;
+    }
+}
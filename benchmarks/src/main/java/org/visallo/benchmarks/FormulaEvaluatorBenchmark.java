@@ -0,0 +1,36 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.vertexium.Vertex;
+import org.visallo.core.formula.FormulaEvaluator;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FormulaEvaluatorBenchmark {
+    private GraphFixture fixture;
+    private FormulaEvaluator formulaEvaluator;
+    private FormulaEvaluator.UserContext userContext;
+    private Vertex vertex;
+
+    @Setup(Level.Trial)
+    public void setup(GraphFixture fixture) {
+        this.fixture = fixture;
+        formulaEvaluator = fixture.getFormulaEvaluator();
+        userContext = new FormulaEvaluator.UserContext(Locale.US, null, "UTC", null);
+        vertex = fixture.getGraph().getVertex(fixture.getVertexIds().get(0), fixture.getAuthorizations());
+    }
+
+    @Benchmark
+    public String evaluateTitleFormula() {
+        return formulaEvaluator.evaluateTitleFormula(vertex, userContext, fixture.getAuthorizations());
+    }
+
+    @Benchmark
+    public String evaluateSubtitleFormula() {
+        return formulaEvaluator.evaluateSubtitleFormula(vertex, userContext, fixture.getAuthorizations());
+    }
+}
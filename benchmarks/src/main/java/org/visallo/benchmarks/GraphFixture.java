@@ -0,0 +1,207 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.vertexium.*;
+import org.vertexium.mutation.ExistingElementMutation;
+import org.visallo.core.formula.FormulaEvaluator;
+import org.visallo.core.model.graph.GraphRepository;
+import org.visallo.core.model.ontology.*;
+import org.visallo.core.model.user.AuthorizationRepository;
+import org.visallo.core.model.user.PrivilegeRepository;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.security.VisibilityTranslator;
+import org.visallo.core.user.User;
+import org.visallo.core.util.VisalloInMemoryTestBase;
+import org.visallo.web.clientapi.model.PropertyType;
+
+import java.util.*;
+
+/**
+ * A generated ontology and graph in the in-memory Vertexium graph, shared by all the threads of a benchmark.
+ * <p>
+ * The fixture is generated from a fixed seed so that every run, and every commit, benchmarks the same data.
+ */
+@State(Scope.Benchmark)
+public class GraphFixture extends VisalloInMemoryTestBase {
+    public static final String IRI_PREFIX = "http://visallo.org/benchmark#";
+    public static final int CONCEPT_COUNT = 20;
+    public static final int PROPERTIES_PER_CONCEPT = 5;
+    public static final int RELATIONSHIP_COUNT = 5;
+    public static final int VERTEX_COUNT = 1000;
+    public static final int EDGES_PER_VERTEX = 3;
+    private static final long SEED = 20170101L;
+    private static final PropertyType[] PROPERTY_TYPES = {
+            PropertyType.STRING,
+            PropertyType.DOUBLE,
+            PropertyType.DATE,
+            PropertyType.BOOLEAN,
+            PropertyType.INTEGER
+    };
+    private User user;
+    private Authorizations authorizations;
+    private final List<String> conceptIris = new ArrayList<>();
+    private final List<String> propertyIris = new ArrayList<>();
+    private final List<String> relationshipIris = new ArrayList<>();
+    private final List<String> vertexIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        before();
+        user = getUserRepository().findOrAddUser("benchmark", "Benchmark", "benchmark@visallo.org", "password");
+        User systemUser = getUserRepository().getSystemUser();
+        authorizations = getAuthorizationRepository().getGraphAuthorizations(systemUser);
+
+        Random random = new Random(SEED);
+        generateOntology(systemUser);
+        generateGraph(random, systemUser);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        getFormulaEvaluator().close();
+    }
+
+    private void generateOntology(User systemUser) {
+        Concept thingConcept = getOntologyRepository().getEntityConcept(OntologyRepository.PUBLIC);
+        List<Concept> concepts = new ArrayList<>();
+        for (int i = 0; i < CONCEPT_COUNT; i++) {
+            String conceptIri = IRI_PREFIX + "concept" + i;
+            Concept concept = getOntologyRepository().getOrCreateConcept(thingConcept, conceptIri, "Concept " + i, null, systemUser, OntologyRepository.PUBLIC);
+            concepts.add(concept);
+            conceptIris.add(conceptIri);
+
+            for (int j = 0; j < PROPERTIES_PER_CONCEPT; j++) {
+                String propertyIri = IRI_PREFIX + "concept" + i + "Property" + j;
+                OntologyPropertyDefinition propertyDefinition = new OntologyPropertyDefinition(
+                        Collections.singletonList(concept),
+                        propertyIri,
+                        "Property " + j + " of Concept " + i,
+                        PROPERTY_TYPES[j % PROPERTY_TYPES.length]
+                );
+                propertyDefinition.setUserVisible(true);
+                getOntologyRepository().getOrCreateProperty(propertyDefinition, systemUser, OntologyRepository.PUBLIC);
+                propertyIris.add(propertyIri);
+            }
+        }
+        for (int i = 0; i < RELATIONSHIP_COUNT; i++) {
+            String relationshipIri = IRI_PREFIX + "relationship" + i;
+            getOntologyRepository().getOrCreateRelationshipType(null, concepts, concepts, relationshipIri, true, systemUser, OntologyRepository.PUBLIC);
+            relationshipIris.add(relationshipIri);
+        }
+        getOntologyRepository().clearCache();
+    }
+
+    private void generateGraph(Random random, User systemUser) {
+        Visibility visibility = getVisibilityTranslator().getDefaultVisibility();
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            int conceptIndex = random.nextInt(CONCEPT_COUNT);
+            String vertexId = "v" + i;
+            Vertex vertex = getGraphRepository().addVertex(vertexId, conceptIris.get(conceptIndex), "", null, null, null, systemUser, authorizations);
+
+            ExistingElementMutation<Vertex> m = vertex.prepareMutation();
+            for (int j = 0; j < PROPERTIES_PER_CONCEPT; j++) {
+                String propertyIri = propertyIris.get(conceptIndex * PROPERTIES_PER_CONCEPT + j);
+                m.addPropertyValue("", propertyIri, generateValue(random, PROPERTY_TYPES[j % PROPERTY_TYPES.length]), visibility);
+            }
+            vertices.add(m.save(authorizations));
+            vertexIds.add(vertexId);
+        }
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            for (int j = 0; j < EDGES_PER_VERTEX; j++) {
+                Vertex inVertex = vertices.get(random.nextInt(VERTEX_COUNT));
+                String label = relationshipIris.get(random.nextInt(RELATIONSHIP_COUNT));
+                getGraphRepository().addEdge("e" + i + "_" + j, vertices.get(i), inVertex, label, null, null, "", null, systemUser, authorizations);
+            }
+        }
+        getGraph().flush();
+    }
+
+    private static Object generateValue(Random random, PropertyType propertyType) {
+        switch (propertyType) {
+            case DOUBLE:
+                return random.nextDouble() * 1000;
+            case DATE:
+                return new Date(1483228800000L + (long) (random.nextDouble() * 365 * 24 * 60 * 60 * 1000));
+            case BOOLEAN:
+                return random.nextBoolean();
+            case INTEGER:
+                return random.nextInt(1000);
+            default:
+                return "value " + Integer.toString(random.nextInt(), 36);
+        }
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * @return the system user's authorizations, which can read every generated element
+     */
+    public Authorizations getAuthorizations() {
+        return authorizations;
+    }
+
+    public List<String> getVertexIds() {
+        return vertexIds;
+    }
+
+    public List<String> getConceptIris() {
+        return conceptIris;
+    }
+
+    public List<String> getPropertyIris() {
+        return propertyIris;
+    }
+
+    public List<String> getRelationshipIris() {
+        return relationshipIris;
+    }
+
+    @Override
+    public Graph getGraph() {
+        return super.getGraph();
+    }
+
+    @Override
+    public GraphRepository getGraphRepository() {
+        return super.getGraphRepository();
+    }
+
+    @Override
+    public OntologyRepository getOntologyRepository() {
+        return super.getOntologyRepository();
+    }
+
+    @Override
+    public UserRepository getUserRepository() {
+        return super.getUserRepository();
+    }
+
+    @Override
+    public AuthorizationRepository getAuthorizationRepository() {
+        return super.getAuthorizationRepository();
+    }
+
+    @Override
+    public PrivilegeRepository getPrivilegeRepository() {
+        return super.getPrivilegeRepository();
+    }
+
+    @Override
+    public VisibilityTranslator getVisibilityTranslator() {
+        return super.getVisibilityTranslator();
+    }
+
+    @Override
+    public WorkQueueRepository getWorkQueueRepository() {
+        return super.getWorkQueueRepository();
+    }
+
+    @Override
+    public FormulaEvaluator getFormulaEvaluator() {
+        return super.getFormulaEvaluator();
+    }
+}
@@ -0,0 +1,106 @@
+package org.visallo.benchmarks;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.vertexium.*;
+import org.visallo.core.model.graph.GraphUpdateContext;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workspace.WorkspaceProperties;
+import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.web.clientapi.model.GraphPosition;
+import org.visallo.web.product.graph.GraphProductLayout;
+import org.visallo.web.product.graph.GraphProductOntology;
+import org.visallo.web.product.graph.GraphWorkProductService;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.visallo.core.model.workspace.product.WorkProductServiceHasElementsBase.getEdgeId;
+
+/**
+ * Collapsing half of the nodes of a 5,000 node graph product into a compound node and expanding it again, as the
+ * graph product's collapse and remove routes do. Every invocation collapses and expands the same nodes into the
+ * same compound node so the product is unchanged between invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GraphProductLayoutBenchmark {
+    private static final int NODE_COUNT = 5000;
+    private static final String PRODUCT_ID = "benchmarkProduct";
+    private static final String COMPOUND_NODE_ID = "benchmarkCompoundNode";
+    private GraphFixture fixture;
+    private GraphWorkProductService graphWorkProductService;
+    private Authorizations authorizations;
+    private Visibility visibility;
+    private Vertex productVertex;
+    private JSONObject collapseParams;
+
+    @Setup(Level.Trial)
+    public void setup(GraphFixture fixture) {
+        this.fixture = fixture;
+        graphWorkProductService = new GraphWorkProductService(
+                fixture.getAuthorizationRepository(),
+                fixture.getGraphRepository(),
+                fixture.getUserRepository()
+        );
+        authorizations = fixture.getAuthorizationRepository().getGraphAuthorizations(
+                fixture.getUserRepository().getSystemUser(),
+                WorkspaceRepository.VISIBILITY_STRING
+        );
+        visibility = GraphWorkProductService.VISIBILITY.getVisibility();
+
+        Graph graph = fixture.getGraph();
+        graph.addVertex(PRODUCT_ID, visibility, authorizations);
+        JSONArray children = new JSONArray();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            String vertexId = "productNode" + i;
+            graph.addVertex(vertexId, visibility, authorizations);
+            EdgeBuilderByVertexId edgeBuilder = graph.prepareEdge(
+                    getEdgeId(PRODUCT_ID, vertexId),
+                    PRODUCT_ID,
+                    vertexId,
+                    WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
+                    visibility
+            );
+            GraphProductOntology.ENTITY_POSITION.setProperty(edgeBuilder, new GraphPosition(i % 100 * 50, i / 100 * 50).toJSONObject(), visibility);
+            GraphProductOntology.PARENT_NODE.setProperty(edgeBuilder, GraphProductLayout.ROOT_NODE_ID, visibility);
+            edgeBuilder.save(authorizations);
+            if (i % 2 == 0) {
+                children.put(vertexId);
+            }
+        }
+        graph.flush();
+        productVertex = graph.getVertex(PRODUCT_ID, authorizations);
+
+        collapseParams = new JSONObject();
+        collapseParams.put("id", COMPOUND_NODE_ID);
+        collapseParams.put("pos", new GraphPosition(2500, 1250).toJSONObject());
+        collapseParams.put("parent", GraphProductLayout.ROOT_NODE_ID);
+        collapseParams.put("children", children);
+    }
+
+    @Benchmark
+    public GraphProductLayout load() {
+        return GraphProductLayout.load(productVertex, authorizations);
+    }
+
+    @Benchmark
+    public JSONObject collapseAndExpand() throws Exception {
+        JSONObject compoundNode;
+        try (GraphUpdateContext ctx = beginGraphUpdate()) {
+            compoundNode = graphWorkProductService.addCompoundNode(ctx, productVertex, collapseParams, fixture.getUser(), visibility, authorizations);
+        }
+        try (GraphUpdateContext ctx = beginGraphUpdate()) {
+            JSONArray removeIds = new JSONArray().put(COMPOUND_NODE_ID);
+            graphWorkProductService.removeVertices(ctx, productVertex, removeIds, false, fixture.getUser(), visibility, authorizations);
+        }
+        return compoundNode;
+    }
+
+    private GraphUpdateContext beginGraphUpdate() {
+        // the benchmark measures the graph writes, not the in-memory work queue growing with every invocation
+        return fixture.getGraphRepository().beginGraphUpdate(Priority.LOW, fixture.getUser(), authorizations)
+                .setPushOnQueue(false);
+    }
+}
@@ -0,0 +1,49 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
+import org.visallo.core.ingest.graphProperty.GraphPropertyMessage;
+import org.visallo.core.model.workQueue.Priority;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the messages pushed to and read from the graph property work queue for every changed property.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GraphPropertyMessageBenchmark {
+    private static final int PROPERTY_COUNT = 10;
+    private GraphPropertyMessage message;
+    private byte[] messageBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GraphPropertyMessage.Property[] properties = new GraphPropertyMessage.Property[PROPERTY_COUNT];
+        for (int i = 0; i < PROPERTY_COUNT; i++) {
+            properties[i] = new GraphPropertyMessage.Property()
+                    .setPropertyKey("key" + i)
+                    .setPropertyName(GraphFixture.IRI_PREFIX + "property" + i)
+                    .setStatus(ElementOrPropertyStatus.UPDATE)
+                    .setBeforeActionTimestamp(System.currentTimeMillis());
+        }
+        message = new GraphPropertyMessage()
+                .setGraphVertexId(new String[]{"v1", "v2", "v3"})
+                .setProperties(properties)
+                .setPriority(Priority.NORMAL)
+                .setWorkspaceId("WORKSPACE_1")
+                .setVisibilitySource("a&b");
+        messageBytes = message.toBytes();
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return message.toBytes();
+    }
+
+    @Benchmark
+    public GraphPropertyMessage create() {
+        return GraphPropertyMessage.create(messageBytes);
+    }
+}
@@ -0,0 +1,62 @@
+package org.visallo.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.vertexium.Vertex;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.JSONUtil;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VisibilityJson} parsing as done for every element read, and {@link JSONUtil} parsing and conversion of a
+ * larger document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonBenchmark {
+    private Vertex vertex;
+    private String visibilityJsonString;
+    private String documentString;
+    private JSONObject document;
+
+    @Setup(Level.Trial)
+    public void setup(GraphFixture fixture) {
+        vertex = fixture.getGraph().getVertex(fixture.getVertexIds().get(0), fixture.getAuthorizations());
+
+        VisibilityJson visibilityJson = new VisibilityJson("a&(b|c)");
+        visibilityJson.addWorkspace("WORKSPACE_1");
+        visibilityJson.addWorkspace("WORKSPACE_2");
+        visibilityJsonString = ClientApiConverter.clientApiToString(visibilityJson);
+
+        // the shape of a client api vertex: metadata-heavy properties
+        document = new JSONObject(ClientApiConverter.clientApiToString(
+                ClientApiConverter.toClientApiVertex(vertex, null, fixture.getAuthorizations())
+        ));
+        documentString = document.toString();
+    }
+
+    @Benchmark
+    public VisibilityJson parseVisibilityJson() {
+        return ClientApiConverter.toClientApi(visibilityJsonString, VisibilityJson.class);
+    }
+
+    @Benchmark
+    public VisibilityJson readVisibilityJsonProperty() {
+        return VisalloProperties.VISIBILITY_JSON.getPropertyValue(vertex);
+    }
+
+    @Benchmark
+    public JSONObject parseDocument() {
+        return JSONUtil.parse(documentString);
+    }
+
+    @Benchmark
+    public JsonNode documentToJsonNode() {
+        return JSONUtil.toJsonNode(document);
+    }
+}
@@ -0,0 +1,28 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.visallo.core.status.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost added to every web request by route latency recording, which should stay well under a microsecond
+ * even when every request thread records into the same route.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LatencyHistogramBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Benchmark
+    public void record() {
+        histogram.record(System.nanoTime() & 0xffffffL);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        histogram.record(System.nanoTime() & 0xffffffL);
+    }
+}
@@ -0,0 +1,44 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.util.ServiceLoaderUtil;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class lookups through {@link ServiceLoaderUtil}. The cold lookup clears the cache first so it scans
+ * META-INF/services and resolves the classes as every lookup did before the cache, the warm lookup is answered from
+ * the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServiceLoaderUtilBenchmark {
+    private Configuration configuration;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        configuration = new HashMapConfigurationLoader(new HashMap()).createConfiguration();
+        ServiceLoaderUtil.loadClasses(GraphPropertyWorker.class, configuration);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ServiceLoaderUtil.clearCache();
+    }
+
+    @Benchmark
+    public Iterable<Class<? extends GraphPropertyWorker>> coldLookup() {
+        ServiceLoaderUtil.clearCache();
+        return ServiceLoaderUtil.loadClasses(GraphPropertyWorker.class, configuration);
+    }
+
+    @Benchmark
+    public Iterable<Class<? extends GraphPropertyWorker>> warmLookup() {
+        return ServiceLoaderUtil.loadClasses(GraphPropertyWorker.class, configuration);
+    }
+}
@@ -0,0 +1,63 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.vertexium.Vertex;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.termMention.TermMentionBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving term mentions as a text extraction worker does. The same mentions are saved on every invocation so the
+ * graph does not grow while the benchmark runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TermMentionBuilderBenchmark {
+    private static final int MENTION_COUNT = 10;
+    private GraphFixture fixture;
+    private Vertex outVertex;
+    private Vertex resolvedToVertex;
+
+    @Setup(Level.Trial)
+    public void setup(GraphFixture fixture) {
+        this.fixture = fixture;
+        outVertex = fixture.getGraph().getVertex(fixture.getVertexIds().get(0), fixture.getAuthorizations());
+        resolvedToVertex = fixture.getGraph().getVertex(fixture.getVertexIds().get(1), fixture.getAuthorizations());
+    }
+
+    @Benchmark
+    public Vertex save() {
+        return newTermMentionBuilder(0)
+                .save(fixture.getGraph(), fixture.getVisibilityTranslator(), fixture.getUser(), fixture.getAuthorizations());
+    }
+
+    @Benchmark
+    public Vertex saveResolved() {
+        return newTermMentionBuilder(1)
+                .resolvedTo(resolvedToVertex.getId(), null)
+                .save(fixture.getGraph(), fixture.getVisibilityTranslator(), fixture.getUser(), fixture.getAuthorizations());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MENTION_COUNT)
+    public void saveMany() {
+        for (int i = 0; i < MENTION_COUNT; i++) {
+            newTermMentionBuilder(i).save(fixture.getGraph(), fixture.getVisibilityTranslator(), fixture.getUser(), fixture.getAuthorizations());
+        }
+    }
+
+    private TermMentionBuilder newTermMentionBuilder(int index) {
+        return new TermMentionBuilder()
+                .outVertex(outVertex)
+                .propertyKey("")
+                .propertyName(VisalloProperties.TEXT.getPropertyName())
+                .conceptIri(fixture.getConceptIris().get(index % fixture.getConceptIris().size()))
+                .start(index * 10)
+                .end(index * 10 + 5)
+                .title("mention " + index)
+                .visibilityJson("")
+                .process(TermMentionBuilderBenchmark.class.getSimpleName());
+    }
+}
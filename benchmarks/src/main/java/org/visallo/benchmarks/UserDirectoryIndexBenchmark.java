@@ -0,0 +1,61 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.visallo.core.model.directory.UserRepositoryDirectoryRepository;
+import org.visallo.core.model.user.UserDirectoryIndex;
+import org.visallo.core.user.User;
+import org.visallo.vertexium.model.user.InMemoryUser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searching 100,000 synthetic users the way the share-workspace and mention dialogs do on every keystroke, with
+ * one and two character prefixes, longer prefixes and queries matching the middle of a name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserDirectoryIndexBenchmark {
+    private static final int USER_COUNT = 100000;
+    private static final int LIMIT = UserRepositoryDirectoryRepository.SEARCH_PEOPLE_LIMIT;
+    private static final long SEED = 20170101L;
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+            "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen"
+    };
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin"
+    };
+    private UserDirectoryIndex userDirectoryIndex;
+
+    @Param({"j", "jo", "john", "son", "rodriguez42"})
+    public String query;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(SEED);
+        List<User> users = new ArrayList<>(USER_COUNT);
+        Map<String, User> usersById = new HashMap<>(USER_COUNT);
+        for (int i = 0; i < USER_COUNT; i++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String username = (firstName.charAt(0) + lastName + i).toLowerCase();
+            User user = new InMemoryUser(username, firstName + " " + lastName, username + "@visallo.org", null);
+            users.add(user);
+            usersById.put(user.getUserId(), user);
+        }
+        userDirectoryIndex = new UserDirectoryIndex(() -> users, usersById::get, Long.MAX_VALUE);
+        userDirectoryIndex.find("", 1);
+    }
+
+    @Benchmark
+    public List<User> find() {
+        return userDirectoryIndex.find(query, LIMIT);
+    }
+}
@@ -0,0 +1,71 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.vertexium.*;
+import org.visallo.core.user.User;
+import org.visallo.core.util.ClientApiConverter;
+import org.visallo.web.clientapi.model.ClientApiVertexEdges;
+import org.visallo.web.routes.vertex.VertexEdges;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading one page of the relationships of a hub vertex connected to every generated vertex, the way the
+ * relationships section of the inspector pages through them, compared to loading each other vertex by itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VertexEdgesBenchmark {
+    private static final String HUB_VERTEX_ID = "hub";
+    private static final int HUB_EDGE_COUNT = 5000;
+    private GraphFixture fixture;
+    private VertexEdges vertexEdges;
+
+    @Param({"25", "250", "2500"})
+    public int pageSize;
+
+    @Setup(Level.Trial)
+    public void setup(GraphFixture fixture) {
+        this.fixture = fixture;
+        this.vertexEdges = new VertexEdges(fixture.getGraph());
+
+        User systemUser = fixture.getUserRepository().getSystemUser();
+        Authorizations authorizations = fixture.getAuthorizations();
+        String label = fixture.getRelationshipIris().get(0);
+        Vertex hub = fixture.getGraphRepository().addVertex(
+                HUB_VERTEX_ID, fixture.getConceptIris().get(0), "", null, null, null, systemUser, authorizations);
+        List<String> vertexIds = fixture.getVertexIds();
+        for (int i = 0; i < HUB_EDGE_COUNT; i++) {
+            Vertex inVertex = fixture.getGraph().getVertex(vertexIds.get(i % vertexIds.size()), authorizations);
+            fixture.getGraphRepository().addEdge(
+                    "hub_e" + i, hub, inVertex, label, null, null, "", null, systemUser, authorizations);
+        }
+        fixture.getGraph().flush();
+    }
+
+    @Benchmark
+    public ClientApiVertexEdges handle() throws Exception {
+        return vertexEdges.handle(HUB_VERTEX_ID, 0, pageSize, null, null, "BOTH", null, null, fixture.getAuthorizations());
+    }
+
+    @Benchmark
+    public ClientApiVertexEdges getVertexPerEdge() {
+        Authorizations authorizations = fixture.getAuthorizations();
+        Vertex vertex = fixture.getGraph().getVertex(HUB_VERTEX_ID, authorizations);
+        Iterable<Edge> edges = vertex.query(authorizations)
+                .hasDirection(Direction.BOTH)
+                .limit(pageSize)
+                .edges();
+        ClientApiVertexEdges result = new ClientApiVertexEdges();
+        for (Edge edge : edges) {
+            Vertex otherVertex = fixture.getGraph().getVertex(edge.getOtherVertexId(HUB_VERTEX_ID), authorizations);
+            ClientApiVertexEdges.Edge clientApiEdge = new ClientApiVertexEdges.Edge();
+            clientApiEdge.setRelationship(ClientApiConverter.toClientApiEdge(edge, null));
+            clientApiEdge.setVertex(ClientApiConverter.toClientApiVertex(otherVertex, null, authorizations));
+            result.getRelationships().add(clientApiEdge);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package org.visallo.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.vertexium.Authorizations;
+import org.vertexium.Visibility;
+import org.visallo.core.model.workspace.Workspace;
+import org.visallo.core.model.workspace.WorkspaceEntity;
+import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.core.user.User;
+import org.visallo.core.util.VisalloInMemoryTestBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding, removing and listing entities of workspaces with 10,000, 50,000 and 100,000 entities. Every invocation
+ * removes and adds back the same batch of entities so the workspace is unchanged between invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WorkspaceEntitiesBenchmark extends VisalloInMemoryTestBase {
+    private static final String WORKSPACE_ID = "benchmarkWorkspace";
+    private static final int BATCH_SIZE = 100;
+    private static final int ADD_BATCH_SIZE = 1000;
+
+    @Param({"10000", "50000", "100000"})
+    public int entityCount;
+
+    private User user;
+    private Workspace workspace;
+    private List<String> batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        before();
+        user = getUserRepository().getSystemUser();
+        workspace = getWorkspaceRepository().add(WORKSPACE_ID, "Benchmark", user);
+        Authorizations authorizations = getGraph().createAuthorizations(WorkspaceRepository.VISIBILITY_STRING, WORKSPACE_ID);
+
+        List<String> vertexIds = new ArrayList<>();
+        for (int i = 0; i < entityCount; i++) {
+            String vertexId = "entity" + i;
+            getGraph().addVertex(vertexId, new Visibility(""), authorizations);
+            vertexIds.add(vertexId);
+        }
+        getGraph().flush();
+        for (int i = 0; i < vertexIds.size(); i += ADD_BATCH_SIZE) {
+            getWorkspaceRepository().updateEntitiesOnWorkspace(
+                    workspace,
+                    vertexIds.subList(i, Math.min(i + ADD_BATCH_SIZE, vertexIds.size())),
+                    user
+            );
+        }
+
+        // spread over the workspace so removal cannot stop early
+        batch = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(vertexIds.get(i * (entityCount / BATCH_SIZE)));
+        }
+    }
+
+    @Benchmark
+    public void removeAndAddBatch() {
+        getWorkspaceRepository().softDeleteEntitiesFromWorkspace(workspace, batch, user);
+        getWorkspaceRepository().updateEntitiesOnWorkspace(workspace, batch, user);
+    }
+
+    @Benchmark
+    public List<WorkspaceEntity> findEntities() {
+        return getWorkspaceRepository().findEntities(workspace, user);
+    }
+}
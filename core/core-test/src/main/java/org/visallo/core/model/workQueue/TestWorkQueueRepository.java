@@ -36,6 +36,7 @@ import static org.mockito.Mockito.when;
 public class TestWorkQueueRepository extends WorkQueueRepository {
     public List<JSONObject> broadcastJsonValues = new ArrayList<>();
     public Map<String, List<byte[]>> queues = new HashMap<>();
+    private final List<BroadcastConsumer> broadcastConsumers = new ArrayList<>();
 
     public TestWorkQueueRepository(
             Graph graph,
@@ -48,6 +49,9 @@ public class TestWorkQueueRepository extends WorkQueueRepository {
     @Override
     protected void broadcastJson(JSONObject json) {
         broadcastJsonValues.add(json);
+        for (BroadcastConsumer broadcastConsumer : broadcastConsumers) {
+            broadcastConsumer.broadcastReceived(json);
+        }
     }
 
     @Override
@@ -80,7 +84,7 @@ public class TestWorkQueueRepository extends WorkQueueRepository {
 
     @Override
     public void subscribeToBroadcastMessages(BroadcastConsumer broadcastConsumer) {
-
+        broadcastConsumers.add(broadcastConsumer);
     }
 
     @Override
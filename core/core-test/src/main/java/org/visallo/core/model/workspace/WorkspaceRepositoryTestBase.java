@@ -14,6 +14,7 @@ import org.visallo.core.util.SandboxStatusUtil;
 import org.visallo.core.util.VisalloInMemoryTestBase;
 import org.visallo.web.clientapi.model.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -192,6 +193,89 @@ public abstract class WorkspaceRepositoryTestBase extends VisalloInMemoryTestBas
         }
     }
 
+    @Test
+    public void testPublishResumesAfterPublishedChunks() {
+        getConfiguration().set(WorkspaceRepository.CONFIG_PUBLISH_CHUNK_SIZE, 1);
+        Visibility defaultVisibility = getVisibilityTranslator().getDefaultVisibility();
+        Authorizations systemAuthorizations = getAuthorizationRepository().getGraphAuthorizations(getUserRepository().getSystemUser());
+        Authorizations noAuthorizations = getAuthorizationRepository().getGraphAuthorizations(user);
+
+        ClientApiPublishItem[] publishData = new ClientApiPublishItem[3];
+        for (int i = 0; i < publishData.length; i++) {
+            Vertex vertex = getGraph().prepareVertex("entity" + i + "Id", defaultVisibility)
+                    .addPropertyValue("key1", JUNIT_PROPERTY_NAME, "value1", new Metadata(), defaultVisibility)
+                    .save(systemAuthorizations);
+            getGraphRepository().setProperty(
+                    vertex,
+                    JUNIT_PROPERTY_NAME,
+                    "key1",
+                    "newValue",
+                    new Metadata(),
+                    "",
+                    "",
+                    workspace.getWorkspaceId(),
+                    "I changed it",
+                    new ClientApiSourceInfo(),
+                    user,
+                    workspaceAuthorizations
+            ).elementMutation.save(workspaceAuthorizations);
+            publishData[i] = new ClientApiPropertyPublishItem() {{
+                setAction(Action.ADD_OR_UPDATE);
+                setKey("key1");
+                setName(JUNIT_PROPERTY_NAME);
+                setVertexId(vertex.getId());
+            }};
+        }
+        getGraph().flush();
+
+        // stop after the first chunk as if the process died
+        List<Integer> publishedChunkCounts = new ArrayList<>();
+        try {
+            getWorkspaceRepository().publish(
+                    publishData,
+                    user,
+                    workspace.getWorkspaceId(),
+                    workspaceAuthorizations,
+                    0,
+                    (publishedChunkCount, totalChunkCount) -> {
+                        assertEquals(3, totalChunkCount);
+                        publishedChunkCounts.add(publishedChunkCount);
+                        throw new IllegalStateException("stopped");
+                    }
+            );
+            fail("expected the publish to stop");
+        } catch (IllegalStateException ex) {
+            assertEquals("stopped", ex.getMessage());
+        }
+        assertEquals(Collections.singletonList(1), publishedChunkCounts);
+        assertEquals(Arrays.asList("newValue", "value1", "value1"), getPublicValues(publishData, noAuthorizations));
+
+        getWorkspaceRepository().publish(
+                publishData,
+                user,
+                workspace.getWorkspaceId(),
+                workspaceAuthorizations,
+                publishedChunkCounts.get(0),
+                (publishedChunkCount, totalChunkCount) -> publishedChunkCounts.add(publishedChunkCount)
+        );
+        assertEquals(Arrays.asList(1, 2, 3), publishedChunkCounts);
+        assertEquals(Arrays.asList("newValue", "newValue", "newValue"), getPublicValues(publishData, noAuthorizations));
+
+        // the first item would fail if it was published again since it is no longer on the workspace
+        for (ClientApiPublishItem publishItem : publishData) {
+            assertNull(publishItem.getErrorMessage());
+        }
+    }
+
+    private List<Object> getPublicValues(ClientApiPublishItem[] publishData, Authorizations authorizations) {
+        List<Object> values = new ArrayList<>();
+        for (ClientApiPublishItem publishItem : publishData) {
+            String vertexId = ((ClientApiPropertyPublishItem) publishItem).getVertexId();
+            values.add(getGraph().getVertex(vertexId, authorizations).getPropertyValue("key1", JUNIT_PROPERTY_NAME));
+        }
+        return values;
+    }
+
     @Test
     public void testPublishingNewVertexWithUnknownConcept() {
         doTestPublishVertexAdd("junit-missing", "Unable to locate concept with IRI junit-missing", null);
@@ -26,6 +26,7 @@ import org.visallo.core.model.workspace.WorkspaceDiffHelper;
 import org.visallo.core.model.workspace.WorkspaceHelper;
 import org.visallo.core.model.workspace.WorkspaceListener;
 import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.core.model.workspace.product.ProductExtendedDataCache;
 import org.visallo.core.model.workspace.product.WorkProductService;
 import org.visallo.core.security.DirectVisibilityTranslator;
 import org.visallo.core.security.VisibilityTranslator;
@@ -51,6 +52,7 @@ public abstract class VisalloInMemoryTestBase {
     private WorkQueueRepository workQueueRepository;
     private AuthorizationRepository authorizationRepository;
     private WorkspaceDiffHelper workspaceDiffHelper;
+    private ProductExtendedDataCache productExtendedDataCache;
     private FormulaEvaluator formulaEvaluator;
     private TermMentionRepository termMentionRepository;
     private UserNotificationRepository userNotificationRepository;
@@ -62,6 +64,7 @@ public abstract class VisalloInMemoryTestBase {
     private LongRunningProcessRepository longRunningProcessRepository;
     private WorkQueueNames workQueueNames;
     private WorkspaceHelper workspaceHelper;
+    private ShutdownService shutdownService;
     private Map configurationMap;
 
     @Before
@@ -78,6 +81,7 @@ public abstract class VisalloInMemoryTestBase {
         workQueueRepository = null;
         authorizationRepository = null;
         workspaceDiffHelper = null;
+        productExtendedDataCache = null;
         formulaEvaluator = null;
         termMentionRepository = null;
         userNotificationRepository = null;
@@ -89,6 +93,7 @@ public abstract class VisalloInMemoryTestBase {
         longRunningProcessRepository = null;
         workQueueNames = null;
         workspaceHelper = null;
+        shutdownService = null;
         configurationMap = null;
     }
 
@@ -108,7 +113,8 @@ public abstract class VisalloInMemoryTestBase {
                 getTermMentionRepository(),
                 getOntologyRepository(),
                 getWorkQueueRepository(),
-                getAuthorizationRepository()
+                getAuthorizationRepository(),
+                getProductExtendedDataCache()
         ) {
             @Override
             protected WorkProductService getWorkProductServiceByKind(String kind) {
@@ -144,13 +150,27 @@ public abstract class VisalloInMemoryTestBase {
         }
         workspaceDiffHelper = new WorkspaceDiffHelper(
                 getGraph(),
+                getConfiguration(),
                 getUserRepository(),
                 getAuthorizationRepository(),
-                getFormulaEvaluator()
+                getFormulaEvaluator(),
+                getWorkQueueRepository(),
+                getShutdownService()
         );
         return workspaceDiffHelper;
     }
 
+    protected ProductExtendedDataCache getProductExtendedDataCache() {
+        if (productExtendedDataCache != null) {
+            return productExtendedDataCache;
+        }
+        productExtendedDataCache = new ProductExtendedDataCache(
+                getConfiguration(),
+                getWorkQueueRepository()
+        );
+        return productExtendedDataCache;
+    }
+
     protected FormulaEvaluator getFormulaEvaluator() {
         if (formulaEvaluator != null) {
             return formulaEvaluator;
@@ -273,6 +293,14 @@ public abstract class VisalloInMemoryTestBase {
         return visibilityTranslator;
     }
 
+    protected ShutdownService getShutdownService() {
+        if (shutdownService != null) {
+            return shutdownService;
+        }
+        shutdownService = new ShutdownService();
+        return shutdownService;
+    }
+
     protected LockRepository getLockRepository() {
         if (lockRepository != null) {
             return lockRepository;
@@ -26,6 +26,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -76,6 +77,8 @@ public class GraphPropertyRunnerTest {
 
         assertThat(countingGPWStub.isExecutingCount.get(), is(1L));
         assertThat(countingGPWStub.isHandledCount.get(), is(1L));
+        // the changes of workers that do not continue with a property are flushed too
+        verify(graph, times(1)).flush();
     }
 
     @Test
@@ -171,6 +174,62 @@ public class GraphPropertyRunnerTest {
         assertThat(next.getValue(), is(prop.getValue()));
     }
 
+    @Test
+    public void testChangedPropertiesAreProcessedInProcessUpToTheCascadeDepth() throws Exception {
+        when(configuration.getInt(eq(GraphPropertyRunner.CONFIGURATION_PARAMETER_MAX_CASCADE_DEPTH), anyInt()))
+                .thenReturn(2);
+        testSubject = new GraphPropertyRunner(
+                workQueueRepository,
+                statusRepository,
+                configuration,
+                new JmxMetricsManager(),
+                authorizationRepository
+        );
+        testSubject.setGraph(graph);
+
+        TestCascadingGPWStub cascadingGPWStub = new TestCascadingGPWStub();
+        cascadingGPWStub.setGraph(graph);
+        cascadingGPWStub.setWorkQueueRepository(workQueueRepository);
+
+        GraphPropertyMessage message = createVertexPropertyGPWMessage(VERTEX_ID, PROP_NAME + "0", PROP_KEY + "0");
+        inflateVertexAndAddToGraph(VERTEX_ID, 1L);
+        runTests(cascadingGPWStub, message);
+
+        assertThat(cascadingGPWStub.isExecutingCount.get(), is(3L));
+        // flushed after each of the three steps, and before the property past the depth limit is queued
+        verify(graph, times(4)).flush();
+        // the properties run on in process are still pushed for the workers of other processes
+        verify(workQueueRepository, times(2)).pushGraphPropertyQueue(
+                any(Element.class),
+                eq(PROP_KEY + "0"),
+                eq(PROP_NAME + "0"),
+                eq("wsId"),
+                eq(""),
+                eq(Priority.LOW),
+                eq(Collections.singletonList(TestCascadingGPWStub.class.getName()))
+        );
+        verify(workQueueRepository, times(1)).pushGraphPropertyQueue(
+                any(Element.class),
+                eq(PROP_KEY + "0"),
+                eq(PROP_NAME + "0"),
+                eq("wsId"),
+                eq(""),
+                eq(Priority.LOW)
+        );
+    }
+
+    @Test
+    public void testSkippedWorkersAreNotRun() throws Exception {
+        TestCountingGPWStub countingGPWStub = new TestCountingGPWStub();
+
+        GraphPropertyMessage message = createVertexPropertyGPWMessage(VERTEX_ID, PROP_NAME + "0", PROP_KEY + "0")
+                .setSkipWorkers(new String[]{TestCountingGPWStub.class.getName()});
+        inflateVertexAndAddToGraph(VERTEX_ID, 1L);
+        runTests(countingGPWStub, message);
+
+        assertThat(countingGPWStub.isExecutingCount.get(), is(0L));
+    }
+
     private void testMultiElementMessage(int numMessages, int numProperties, GraphPropertyMessage message) throws Exception {
         TestCountingGPWStub countingGPWStub = new TestCountingGPWStub();
         runTests(countingGPWStub, message);
@@ -254,6 +313,21 @@ public class GraphPropertyRunnerTest {
         }
     }
 
+    private class TestCascadingGPWStub extends GraphPropertyWorker {
+        public AtomicLong isExecutingCount = new AtomicLong(0);
+
+        @Override
+        public void execute(InputStream in, GraphPropertyWorkData data) throws Exception {
+            isExecutingCount.incrementAndGet();
+            continueWithProperty(data, data.getElement(), data.getProperty().getKey(), data.getProperty().getName());
+        }
+
+        @Override
+        public boolean isHandled(Element element, Property property) {
+            return property != null;
+        }
+    }
+
     private Edge createMockedEdge(String edgeId, Property... props) {
         List<Property> propList = Lists.newArrayList(props);
         Edge e = mock(Edge.class);
@@ -0,0 +1,167 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.vertexium.property.StreamingPropertyValue;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.util.ShutdownService;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ScratchFileManagerTest {
+    private File directory;
+    private Element element;
+
+    @Before
+    public void before() throws Exception {
+        directory = Files.createTempDirectory("scratchFileManagerTest").toFile();
+        element = mock(Element.class);
+        when(element.getId()).thenReturn("v1");
+        when(element.getPropertyValues(anyString())).thenReturn(Collections.emptyList());
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testOneCopyPerValue() throws Exception {
+        ScratchFileManager scratchFileManager = createScratchFileManager(1024, 600);
+        Property property = createProperty("k1", 1L, "hello");
+
+        ScratchFileManager.ScratchFile scratchFile1 = scratchFileManager.acquire(element, property);
+        ScratchFileManager.ScratchFile scratchFile2 = scratchFileManager.acquireIfPresent(element, property);
+        assertNotNull(scratchFile2);
+        assertEquals(scratchFile1.getFile(), scratchFile2.getFile());
+        assertEquals("hello", FileUtils.readFileToString(scratchFile1.getFile()));
+        scratchFile1.close();
+        scratchFile2.close();
+
+        // the next message for the same value reuses the copy
+        ScratchFileManager.ScratchFile scratchFile3 = scratchFileManager.acquire(element, property);
+        assertEquals(scratchFile1.getFile(), scratchFile3.getFile());
+        try (FileChannel channel = scratchFile3.openChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(5);
+            channel.read(buffer);
+            assertEquals("hello", new String(buffer.array()));
+        }
+        scratchFile3.close();
+        assertEquals(1, scratchFileManager.getCopyCount());
+
+        // a new value of the property gets a new copy
+        ScratchFileManager.ScratchFile scratchFile4 = scratchFileManager.acquire(element, createProperty("k1", 2L, "world"));
+        assertNotEquals(scratchFile1.getFile(), scratchFile4.getFile());
+        scratchFile4.close();
+        assertEquals(2, scratchFileManager.getCopyCount());
+
+        assertNull(scratchFileManager.acquireIfPresent(element, createProperty("k2", 1L, "hello")));
+    }
+
+    @Test
+    public void testEvictsCopiesOlderThanMaxAge() throws Exception {
+        ScratchFileManager scratchFileManager = createScratchFileManager(1024, 0);
+        Property property = createProperty("k1", 1L, "hello");
+
+        ScratchFileManager.ScratchFile scratchFile = scratchFileManager.acquire(element, property);
+        File file = scratchFile.getFile();
+        assertTrue(file.exists());
+        scratchFile.close();
+
+        assertFalse(file.exists());
+        assertEquals(0, scratchFileManager.getTotalSizeBytes());
+        assertNull(scratchFileManager.acquireIfPresent(element, property));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedCopiesOverMaxSize() throws Exception {
+        ScratchFileManager scratchFileManager = createScratchFileManager(10, 600);
+        Property property1 = createProperty("k1", 1L, "12345");
+        Property property2 = createProperty("k2", 1L, "12345");
+        Property property3 = createProperty("k3", 1L, "12345");
+
+        ScratchFileManager.ScratchFile scratchFile1 = scratchFileManager.acquire(element, property1);
+        File file1 = scratchFile1.getFile();
+        ScratchFileManager.ScratchFile scratchFile2 = scratchFileManager.acquire(element, property2);
+        scratchFile1.close();
+        scratchFile2.close();
+        assertEquals(10, scratchFileManager.getTotalSizeBytes());
+
+        // copies in use are never evicted
+        ScratchFileManager.ScratchFile scratchFile3 = scratchFileManager.acquire(element, property3);
+        assertEquals(15, scratchFileManager.getTotalSizeBytes());
+        scratchFile3.close();
+
+        assertFalse(file1.exists());
+        assertEquals(10, scratchFileManager.getTotalSizeBytes());
+        assertNull(scratchFileManager.acquireIfPresent(element, property1));
+        ScratchFileManager.ScratchFile scratchFile = scratchFileManager.acquireIfPresent(element, property3);
+        assertNotNull(scratchFile);
+        scratchFile.close();
+    }
+
+    @Test
+    public void testShutdownDeletesTheDirectory() throws Exception {
+        ScratchFileManager scratchFileManager = createScratchFileManager(1024, 600);
+        ScratchFileManager.ScratchFile scratchFile = scratchFileManager.acquire(element, createProperty("k1", 1L, "hello"));
+        assertEquals(scratchFileManager.getDirectory(), scratchFile.getFile().getParentFile());
+        scratchFile.close();
+
+        scratchFileManager.shutdown();
+        assertFalse(scratchFileManager.getDirectory().exists());
+    }
+
+    @Test
+    public void testAbandonedDirectoriesAreDeletedOnStart() throws Exception {
+        File abandonedDirectory = new File(directory, ScratchFileManager.DIRECTORY_PREFIX + "abandoned");
+        assertTrue(abandonedDirectory.mkdir());
+        assertTrue(new File(abandonedDirectory, ScratchFileManager.LOCK_FILE_NAME).createNewFile());
+        assertTrue(new File(abandonedDirectory, "scratch-1").createNewFile());
+        ScratchFileManager runningScratchFileManager = createScratchFileManager(1024, 600);
+
+        ScratchFileManager scratchFileManager = createScratchFileManager(1024, 600);
+        assertFalse(abandonedDirectory.exists());
+        // the directory of a running manager is locked and kept
+        assertTrue(runningScratchFileManager.getDirectory().exists());
+
+        scratchFileManager.shutdown();
+        runningScratchFileManager.shutdown();
+    }
+
+    private ScratchFileManager createScratchFileManager(long maxSizeBytes, long maxAgeSeconds) {
+        Map<String, String> config = new HashMap<>();
+        config.put(ScratchFileManager.CONFIGURATION_PARAMETER_DIRECTORY, directory.getAbsolutePath());
+        config.put(ScratchFileManager.CONFIGURATION_PARAMETER_MAX_SIZE_BYTES, Long.toString(maxSizeBytes));
+        config.put(ScratchFileManager.CONFIGURATION_PARAMETER_MAX_AGE_SECONDS, Long.toString(maxAgeSeconds));
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        return new ScratchFileManager(configuration, new ShutdownService());
+    }
+
+    private static Property createProperty(String key, long timestamp, String value) {
+        Property property = mock(Property.class);
+        when(property.getKey()).thenReturn(key);
+        when(property.getName()).thenReturn("http://visallo.org#raw");
+        when(property.getTimestamp()).thenReturn(timestamp);
+        // the value can only be read once, so a second copy would be empty
+        StreamingPropertyValue spv = new StreamingPropertyValue(new ByteArrayInputStream(value.getBytes()), byte[].class);
+        when(property.getValue()).thenReturn(spv);
+        return property;
+    }
+}
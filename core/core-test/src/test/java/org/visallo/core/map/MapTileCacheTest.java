@@ -0,0 +1,144 @@
+package org.visallo.core.map;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.http.HttpRepository;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class MapTileCacheTest {
+    private File directory;
+    private StubHttpRepository httpRepository;
+
+    @Before
+    public void before() throws Exception {
+        directory = Files.createTempDirectory("mapTileCacheTest").toFile();
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testTilesAreCachedOnDiskAcrossRestarts() {
+        MapTileCache mapTileCache = createMapTileCache(1024, 1024);
+        assertEquals("osm/all/0/0/0.json", new String(mapTileCache.get("osm/all/0/0/0.json")));
+        assertEquals("osm/all/0/0/0.json", new String(mapTileCache.get("osm/all/0/0/0.json")));
+        assertEquals(1, httpRepository.getCount.get());
+
+        mapTileCache = createMapTileCache(1024, 1024);
+        assertEquals("osm/all/0/0/0.json", new String(mapTileCache.get("osm/all/0/0/0.json")));
+        assertEquals(0, httpRepository.getCount.get());
+        assertEquals(18, mapTileCache.getDiskSizeBytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTilesAreEvictedFromDisk() {
+        MapTileCache mapTileCache = createMapTileCache(40, 0);
+        mapTileCache.get("osm/all/1/0/0.json");
+        mapTileCache.get("osm/all/1/0/1.json");
+        mapTileCache.get("osm/all/1/0/0.json");
+        assertEquals(2, httpRepository.getCount.get());
+
+        mapTileCache.get("osm/all/1/1/0.json");
+        assertEquals(36, mapTileCache.getDiskSizeBytes());
+
+        mapTileCache.get("osm/all/1/0/0.json");
+        assertEquals(3, httpRepository.getCount.get());
+        mapTileCache.get("osm/all/1/0/1.json");
+        assertEquals(4, httpRepository.getCount.get());
+    }
+
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        MapTileCache mapTileCache = createMapTileCache(1024, 1024);
+        httpRepository.latch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executorService.submit(() -> mapTileCache.get("osm/all/2/1/1.json")));
+            }
+            while (httpRepository.getCount.get() == 0) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+            httpRepository.latch.countDown();
+            for (Future<byte[]> future : futures) {
+                assertEquals("osm/all/2/1/1.json", new String(future.get(10, TimeUnit.SECONDS)));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(1, httpRepository.getCount.get());
+    }
+
+    @Test
+    public void testSeed() {
+        MapTileCache mapTileCache = createMapTileCache(1024, 1024);
+        assertTrue(mapTileCache.seed("osm/all/0/0/0.json"));
+        assertFalse(mapTileCache.seed("osm/all/0/0/0.json"));
+        assertEquals("osm/all/0/0/0.json", new String(mapTileCache.get("osm/all/0/0/0.json")));
+        assertEquals(1, httpRepository.getCount.get());
+    }
+
+    @Test
+    public void testGetTile() {
+        assertEquals(0, MapTileSeed.getTileX(-180, 0));
+        assertEquals(0, MapTileSeed.getTileY(85, 0));
+        assertEquals(2, MapTileSeed.getTileX(0, 2));
+        assertEquals(1, MapTileSeed.getTileY(40, 2));
+        assertEquals(3, MapTileSeed.getTileX(180, 2));
+        assertEquals(3, MapTileSeed.getTileY(-90, 2));
+    }
+
+    private MapTileCache createMapTileCache(long maxDiskSizeBytes, long maxMemorySizeBytes) {
+        Map<String, String> config = new HashMap<>();
+        config.put(Configuration.MAPZEN_TILE_API_KEY, "key");
+        config.put(MapTileCache.CONFIGURATION_PARAMETER_DIRECTORY, directory.getAbsolutePath());
+        config.put(MapTileCache.CONFIGURATION_PARAMETER_MAX_DISK_SIZE_BYTES, Long.toString(maxDiskSizeBytes));
+        config.put(MapTileCache.CONFIGURATION_PARAMETER_MAX_MEMORY_SIZE_BYTES, Long.toString(maxMemorySizeBytes));
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        httpRepository = new StubHttpRepository(configuration);
+        return new MapTileCache(configuration, httpRepository);
+    }
+
+    private static class StubHttpRepository extends HttpRepository {
+        private final AtomicInteger getCount = new AtomicInteger();
+        private volatile CountDownLatch latch;
+
+        StubHttpRepository(Configuration configuration) {
+            super(configuration);
+        }
+
+        @Override
+        public byte[] get(String url) {
+            getCount.incrementAndGet();
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+            assertTrue(url.startsWith(MapTileCache.MAPZEN_TILE_SERVER));
+            assertTrue(url.endsWith("?api_key=key"));
+            String uri = url.substring(MapTileCache.MAPZEN_TILE_SERVER.length(), url.length() - "?api_key=key".length());
+            return uri.getBytes();
+        }
+    }
+}
@@ -42,7 +42,7 @@ public class UserRepositoryDirectoryRepositoryTest {
     public void testSearchPeople() {
         List<User> users = new ArrayList<>();
         users.add(userJoe);
-        when(userRepository.find("joe")).thenReturn(users);
+        when(userRepository.find("joe", UserRepositoryDirectoryRepository.SEARCH_PEOPLE_LIMIT)).thenReturn(users);
 
         List<DirectoryPerson> results = userRepositoryDirectoryRepository.searchPeople("joe", user);
         assertEquals(1, results.size());
@@ -0,0 +1,158 @@
+package org.visallo.core.model.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.*;
+import org.vertexium.inmemory.InMemoryGraph;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BidirectionalPathFinderTest {
+    private static final String LABEL = "http://visallo.org/test#knows";
+    private static final String OTHER_LABEL = "http://visallo.org/test#other";
+    private InMemoryGraph graph;
+    private Authorizations authorizations;
+    private Visibility visibility;
+
+    @Before
+    public void before() {
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations();
+        visibility = new Visibility("");
+
+        // a 4x4 grid of vertices connected to their right and lower neighbors
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 4; column++) {
+                graph.addVertex(getGridVertexId(row, column), visibility, authorizations);
+            }
+        }
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 4; column++) {
+                if (column < 3) {
+                    addEdge(getGridVertexId(row, column), getGridVertexId(row, column + 1), LABEL);
+                }
+                if (row < 3) {
+                    addEdge(getGridVertexId(row + 1, column), getGridVertexId(row, column), LABEL);
+                }
+            }
+        }
+        addEdge(getGridVertexId(0, 0), getGridVertexId(3, 3), OTHER_LABEL);
+        graph.flush();
+    }
+
+    @Test
+    public void testFindsTheSamePathsAsVertexium() {
+        for (int hops = 1; hops <= 7; hops++) {
+            assertSamePaths(getGridVertexId(0, 0), getGridVertexId(3, 3), hops, null);
+            assertSamePaths(getGridVertexId(0, 0), getGridVertexId(3, 3), hops, new String[]{LABEL});
+            assertSamePaths(getGridVertexId(1, 2), getGridVertexId(2, 0), hops, new String[]{LABEL});
+        }
+    }
+
+    @Test
+    public void testStopsAtMaxPaths() {
+        List<List<String>> paths = new ArrayList<>();
+        BidirectionalPathFinder.Result result = new BidirectionalPathFinder(graph).findPaths(
+                new BidirectionalPathFinder.Options(getGridVertexId(0, 0), getGridVertexId(3, 3), 6).setMaxPaths(5),
+                authorizations,
+                new CollectingCallback(paths)
+        );
+        assertEquals(5, paths.size());
+        assertEquals(5, result.getPathCount());
+        assertEquals(BidirectionalPathFinder.StopReason.MAX_PATHS, result.getStopReason());
+    }
+
+    @Test
+    public void testStopsWhenCanceled() {
+        List<List<String>> paths = new ArrayList<>();
+        BidirectionalPathFinder.Result result = new BidirectionalPathFinder(graph).findPaths(
+                new BidirectionalPathFinder.Options(getGridVertexId(0, 0), getGridVertexId(3, 3), 6),
+                authorizations,
+                new CollectingCallback(paths) {
+                    @Override
+                    public boolean isCanceled() {
+                        return true;
+                    }
+                }
+        );
+        assertEquals(0, paths.size());
+        assertEquals(BidirectionalPathFinder.StopReason.CANCELED, result.getStopReason());
+    }
+
+    @Test
+    public void testDoesNotPassThroughVerticesOverMaxDegree() {
+        graph.addVertex("hub", visibility, authorizations);
+        graph.addVertex("a", visibility, authorizations);
+        graph.addVertex("b", visibility, authorizations);
+        addEdge("a", "hub", LABEL);
+        addEdge("hub", "b", LABEL);
+        for (int i = 0; i < 10; i++) {
+            graph.addVertex("leaf" + i, visibility, authorizations);
+            addEdge("hub", "leaf" + i, LABEL);
+        }
+        graph.addVertex("c", visibility, authorizations);
+        addEdge("a", "c", LABEL);
+        addEdge("c", "b", LABEL);
+        graph.flush();
+
+        List<List<String>> paths = new ArrayList<>();
+        BidirectionalPathFinder.Result result = new BidirectionalPathFinder(graph).findPaths(
+                new BidirectionalPathFinder.Options("a", "b", 2).setMaxDegree(5),
+                authorizations,
+                new CollectingCallback(paths)
+        );
+        assertEquals(Collections.singletonList(Arrays.asList("a", "c", "b")), paths);
+        assertEquals(BidirectionalPathFinder.StopReason.COMPLETE, result.getStopReason());
+        assertEquals(Collections.singleton("hub"), result.getSkippedVertexIds());
+    }
+
+    private void assertSamePaths(String sourceVertexId, String destVertexId, int hops, String[] labels) {
+        FindPathOptions findPathOptions = new FindPathOptions(sourceVertexId, destVertexId, hops).setLabels(labels);
+        Set<List<String>> expected = new HashSet<>();
+        for (Path path : graph.findPaths(findPathOptions, authorizations)) {
+            List<String> vertexIds = new ArrayList<>();
+            for (String vertexId : path) {
+                vertexIds.add(vertexId);
+            }
+            expected.add(vertexIds);
+        }
+
+        List<List<String>> paths = new ArrayList<>();
+        BidirectionalPathFinder.Result result = new BidirectionalPathFinder(graph).findPaths(
+                new BidirectionalPathFinder.Options(sourceVertexId, destVertexId, hops).setLabels(labels),
+                authorizations,
+                new CollectingCallback(paths)
+        );
+        String message = sourceVertexId + " -> " + destVertexId + " in " + hops + " hops";
+        assertEquals(message, expected, new HashSet<>(paths));
+        assertEquals(message, paths.size(), result.getPathCount());
+        assertEquals(BidirectionalPathFinder.StopReason.COMPLETE, result.getStopReason());
+    }
+
+    private void addEdge(String outVertexId, String inVertexId, String label) {
+        graph.addEdge(outVertexId + "-" + inVertexId, outVertexId, inVertexId, label, visibility, authorizations);
+    }
+
+    private static String getGridVertexId(int row, int column) {
+        return "v" + row + column;
+    }
+
+    private static class CollectingCallback implements BidirectionalPathFinder.Callback {
+        private final List<List<String>> paths;
+
+        CollectingCallback(List<List<String>> paths) {
+            this.paths = paths;
+        }
+
+        @Override
+        public void pathFound(List<String> path) {
+            paths.add(path);
+        }
+
+        @Override
+        public void progress(double progressPercent, String message) {
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.visallo.core.model.graph;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.Authorizations;
+import org.vertexium.Property;
+import org.vertexium.Vertex;
+import org.vertexium.Visibility;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.security.VisalloVisibility;
+import org.visallo.core.util.ShutdownService;
+import org.visallo.core.util.VisalloInMemoryTestBase;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConceptTypeCountRepositoryTest extends VisalloInMemoryTestBase {
+    private static final Visibility PUBLIC = new VisalloVisibility("").getVisibility();
+    private static final Visibility SECRET = new VisalloVisibility(Visibility.and(ImmutableSet.of("secret"))).getVisibility();
+    private ConceptTypeCountRepository conceptTypeCountRepository;
+    private ShutdownService shutdownService;
+    private Authorizations authorizations;
+    private Authorizations secretAuthorizations;
+
+    @Before
+    public void before() {
+        super.before();
+        shutdownService = new ShutdownService();
+        conceptTypeCountRepository = new ConceptTypeCountRepository(
+                getGraph(),
+                getWorkQueueRepository(),
+                getUserRepository(),
+                getAuthorizationRepository(),
+                getConfiguration(),
+                shutdownService
+        );
+        authorizations = getGraph().createAuthorizations();
+        secretAuthorizations = getGraph().createAuthorizations("secret");
+    }
+
+    @After
+    public void after() {
+        shutdownService.shutdown();
+    }
+
+    @Test
+    public void testCountsAreFilteredByAuthorizations() {
+        addVertex("v1", "conceptA", PUBLIC);
+        addVertex("v2", "conceptA", PUBLIC);
+        addVertex("v3", "conceptB", SECRET);
+
+        conceptTypeCountRepository.reconcile();
+        Map<Object, Long> counts = conceptTypeCountRepository.getCounts(authorizations);
+        assertEquals(2L, (long) counts.get("conceptA"));
+        assertNull(counts.get("conceptB"));
+
+        counts = conceptTypeCountRepository.getCounts(secretAuthorizations);
+        assertEquals(2L, (long) counts.get("conceptA"));
+        assertEquals(1L, (long) counts.get("conceptB"));
+    }
+
+    @Test
+    public void testFirstReadLoadsCountsInBackground() throws InterruptedException {
+        addVertex("v1", "conceptA", PUBLIC);
+        addVertex("v2", "conceptB", SECRET);
+
+        // answered from the graph until the counts are loaded
+        Map<Object, Long> counts = conceptTypeCountRepository.getCounts(authorizations);
+        assertEquals(1, counts.size());
+        assertEquals(1L, (long) counts.values().iterator().next());
+
+        for (int i = 0; i < 100 && !conceptTypeCountRepository.isLoaded(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(conceptTypeCountRepository.isLoaded());
+        counts = conceptTypeCountRepository.getCounts(secretAuthorizations);
+        assertEquals(1L, (long) counts.get("conceptA"));
+        assertEquals(1L, (long) counts.get("conceptB"));
+    }
+
+    @Test
+    public void testCountsAreMaintainedFromPushedChanges() {
+        addVertex("v1", "conceptA", PUBLIC);
+        conceptTypeCountRepository.reconcile();
+        assertEquals(1L, (long) conceptTypeCountRepository.getCounts(authorizations).get("conceptA"));
+
+        Vertex v2 = addVertex("v2", "conceptA", PUBLIC);
+        getWorkQueueRepository().pushElement(v2, Priority.NORMAL);
+        getWorkQueueRepository().pushElement(v2, Priority.NORMAL);
+        assertEquals(2L, (long) conceptTypeCountRepository.getCounts(authorizations).get("conceptA"));
+
+        VisalloProperties.CONCEPT_TYPE.setProperty(v2, "conceptB", PUBLIC, getSystemAuthorizations());
+        getGraph().flush();
+        v2 = getGraph().getVertex("v2", getSystemAuthorizations());
+        getWorkQueueRepository().pushGraphPropertyQueue(
+                v2,
+                VisalloProperties.CONCEPT_TYPE.getProperty(v2),
+                Priority.NORMAL
+        );
+        Map<Object, Long> counts = conceptTypeCountRepository.getCounts(authorizations);
+        assertEquals(1L, (long) counts.get("conceptA"));
+        assertEquals(1L, (long) counts.get("conceptB"));
+
+        long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
+        getGraph().deleteVertex(v2, getSystemAuthorizations());
+        getGraph().flush();
+        getWorkQueueRepository().pushVertexDeletion(v2, beforeDeletionTimestamp, Priority.NORMAL);
+        counts = conceptTypeCountRepository.getCounts(authorizations);
+        assertEquals(1L, (long) counts.get("conceptA"));
+        assertNull(counts.get("conceptB"));
+
+        conceptTypeCountRepository.reconcile();
+        counts = conceptTypeCountRepository.getCounts(authorizations);
+        assertEquals(1L, (long) counts.get("conceptA"));
+        assertNull(counts.get("conceptB"));
+    }
+
+    @Test
+    public void testWorkspaceHidesDoNotChangeCounts() {
+        Vertex v1 = addVertex("v1", "conceptA", PUBLIC);
+        conceptTypeCountRepository.reconcile();
+
+        Visibility workspaceVisibility = new Visibility("ws1");
+        long beforeHiddenTimestamp = System.currentTimeMillis() - 1;
+        getGraph().markVertexHidden(v1, workspaceVisibility, getSystemAuthorizations());
+        getGraph().flush();
+        getWorkQueueRepository().pushVertexHidden(v1, beforeHiddenTimestamp, Priority.NORMAL);
+        assertEquals(1L, (long) conceptTypeCountRepository.getCounts(authorizations).get("conceptA"));
+
+        getGraph().markVertexVisible(v1, workspaceVisibility, getSystemAuthorizations());
+        getGraph().flush();
+        getWorkQueueRepository().pushVertexUnhidden(v1, Priority.NORMAL);
+        assertEquals(1L, (long) conceptTypeCountRepository.getCounts(authorizations).get("conceptA"));
+    }
+
+    @Test
+    public void testPublishMovesCountsToPublishedVisibility() {
+        VisibilityJson visibilityJson = new VisibilityJson("");
+        visibilityJson.addWorkspace("ws1");
+        Visibility sandboxVisibility = getVisibilityTranslator().toVisibility(visibilityJson).getVisibility();
+        Authorizations workspaceAuthorizations = getGraph().createAuthorizations("ws1");
+        Vertex v1 = addVertex("v1", "conceptA", sandboxVisibility);
+        conceptTypeCountRepository.reconcile();
+        assertNull(conceptTypeCountRepository.getCounts(authorizations).get("conceptA"));
+        assertEquals(1L, (long) conceptTypeCountRepository.getCounts(workspaceAuthorizations).get("conceptA"));
+
+        Property conceptType = v1.getProperty(VisalloProperties.CONCEPT_TYPE.getPropertyName());
+        v1.prepareMutation()
+                .alterElementVisibility(PUBLIC)
+                .alterPropertyVisibility(conceptType, PUBLIC)
+                .save(getSystemAuthorizations());
+        getGraph().flush();
+        getWorkQueueRepository().broadcastPublishVertex(v1);
+        assertEquals(1L, (long) conceptTypeCountRepository.getCounts(authorizations).get("conceptA"));
+        assertEquals(1L, (long) conceptTypeCountRepository.getCounts(workspaceAuthorizations).get("conceptA"));
+    }
+
+    private Vertex addVertex(String vertexId, String conceptType, Visibility visibility) {
+        Vertex vertex = getGraph().prepareVertex(vertexId, visibility)
+                .setProperty(VisalloProperties.CONCEPT_TYPE.getPropertyName(), conceptType, visibility)
+                .save(getSystemAuthorizations());
+        getGraph().flush();
+        return vertex;
+    }
+
+    private Authorizations getSystemAuthorizations() {
+        return getAuthorizationRepository().getGraphAuthorizations(getUserRepository().getSystemUser());
+    }
+}
@@ -0,0 +1,96 @@
+package org.visallo.core.model.longRunningProcess;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.Authorizations;
+import org.vertexium.Vertex;
+import org.vertexium.Visibility;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class FindPathLongRunningProcessWorkerTest {
+    private static final int PATH_COUNT = 20;
+    private static final String LABEL = "http://visallo.org/test#knows";
+    private InMemoryGraph graph;
+    private Authorizations authorizations;
+    private LongRunningProcessRepository longRunningProcessRepository;
+    private List<Integer> savedPathCounts;
+    private List<Double> pathProgress;
+
+    @Before
+    public void before() {
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations();
+        Visibility visibility = new Visibility("");
+
+        // PATH_COUNT paths of two hops from s to d
+        Vertex s = graph.addVertex("s", visibility, authorizations);
+        Vertex d = graph.addVertex("d", visibility, authorizations);
+        for (int i = 0; i < PATH_COUNT; i++) {
+            Vertex m = graph.addVertex("m" + i, visibility, authorizations);
+            graph.addEdge(s, m, LABEL, visibility, authorizations);
+            graph.addEdge(m, d, LABEL, visibility, authorizations);
+        }
+        graph.flush();
+
+        longRunningProcessRepository = mock(LongRunningProcessRepository.class);
+        savedPathCounts = new ArrayList<>();
+        doAnswer(invocation -> {
+            // the saved results share the paths array of the worker, so its length is read at the time of the save
+            savedPathCounts.add(((JSONObject) invocation.getArguments()[1]).getJSONArray("paths").length());
+            return null;
+        }).when(longRunningProcessRepository).saveResults(eq("p1"), any(JSONObject.class));
+        pathProgress = new ArrayList<>();
+        doAnswer(invocation -> {
+            if (((String) invocation.getArguments()[2]).startsWith("Found")) {
+                pathProgress.add((Double) invocation.getArguments()[1]);
+            }
+            return null;
+        }).when(longRunningProcessRepository).reportProgress(eq("p1"), anyDouble(), anyString());
+    }
+
+    @Test
+    public void testPathsAreSavedInDoublingBatches() {
+        JSONObject queueItem = findPath(100);
+
+        assertEquals(Arrays.asList(1, 2, 4, 8, 16, PATH_COUNT), savedPathCounts);
+        assertEquals(PATH_COUNT, queueItem.getInt("resultsCount"));
+    }
+
+    @Test
+    public void testProgressFollowsTheNumberOfPaths() {
+        findPath(100);
+
+        assertEquals(PATH_COUNT, pathProgress.size());
+        assertEquals(0.505, pathProgress.get(0), 0.0001);
+        assertEquals(0.6, pathProgress.get(PATH_COUNT - 1), 0.0001);
+    }
+
+    @Test
+    public void testProgressOfMaxPathsIsComplete() {
+        JSONObject queueItem = findPath(10);
+
+        assertEquals(10, queueItem.getInt("resultsCount"));
+        assertEquals(1.0, pathProgress.get(pathProgress.size() - 1), 0.0001);
+    }
+
+    private JSONObject findPath(int maxPaths) {
+        Map<String, String> config = new HashMap<>();
+        config.put(FindPathLongRunningProcessWorker.CONFIG_MAX_PATHS, Integer.toString(maxPaths));
+        config.put(FindPathLongRunningProcessWorker.CONFIG_RESULTS_INTERVAL_MILLIS, "0");
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        FindPathLongRunningProcessWorker worker = new FindPathLongRunningProcessWorker(graph, longRunningProcessRepository, configuration);
+
+        JSONObject queueItem = new FindPathLongRunningProcessQueueItem("s", "d", null, 2, null, authorizations).toJson();
+        queueItem.put("id", "p1");
+        worker.processInternal(queueItem, new LongRunningProcessCancellationToken());
+        return queueItem;
+    }
+}
@@ -0,0 +1,244 @@
+package org.visallo.core.model.longRunningProcess;
+
+import com.google.common.collect.Sets;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.status.JmxMetricsManager;
+import org.visallo.core.status.model.Status;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class LongRunningProcessSchedulerTest {
+    private static final long WAIT_MILLIS = 5000;
+    private WorkQueueRepository workQueueRepository;
+    private Map<String, String> config;
+
+    @Before
+    public void before() {
+        workQueueRepository = mock(WorkQueueRepository.class);
+        config = new HashMap<>();
+    }
+
+    @Test
+    public void testSelectsTheUserWithTheLeastRunTimeFirst() throws Exception {
+        LongRunningProcessScheduler scheduler = createScheduler();
+
+        LongRunningProcessScheduler.Ticket a1 = scheduler.tryAcquire(createQueueItem("a1", "fairType", "userA", 1));
+        assertNotNull(a1);
+        Thread.sleep(20);
+        scheduler.release(a1);
+
+        List<JSONObject> queueItems = Arrays.asList(
+                createQueueItem("a2", "fairType", "userA", 2),
+                createQueueItem("b1", "fairType", "userB", 3),
+                createQueueItem("c1", "fairType", "userC", 4)
+        );
+        // userB and userC have not run anything, so the earlier of the two goes first
+        assertEquals(1, scheduler.selectNext(queueItems, false));
+        assertEquals(1, getCount(scheduler, "fairType.queueWait"));
+        assertEquals(1, getCount(scheduler, "fairType.runTime"));
+    }
+
+    @Test
+    public void testTypesAtTheirLimitArePassedOverAndRequeuedWhenFull() throws Exception {
+        config.put(LongRunningProcessScheduler.CONFIG_CONCURRENCY_PREFIX + "slowType", "1");
+        LongRunningProcessScheduler scheduler = createScheduler();
+        AtomicInteger capacityChangeCount = new AtomicInteger();
+        scheduler.addCapacityListener(capacityChangeCount::incrementAndGet);
+
+        LongRunningProcessScheduler.Ticket slow1 = scheduler.tryAcquire(createQueueItem("slow1", "slowType", "userA", 1));
+        assertNotNull(slow1);
+
+        JSONObject slow2 = createQueueItem("slow2", "slowType", "userA", 2);
+        JSONObject fast1 = createQueueItem("fast1", "fastType", "userA", 3);
+        assertEquals(1, scheduler.selectNext(Arrays.asList(slow2, fast1), false));
+        assertEquals(-1, scheduler.selectNext(Collections.singletonList(slow2), false));
+
+        // a runner that can not fetch anything else takes the process to put it back on the queue
+        assertEquals(0, scheduler.selectNext(Collections.singletonList(slow2), true));
+        assertNull(scheduler.tryAcquire(slow2));
+        assertEquals(1, getCount(scheduler, "slowType.requeued"));
+
+        scheduler.release(slow1);
+        assertEquals(1, capacityChangeCount.get());
+        assertEquals(0, scheduler.selectNext(Collections.singletonList(slow2), false));
+    }
+
+    @Test
+    public void testMoreQueuedProcessesThanRunnerThreads() throws Exception {
+        config.put(LongRunningProcessScheduler.CONFIG_CONCURRENCY_PREFIX + "slowType", "1");
+        LongRunningProcessScheduler scheduler = createScheduler();
+
+        // the slow processes arrive first and block until released, the fast ones arrive after them
+        LinkedList<JSONObject> fetched = new LinkedList<>();
+        for (int i = 0; i < 3; i++) {
+            fetched.add(createQueueItem("slow" + i, "slowType", "user" + i, i));
+        }
+        for (int i = 0; i < 4; i++) {
+            fetched.add(createQueueItem("fast" + i, "fastType", "user" + i, 10 + i));
+        }
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        AtomicInteger runningSlowCount = new AtomicInteger();
+        AtomicInteger maxRunningSlowCount = new AtomicInteger();
+        List<String> finished = Collections.synchronizedList(new ArrayList<>());
+        scheduler.addCapacityListener(() -> {
+            synchronized (fetched) {
+                fetched.notifyAll();
+            }
+        });
+
+        // two runner threads sharing the fetched queue items, selecting and starting them like the runners do
+        List<Thread> runners = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Thread runner = new Thread(() -> {
+                try {
+                    while (true) {
+                        JSONObject queueItem;
+                        synchronized (fetched) {
+                            int index;
+                            while ((index = scheduler.selectNext(fetched, false)) < 0) {
+                                if (fetched.size() == 0) {
+                                    return;
+                                }
+                                fetched.wait();
+                            }
+                            queueItem = fetched.remove(index);
+                        }
+                        LongRunningProcessScheduler.Ticket ticket = scheduler.tryAcquire(queueItem);
+                        if (ticket == null) {
+                            synchronized (fetched) {
+                                fetched.add(queueItem);
+                            }
+                            continue;
+                        }
+                        boolean slow = queueItem.getString("type").equals("slowType");
+                        try {
+                            if (slow) {
+                                maxRunningSlowCount.accumulateAndGet(runningSlowCount.incrementAndGet(), Math::max);
+                                releaseSlow.await(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                                runningSlowCount.decrementAndGet();
+                            }
+                            finished.add(ticket.getId());
+                        } finally {
+                            scheduler.release(ticket);
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            runner.setDaemon(true);
+            runner.start();
+            runners.add(runner);
+        }
+
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (finished.size() < 4) {
+            assertTrue("timed out waiting for the fast processes", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+        // the fast processes got past the slow ones waiting for the only slot of their type
+        assertEquals(Sets.newHashSet("fast0", "fast1", "fast2", "fast3"), new HashSet<>(finished));
+        assertEquals(1, runningSlowCount.get());
+
+        releaseSlow.countDown();
+        for (Thread runner : runners) {
+            runner.join(WAIT_MILLIS);
+        }
+        assertEquals(7, finished.size());
+        assertEquals(1, maxRunningSlowCount.get());
+        assertEquals(0, getCount(scheduler, "slowType.running"));
+    }
+
+    @Test
+    public void testIdleUsersAreForgotten() throws Exception {
+        config.put(LongRunningProcessScheduler.CONFIG_USER_WEIGHT_PREFIX + "userA", "100000");
+        LongRunningProcessScheduler scheduler = createScheduler();
+
+        LongRunningProcessScheduler.Ticket ticket = scheduler.tryAcquire(createQueueItem("a1", "type", "userA", 1));
+        assertEquals(1, scheduler.getUserCount());
+        scheduler.release(ticket);
+        assertEquals(0, scheduler.getUserCount());
+    }
+
+    @Test
+    public void testCancelBroadcastStopsRunningProcesses() throws Exception {
+        LongRunningProcessScheduler scheduler = createScheduler();
+
+        LongRunningProcessScheduler.Ticket running = scheduler.tryAcquire(createQueueItem("running", "cancelType", "userA", 1));
+        ArgumentCaptor<WorkQueueRepository.BroadcastConsumer> broadcastConsumer = ArgumentCaptor.forClass(WorkQueueRepository.BroadcastConsumer.class);
+        verify(workQueueRepository).subscribeToBroadcastMessages(broadcastConsumer.capture());
+
+        broadcastConsumer.getValue().broadcastReceived(createCancelBroadcast("other"));
+        assertFalse(running.getCancellationToken().isCanceled());
+        broadcastConsumer.getValue().broadcastReceived(createCancelBroadcast("running"));
+        assertTrue(running.getCancellationToken().isCanceled());
+        assertFalse(running.isTimedOut());
+        try {
+            running.getCancellationToken().throwIfCanceled();
+            fail("expected exception");
+        } catch (LongRunningProcessCanceledException ex) {
+            assertEquals("Canceled", ex.getMessage());
+        }
+        scheduler.release(running);
+    }
+
+    @Test
+    public void testTimesOutRunningProcesses() throws Exception {
+        config.put(LongRunningProcessScheduler.CONFIG_TIMEOUT_SECONDS_PREFIX + "timeoutType", "1");
+        LongRunningProcessScheduler scheduler = createScheduler();
+
+        LongRunningProcessScheduler.Ticket ticket = scheduler.tryAcquire(createQueueItem("p1", "timeoutType", "userA", 1));
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!ticket.getCancellationToken().isCanceled() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(ticket.isTimedOut());
+        assertEquals("Timed out after 1 seconds", ticket.getCancellationToken().getReason());
+        assertEquals(1, getCount(scheduler, "timeoutType.timedOut"));
+        scheduler.release(ticket);
+    }
+
+    private LongRunningProcessScheduler createScheduler() {
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        return new LongRunningProcessScheduler(configuration, workQueueRepository, new JmxMetricsManager());
+    }
+
+    private static long getCount(LongRunningProcessScheduler scheduler, String metricName) {
+        Status.Metric metric = scheduler.getMetrics().get(metricName);
+        if (metric instanceof Status.CounterMetric) {
+            return ((Status.CounterMetric) metric).getCount();
+        }
+        return ((Status.TimerMetric) metric).getCount();
+    }
+
+    private static JSONObject createQueueItem(String id, String type, String userId, long enqueueTime) {
+        JSONObject queueItem = new JSONObject();
+        queueItem.put("id", id);
+        queueItem.put("type", type);
+        queueItem.put("userId", userId);
+        queueItem.put("enqueueTime", enqueueTime);
+        return queueItem;
+    }
+
+    private static JSONObject createCancelBroadcast(String id) {
+        JSONObject data = new JSONObject();
+        data.put("id", id);
+        data.put("canceled", true);
+        JSONObject json = new JSONObject();
+        json.put("type", "longRunningProcessChange");
+        json.put("data", data);
+        return json;
+    }
+}
@@ -0,0 +1,75 @@
+package org.visallo.core.model.longRunningProcess;
+
+import com.codahale.metrics.MetricRegistry;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.visallo.core.status.MetricsManager;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class LongRunningProcessWorkerTest {
+    private MetricRegistry registry;
+    private RuntimeException exception;
+    private LongRunningProcessWorker worker;
+
+    @Before
+    public void before() {
+        worker = new LongRunningProcessWorker() {
+            @Override
+            public boolean isHandled(JSONObject longRunningProcessQueueItem) {
+                return true;
+            }
+
+            @Override
+            protected void processInternal(JSONObject longRunningProcessQueueItem, LongRunningProcessCancellationToken cancellationToken) {
+                if (exception != null) {
+                    throw exception;
+                }
+            }
+        };
+        registry = new MetricRegistry();
+        MetricsManager metricsManager = mock(MetricsManager.class);
+        when(metricsManager.getNamePrefix(worker)).thenReturn("worker.");
+        when(metricsManager.counter(anyString())).thenAnswer(invocation -> registry.counter((String) invocation.getArguments()[0]));
+        when(metricsManager.timer(anyString())).thenAnswer(invocation -> registry.timer((String) invocation.getArguments()[0]));
+        worker.setMetricsManager(metricsManager);
+        worker.prepare(null);
+    }
+
+    @Test
+    public void testCanceledProcessesAreNotErrors() {
+        exception = new LongRunningProcessCanceledException("Timed out after 1 seconds");
+        try {
+            worker.process(new JSONObject().put("id", "p1"));
+            fail("expected exception");
+        } catch (LongRunningProcessCanceledException ex) {
+            assertSame(exception, ex);
+        }
+        assertEquals(1, getCount("total-canceled"));
+        assertEquals(0, getCount("total-errors"));
+        assertEquals(0, getCount("total-processed"));
+    }
+
+    @Test
+    public void testFailedProcessesAreErrors() {
+        exception = new IllegalStateException("boom");
+        try {
+            worker.process(new JSONObject().put("id", "p1"));
+            fail("expected exception");
+        } catch (IllegalStateException ex) {
+            assertSame(exception, ex);
+        }
+        assertEquals(0, getCount("total-canceled"));
+        assertEquals(1, getCount("total-errors"));
+
+        exception = null;
+        worker.process(new JSONObject().put("id", "p2"));
+        assertEquals(1, getCount("total-processed"));
+    }
+
+    private long getCount(String metricName) {
+        return registry.counter("worker." + metricName).getCount();
+    }
+}
@@ -7,17 +7,21 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.visallo.core.exception.VisalloAccessDeniedException;
 import org.visallo.core.model.user.UserRepository;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.user.User;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -131,4 +135,55 @@ public class UserNotificationRepositoryTest {
         assertEquals("t-60", activeNotifications.get(1).getTitle());
         assertEquals("t-30", activeNotifications.get(2).getTitle());
     }
+
+    @Test
+    public void testMarkRead() {
+        long currentTime = new Date().getTime();
+        UserNotification notification1 = new UserNotification("user1", "n1", "Message 1", null, null, new Date(currentTime - 1000), null);
+        UserNotification notification2 = new UserNotification("user1", "n2", "Message 2", null, null, new Date(currentTime - 1000), null);
+        simpleOrmSession.save(notification1, "", simpleOrmContext);
+        simpleOrmSession.save(notification2, "", simpleOrmContext);
+        when(userRepository.getSimpleOrmContext(eq(user1))).thenReturn(simpleOrmContext);
+
+        userNotificationRepository.markRead(new String[]{notification1.getId()}, user1);
+
+        List<UserNotification> activeNotifications = userNotificationRepository.getActiveNotifications(user1)
+                .collect(Collectors.toList());
+        assertEquals(1, activeNotifications.size());
+        assertEquals("n2", activeNotifications.get(0).getTitle());
+        verify(workQueueRepository).pushUserNotificationsMarkedRead(eq("user1"), eq(Collections.singletonList(notification1.getId())));
+    }
+
+    @Test(expected = VisalloAccessDeniedException.class)
+    public void testMarkReadOtherUsersNotification() {
+        UserNotification notification = new UserNotification("user2", "n1", "Message 1", null, null, null);
+        simpleOrmSession.save(notification, "", simpleOrmContext);
+        when(userRepository.getSimpleOrmContext(eq(user1))).thenReturn(simpleOrmContext);
+
+        userNotificationRepository.markRead(new String[]{notification.getId()}, user1);
+    }
+
+    @Test
+    public void testCompact() {
+        long currentTime = new Date().getTime();
+        long day = TimeUnit.DAYS.toMillis(1);
+        UserNotification oldRead = new UserNotification("user1", "old read", "Message 1", null, null, new Date(currentTime - 10 * day), null);
+        oldRead.setMarkedRead(true);
+        UserNotification oldExpired = new UserNotification("user1", "old expired", "Message 2", null, null, new Date(currentTime - 10 * day), new ExpirationAge(1, ExpirationAgeUnit.DAY));
+        UserNotification recentlyExpired = new UserNotification("user1", "recently expired", "Message 3", null, null, new Date(currentTime - 2 * day), new ExpirationAge(1, ExpirationAgeUnit.DAY));
+        UserNotification old = new UserNotification("user1", "old", "Message 4", null, null, new Date(currentTime - 10 * day), null);
+        for (UserNotification notification : new UserNotification[]{oldRead, oldExpired, recentlyExpired, old}) {
+            simpleOrmSession.save(notification, "", simpleOrmContext);
+        }
+        when(userRepository.getSimpleOrmContext(any(User.class))).thenReturn(simpleOrmContext);
+
+        assertEquals(2, userNotificationRepository.compact(7, TimeUnit.DAYS, user1));
+
+        List<String> titles = userNotificationRepository.getActiveNotificationsOlderThan(0, TimeUnit.SECONDS, user1)
+                .map(UserNotification::getTitle)
+                .collect(Collectors.toList());
+        assertEquals(Collections.singletonList("old"), titles);
+        assertNull(userNotificationRepository.getNotification(oldRead.getId(), user1));
+        assertNotNull(userNotificationRepository.getNotification(recentlyExpired.getId(), user1));
+    }
 }
@@ -0,0 +1,183 @@
+package org.visallo.core.model.search;
+
+import com.google.common.collect.Sets;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.vertexium.Authorizations;
+import org.vertexium.Vertex;
+import org.vertexium.inmemory.InMemoryAuthorizations;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
+import org.visallo.core.model.ontology.Concept;
+import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.status.JmxMetricsManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SavedSearchResultCacheTest {
+    private static final String WORKSPACE_ID = "WS1";
+    private static final String PERSON = "http://visallo.org/test#person";
+    private static final String EMPLOYEE = "http://visallo.org/test#employee";
+    private static final String PLACE = "http://visallo.org/test#place";
+    private static final String AGE = "http://visallo.org/test#age";
+    private static final String NAME = "http://visallo.org/test#name";
+    private OntologyRepository ontologyRepository;
+    private WorkQueueRepository workQueueRepository;
+
+    @Before
+    public void before() {
+        ontologyRepository = mock(OntologyRepository.class);
+        workQueueRepository = mock(WorkQueueRepository.class);
+        Concept person = createConcept(PERSON);
+        Concept employee = createConcept(EMPLOYEE);
+        when(ontologyRepository.getConceptAndAllChildrenByIri(PERSON, WORKSPACE_ID)).thenReturn(Sets.newHashSet(person, employee));
+    }
+
+    @Test
+    public void testKeyIsNormalized() {
+        SavedSearchResultCache cache = createCache(600);
+        verify(workQueueRepository).addGraphChangeListener(cache);
+
+        SearchOptions searchOptions = createSearchOptions("[]");
+        cache.put(cache.createKey("s1", searchOptions, new InMemoryAuthorizations("a", "b")), searchOptions, "result", 6, false);
+
+        Map<String, Object> parameters = new HashMap<>(searchOptions.getParameters());
+        parameters.put("_", "1234");
+        SearchOptions sameSearchOptions = new SearchOptions(parameters, WORKSPACE_ID);
+        assertEquals("result", cache.get(cache.createKey("s1", sameSearchOptions, new InMemoryAuthorizations("b", "a")), String.class));
+        assertNull(cache.get(cache.createKey("s1", searchOptions, new InMemoryAuthorizations("a")), String.class));
+        assertNull(cache.get(cache.createKey("s2", searchOptions, new InMemoryAuthorizations("a", "b")), String.class));
+        assertNull(cache.get(cache.createKey("s1", new SearchOptions(parameters, "WS2"), new InMemoryAuthorizations("a", "b")), String.class));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testAggregationsAreInvalidatedByReferencedProperties() {
+        SavedSearchResultCache cache = createCache(600);
+        Authorizations authorizations = new InMemoryAuthorizations("a");
+        SearchOptions searchOptions = createSearchOptions("[{\"propertyName\":\"" + NAME + "\",\"predicate\":\"has\"}]");
+        SavedSearchResultCache.Key key = cache.createKey("s1", searchOptions, authorizations);
+        cache.put(key, searchOptions, "result", 6, false);
+
+        cache.graphChanged(createVertex(PLACE), "k1", AGE, ElementOrPropertyStatus.UPDATE);
+        cache.graphChanged(createVertex(EMPLOYEE), "k1", "http://visallo.org/test#other", ElementOrPropertyStatus.UPDATE);
+        assertEquals(1, cache.size());
+
+        cache.graphChanged(createVertex(EMPLOYEE), "k1", AGE, ElementOrPropertyStatus.UPDATE);
+        assertEquals(0, cache.size());
+
+        cache.put(key, searchOptions, "result", 6, false);
+        cache.graphChanged(createVertex(PERSON), "k1", NAME, ElementOrPropertyStatus.DELETION);
+        assertEquals(0, cache.size());
+
+        cache.put(key, searchOptions, "result", 6, false);
+        cache.graphChanged(createVertex(PERSON), null, null, ElementOrPropertyStatus.UPDATE);
+        assertEquals(0, cache.size());
+
+        cache.put(key, searchOptions, "result", 6, false);
+        cache.graphChanged(createVertex(PLACE), "", VisalloProperties.CONCEPT_TYPE.getPropertyName(), ElementOrPropertyStatus.UPDATE);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testElementsAreInvalidatedByAnyProperty() {
+        SavedSearchResultCache cache = createCache(600);
+        SearchOptions searchOptions = createSearchOptions("[]");
+        cache.put(cache.createKey("s1", searchOptions, new InMemoryAuthorizations("a")), searchOptions, "result", 6, true);
+
+        cache.graphChanged(createVertex(PLACE), "k1", "http://visallo.org/test#other", ElementOrPropertyStatus.UPDATE);
+        assertEquals(1, cache.size());
+        cache.graphChanged(createVertex(PERSON), "k1", "http://visallo.org/test#other", ElementOrPropertyStatus.UPDATE);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testBroadcastsFromOtherProcessesInvalidate() {
+        SavedSearchResultCache cache = createCache(600);
+        SearchOptions searchOptions = createSearchOptions("[]");
+        SavedSearchResultCache.Key key = cache.createKey("s1", searchOptions, new InMemoryAuthorizations("a"));
+        cache.put(key, searchOptions, "result", 6, false);
+        ArgumentCaptor<WorkQueueRepository.BroadcastConsumer> consumer = ArgumentCaptor.forClass(WorkQueueRepository.BroadcastConsumer.class);
+        verify(workQueueRepository).subscribeToBroadcastMessages(consumer.capture());
+
+        consumer.getValue().broadcastReceived(propertyChange(new JSONObject().put("conceptType", PLACE).put("propertyName", AGE)));
+        consumer.getValue().broadcastReceived(propertyChange(new JSONObject().put("conceptType", EMPLOYEE).put("propertyName", NAME)));
+        consumer.getValue().broadcastReceived(new JSONObject().put("type", "workProductChange").put("data", new JSONObject().put("id", "p1")));
+        assertEquals(1, cache.size());
+
+        consumer.getValue().broadcastReceived(propertyChange(new JSONObject().put("conceptType", EMPLOYEE).put("propertyName", AGE)));
+        assertEquals(0, cache.size());
+
+        // without the concept type any result could depend on the vertex
+        cache.put(key, searchOptions, "result", 6, false);
+        consumer.getValue().broadcastReceived(propertyChange(new JSONObject()));
+        assertEquals(0, cache.size());
+
+        cache.put(key, searchOptions, "result", 6, false);
+        consumer.getValue().broadcastReceived(new JSONObject()
+                .put("type", "verticesDeleted")
+                .put("data", new JSONObject().put("vertexIds", new JSONArray().put("v1"))));
+        assertEquals(0, cache.size());
+
+        cache.put(key, searchOptions, "result", 6, false);
+        verify(workQueueRepository).subscribeToBroadcastMessages(any(WorkQueueRepository.BroadcastConsumer.class));
+    }
+
+    @Test
+    public void testExpiresAfterTtl() {
+        SavedSearchResultCache cache = createCache(0);
+        SearchOptions searchOptions = createSearchOptions("[]");
+        SavedSearchResultCache.Key key = cache.createKey("s1", searchOptions, new InMemoryAuthorizations("a"));
+        cache.put(key, searchOptions, "result", 6, false);
+        assertNull(cache.get(key, String.class));
+    }
+
+    private SavedSearchResultCache createCache(long ttlSeconds) {
+        Map<String, String> config = new HashMap<>();
+        config.put(SavedSearchResultCache.CONFIG_TTL_SECONDS, Long.toString(ttlSeconds));
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        return new SavedSearchResultCache(configuration, ontologyRepository, workQueueRepository, new JmxMetricsManager());
+    }
+
+    private static SearchOptions createSearchOptions(String filter) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("q", "*");
+        parameters.put("size", "0");
+        parameters.put("conceptType", PERSON);
+        parameters.put("filter", filter);
+        parameters.put("aggregations[]", new String[]{
+                "{\"name\":\"ages\",\"type\":\"histogram\",\"field\":\"" + AGE + "\",\"interval\":\"10\"}"
+        });
+        return new SearchOptions(parameters, WORKSPACE_ID);
+    }
+
+    private static JSONObject propertyChange(JSONObject data) {
+        return new JSONObject()
+                .put("type", "propertyChange")
+                .put("data", data.put("graphVertexId", "v1"));
+    }
+
+    private static Concept createConcept(String iri) {
+        Concept concept = mock(Concept.class);
+        when(concept.getIRI()).thenReturn(iri);
+        return concept;
+    }
+
+    private static Vertex createVertex(String conceptType) {
+        Vertex vertex = mock(Vertex.class);
+        when(vertex.getId()).thenReturn("v1");
+        when(vertex.getPropertyValue(VisalloProperties.CONCEPT_TYPE.getPropertyName())).thenReturn(conceptType);
+        return vertex;
+    }
+}
@@ -9,13 +9,14 @@ import org.vertexium.*;
 import org.vertexium.inmemory.InMemoryGraph;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.user.GraphAuthorizationRepository;
+import org.visallo.web.clientapi.model.ClientApiSourceInfo;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNull;
+import static org.junit.Assert.*;
+import static org.vertexium.util.IterableUtils.toList;
 
 @RunWith(MockitoJUnitRunner.class)
 public class TermMentionRepositoryTest {
@@ -88,4 +89,104 @@ public class TermMentionRepositoryTest {
         assertEquals(1, results.size());
         assertEquals("tm", results.get(0).getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindByVertexIdAndPropertyUsesIndex() {
+        Vertex doc = graph.addVertex("doc", visibility, authorizations);
+        Vertex v = graph.addVertex("v", visibility, authorizations);
+        for (String propertyKey : new String[]{"key1", "key2"}) {
+            termMentionRepository.addSourceInfoToVertex(
+                    v, v.getId(), TermMentionFor.PROPERTY, propertyKey, "name", visibility,
+                    "snippet", "", VisalloProperties.TEXT.getPropertyName(), 0, 5, doc, visibility, authorizations
+            );
+        }
+
+        TermMentionIndex termMentionIndex = new TermMentionIndex(graph);
+        assertTrue(termMentionIndex.isIndexed("v", TermMentionIndex.Kind.RESOLVED_TO));
+        assertTrue(termMentionIndex.isIndexed("doc", TermMentionIndex.Kind.HAS_TERM_MENTION));
+        assertEquals(1, termMentionIndex.findIds("v", TermMentionIndex.Kind.RESOLVED_TO, "key1", "name", entry -> true).size());
+        assertEquals(0, termMentionIndex.findIds("v", TermMentionIndex.Kind.RESOLVED_TO, "key3", "name", entry -> true).size());
+
+        List<Vertex> results = toList(termMentionRepository.findByVertexIdAndProperty("v", "key2", "name", visibility, authorizations));
+        assertEquals(1, results.size());
+        assertEquals("key2", VisalloProperties.TERM_MENTION_REF_PROPERTY_KEY.getPropertyValue(results.get(0)));
+
+        results = toList(termMentionRepository.findByOutVertexAndProperty("doc", "", VisalloProperties.TEXT.getPropertyName(), authorizations));
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    public void testGetSourceInfo() {
+        Vertex doc = graph.addVertex("doc", visibility, authorizations);
+        Vertex v = graph.prepareVertex("v", visibility)
+                .addPropertyValue("key1", "name", "value1", visibility)
+                .addPropertyValue("key2", "name", "value2", visibility)
+                .save(authorizations);
+        termMentionRepository.addSourceInfoToVertex(
+                v, v.getId(), TermMentionFor.PROPERTY, "key1", "name", visibility,
+                "snippet1", "", VisalloProperties.TEXT.getPropertyName(), 0, 5, doc, visibility, authorizations
+        );
+        termMentionRepository.addSourceInfoToVertex(
+                v, v.getId(), TermMentionFor.PROPERTY, "key2", "name", visibility,
+                "snippet2", "", VisalloProperties.TEXT.getPropertyName(), 6, 10, doc, visibility, authorizations
+        );
+        graph.flush();
+
+        ClientApiSourceInfo sourceInfo = termMentionRepository.getSourceInfoForVertexProperty(
+                "v",
+                v.getProperty("key2", "name"),
+                authorizations
+        );
+        assertEquals("snippet2", sourceInfo.snippet);
+        assertEquals(6, sourceInfo.startOffset);
+        assertEquals("doc", sourceInfo.vertexId);
+
+        // without a property the term mentions of any property match
+        sourceInfo = termMentionRepository.getSourceInfoForVertex(v, authorizations);
+        assertNotNull(sourceInfo);
+        assertEquals("doc", sourceInfo.vertexId);
+    }
+
+    @Test
+    public void testReindex() {
+        Vertex v = graph.addVertex("v", visibility, authorizations);
+        VertexBuilder tmBuilder = graph.prepareVertex("tm", termMentionVisibility);
+        VisalloProperties.TERM_MENTION_REF_PROPERTY_KEY.setProperty(tmBuilder, "key", termMentionVisibility);
+        VisalloProperties.TERM_MENTION_REF_PROPERTY_NAME.setProperty(tmBuilder, "name", termMentionVisibility);
+        Vertex tm = tmBuilder.save(authorizations);
+        graph.addEdge("tm_to_v", tm, v, VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO, termMentionVisibility, authorizations);
+        graph.flush();
+
+        TermMentionIndex termMentionIndex = new TermMentionIndex(graph);
+        assertFalse(termMentionIndex.isIndexed("v", TermMentionIndex.Kind.RESOLVED_TO));
+
+        assertEquals(1, termMentionIndex.reindex(graph.getVertex("v", authorizations)));
+        graph.flush();
+
+        assertTrue(termMentionIndex.isIndexed("v", TermMentionIndex.Kind.RESOLVED_TO));
+        List<Vertex> results = termMentionRepository.findResolvedToForRef(v.getId(), "key", "name", authorizations).collect(Collectors.toList());
+        assertEquals(1, results.size());
+        assertEquals("tm", results.get(0).getId());
+    }
+
+    @Test
+    public void testTermMentionsTheUserCanNotSeeKeepTheVertexUnindexed() {
+        Visibility secretTermMentionVisibility = new Visibility("((secret)|visallo)&(" + TermMentionRepository.VISIBILITY_STRING + ")");
+        Vertex doc = graph.addVertex("doc", visibility, authorizations);
+        Vertex v = graph.addVertex("v", visibility, authorizations);
+        Authorizations secretAuthorizations = graph.createAuthorizations("secret", TermMentionRepository.VISIBILITY_STRING);
+        Vertex tm = graph.addVertex("tm", secretTermMentionVisibility, secretAuthorizations);
+        graph.addEdge("tm_to_v", tm, v, VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO, secretTermMentionVisibility, secretAuthorizations);
+        graph.flush();
+
+        termMentionRepository.addSourceInfoToVertex(
+                v, v.getId(), TermMentionFor.PROPERTY, "key1", "name", visibility,
+                "snippet", "", VisalloProperties.TEXT.getPropertyName(), 0, 5, doc, visibility, authorizations
+        );
+
+        // the existing term mention is not indexed yet, so the vertex must still be read through its edges
+        TermMentionIndex termMentionIndex = new TermMentionIndex(graph);
+        assertFalse(termMentionIndex.isIndexed("v", TermMentionIndex.Kind.RESOLVED_TO));
+        assertTrue(termMentionIndex.isIndexed("doc", TermMentionIndex.Kind.HAS_TERM_MENTION));
+    }
+}
@@ -0,0 +1,154 @@
+package org.visallo.core.model.user;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.visallo.core.user.User;
+import org.visallo.vertexium.model.user.InMemoryUser;
+import org.visallo.web.clientapi.model.UserStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class UserDirectoryIndexTest {
+    private List<User> users;
+    private Map<String, User> usersById;
+    private UserDirectoryIndex userDirectoryIndex;
+    private int loadCount;
+
+    @Before
+    public void before() {
+        users = new ArrayList<>();
+        users.add(new InMemoryUser("joe", "Joe Ferner", null, null));
+        users.add(new InMemoryUser("jferner", "Jeff Ferner", null, null));
+        users.add(new InMemoryUser("bjoel", "Billy Joel", null, null));
+        users.add(new InMemoryUser("sally", "Sally Joe Smith", null, null));
+        users.add(new InMemoryUser("pjoey", "Pat Smith", null, null));
+        usersById = new HashMap<>();
+        for (User user : users) {
+            usersById.put(user.getUserId(), user);
+        }
+        loadCount = 0;
+        userDirectoryIndex = new UserDirectoryIndex(() -> {
+            loadCount++;
+            return new ArrayList<>(users);
+        }, usersById::get, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testFindRanksByMatchQuality() {
+        assertEquals(
+                getUsernames("joe", "bjoel", "sally", "pjoey"),
+                getUsernames(userDirectoryIndex.find("joe", 10))
+        );
+        assertEquals(getUsernames("joe", "bjoel"), getUsernames(userDirectoryIndex.find(" JOE ", 2)));
+        assertEquals(getUsernames("jferner", "joe"), getUsernames(userDirectoryIndex.find("ferner", 10)));
+        assertEquals(getUsernames(), getUsernames(userDirectoryIndex.find("xyz", 10)));
+        assertEquals(1, loadCount);
+    }
+
+    @Test
+    public void testFindShortQuery() {
+        assertEquals(getUsernames("jferner"), getUsernames(userDirectoryIndex.find("je", 10)));
+        assertEquals(getUsernames("jferner", "joe"), getUsernames(userDirectoryIndex.find("j", 2)));
+        assertEquals(
+                getUsernames("bjoel", "joe", "pjoey", "sally"),
+                getUsernames(userDirectoryIndex.find("oe", 10))
+        );
+        assertEquals(5, userDirectoryIndex.find(null, 10).size());
+    }
+
+    @Test
+    public void testUserListenerEvents() {
+        assertEquals(0, userDirectoryIndex.find("anne", 10).size());
+
+        User anne = new InMemoryUser("anne", "Anne Joseph", null, null);
+        users.add(anne);
+        usersById.put(anne.getUserId(), anne);
+        userDirectoryIndex.newUserAdded(anne);
+        assertEquals(getUsernames("anne"), getUsernames(userDirectoryIndex.find("jos", 10)));
+
+        userDirectoryIndex.userStatusChange(anne, UserStatus.ACTIVE);
+        assertEquals(getUsernames("anne"), getUsernames(userDirectoryIndex.find("jos", 10)));
+
+        users.remove(anne);
+        usersById.remove(anne.getUserId());
+        userDirectoryIndex.userDeleted(anne);
+        assertEquals(0, userDirectoryIndex.find("jos", 10).size());
+        assertEquals(0, userDirectoryIndex.find("an", 10).size());
+        assertEquals(1, loadCount);
+    }
+
+    @Test
+    public void testMatchesAreReadById() {
+        userDirectoryIndex.find("joe", 10);
+
+        // deleted and changed on another server, so this index did not get any event
+        User joe = users.get(0);
+        usersById.remove(joe.getUserId());
+        User sally = users.get(3);
+        User changedSally = new InMemoryUser("sally", "Sally Jones", null, null);
+        usersById.put(sally.getUserId(), changedSally);
+
+        List<User> results = userDirectoryIndex.find("joe", 10);
+        assertEquals(getUsernames("bjoel", "sally", "pjoey"), getUsernames(results));
+        assertSame(changedSally, results.get(1));
+        assertEquals(getUsernames("bjoel"), getUsernames(userDirectoryIndex.find("joe", 1)));
+    }
+
+    @Test
+    public void testRebuildDoesNotBlockSearches() throws InterruptedException {
+        CountDownLatch rebuildStarted = new CountDownLatch(1);
+        CountDownLatch finishRebuild = new CountDownLatch(1);
+        userDirectoryIndex = new UserDirectoryIndex(() -> {
+            loadCount++;
+            List<User> snapshot = new ArrayList<>(users);
+            if (loadCount == 2) {
+                rebuildStarted.countDown();
+                try {
+                    finishRebuild.await();
+                } catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+            return snapshot;
+        }, usersById::get, 0);
+        assertEquals(getUsernames("jferner", "joe"), getUsernames(userDirectoryIndex.find("ferner", 10)));
+
+        // added on another server, only found once the index is rebuilt
+        User anne = new InMemoryUser("anne", "Anne Ferner", null, null);
+        users.add(anne);
+        usersById.put(anne.getUserId(), anne);
+        assertEquals(2, userDirectoryIndex.find("ferner", 10).size());
+        assertTrue(rebuildStarted.await(10, TimeUnit.SECONDS));
+        assertEquals(2, userDirectoryIndex.find("ferner", 10).size());
+
+        finishRebuild.countDown();
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (userDirectoryIndex.find("ferner", 10).size() < 3) {
+            assertTrue("index was not rebuilt", System.currentTimeMillis() < timeout);
+            Thread.sleep(10);
+        }
+        assertEquals(getUsernames("anne", "jferner", "joe"), getUsernames(userDirectoryIndex.find("ferner", 10)));
+    }
+
+    private static List<String> getUsernames(String... usernames) {
+        List<String> results = new ArrayList<>();
+        for (String username : usernames) {
+            results.add(username);
+        }
+        return results;
+    }
+
+    private static List<String> getUsernames(List<User> users) {
+        return users.stream().map(User::getUsername).collect(Collectors.toList());
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Visibility;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.config.HashMapConfigurationLoader;
 import org.visallo.core.user.User;
@@ -13,7 +14,7 @@ import org.visallo.core.util.VisalloInMemoryTestBase;
 
 import java.util.*;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.when;
 
@@ -92,4 +93,27 @@ public class UserPropertyAuthorizationRepositoryTest extends VisalloInMemoryTest
 
         assertEquals(Sets.newHashSet(authorizationsArray), privileges);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGraphAuthorizationsAreCachedAndInterned() {
+        User user3 = getUserRepository().findOrAddUser("user3", "User 3", "user3@visallo.com", "password");
+        userPropertyAuthorizationRepository.setAuthorizations(user3, Collections.emptySet(), user1);
+
+        org.vertexium.Authorizations user2Authorizations = userPropertyAuthorizationRepository.getGraphAuthorizations(user2, "ws1");
+        assertSame(user2Authorizations, userPropertyAuthorizationRepository.getGraphAuthorizations(user2, "ws1"));
+        assertSame(user2Authorizations, userPropertyAuthorizationRepository.getGraphAuthorizations(user3, "ws1"));
+        assertNotSame(user2Authorizations, userPropertyAuthorizationRepository.getGraphAuthorizations(user2, "ws2"));
+    }
+
+    @Test
+    public void testGraphAuthorizationsAreInvalidatedByAddAuthorization() {
+        org.vertexium.Authorizations before = userPropertyAuthorizationRepository.getGraphAuthorizations(user2);
+        assertFalse(before.canRead(new Visibility("newAuth")));
+
+        userPropertyAuthorizationRepository.addAuthorization(user2, "newAuth", user1);
+        user2 = getUserRepository().findById(user2.getUserId());
+
+        org.vertexium.Authorizations after = userPropertyAuthorizationRepository.getGraphAuthorizations(user2);
+        assertTrue(after.canRead(new Visibility("newAuth")));
+    }
+}
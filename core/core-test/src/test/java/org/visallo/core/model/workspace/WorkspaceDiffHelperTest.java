@@ -0,0 +1,152 @@
+package org.visallo.core.model.workspace;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.*;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.user.User;
+import org.visallo.core.util.VisalloInMemoryTestBase;
+import org.visallo.web.clientapi.model.ClientApiWorkspaceDiff;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class WorkspaceDiffHelperTest extends VisalloInMemoryTestBase {
+    private static final String WORKSPACE_ID = "WORKSPACE_1";
+    private static final String NAME_PROPERTY = "http://visallo.org/test#name";
+    private User user;
+    private Workspace workspace;
+    private Authorizations authorizations;
+    private VisibilityJson visibilityJson;
+    private Visibility sandboxVisibility;
+
+    @Before
+    public void before() {
+        super.before();
+        user = getUserRepository().findOrAddUser("user1", "user1", "user1@visallo.com", "password");
+        workspace = getWorkspaceRepository().add(WORKSPACE_ID, "workspace1", user);
+        authorizations = getAuthorizationRepository().getGraphAuthorizations(
+                user,
+                WorkspaceRepository.VISIBILITY_STRING,
+                WORKSPACE_ID
+        );
+        visibilityJson = new VisibilityJson("");
+        visibilityJson.addWorkspace(WORKSPACE_ID);
+        sandboxVisibility = getVisibilityTranslator().toVisibility(visibilityJson).getVisibility();
+    }
+
+    @Test
+    public void testUnchangedElementsAreNotFetchedAgain() {
+        addSandboxedVertex("v1");
+        assertDiff(1, 1, 0, "v1");
+
+        // written without notifying anyone, so the cached diff of v1 is still used
+        Vertex v1 = addSandboxedProperty("v1", "k1");
+        assertDiff(1, 1, 0, "v1");
+
+        getWorkspaceDiffHelper().graphChanged(v1, "k1", NAME_PROPERTY, ElementOrPropertyStatus.UPDATE);
+        assertDiff(1, 2, 0, "v1");
+    }
+
+    @Test
+    public void testBroadcastsMarkElementsChanged() {
+        addSandboxedVertex("v1");
+        assertDiff(1, 1, 0, "v1");
+
+        Vertex v1 = addSandboxedProperty("v1", "k1");
+        getWorkQueueRepository().broadcastPublishVertex(v1);
+        assertDiff(1, 2, 0, "v1");
+    }
+
+    @Test
+    public void testAddedAndRemovedEntitiesAndEdges() {
+        addSandboxedVertex("v1");
+        addSandboxedVertex("v2");
+        assertDiff(1, 1, 0, "v1");
+        assertDiff(2, 2, 0, "v1", "v2");
+
+        EdgeBuilder edgeBuilder = getGraph().prepareEdge("e1", "v1", "v2", "label1", sandboxVisibility);
+        VisalloProperties.VISIBILITY_JSON.setProperty(edgeBuilder, visibilityJson, new Visibility(""));
+        Edge e1 = edgeBuilder.save(authorizations);
+        getGraph().flush();
+        assertDiff(2, 2, 0, "v1", "v2");
+
+        getWorkspaceDiffHelper().graphChanged(e1, null, null, ElementOrPropertyStatus.UPDATE);
+        assertDiff(2, 2, 1, "v1", "v2");
+
+        // the edge is only diffed while both of its vertices are on the workspace
+        assertDiff(1, 1, 0, "v1");
+    }
+
+    @Test
+    public void testDiffIsRebuiltWhenOlderThanMaxReuseSeconds() {
+        Map<String, String> config = new HashMap<>();
+        config.put(WorkspaceDiffHelper.CONFIGURATION_PARAMETER_MAX_REUSE_SECONDS, "0");
+        WorkspaceDiffHelper workspaceDiffHelper = new WorkspaceDiffHelper(
+                getGraph(),
+                new HashMapConfigurationLoader(config).createConfiguration(),
+                getUserRepository(),
+                getAuthorizationRepository(),
+                getFormulaEvaluator(),
+                getWorkQueueRepository(),
+                getShutdownService()
+        );
+        try {
+            addSandboxedVertex("v1");
+            assertEquals(2, diff(workspaceDiffHelper, "v1").size());
+
+            addSandboxedProperty("v1", "k1");
+            assertEquals(3, diff(workspaceDiffHelper, "v1").size());
+        } finally {
+            workspaceDiffHelper.close();
+        }
+    }
+
+    private void addSandboxedVertex(String vertexId) {
+        VertexBuilder vertexBuilder = getGraph().prepareVertex(vertexId, sandboxVisibility);
+        VisalloProperties.VISIBILITY_JSON.setProperty(vertexBuilder, visibilityJson, new Visibility(""));
+        VisalloProperties.TITLE.addPropertyValue(vertexBuilder, "", "title " + vertexId, createMetadata(), sandboxVisibility);
+        vertexBuilder.save(authorizations);
+        getGraph().flush();
+    }
+
+    private Vertex addSandboxedProperty(String vertexId, String propertyKey) {
+        getGraph().getVertex(vertexId, authorizations).prepareMutation()
+                .addPropertyValue(propertyKey, NAME_PROPERTY, "value", createMetadata(), sandboxVisibility)
+                .save(authorizations);
+        getGraph().flush();
+        return getGraph().getVertex(vertexId, authorizations);
+    }
+
+    private Metadata createMetadata() {
+        Metadata metadata = new Metadata();
+        VisalloProperties.VISIBILITY_JSON_METADATA.setMetadata(
+                metadata,
+                visibilityJson,
+                getVisibilityTranslator().getDefaultVisibility()
+        );
+        return metadata;
+    }
+
+    private void assertDiff(int vertexItemCount, int propertyItemCount, int edgeItemCount, String... entityVertexIds) {
+        List<ClientApiWorkspaceDiff.Item> items = diff(getWorkspaceDiffHelper(), entityVertexIds);
+        assertEquals(vertexItemCount, count(items, ClientApiWorkspaceDiff.VertexItem.class));
+        assertEquals(propertyItemCount, count(items, ClientApiWorkspaceDiff.PropertyItem.class));
+        assertEquals(edgeItemCount, count(items, ClientApiWorkspaceDiff.EdgeItem.class));
+    }
+
+    private List<ClientApiWorkspaceDiff.Item> diff(WorkspaceDiffHelper workspaceDiffHelper, String... entityVertexIds) {
+        return workspaceDiffHelper.diff(workspace, Arrays.asList(entityVertexIds), null, user).getDiffs();
+    }
+
+    private static long count(List<ClientApiWorkspaceDiff.Item> items, Class<? extends ClientApiWorkspaceDiff.Item> itemType) {
+        return items.stream().filter(itemType::isInstance).count();
+    }
+}
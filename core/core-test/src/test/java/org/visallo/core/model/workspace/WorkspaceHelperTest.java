@@ -1,5 +1,6 @@
 package org.visallo.core.model.workspace;
 
+import com.google.common.collect.Lists;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -7,6 +8,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.vertexium.Authorizations;
 import org.vertexium.Edge;
+import org.vertexium.Element;
 import org.vertexium.Vertex;
 import org.vertexium.Visibility;
 import org.vertexium.inmemory.InMemoryGraph;
@@ -19,8 +21,16 @@ import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.user.User;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.visallo.core.model.ontology.OntologyRepository.PUBLIC;
 
@@ -139,4 +149,52 @@ public class WorkspaceHelperTest {
         assertNull(v1);
         assertNull(tm);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDeleteVertices() throws Exception {
+        Vertex doc = graph.addVertex("doc", visibility, authorizations);
+        Vertex v1 = graph.addVertex("v1", visibility, authorizations);
+        Vertex v2 = graph.addVertex("v2", visibility, authorizations);
+        Vertex tm1 = graph.addVertex("tm1", termMentionVisibility, authorizations);
+        Vertex tm2 = graph.addVertex("tm2", termMentionVisibility, authorizations);
+
+        VisalloProperties.TERM_MENTION_RESOLVED_EDGE_ID.setProperty(tm1, "doc_to_v1", termMentionVisibility, authorizations);
+        VisalloProperties.TERM_MENTION_RESOLVED_EDGE_ID.setProperty(tm2, "doc_to_v2", termMentionVisibility, authorizations);
+        graph.addEdge("doc_to_tm1", doc, tm1, VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION, termMentionVisibility, authorizations);
+        graph.addEdge("doc_to_tm2", doc, tm2, VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION, termMentionVisibility, authorizations);
+        graph.addEdge("tm1_to_v1", tm1, v1, VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO, termMentionVisibility, authorizations);
+        graph.addEdge("tm2_to_v2", tm2, v2, VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO, termMentionVisibility, authorizations);
+        graph.addEdge("doc_to_v1", doc, v1, "link", visibility, authorizations);
+        graph.addEdge("doc_to_v2", doc, v2, "link", visibility, authorizations);
+        graph.flush();
+
+        List<Vertex> vertices = Lists.newArrayList(
+                graph.getVertex("v1", authorizations),
+                graph.getVertex("v2", authorizations)
+        );
+        List<Integer> progress = new ArrayList<>();
+        workspaceHelper.deleteVertices(
+                vertices,
+                WORKSPACE_ID,
+                Priority.HIGH,
+                authorizations,
+                user,
+                (deletedCount, totalCount) -> progress.add(deletedCount)
+        );
+
+        assertNull(graph.getVertex("v1", authorizations));
+        assertNull(graph.getVertex("v2", authorizations));
+        assertNull(graph.getVertex("tm1", authorizations));
+        assertNull(graph.getVertex("tm2", authorizations));
+        assertNull(graph.getEdge("doc_to_v1", authorizations));
+        assertNull(graph.getEdge("doc_to_v2", authorizations));
+        assertEquals(Lists.newArrayList(2), progress);
+        verify(workQueueRepository, times(1)).pushTextUpdated("doc");
+        verify(workQueueRepository, times(1)).pushElementsDeletion(
+                anyCollectionOf(Element.class),
+                anyCollectionOf(Element.class),
+                anyLong(),
+                eq(Priority.HIGH)
+        );
+    }
+}
@@ -0,0 +1,162 @@
+package org.visallo.core.model.workspace.product;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.inmemory.InMemoryAuthorizations;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProductExtendedDataCacheTest {
+    private static final String PRODUCT_ID = "product1";
+    private ProductExtendedDataCache cache;
+    private Authorizations authorizations;
+    private AtomicInteger loadCount;
+    private JSONObject extendedData;
+
+    @Mock
+    private Configuration configuration;
+
+    @Mock
+    private WorkQueueRepository workQueueRepository;
+
+    @Before
+    public void before() {
+        when(configuration.getInt(anyString(), anyInt())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        when(configuration.getLong(anyString(), anyLong())).thenAnswer(invocation -> invocation.getArguments()[1]);
+        cache = new ProductExtendedDataCache(configuration, workQueueRepository);
+        authorizations = new InMemoryAuthorizations("a", "b");
+        loadCount = new AtomicInteger();
+        extendedData = new JSONObject();
+        extendedData.put("vertices", new JSONObject()
+                .put("v1", new JSONObject().put("id", "v1"))
+                .put("v2", new JSONObject().put("id", "v2")));
+        extendedData.put("edges", new JSONObject());
+    }
+
+    @Test
+    public void testSnapshotIsCachedUntilTheProductChanges() {
+        long version = get(new JSONObject()).getLong(ProductExtendedDataCache.VERSION);
+        assertEquals(version, get(new JSONObject()).getLong(ProductExtendedDataCache.VERSION));
+        assertEquals(1, loadCount.get());
+
+        cache.productChanged(PRODUCT_ID);
+        JSONObject result = get(new JSONObject());
+        assertTrue(result.getLong(ProductExtendedDataCache.VERSION) > version);
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testSinceVersionReturnsOnlyChanges() {
+        long version = get(new JSONObject()).getLong(ProductExtendedDataCache.VERSION);
+
+        extendedData.getJSONObject("vertices").remove("v1");
+        extendedData.getJSONObject("vertices").put("v3", new JSONObject().put("id", "v3"));
+        cache.productChanged(PRODUCT_ID);
+
+        JSONObject delta = get(new JSONObject().put(ProductExtendedDataCache.PARAM_SINCE_VERSION, version));
+        assertEquals(version, delta.getLong(ProductExtendedDataCache.SINCE_VERSION));
+        JSONObject vertices = delta.getJSONObject("vertices");
+        assertEquals(1, vertices.length());
+        assertTrue(vertices.has("v3"));
+        assertEquals("v1", delta.getJSONObject(ProductExtendedDataCache.REMOVED).getJSONArray("vertices").getString(0));
+
+        JSONObject full = get(new JSONObject().put(ProductExtendedDataCache.PARAM_SINCE_VERSION, 1L));
+        assertFalse(full.has(ProductExtendedDataCache.SINCE_VERSION));
+        assertEquals(2, full.getJSONObject("vertices").length());
+    }
+
+    @Test
+    public void testBroadcastsForProductElementsChangeTheVersion() {
+        long version = get(new JSONObject()).getLong(ProductExtendedDataCache.VERSION);
+        ArgumentCaptor<WorkQueueRepository.BroadcastConsumer> consumer = ArgumentCaptor.forClass(WorkQueueRepository.BroadcastConsumer.class);
+        verify(workQueueRepository).subscribeToBroadcastMessages(consumer.capture());
+
+        consumer.getValue().broadcastReceived(new JSONObject()
+                .put("type", "propertyChange")
+                .put("data", new JSONObject().put("graphEdgeId", "e1").put("outVertexId", "v9").put("inVertexId", "v8")));
+        assertEquals(version, get(new JSONObject()).getLong(ProductExtendedDataCache.VERSION));
+
+        consumer.getValue().broadcastReceived(new JSONObject()
+                .put("type", "propertyChange")
+                .put("data", new JSONObject().put("graphEdgeId", "e2").put("outVertexId", "v9").put("inVertexId", "v2")));
+        assertTrue(get(new JSONObject()).getLong(ProductExtendedDataCache.VERSION) > version);
+    }
+
+    @Test
+    public void testBroadcastWhileLoadingChangesTheVersion() {
+        get(new JSONObject());
+        WorkQueueRepository.BroadcastConsumer consumer = getBroadcastConsumer();
+        cache.clearCache();
+
+        // the broadcast of a change made before the load started arrives while the product is loading
+        JSONObject result = cache.getExtendedData(PRODUCT_ID, new JSONObject(), authorizations, () -> {
+            consumer.broadcastReceived(propertyChange("v1"));
+            return new JSONObject(extendedData.toString());
+        });
+        long version = result.getLong(ProductExtendedDataCache.VERSION);
+        assertTrue(get(new JSONObject()).getLong(ProductExtendedDataCache.VERSION) > version);
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testRemovedElementsNoLongerChangeTheVersion() {
+        get(new JSONObject());
+        WorkQueueRepository.BroadcastConsumer consumer = getBroadcastConsumer();
+
+        extendedData.getJSONObject("vertices").remove("v1");
+        cache.productChanged(PRODUCT_ID);
+        long version = get(new JSONObject()).getLong(ProductExtendedDataCache.VERSION);
+
+        consumer.broadcastReceived(propertyChange("v1"));
+        assertEquals(version, get(new JSONObject()).getLong(ProductExtendedDataCache.VERSION));
+
+        consumer.broadcastReceived(propertyChange("v2"));
+        assertTrue(get(new JSONObject()).getLong(ProductExtendedDataCache.VERSION) > version);
+    }
+
+    @Test
+    public void testSnapshotsAreBoundedBySize() {
+        when(configuration.getLong(ProductExtendedDataCache.CONFIGURATION_PARAMETER_MAX_SIZE_BYTES, ProductExtendedDataCache.CONFIGURATION_DEFAULT_MAX_SIZE_BYTES))
+                .thenReturn(10L);
+        cache = new ProductExtendedDataCache(configuration, workQueueRepository);
+
+        get(new JSONObject());
+        get(new JSONObject());
+        assertEquals(2, loadCount.get());
+    }
+
+    private WorkQueueRepository.BroadcastConsumer getBroadcastConsumer() {
+        ArgumentCaptor<WorkQueueRepository.BroadcastConsumer> consumer = ArgumentCaptor.forClass(WorkQueueRepository.BroadcastConsumer.class);
+        verify(workQueueRepository).subscribeToBroadcastMessages(consumer.capture());
+        return consumer.getValue();
+    }
+
+    private static JSONObject propertyChange(String vertexId) {
+        return new JSONObject()
+                .put("type", "propertyChange")
+                .put("data", new JSONObject().put("graphVertexId", vertexId));
+    }
+
+    private JSONObject get(JSONObject params) {
+        return cache.getExtendedData(PRODUCT_ID, params, authorizations, () -> {
+            loadCount.incrementAndGet();
+            return new JSONObject(extendedData.toString());
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package org.visallo.core.status;
+
+import com.google.common.collect.ImmutableSortedMap;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testQuantilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        assertEquals(100000, histogram.getCount());
+        assertWithinPercent(TimeUnit.MICROSECONDS.toNanos(50000), histogram.getValueAtQuantile(0.5), 3);
+        assertWithinPercent(TimeUnit.MICROSECONDS.toNanos(99000), histogram.getValueAtQuantile(0.99), 3);
+        assertWithinPercent(TimeUnit.MICROSECONDS.toNanos(99900), histogram.getValueAtQuantile(0.999), 3);
+    }
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            if (value < TimeUnit.MINUTES.toNanos(15)) {
+                assertWithinPercent(value, LatencyHistogram.bucketMidpoint(index), 3);
+            }
+            assertTrue(index >= 0);
+        }
+    }
+
+    @Test
+    public void testExport() throws IOException {
+        LatencyHistogram histogram = PrometheusTextExporter.getLatencyHistogram(
+                "test.latency",
+                "test latency",
+                ImmutableSortedMap.of("route", "/vertex/{id}", "method", "GET")
+        );
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+
+        StringWriter out = new StringWriter();
+        PrometheusTextExporter.write(out);
+        String text = out.toString();
+        assertTrue(text, text.contains("# TYPE test_latency summary\n"));
+        assertTrue(text, text.contains("test_latency_count{method=\"GET\",route=\"/vertex/{id}\"} 1\n"));
+        assertTrue(text, text.contains("test_latency{method=\"GET\",route=\"/vertex/{id}\",quantile=\"0.5\"} 0.002"));
+        assertTrue(text, text.contains("# TYPE jvm_memory_used_bytes gauge\n"));
+    }
+
+    private static void assertWithinPercent(long expected, long actual, int percent) {
+        long tolerance = Math.max(1, expected * percent / 100);
+        assertTrue("expected " + expected + " but was " + actual, Math.abs(expected - actual) <= tolerance);
+    }
+}
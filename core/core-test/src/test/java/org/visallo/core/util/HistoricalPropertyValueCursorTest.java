@@ -0,0 +1,106 @@
+package org.visallo.core.util;
+
+import org.junit.Test;
+import org.vertexium.*;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.web.clientapi.model.ClientApiHistoricalPropertyResults;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class HistoricalPropertyValueCursorTest {
+    private static final String NAME = "http://visallo.org/test#name";
+    private static final String TITLE = "http://visallo.org/test#title";
+
+    @Test
+    public void testContinuationTokenRoundTrip() {
+        HistoricalPropertyValueCursor cursor = new HistoricalPropertyValueCursor(1234L, 2);
+        HistoricalPropertyValueCursor parsed = HistoricalPropertyValueCursor.parse(cursor.toContinuationToken());
+        assertEquals(1234L, parsed.getTimestamp());
+        assertEquals(2, parsed.getOffset());
+        assertNull(HistoricalPropertyValueCursor.parse(null));
+        assertNull(HistoricalPropertyValueCursor.parse(" "));
+    }
+
+    @Test
+    public void testInvalidContinuationTokens() {
+        for (String token : new String[]{"1234", "a:1", "1234:b", "1:2:3", "1234:-1"}) {
+            try {
+                HistoricalPropertyValueCursor.parse(token);
+                fail("expected IllegalArgumentException for " + token);
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testPagesContainEveryEventOnce() {
+        InMemoryGraph graph = InMemoryGraph.create();
+        Authorizations authorizations = graph.createAuthorizations();
+        Visibility visibility = new Visibility("");
+        for (int i = 1; i <= 5; i++) {
+            VertexBuilder vertexBuilder = graph.prepareVertex("v1", visibility);
+            vertexBuilder.addPropertyValue("k1", NAME, "name " + i, new Metadata(), i * 100L, visibility);
+            if (i == 3) {
+                // two values with the same timestamp, so a page boundary can fall between them
+                vertexBuilder.addPropertyValue("k1", TITLE, "title", new Metadata(), i * 100L, visibility);
+            }
+            vertexBuilder.save(authorizations);
+        }
+        graph.flush();
+        Vertex vertex = graph.getVertex("v1", authorizations);
+
+        ClientApiHistoricalPropertyResults all = toClientApi(vertex, null, null, authorizations);
+        assertEquals(6, all.events.size());
+        assertNull(all.continuationToken);
+
+        for (int pageSize = 1; pageSize <= 6; pageSize++) {
+            List<ClientApiHistoricalPropertyResults.Event> events = new ArrayList<>();
+            String continuationToken = null;
+            int pageCount = 0;
+            do {
+                ClientApiHistoricalPropertyResults page = toClientApi(
+                        vertex,
+                        HistoricalPropertyValueCursor.parse(continuationToken),
+                        pageSize,
+                        authorizations
+                );
+                assertTrue(page.events.size() <= pageSize);
+                events.addAll(page.events);
+                continuationToken = page.continuationToken;
+                assertTrue("too many pages for page size " + pageSize, ++pageCount <= all.events.size());
+            } while (continuationToken != null);
+            assertEquals(
+                    "page size " + pageSize,
+                    ClientApiConverter.clientApiToString(all.events),
+                    ClientApiConverter.clientApiToString(events)
+            );
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyPages() {
+        ClientApiConverter.toClientApi(new ArrayList<HistoricalPropertyValue>(), null, 0, Locale.US, null, false, false);
+    }
+
+    private static ClientApiHistoricalPropertyResults toClientApi(
+            Vertex vertex,
+            HistoricalPropertyValueCursor cursor,
+            Integer pageSize,
+            Authorizations authorizations
+    ) {
+        return ClientApiConverter.toClientApi(
+                vertex.getHistoricalPropertyValues(null, null, authorizations),
+                cursor,
+                pageSize,
+                Locale.US,
+                null,
+                false,
+                false
+        );
+    }
+}
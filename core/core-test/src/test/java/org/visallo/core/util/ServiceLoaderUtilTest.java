@@ -0,0 +1,49 @@
+package org.visallo.core.util;
+
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Test;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ServiceLoaderUtilTest {
+    private Configuration configuration;
+
+    @Before
+    public void before() {
+        ServiceLoaderUtil.clearCache();
+        configuration = new HashMapConfigurationLoader(new HashMap()).createConfiguration();
+    }
+
+    @Test
+    public void testLoadClassesIsCached() {
+        Iterable<Class<? extends TestService>> classes = ServiceLoaderUtil.loadClasses(TestService.class, configuration);
+        assertEquals(Sets.newHashSet(TestServiceA.class, TestServiceB.class), Sets.newHashSet(classes));
+        assertSame(classes, ServiceLoaderUtil.loadClasses(TestService.class, configuration));
+    }
+
+    @Test
+    public void testConfigurationChangeInvalidatesCache() {
+        assertEquals(2, Sets.newHashSet(ServiceLoaderUtil.loadClasses(TestService.class, configuration)).size());
+
+        configuration.set(ServiceLoaderUtil.CONFIG_DISABLE_PREFIX + TestServiceB.class.getName(), "true");
+        assertEquals(
+                Sets.newHashSet(TestServiceA.class),
+                Sets.newHashSet(ServiceLoaderUtil.loadClasses(TestService.class, configuration))
+        );
+    }
+
+    public interface TestService {
+    }
+
+    public static class TestServiceA implements TestService {
+    }
+
+    public static class TestServiceB implements TestService {
+    }
+}
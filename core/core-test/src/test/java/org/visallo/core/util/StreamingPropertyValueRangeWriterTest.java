@@ -0,0 +1,194 @@
+package org.visallo.core.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.property.StreamingPropertyValue;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StreamingPropertyValueRangeWriterTest {
+    private static final long FILE_LENGTH = 4L * 1024 * 1024;
+    private static final byte[] TAIL = "the end of the file".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+    private StreamingPropertyValueRangeWriter rangeWriter;
+    private File file;
+
+    @Before
+    public void before() throws IOException {
+        rangeWriter = new StreamingPropertyValueRangeWriter(
+                StreamingPropertyValueRangeWriter.DEFAULT_BUFFER_SIZE,
+                null,
+                StreamingPropertyValueRangeWriter.DEFAULT_MAX_SPILL_SIZE_BYTES
+        );
+        file = File.createTempFile("visallo-range-test-", ".bin");
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(FILE_LENGTH);
+            randomAccessFile.seek(FILE_LENGTH - TAIL.length);
+            randomAccessFile.write(TAIL);
+        }
+    }
+
+    @After
+    public void after() {
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void testParse() {
+        assertNull(ByteRange.parse(null, 100));
+        assertNull(ByteRange.parse("bytes=abc", 100));
+        assertNull(ByteRange.parse("bytes=10-5", 100));
+
+        List<ByteRange> ranges = ByteRange.parse("bytes=0-9, 90-, -5", 100);
+        assertEquals(3, ranges.size());
+        assertRange(0, 9, ranges.get(0));
+        assertRange(90, 99, ranges.get(1));
+        assertRange(95, 99, ranges.get(2));
+
+        assertRange(50, 99, ByteRange.parse("bytes=50-1000", 100).get(0));
+        assertEquals(0, ByteRange.parse("bytes=100-", 100).size());
+    }
+
+    @Test
+    public void testFileRangesAreTransferredFromTheFileChannel() throws IOException {
+        ByteRange range = ByteRange.parse("bytes=-" + TAIL.length, FILE_LENGTH).get(0);
+        CountingFileInputStream in = new CountingFileInputStream(file);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        rangeWriter.write(null, new StreamingPropertyValue(in, byte[].class), range, out);
+
+        assertArrayEquals(TAIL, out.toByteArray());
+        assertEquals(0, in.bytesRead);
+    }
+
+    @Test
+    public void testWrappedFileRangesSkipThePrecedingBytes() throws IOException {
+        ByteRange range = ByteRange.parse("bytes=-" + TAIL.length, FILE_LENGTH).get(0);
+        CountingFileInputStream in = new CountingFileInputStream(file);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // wrapped like stores that buffer their file streams, the skip is passed through to the file
+        rangeWriter.write(null, new StreamingPropertyValue(new BufferedInputStream(in), byte[].class), range, out);
+
+        assertArrayEquals(TAIL, out.toByteArray());
+        assertEquals(TAIL.length, in.bytesRead);
+    }
+
+    @Test
+    public void testAscendingRangesOnlyReadTheRangeBytes() throws IOException {
+        CountingByteArrayInputStream in = new CountingByteArrayInputStream(DATA);
+        assertEquals("[89][j]", writeRanges(null, in, "bytes=8-9,-1"));
+        assertEquals(3, in.bytesRead);
+    }
+
+    @Test
+    public void testMultipleRangesFromStream() throws IOException {
+        // ascending ranges are read in a single forward pass, the others from a spill file
+        assertEquals("[01][89][j]", writeRanges(null, new ByteArrayInputStream(DATA), "bytes=0-1,8-9,-1"));
+        assertEquals("[j][01][12]", writeRanges(null, new ByteArrayInputStream(DATA), "bytes=-1,0-1,1-2"));
+    }
+
+    @Test
+    public void testSpillFileIsSharedByRequestsForTheSameValue() throws IOException {
+        CountingByteArrayInputStream firstIn = new CountingByteArrayInputStream(DATA);
+        assertEquals("[j][01]", writeRanges("v1", firstIn, "bytes=-1,0-1"));
+        assertEquals(DATA.length, firstIn.bytesRead);
+
+        // served from the spill file of the first request, even though these ranges could be read forward
+        CountingByteArrayInputStream secondIn = new CountingByteArrayInputStream(DATA);
+        assertEquals("[01][89]", writeRanges("v1", secondIn, "bytes=0-1,8-9"));
+        assertEquals(0, secondIn.bytesRead);
+
+        CountingByteArrayInputStream otherIn = new CountingByteArrayInputStream(DATA);
+        assertEquals("[j][01]", writeRanges("v2", otherIn, "bytes=-1,0-1"));
+        assertEquals(DATA.length, otherIn.bytesRead);
+    }
+
+    private String writeRanges(String cacheKey, InputStream in, String rangeHeader) throws IOException {
+        List<ByteRange> ranges = ByteRange.parse(rangeHeader, DATA.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean[] first = {true};
+        rangeWriter.write(
+                cacheKey,
+                new StreamingPropertyValue(in, byte[].class),
+                ranges,
+                out,
+                range -> {
+                    if (!first[0]) {
+                        out.write(']');
+                    }
+                    first[0] = false;
+                    out.write('[');
+                }
+        );
+        out.write(']');
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void assertRange(long expectedStart, long expectedEnd, ByteRange range) {
+        assertEquals(expectedStart, range.getStart());
+        assertEquals(expectedEnd, range.getEnd());
+    }
+
+    private static class CountingFileInputStream extends FileInputStream {
+        private long bytesRead;
+
+        private CountingFileInputStream(File file) throws FileNotFoundException {
+            super(file);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b) throws IOException {
+            return read(b, 0, b.length);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                bytesRead += read;
+            }
+            return read;
+        }
+    }
+
+    private static class CountingByteArrayInputStream extends ByteArrayInputStream {
+        private long bytesRead;
+
+        private CountingByteArrayInputStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read() {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                bytesRead += read;
+            }
+            return read;
+        }
+    }
+}
@@ -13,9 +13,7 @@ import org.visallo.core.util.ServiceLoaderUtil;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import static org.vertexium.util.IterableUtils.toList;
 
@@ -62,16 +60,12 @@ public class InjectHelper {
     }
 
     public static <T> Collection<T> getInjectedServices(Class<T> clazz, Configuration configuration) {
-        List<Class<? extends T>> serviceClasses = toList(ServiceLoaderUtil.loadClasses(clazz, configuration));
-        Collection<T> results = new ArrayList<>();
-        for (Class<? extends T> serviceClass : serviceClasses) {
-            results.add(getInstance(serviceClass));
-        }
-        return results;
+        return toList(ServiceLoaderUtil.load(clazz, configuration));
     }
 
     public static void shutdown() {
         injector = null;
+        ServiceLoaderUtil.clearCache();
     }
 
     public static boolean hasInjector() {
@@ -99,6 +99,7 @@ public class Configuration {
     private OntologyRepository ontologyRepository;
 
     private Map<String, String> config = new HashMap<>();
+    private volatile long modificationCount;
 
     public Configuration(final ConfigurationLoader configurationLoader, final Map<?, ?> config) {
         this.configurationLoader = configurationLoader;
@@ -355,6 +356,15 @@ public class Configuration {
         } else {
             config.put(propertyKey, value.toString().trim());
         }
+        modificationCount++;
+    }
+
+    /**
+     * Incremented every time a value is set, allowing values derived from the configuration to be cached until the
+     * configuration is reloaded.
+     */
+    public long getModificationCount() {
+        return modificationCount;
     }
 
     @Override
@@ -9,6 +9,7 @@ import org.vertexium.VertexiumObject;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.core.status.PrometheusTextExporter;
 import org.visallo.core.util.ClientApiConverter;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
@@ -34,6 +35,7 @@ public class FormulaEvaluator {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(FormulaEvaluator.class);
     private static final String CONFIGURATION_PARAMETER_MAX_THREADS = FormulaEvaluator.class.getName() + ".max.threads";
     private static final int CONFIGURATION_DEFAULT_MAX_THREADS = 1;
+    private static final String THREAD_POOL_NAME = "formula-evaluator";
     private Configuration configuration;
     private OntologyRepository ontologyRepository;
     private ExecutorService executorService;
@@ -49,9 +51,11 @@ public class FormulaEvaluator {
                 CONFIGURATION_PARAMETER_MAX_THREADS,
                 CONFIGURATION_DEFAULT_MAX_THREADS
         ));
+        PrometheusTextExporter.registerThreadPool(THREAD_POOL_NAME, executorService);
     }
 
     public void close() {
+        PrometheusTextExporter.unregisterThreadPool(THREAD_POOL_NAME);
         executorService.shutdown();
     }
 
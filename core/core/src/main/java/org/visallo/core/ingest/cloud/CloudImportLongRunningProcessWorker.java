@@ -15,6 +15,7 @@ import org.visallo.core.bootstrap.InjectHelper;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.ingest.FileImport;
+import org.visallo.core.model.longRunningProcess.LongRunningProcessCancellationToken;
 import org.visallo.core.model.longRunningProcess.LongRunningProcessRepository;
 import org.visallo.core.model.longRunningProcess.LongRunningProcessWorker;
 import org.visallo.core.model.user.UserRepository;
@@ -60,7 +61,10 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
     }
 
     @Override
-    protected void processInternal(JSONObject longRunningProcessQueueItem) {
+    protected void processInternal(
+            JSONObject longRunningProcessQueueItem,
+            LongRunningProcessCancellationToken cancellationToken
+    ) {
         CloudImportLongRunningProcessQueueItem item = ClientApiConverter.toClientApi(longRunningProcessQueueItem, CloudImportLongRunningProcessQueueItem.class);
         CloudResourceSource destination = getDestination(item.getDestination());
 
@@ -68,7 +72,7 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
             longRunningProcessQueueItem.put("error", "No cloud destination configured for :" + item.getDestination());
         } else {
             try {
-                download(destination, item, longRunningProcessQueueItem);
+                download(destination, item, longRunningProcessQueueItem, cancellationToken);
             } catch (Exception e) {
                 throw new VisalloException("Unable to download from cloud destination", e);
             }
@@ -85,7 +89,12 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
         return null;
     }
 
-    private void download(CloudResourceSource destination, CloudImportLongRunningProcessQueueItem item, JSONObject itemJson) throws Exception {
+    private void download(
+            CloudResourceSource destination,
+            CloudImportLongRunningProcessQueueItem item,
+            JSONObject itemJson,
+            LongRunningProcessCancellationToken cancellationToken
+    ) throws Exception {
         String id = itemJson.getString("id");
         Authorizations authorizations = graph.createAuthorizations(item.getAuthorizations());
         String visibilitySource = "";
@@ -112,6 +121,7 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
             long noSizeProgress = 0;
             long cumulativeSize = 0;
             for (CloudResourceSourceItem cloudResourceSourceItem : items) {
+                cancellationToken.throwIfCanceled();
                 String fileName = cloudResourceSourceItem.getName();
                 if (fileName == null) throw new VisalloException("Cloud destination item name must not be null");
                 File file = new File(tempDir, cloudResourceSourceItem.getName());
@@ -122,7 +132,7 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
                     }
 
                     noSizeProgress += (double) 1 / items.size();
-                    if (downloadFile(id, inputStream, file, cumulativeSize, allItemsSize, noSizeProgress)) {
+                    if (downloadFile(id, inputStream, file, cumulativeSize, allItemsSize, noSizeProgress, cancellationToken)) {
                         Vertex vertex = fileImport.importFile(
                                 file,
                                 file.getName(),
@@ -151,7 +161,15 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
         }
     }
 
-    private boolean downloadFile(String longRunningProcessId, InputStream inputStream, File file, Long cumulativeSize, Long allItemSize, double noSizeProgress) throws Exception {
+    private boolean downloadFile(
+            String longRunningProcessId,
+            InputStream inputStream,
+            File file,
+            Long cumulativeSize,
+            Long allItemSize,
+            double noSizeProgress,
+            LongRunningProcessCancellationToken cancellationToken
+    ) throws Exception {
         final OutputStream out = new FileOutputStream(file);
         boolean success = false;
         try {
@@ -160,6 +178,7 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
                         private long progress = cumulativeSize;
                         private long flushProgress = 0;
                         public boolean processBytes(byte[] buffer, int offset, int length) throws IOException {
+                            cancellationToken.throwIfCanceled();
                             out.write(buffer, offset, length);
                             if (allItemSize > 0) {
                                 progress += length;
@@ -0,0 +1,69 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.vertexium.Element;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The state shared by the graph property workers run for one property of a graph property message, and by the
+ * workers run in the same process for the properties they changed on the same element.
+ * <p>
+ * The local copies of streaming property values used by the workers are held until the cascade is closed, so a
+ * value that was copied for one worker is read from the local copy by the workers that follow.
+ */
+class GraphPropertyCascade implements AutoCloseable {
+    private final int maxDepth;
+    private final List<ScratchFileManager.ScratchFile> scratchFiles = new ArrayList<>();
+
+    GraphPropertyCascade(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    void addScratchFile(ScratchFileManager.ScratchFile scratchFile) {
+        scratchFiles.add(scratchFile);
+    }
+
+    @Override
+    public void close() {
+        for (ScratchFileManager.ScratchFile scratchFile : scratchFiles) {
+            scratchFile.close();
+        }
+        scratchFiles.clear();
+    }
+
+    static class ChangedProperty {
+        private final Element element;
+        private final String propertyKey;
+        private final String propertyName;
+
+        ChangedProperty(Element element, String propertyKey, String propertyName) {
+            this.element = element;
+            this.propertyKey = propertyKey;
+            this.propertyName = propertyName;
+        }
+
+        Element getElement() {
+            return element;
+        }
+
+        String getPropertyKey() {
+            return propertyKey;
+        }
+
+        String getPropertyName() {
+            return propertyName;
+        }
+
+        boolean isSameProperty(ChangedProperty other) {
+            return element.getId().equals(other.element.getId())
+                    && Objects.equals(propertyKey, other.propertyKey)
+                    && propertyName.equals(other.propertyName);
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class GraphPropertyMessage {
     private String propertyName;
     private ElementOrPropertyStatus status;
     private Long beforeActionTimestamp;
+    private String[] skipWorkers;
 
     public String getWorkspaceId() {
         return workspaceId;
@@ -130,6 +131,19 @@ public class GraphPropertyMessage {
         return this;
     }
 
+    /**
+     * The class names of the graph property workers that have already run on the message's property in the process
+     * that pushed it, so they are not run again.
+     */
+    public String[] getSkipWorkers() {
+        return skipWorkers;
+    }
+
+    public GraphPropertyMessage setSkipWorkers(String[] skipWorkers) {
+        this.skipWorkers = skipWorkers;
+        return this;
+    }
+
     public GraphPropertyMessage.Property[] getProperties() {
         return properties;
     }
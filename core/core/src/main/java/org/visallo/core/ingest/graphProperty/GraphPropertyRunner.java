@@ -3,8 +3,6 @@ package org.visallo.core.ingest.graphProperty;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
-import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.vertexium.*;
 import org.vertexium.property.StreamingPropertyValue;
@@ -29,16 +27,15 @@ import org.visallo.core.user.User;
 import org.visallo.core.util.*;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.vertexium.util.IterableUtils.toList;
 
 public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(GraphPropertyRunner.class);
+    public static final String CONFIGURATION_PARAMETER_MAX_CASCADE_DEPTH = GraphPropertyRunner.class.getName() + ".maxCascadeDepth";
+    public static final int CONFIGURATION_DEFAULT_MAX_CASCADE_DEPTH = 5;
     private final StatusRepository statusRepository;
     private final AuthorizationRepository authorizationRepository;
     private Graph graph;
@@ -49,9 +46,11 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
     private WorkQueueNames workQueueNames;
     private Configuration configuration;
     private VisibilityTranslator visibilityTranslator;
+    private ScratchFileManager scratchFileManager;
     private AtomicLong lastProcessedPropertyTime = new AtomicLong(0);
     private List<GraphPropertyWorker> graphPropertyWorkers = Lists.newArrayList();
     private boolean prepareWorkersCalled;
+    private final int maxCascadeDepth;
 
     @Inject
     protected GraphPropertyRunner(
@@ -64,6 +63,10 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
         super(workQueueRepository, configuration, metricsManager);
         this.statusRepository = statusRepository;
         this.authorizationRepository = authorizationRepository;
+        this.maxCascadeDepth = configuration.getInt(
+                CONFIGURATION_PARAMETER_MAX_CASCADE_DEPTH,
+                CONFIGURATION_DEFAULT_MAX_CASCADE_DEPTH
+        );
     }
 
     @Override
@@ -302,7 +305,8 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
                         message.getPriority(),
                         message.isTraceEnabled(),
                         propertyMessage.getStatus(),
-                        propertyMessage.getBeforeActionTimestampOrDefault()
+                        propertyMessage.getBeforeActionTimestampOrDefault(),
+                        getSkipWorkers(message)
                 );
             }
         }
@@ -363,10 +367,18 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
                 message.getPriority(),
                 message.isTraceEnabled(),
                 message.getStatus(),
-                message.getBeforeActionTimestampOrDefault()
+                message.getBeforeActionTimestampOrDefault(),
+                getSkipWorkers(message)
         );
     }
 
+    private static Set<String> getSkipWorkers(GraphPropertyMessage message) {
+        if (message.getSkipWorkers() == null) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(Arrays.asList(message.getSkipWorkers()));
+    }
+
     private void safeExecuteHandlePropertyOnElement(
             Element element,
             Property property,
@@ -375,11 +387,17 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
             Priority priority,
             boolean traceEnabled,
             ElementOrPropertyStatus status,
-            long beforeActionTimestamp
+            long beforeActionTimestamp,
+            Set<String> skipWorkers
     ) throws Exception {
         String propertyText = getPropertyText(property);
 
-        List<GraphPropertyThreadedWrapper> interestedWorkerWrappers = findInterestedWorkers(element, property, status);
+        List<GraphPropertyThreadedWrapper> interestedWorkerWrappers = findInterestedWorkers(
+                element,
+                property,
+                status,
+                skipWorkers
+        );
         if (interestedWorkerWrappers.size() == 0) {
             LOGGER.debug(
                     "Could not find interested workers for %s %s property %s (%s)",
@@ -390,6 +408,44 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
             );
             return;
         }
+
+        try (GraphPropertyCascade cascade = new GraphPropertyCascade(maxCascadeDepth)) {
+            safeExecuteHandlePropertyOnElement(
+                    cascade,
+                    0,
+                    interestedWorkerWrappers,
+                    element,
+                    property,
+                    workspaceId,
+                    visibilitySource,
+                    priority,
+                    traceEnabled,
+                    status,
+                    beforeActionTimestamp
+            );
+        }
+    }
+
+    /**
+     * Runs the interested workers on the property, and then runs the interested workers on the properties the
+     * workers changed on the same element, without going through the graph property queue. The graph is flushed
+     * once the workers of each step are done, so the workers of the next step read the changes. A changed property is still pushed on the
+     * graph property queue, marked with the workers run on it here, so the workers of other processes run on it too.
+     */
+    private void safeExecuteHandlePropertyOnElement(
+            GraphPropertyCascade cascade,
+            int cascadeDepth,
+            List<GraphPropertyThreadedWrapper> interestedWorkerWrappers,
+            Element element,
+            Property property,
+            String workspaceId,
+            String visibilitySource,
+            Priority priority,
+            boolean traceEnabled,
+            ElementOrPropertyStatus status,
+            long beforeActionTimestamp
+    ) throws Exception {
+        String propertyText = getPropertyText(property);
         if (LOGGER.isDebugEnabled()) {
             for (GraphPropertyThreadedWrapper interestedWorkerWrapper : interestedWorkerWrappers) {
                 LOGGER.debug(
@@ -414,6 +470,7 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
                 beforeActionTimestamp,
                 status
         );
+        workData.setCascade(cascade, cascadeDepth);
 
         LOGGER.debug("Begin work on element %s property %s", element.getId(), propertyText);
         if (property != null && property.getValue() instanceof StreamingPropertyValue) {
@@ -425,9 +482,75 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
 
         lastProcessedPropertyTime.set(System.currentTimeMillis());
 
+        LOGGER.debug("Completed work on %s", propertyText);
+
         this.graph.flush();
 
-        LOGGER.debug("Completed work on %s", propertyText);
+        List<GraphPropertyCascade.ChangedProperty> changedProperties = workData.getCascadeProperties();
+        if (changedProperties.size() == 0) {
+            return;
+        }
+
+        for (GraphPropertyCascade.ChangedProperty changedProperty : changedProperties) {
+            Element changedElement = refreshElement(changedProperty.getElement());
+            Property changedElementProperty = changedElement == null ? null : (changedProperty.getPropertyKey() == null
+                    ? changedElement.getProperty(changedProperty.getPropertyName())
+                    : changedElement.getProperty(changedProperty.getPropertyKey(), changedProperty.getPropertyName()));
+            if (changedElementProperty == null) {
+                LOGGER.warn(
+                        "Could not find changed property [%s]:[%s] on element with id %s",
+                        changedProperty.getPropertyKey(),
+                        changedProperty.getPropertyName(),
+                        changedProperty.getElement().getId()
+                );
+                continue;
+            }
+
+            List<GraphPropertyThreadedWrapper> changedPropertyWorkerWrappers = findInterestedWorkers(
+                    changedElement,
+                    changedElementProperty,
+                    ElementOrPropertyStatus.UPDATE,
+                    Collections.emptySet()
+            );
+            getWorkQueueRepository().pushGraphPropertyQueue(
+                    changedElement,
+                    changedProperty.getPropertyKey(),
+                    changedProperty.getPropertyName(),
+                    workspaceId,
+                    visibilitySource,
+                    priority,
+                    Arrays.asList(graphPropertyThreadedWrapperToNames(changedPropertyWorkerWrappers))
+            );
+            if (changedPropertyWorkerWrappers.size() == 0) {
+                continue;
+            }
+
+            LOGGER.debug(
+                    "Continuing work on element %s with changed property %s",
+                    changedElement.getId(),
+                    getPropertyText(changedElementProperty)
+            );
+            safeExecuteHandlePropertyOnElement(
+                    cascade,
+                    cascadeDepth + 1,
+                    changedPropertyWorkerWrappers,
+                    changedElement,
+                    changedElementProperty,
+                    workspaceId,
+                    visibilitySource,
+                    priority,
+                    traceEnabled,
+                    ElementOrPropertyStatus.UPDATE,
+                    beforeActionTimestamp
+            );
+        }
+    }
+
+    private Element refreshElement(Element element) {
+        if (element instanceof Edge) {
+            return graph.getEdge(element.getId(), this.authorizations);
+        }
+        return graph.getVertex(element.getId(), this.authorizations);
     }
 
     private String getPropertyText(Property property) {
@@ -453,50 +576,31 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
             StreamingPropertyValue streamingPropertyValue
     ) throws Exception {
         String[] workerNames = graphPropertyThreadedWrapperToNames(interestedWorkerWrappers);
-        InputStream in = streamingPropertyValue.getInputStream();
-        File tempFile = null;
-        try {
-            boolean requiresLocalFile = isLocalFileRequired(interestedWorkerWrappers);
-            if (requiresLocalFile) {
-                tempFile = copyToTempFile(in, workData);
-                in = new FileInputStream(tempFile);
-            }
-
-            TeeInputStream teeInputStream = new TeeInputStream(in, workerNames);
-            for (int i = 0; i < interestedWorkerWrappers.size(); i++) {
-                interestedWorkerWrappers.get(i).enqueueWork(teeInputStream.getTees()[i], workData);
-            }
-            teeInputStream.loopUntilTeesAreClosed();
-            for (GraphPropertyThreadedWrapper interestedWorkerWrapper : interestedWorkerWrappers) {
-                interestedWorkerWrapper.dequeueResult(false);
-            }
-        } finally {
-            if (tempFile != null) {
-                if (!tempFile.delete()) {
-                    LOGGER.warn("Could not delete temp file %s", tempFile.getAbsolutePath());
-                }
-            }
+        // a value already copied for another worker or message is read from the copy instead of the graph
+        ScratchFileManager.ScratchFile scratchFile = scratchFileManager.acquireIfPresent(
+                workData.getElement(),
+                workData.getProperty()
+        );
+        if (scratchFile == null && isLocalFileRequired(interestedWorkerWrappers)) {
+            scratchFile = scratchFileManager.acquire(workData.getElement(), workData.getProperty());
+        }
+        InputStream in;
+        if (scratchFile != null) {
+            workData.getCascade().addScratchFile(scratchFile);
+            workData.setLocalFile(scratchFile.getFile());
+            in = new FileInputStream(scratchFile.getFile());
+        } else {
+            in = streamingPropertyValue.getInputStream();
         }
-    }
 
-    private File copyToTempFile(InputStream in, GraphPropertyWorkData workData) throws IOException {
-        String fileExt = null;
-        String fileName = VisalloProperties.FILE_NAME.getOnlyPropertyValue(workData.getElement());
-        if (fileName != null) {
-            fileExt = FilenameUtils.getExtension(fileName);
-        }
-        if (fileExt == null) {
-            fileExt = "data";
+        TeeInputStream teeInputStream = new TeeInputStream(in, workerNames);
+        for (int i = 0; i < interestedWorkerWrappers.size(); i++) {
+            interestedWorkerWrappers.get(i).enqueueWork(teeInputStream.getTees()[i], workData);
         }
-        File tempFile = File.createTempFile("graphPropertyBolt", fileExt);
-        workData.setLocalFile(tempFile);
-        try (OutputStream tempFileOut = new FileOutputStream(tempFile)) {
-            IOUtils.copy(in, tempFileOut);
-        } finally {
-            in.close();
-
+        teeInputStream.loopUntilTeesAreClosed();
+        for (GraphPropertyThreadedWrapper interestedWorkerWrapper : interestedWorkerWrappers) {
+            interestedWorkerWrapper.dequeueResult(false);
         }
-        return tempFile;
     }
 
     private boolean isLocalFileRequired(List<GraphPropertyThreadedWrapper> interestedWorkerWrappers) {
@@ -511,7 +615,8 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
     private List<GraphPropertyThreadedWrapper> findInterestedWorkers(
             Element element,
             Property property,
-            ElementOrPropertyStatus status
+            ElementOrPropertyStatus status,
+            Set<String> skipWorkers
     ) {
         Set<String> graphPropertyWorkerWhiteList = IterableUtils.toSet(VisalloProperties.GRAPH_PROPERTY_WORKER_WHITE_LIST.getPropertyValues(
                 element));
@@ -528,6 +633,9 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
             if (graphPropertyWorkerBlackList.contains(graphPropertyWorkerName)) {
                 continue;
             }
+            if (skipWorkers.contains(graphPropertyWorkerName)) {
+                continue;
+            }
             GraphPropertyWorker worker = wrapper.getWorker();
             if (status == ElementOrPropertyStatus.DELETION) {
                 addDeletedWorkers(interestedWorkers, worker, wrapper, element, property);
@@ -635,6 +743,11 @@ public class GraphPropertyRunner extends WorkerBase<GraphPropertyWorkerItem> {
         this.visibilityTranslator = visibilityTranslator;
     }
 
+    @Inject
+    public void setScratchFileManager(ScratchFileManager scratchFileManager) {
+        this.scratchFileManager = scratchFileManager;
+    }
+
 
     public void setAuthorizations(Authorizations authorizations) {
         this.authorizations = authorizations;
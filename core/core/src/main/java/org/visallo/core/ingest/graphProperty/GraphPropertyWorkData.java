@@ -8,7 +8,9 @@ import org.visallo.core.user.User;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -23,6 +25,9 @@ public class GraphPropertyWorkData {
     private File localFile;
     private long beforeActionTimestamp;
     private ElementOrPropertyStatus status;
+    private GraphPropertyCascade cascade;
+    private int cascadeDepth;
+    private final List<GraphPropertyCascade.ChangedProperty> cascadeProperties = new ArrayList<>();
 
     public GraphPropertyWorkData(
             VisibilityTranslator visibilityTranslator,
@@ -110,6 +115,48 @@ public class GraphPropertyWorkData {
         return traceEnabled;
     }
 
+    void setCascade(GraphPropertyCascade cascade, int cascadeDepth) {
+        this.cascade = cascade;
+        this.cascadeDepth = cascadeDepth;
+    }
+
+    GraphPropertyCascade getCascade() {
+        return cascade;
+    }
+
+    int getCascadeDepth() {
+        return cascadeDepth;
+    }
+
+    /**
+     * Adds a changed property of the element being worked on to the properties the graph property runner processes
+     * once the current workers are done.
+     *
+     * @return false if the property has to be pushed on the graph property queue instead, because there is no
+     * cascade, the depth limit has been reached or the element is not the element being worked on
+     */
+    synchronized boolean addCascadeProperty(Element element, String propertyKey, String propertyName) {
+        if (cascade == null || cascadeDepth >= cascade.getMaxDepth()) {
+            return false;
+        }
+        if (!element.getId().equals(this.element.getId())
+                || (element instanceof Vertex) != (this.element instanceof Vertex)) {
+            return false;
+        }
+        GraphPropertyCascade.ChangedProperty changedProperty = new GraphPropertyCascade.ChangedProperty(
+                element,
+                propertyKey,
+                propertyName
+        );
+        cascadeProperties.removeIf(p -> p.isSameProperty(changedProperty));
+        cascadeProperties.add(changedProperty);
+        return true;
+    }
+
+    synchronized List<GraphPropertyCascade.ChangedProperty> getCascadeProperties() {
+        return new ArrayList<>(cascadeProperties);
+    }
+
     // TODO this is a weird method. I'm not sure what this should be used for
     public VisibilityJson getVisibilitySourceJson() {
         if (getVisibilitySource() == null || getVisibilitySource().length() == 0) {
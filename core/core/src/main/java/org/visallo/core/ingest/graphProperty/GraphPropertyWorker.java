@@ -23,6 +23,7 @@ import org.visallo.core.util.VisalloLoggerFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class GraphPropertyWorker {
@@ -229,6 +230,67 @@ public abstract class GraphPropertyWorker {
         getWorkspaceRepository().updateEntityOnWorkspace(data.getWorkspaceId(), vertex.getId(), getUser());
     }
 
+    /**
+     * Has the graph property workers of this process that are interested in a property this worker changed on the
+     * element being worked on run once this worker is done, instead of pushing the property on the graph property
+     * queue first. The graph is flushed once all workers of the current property are done, so the changes do not
+     * need to be flushed before calling this. The property is then pushed on the graph property queue for the
+     * workers of other processes, skipping the workers run in this process.
+     * <p>
+     * If the property is on another element or the cascade depth limit of the message has been reached, the graph
+     * is flushed and the property is pushed on the graph property queue for all workers right away.
+     *
+     * @param element the element returned when saving the change, it is passed on to the next workers
+     */
+    protected void continueWithProperty(
+            GraphPropertyWorkData data,
+            Element element,
+            String propertyKey,
+            String propertyName
+    ) {
+        if (data.addCascadeProperty(element, propertyKey, propertyName)) {
+            return;
+        }
+        getGraph().flush();
+        getWorkQueueRepository().pushGraphPropertyQueue(
+                element,
+                propertyKey,
+                propertyName,
+                data.getWorkspaceId(),
+                data.getVisibilitySource(),
+                data.getPriority()
+        );
+    }
+
+    /**
+     * Like {@link #continueWithProperty(GraphPropertyWorkData, Element, String, String)} for the changes of
+     * {@link org.visallo.core.model.properties.types.VisalloProperty#updateProperty}. Deleted and hidden properties
+     * are always pushed on the graph property queue.
+     */
+    protected void continueWithChangedProperties(
+            GraphPropertyWorkData data,
+            Element element,
+            List<VisalloPropertyUpdate> changedProperties
+    ) {
+        List<VisalloPropertyUpdate> queuedProperties = new ArrayList<>();
+        for (VisalloPropertyUpdate changedProperty : changedProperties) {
+            if (ElementOrPropertyStatus.getStatus(changedProperty) != ElementOrPropertyStatus.UPDATE
+                    || !data.addCascadeProperty(element, changedProperty.getPropertyKey(), changedProperty.getPropertyName())) {
+                queuedProperties.add(changedProperty);
+            }
+        }
+        if (queuedProperties.size() > 0) {
+            getGraph().flush();
+            getWorkQueueRepository().pushGraphVisalloPropertyQueue(
+                    element,
+                    queuedProperties,
+                    data.getWorkspaceId(),
+                    data.getVisibilitySource(),
+                    data.getPriority()
+            );
+        }
+    }
+
     protected void pushChangedPropertiesOnWorkQueue(GraphPropertyWorkData data, List<VisalloPropertyUpdate> changedProperties) {
         getWorkQueueRepository().pushGraphVisalloPropertyQueue(
                 data.getElement(),
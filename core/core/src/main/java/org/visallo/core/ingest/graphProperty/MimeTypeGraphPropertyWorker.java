@@ -74,12 +74,11 @@ public abstract class MimeTypeGraphPropertyWorker extends GraphPropertyWorker {
         Metadata mimeTypeMetadata = data.createPropertyMetadata(getUser());
         VisalloProperties.MIME_TYPE.addPropertyValue(m, getMultiKey(data.getProperty()), mimeType, mimeTypeMetadata, data.getVisibility());
         m.setPropertyMetadata(data.getProperty(), VisalloProperties.MIME_TYPE.getPropertyName(), mimeType, getVisibilityTranslator().getDefaultVisibility());
-        m.save(getAuthorizations());
-        getGraph().flush();
+        Vertex vertex = m.save(getAuthorizations());
 
         runPostMimeTypeWorkers(mimeType, data);
 
-        getWorkQueueRepository().pushGraphPropertyQueue(data.getElement(), data.getProperty(), data.getWorkspaceId(), data.getVisibilitySource(), data.getPriority());
+        continueWithProperty(data, vertex, data.getProperty().getKey(), data.getProperty().getName());
     }
 
     private String getMultiKey(Property property) {
@@ -87,6 +86,11 @@ public abstract class MimeTypeGraphPropertyWorker extends GraphPropertyWorker {
     }
 
     private void runPostMimeTypeWorkers(String mimeType, GraphPropertyWorkData data) {
+        if (postMimeTypeWorkers.size() == 0) {
+            return;
+        }
+        // post mime type workers may read the mime type from the graph
+        getGraph().flush();
         for (PostMimeTypeWorker postMimeTypeWorker : postMimeTypeWorkers) {
             try {
                 LOGGER.debug("running PostMimeTypeWorker: %s on element: %s, mimeType: %s", postMimeTypeWorker.getClass().getName(), data.getElement().getId(), mimeType);
@@ -95,9 +99,6 @@ public abstract class MimeTypeGraphPropertyWorker extends GraphPropertyWorker {
                 throw new VisalloException("Failed running PostMimeTypeWorker " + postMimeTypeWorker.getClass().getName(), ex);
             }
         }
-        if (postMimeTypeWorkers.size() > 0) {
-            getGraph().flush();
-        }
     }
 
     protected abstract String getMimeType(InputStream in, String fileName) throws Exception;
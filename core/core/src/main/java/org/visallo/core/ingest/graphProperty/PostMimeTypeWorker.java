@@ -1,27 +1,23 @@
 package org.visallo.core.ingest.graphProperty;
 
 import com.google.inject.Inject;
-import org.apache.commons.io.IOUtils;
 import org.vertexium.Authorizations;
 import org.vertexium.Element;
 import org.vertexium.Graph;
-import org.vertexium.property.StreamingPropertyValue;
+import org.vertexium.Property;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.user.User;
-import org.visallo.core.util.VisalloLogger;
-import org.visallo.core.util.VisalloLoggerFactory;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 
 public abstract class PostMimeTypeWorker {
-    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(PostMimeTypeWorker.class);
     private Graph graph;
     private WorkQueueRepository workQueueRepository;
-    private File localFileForRaw;
+    private ScratchFileManager scratchFileManager;
+    private ScratchFileManager.ScratchFile localFileForRaw;
     private GraphPropertyWorkerPrepareData workerPrepareData;
 
     public void prepare(GraphPropertyWorkerPrepareData workerPrepareData) throws Exception {
@@ -35,27 +31,26 @@ public abstract class PostMimeTypeWorker {
             execute(mimeType, data, authorizations);
         } finally {
             if (localFileForRaw != null) {
-                if (!localFileForRaw.delete()) {
-                    LOGGER.warn("Could not delete local file: %s", localFileForRaw.getAbsolutePath());
-                }
+                localFileForRaw.close();
                 localFileForRaw = null;
             }
         }
     }
 
+    /**
+     * Gets a local copy of the raw property, which is shared with the other workers of this process and must not
+     * be modified or deleted.
+     */
     protected File getLocalFileForRaw(Element element) throws IOException {
         if (localFileForRaw != null) {
-            return localFileForRaw;
+            return localFileForRaw.getFile();
         }
-        StreamingPropertyValue rawValue = VisalloProperties.RAW.getPropertyValue(element);
-        try (InputStream in = rawValue.getInputStream()) {
-            String suffix = "-" + element.getId().replaceAll("\\W", "_");
-            localFileForRaw = File.createTempFile(PostMimeTypeWorker.class.getName() + "-", suffix);
-            try (FileOutputStream out = new FileOutputStream(localFileForRaw)) {
-                IOUtils.copy(in, out);
-                return localFileForRaw;
-            }
+        Property rawProperty = VisalloProperties.RAW.getProperty(element);
+        if (rawProperty == null) {
+            throw new VisalloException("Could not find raw property on element: " + element.getId());
         }
+        localFileForRaw = scratchFileManager.acquire(element, rawProperty);
+        return localFileForRaw.getFile();
     }
 
     protected User getUser() {
@@ -79,4 +74,9 @@ public abstract class PostMimeTypeWorker {
     protected WorkQueueRepository getWorkQueueRepository() {
         return workQueueRepository;
     }
+
+    @Inject
+    public final void setScratchFileManager(ScratchFileManager scratchFileManager) {
+        this.scratchFileManager = scratchFileManager;
+    }
 }
@@ -0,0 +1,343 @@
+package org.visallo.core.ingest.graphProperty;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.vertexium.property.StreamingPropertyValue;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.util.ShutdownListener;
+import org.visallo.core.util.ShutdownService;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps local copies of streaming property values so that the graph property workers, post mime type workers and
+ * the following messages for the same element that need a value as a local file share one copy per process.
+ * <p>
+ * Copies are keyed by element id, property key, property name and a hash of the value's timestamp, length and type,
+ * so a value that is replaced gets a new copy. Every {@link #acquire(Element, Property)} must be followed by a
+ * {@link ScratchFile#close()}. Copies that are not in use are kept until they are older than the maximum age or
+ * until the copies take more than the maximum size, least recently used first.
+ * <p>
+ * Each process keeps its copies in its own subdirectory of the configured directory, which is locked while the
+ * process runs and deleted on shutdown. Subdirectories left behind by processes that did not shut down cleanly are
+ * deleted when the next manager is created, since their lock is no longer held.
+ * <p>
+ * Configuration:
+ *
+ * <pre><code>
+ * org.visallo.core.ingest.graphProperty.ScratchFileManager.directory=/tmp
+ * org.visallo.core.ingest.graphProperty.ScratchFileManager.maxSizeBytes=5368709120
+ * org.visallo.core.ingest.graphProperty.ScratchFileManager.maxAgeSeconds=600
+ * </code></pre>
+ */
+@Singleton
+public class ScratchFileManager implements ShutdownListener {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ScratchFileManager.class);
+    public static final String CONFIGURATION_PARAMETER_DIRECTORY = ScratchFileManager.class.getName() + ".directory";
+    public static final String CONFIGURATION_PARAMETER_MAX_SIZE_BYTES = ScratchFileManager.class.getName() + ".maxSizeBytes";
+    public static final long CONFIGURATION_DEFAULT_MAX_SIZE_BYTES = 5L * 1024 * 1024 * 1024;
+    public static final String CONFIGURATION_PARAMETER_MAX_AGE_SECONDS = ScratchFileManager.class.getName() + ".maxAgeSeconds";
+    public static final long CONFIGURATION_DEFAULT_MAX_AGE_SECONDS = 600;
+    static final String DIRECTORY_PREFIX = "visallo-scratch-";
+    static final String LOCK_FILE_NAME = ".lock";
+    // a directory without a lock file this young may still be getting set up by another process
+    private static final long NEW_DIRECTORY_GRACE_MILLIS = 60 * 1000;
+    private final File directory;
+    private final FileChannel lockChannel;
+    private final long maxSizeBytes;
+    private final long maxAgeMillis;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong copyCount = new AtomicLong();
+    private long totalSizeBytes;
+
+    @Inject
+    public ScratchFileManager(Configuration configuration, ShutdownService shutdownService) {
+        String directoryName = configuration.get(CONFIGURATION_PARAMETER_DIRECTORY, null);
+        File baseDirectory = new File(directoryName == null ? System.getProperty("java.io.tmpdir") : directoryName);
+        if (!baseDirectory.exists() && !baseDirectory.mkdirs()) {
+            throw new VisalloException("Could not create scratch file directory: " + baseDirectory.getAbsolutePath());
+        }
+        this.maxSizeBytes = configuration.getLong(CONFIGURATION_PARAMETER_MAX_SIZE_BYTES, CONFIGURATION_DEFAULT_MAX_SIZE_BYTES);
+        this.maxAgeMillis = 1000L * configuration.getLong(CONFIGURATION_PARAMETER_MAX_AGE_SECONDS, CONFIGURATION_DEFAULT_MAX_AGE_SECONDS);
+
+        deleteAbandonedDirectories(baseDirectory);
+        try {
+            this.directory = Files.createTempDirectory(baseDirectory.toPath(), DIRECTORY_PREFIX).toFile();
+            this.lockChannel = FileChannel.open(
+                    new File(this.directory, LOCK_FILE_NAME).toPath(),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE
+            );
+            this.lockChannel.lock();
+        } catch (IOException ex) {
+            throw new VisalloException("Could not create scratch file directory in: " + baseDirectory.getAbsolutePath(), ex);
+        }
+        shutdownService.register(this);
+    }
+
+    private static void deleteAbandonedDirectories(File baseDirectory) {
+        File[] directories = baseDirectory.listFiles(f -> f.isDirectory() && f.getName().startsWith(DIRECTORY_PREFIX));
+        if (directories == null) {
+            return;
+        }
+        for (File abandonedDirectory : directories) {
+            try {
+                if (isAbandoned(abandonedDirectory)) {
+                    LOGGER.info("Deleting abandoned scratch file directory %s", abandonedDirectory.getAbsolutePath());
+                    FileUtils.deleteDirectory(abandonedDirectory);
+                }
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.warn("Could not delete abandoned scratch file directory %s", abandonedDirectory.getAbsolutePath(), ex);
+            }
+        }
+    }
+
+    private static boolean isAbandoned(File directory) throws IOException {
+        File lockFile = new File(directory, LOCK_FILE_NAME);
+        if (!lockFile.exists()) {
+            return System.currentTimeMillis() - directory.lastModified() > NEW_DIRECTORY_GRACE_MILLIS;
+        }
+        try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.WRITE)) {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                return false;
+            }
+            lock.release();
+            return true;
+        } catch (OverlappingFileLockException ex) {
+            // held by another manager of this process
+            return false;
+        }
+    }
+
+    /**
+     * Gets the local copy of a streaming property value, copying the value if there is no copy yet. Callers
+     * acquiring a value that is being copied wait for the copy.
+     */
+    public ScratchFile acquire(Element element, Property property) throws IOException {
+        return acquire(element, property, true);
+    }
+
+    /**
+     * @return the local copy of the value, or null if the value has not been copied
+     */
+    public ScratchFile acquireIfPresent(Element element, Property property) throws IOException {
+        return acquire(element, property, false);
+    }
+
+    private ScratchFile acquire(Element element, Property property, boolean create) throws IOException {
+        Entry entry = reference(element, property, create);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            entry.copy(element, property);
+        } catch (IOException | RuntimeException ex) {
+            release(entry);
+            throw ex;
+        }
+        return new ScratchFile(entry);
+    }
+
+    /**
+     * @return the number of values copied since this manager was created
+     */
+    public long getCopyCount() {
+        return copyCount.get();
+    }
+
+    public synchronized long getTotalSizeBytes() {
+        return totalSizeBytes;
+    }
+
+    public synchronized void clear() {
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.referenceCount == 0) {
+                it.remove();
+                delete(entry);
+            }
+        }
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Deletes this process's copies, including the ones still in use, and its subdirectory.
+     */
+    @Override
+    public synchronized void shutdown() {
+        entries.clear();
+        totalSizeBytes = 0;
+        try {
+            lockChannel.close();
+        } catch (IOException ex) {
+            LOGGER.warn("Could not release scratch file directory lock %s", directory.getAbsolutePath(), ex);
+        }
+        try {
+            FileUtils.deleteDirectory(directory);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not delete scratch file directory %s", directory.getAbsolutePath(), ex);
+        }
+    }
+
+    private synchronized Entry reference(Element element, Property property, boolean create) {
+        evict();
+        String key = getKey(element, property);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (!create) {
+                return null;
+            }
+            entry = new Entry(key);
+            entries.put(key, entry);
+        }
+        entry.referenceCount++;
+        return entry;
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.referenceCount--;
+        entry.lastReleasedTime = System.currentTimeMillis();
+        if (entry.file == null && entry.referenceCount == 0) {
+            // the copy failed
+            entries.remove(entry.key);
+        }
+        evict();
+    }
+
+    private synchronized void copied(Entry entry) {
+        copyCount.incrementAndGet();
+        totalSizeBytes += entry.sizeBytes;
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.referenceCount > 0 || entry.file == null) {
+                continue;
+            }
+            // entries are iterated least recently used first
+            if (totalSizeBytes > maxSizeBytes || now - entry.lastReleasedTime >= maxAgeMillis) {
+                it.remove();
+                delete(entry);
+            }
+        }
+    }
+
+    private void delete(Entry entry) {
+        if (entry.file == null) {
+            return;
+        }
+        totalSizeBytes -= entry.sizeBytes;
+        if (!entry.file.delete()) {
+            LOGGER.warn("Could not delete scratch file %s", entry.file.getAbsolutePath());
+        }
+        entry.file = null;
+    }
+
+    private static String getKey(Element element, Property property) {
+        if (!(property.getValue() instanceof StreamingPropertyValue)) {
+            throw new VisalloException("Only streaming property values can be copied to scratch files: " + property);
+        }
+        StreamingPropertyValue value = (StreamingPropertyValue) property.getValue();
+        int valueHash = Objects.hash(property.getTimestamp(), value.getLength(), value.getValueType());
+        return element.getId() + "\u001f" + property.getKey() + "\u001f" + property.getName() + "\u001f"
+                + Integer.toHexString(valueHash);
+    }
+
+    private class Entry {
+        private final String key;
+        private volatile File file;
+        private long sizeBytes;
+        private int referenceCount;
+        private long lastReleasedTime;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        synchronized void copy(Element element, Property property) throws IOException {
+            if (file != null) {
+                return;
+            }
+            File newFile = File.createTempFile("scratch-", getSuffix(element), directory);
+            StreamingPropertyValue value = (StreamingPropertyValue) property.getValue();
+            try (InputStream in = value.getInputStream(); OutputStream out = new FileOutputStream(newFile)) {
+                IOUtils.copy(in, out);
+            } catch (IOException | RuntimeException ex) {
+                if (!newFile.delete()) {
+                    LOGGER.warn("Could not delete scratch file %s", newFile.getAbsolutePath());
+                }
+                throw ex;
+            }
+            sizeBytes = newFile.length();
+            file = newFile;
+            copied(this);
+            LOGGER.debug("copied %s:%s of element %s to %s", property.getKey(), property.getName(), element.getId(), file);
+        }
+
+        private String getSuffix(Element element) {
+            String suffix = "-" + element.getId().replaceAll("\\W", "_");
+            // some tools rely on the file extension to read the file
+            String fileName = VisalloProperties.FILE_NAME.getOnlyPropertyValue(element);
+            String extension = fileName == null ? null : FilenameUtils.getExtension(fileName);
+            if (extension != null && extension.length() > 0) {
+                suffix += "." + extension;
+            }
+            return suffix;
+        }
+    }
+
+    /**
+     * A reference to a local copy of a streaming property value. The copy must not be modified or deleted, and
+     * this reference must be closed when the copy is no longer used.
+     */
+    public class ScratchFile implements Closeable {
+        private final Entry entry;
+        private boolean closed;
+
+        private ScratchFile(Entry entry) {
+            this.entry = entry;
+        }
+
+        public File getFile() {
+            return entry.file;
+        }
+
+        /**
+         * Opens a read only channel on the copy, which must be closed by the caller.
+         */
+        public FileChannel openChannel() throws IOException {
+            return FileChannel.open(entry.file.toPath(), StandardOpenOption.READ);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            release(entry);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package org.visallo.core.map;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.FileConfigurationLoader;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.http.HttpRepository;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Caches the map tiles of the Mapzen tile server, in memory for the most used tiles and on local disk for the
+ * rest, so that tiles survive restarts and can be seeded ahead of time for deployments without internet access.
+ * <p>
+ * Concurrent requests for a tile that is not cached wait for the same request to the tile server. The tiles on
+ * disk are evicted least recently used first once they take more than the maximum disk size.
+ * <p>
+ * Configuration:
+ *
+ * <pre><code>
+ * org.visallo.core.map.MapTileCache.directory=/opt/visallo/mapTileCache
+ * org.visallo.core.map.MapTileCache.maxDiskSizeBytes=1073741824
+ * org.visallo.core.map.MapTileCache.maxMemorySizeBytes=67108864
+ * </code></pre>
+ */
+@Singleton
+public class MapTileCache {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(MapTileCache.class);
+    public static final String MAPZEN_TILE_SERVER = "http://vector.mapzen.com/";
+    public static final String CONFIGURATION_PARAMETER_DIRECTORY = MapTileCache.class.getName() + ".directory";
+    public static final String CONFIGURATION_PARAMETER_MAX_DISK_SIZE_BYTES = MapTileCache.class.getName() + ".maxDiskSizeBytes";
+    public static final long CONFIGURATION_DEFAULT_MAX_DISK_SIZE_BYTES = 1024L * 1024 * 1024;
+    public static final String CONFIGURATION_PARAMETER_MAX_MEMORY_SIZE_BYTES = MapTileCache.class.getName() + ".maxMemorySizeBytes";
+    public static final long CONFIGURATION_DEFAULT_MAX_MEMORY_SIZE_BYTES = 64L * 1024 * 1024;
+    private final HttpRepository httpRepository;
+    private final String apiKey;
+    private final File directory;
+    private final long maxDiskSizeBytes;
+    private final Cache<String, byte[]> memoryCache;
+    private final ConcurrentMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Long> diskFileSizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskSizeBytes;
+
+    @Inject
+    public MapTileCache(Configuration configuration, HttpRepository httpRepository) {
+        this.httpRepository = httpRepository;
+        this.apiKey = configuration.get(Configuration.MAPZEN_TILE_API_KEY, null);
+        this.directory = new File(configuration.get(CONFIGURATION_PARAMETER_DIRECTORY, getDefaultDirectory()));
+        if (!this.directory.exists() && !this.directory.mkdirs()) {
+            throw new VisalloException("Could not make directory: " + this.directory.getAbsolutePath());
+        }
+        this.maxDiskSizeBytes = configuration.getLong(
+                CONFIGURATION_PARAMETER_MAX_DISK_SIZE_BYTES,
+                CONFIGURATION_DEFAULT_MAX_DISK_SIZE_BYTES
+        );
+        long maxMemorySizeBytes = configuration.getLong(
+                CONFIGURATION_PARAMETER_MAX_MEMORY_SIZE_BYTES,
+                CONFIGURATION_DEFAULT_MAX_MEMORY_SIZE_BYTES
+        );
+        this.memoryCache = CacheBuilder.newBuilder()
+                .maximumWeight(maxMemorySizeBytes)
+                .weigher((String uri, byte[] data) -> data.length)
+                .build();
+        loadDiskIndex();
+    }
+
+    private static String getDefaultDirectory() {
+        File visalloDir = new File(FileConfigurationLoader.getDefaultVisalloDir());
+        return new File(visalloDir, "mapTileCache").getAbsolutePath();
+    }
+
+    /**
+     * @param uri the path of the tile on the tile server, for example "osm/all/1/0/1.json"
+     */
+    public byte[] get(String uri) {
+        byte[] data = memoryCache.getIfPresent(uri);
+        if (data != null) {
+            return data;
+        }
+
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existingFuture = inFlight.putIfAbsent(uri, future);
+        if (existingFuture != null) {
+            return join(uri, existingFuture);
+        }
+        try {
+            data = load(uri);
+            memoryCache.put(uri, data);
+            future.complete(data);
+            return data;
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(uri, future);
+        }
+    }
+
+    /**
+     * Gets the tile into the disk cache without keeping it in memory.
+     *
+     * @return true if the tile was not on disk
+     */
+    public boolean seed(String uri) {
+        if (memoryCache.getIfPresent(uri) != null || isOnDisk(uri)) {
+            return false;
+        }
+        get(uri);
+        memoryCache.invalidate(uri);
+        return true;
+    }
+
+    public synchronized long getDiskSizeBytes() {
+        return diskSizeBytes;
+    }
+
+    private byte[] load(String uri) {
+        byte[] data = readFromDisk(uri);
+        if (data != null) {
+            return data;
+        }
+        if (apiKey == null) {
+            throw new VisalloException("MapZen api key not found: " + Configuration.MAPZEN_TILE_API_KEY);
+        }
+        LOGGER.debug("cache miss: %s", uri);
+        data = httpRepository.get(MAPZEN_TILE_SERVER + uri + "?api_key=" + apiKey);
+        writeToDisk(uri, data);
+        return data;
+    }
+
+    private static byte[] join(String uri, CompletableFuture<byte[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted waiting for tile: " + uri, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new VisalloException("Could not get tile: " + uri, ex.getCause());
+        }
+    }
+
+    private synchronized boolean isOnDisk(String uri) {
+        return diskFileSizes.containsKey(getFileName(uri));
+    }
+
+    private byte[] readFromDisk(String uri) {
+        String fileName = getFileName(uri);
+        File file = new File(directory, fileName);
+        synchronized (this) {
+            if (diskFileSizes.get(fileName) == null) {
+                return null;
+            }
+        }
+        try {
+            byte[] data = FileUtils.readFileToByteArray(file);
+            // the modified time is the last access time when the index is loaded after a restart
+            if (!file.setLastModified(System.currentTimeMillis())) {
+                LOGGER.debug("Could not set last modified time of %s", file.getAbsolutePath());
+            }
+            return data;
+        } catch (IOException ex) {
+            LOGGER.warn("Could not read cached tile %s: %s", uri, file.getAbsolutePath(), ex);
+            synchronized (this) {
+                removeFromDiskIndex(fileName);
+            }
+            return null;
+        }
+    }
+
+    private void writeToDisk(String uri, byte[] data) {
+        String fileName = getFileName(uri);
+        File file = new File(directory, fileName);
+        try {
+            File tempFile = File.createTempFile("tile-", ".tmp", directory);
+            FileUtils.writeByteArrayToFile(tempFile, data);
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not cache tile %s: %s", uri, file.getAbsolutePath(), ex);
+            return;
+        }
+        synchronized (this) {
+            removeFromDiskIndex(fileName);
+            diskFileSizes.put(fileName, (long) data.length);
+            diskSizeBytes += data.length;
+            evictFromDisk();
+        }
+    }
+
+    private void evictFromDisk() {
+        Iterator<Map.Entry<String, Long>> it = diskFileSizes.entrySet().iterator();
+        while (diskSizeBytes > maxDiskSizeBytes && it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            it.remove();
+            diskSizeBytes -= entry.getValue();
+            File file = new File(directory, entry.getKey());
+            if (!file.delete()) {
+                LOGGER.warn("Could not delete cached tile %s", file.getAbsolutePath());
+            }
+        }
+    }
+
+    private void removeFromDiskIndex(String fileName) {
+        Long size = diskFileSizes.remove(fileName);
+        if (size != null) {
+            diskSizeBytes -= size;
+        }
+    }
+
+    private synchronized void loadDiskIndex() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<File> tileFiles = new ArrayList<>();
+        for (File file : files) {
+            if (file.getName().endsWith(".tmp")) {
+                if (!file.delete()) {
+                    LOGGER.warn("Could not delete %s", file.getAbsolutePath());
+                }
+            } else if (file.isFile()) {
+                tileFiles.add(file);
+            }
+        }
+        tileFiles.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : tileFiles) {
+            diskFileSizes.put(file.getName(), file.length());
+            diskSizeBytes += file.length();
+        }
+        evictFromDisk();
+        LOGGER.info("Using map tile cache dir: %s (%d tiles, %d bytes)", directory.getAbsolutePath(), diskFileSizes.size(), diskSizeBytes);
+    }
+
+    private static String getFileName(String uri) {
+        return DigestUtils.md5Hex(uri);
+    }
+}
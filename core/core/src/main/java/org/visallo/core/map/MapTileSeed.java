@@ -0,0 +1,93 @@
+package org.visallo.core.map;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.google.inject.Inject;
+import org.visallo.core.cmdline.CommandLineTool;
+
+@Parameters(commandDescription = "Download the map tiles of an area into the map tile cache")
+public class MapTileSeed extends CommandLineTool {
+    private static final double MAX_LATITUDE = 85.0511;
+    private MapTileCache mapTileCache;
+
+    @Parameter(names = {"--north"}, required = true, description = "Northern latitude of the area")
+    private double north;
+
+    @Parameter(names = {"--south"}, required = true, description = "Southern latitude of the area")
+    private double south;
+
+    @Parameter(names = {"--west"}, required = true, description = "Western longitude of the area")
+    private double west;
+
+    @Parameter(names = {"--east"}, required = true, description = "Eastern longitude of the area")
+    private double east;
+
+    @Parameter(names = {"--minZoom"}, description = "Lowest zoom level to download")
+    private int minZoom = 0;
+
+    @Parameter(names = {"--maxZoom"}, required = true, description = "Highest zoom level to download")
+    private int maxZoom;
+
+    @Parameter(names = {"--layers"}, description = "Tile layers to download")
+    private String layers = "all";
+
+    @Parameter(names = {"--format"}, description = "Tile format to download")
+    private String format = "json";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineTool.main(new MapTileSeed(), args);
+    }
+
+    @Override
+    protected int run() throws Exception {
+        if (north < south || minZoom < 0 || maxZoom < minZoom) {
+            System.err.println("--north must not be less than --south and --maxZoom must not be less than --minZoom");
+            return -1;
+        }
+
+        long tileCount = 0;
+        long downloadCount = 0;
+        for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+            int minX = getTileX(west, zoom);
+            int maxX = getTileX(east, zoom);
+            int minY = getTileY(north, zoom);
+            int maxY = getTileY(south, zoom);
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    String uri = String.format("osm/%s/%d/%d/%d.%s", layers, zoom, x, y, format);
+                    if (mapTileCache.seed(uri)) {
+                        downloadCount++;
+                    }
+                    tileCount++;
+                }
+            }
+            LOGGER.info("zoom %d done (%d tiles, %d downloaded)", zoom, tileCount, downloadCount);
+        }
+        System.out.println(String.format(
+                "%d tiles cached, %d downloaded, %d bytes on disk",
+                tileCount,
+                downloadCount,
+                mapTileCache.getDiskSizeBytes()
+        ));
+        return 0;
+    }
+
+    static int getTileX(double longitude, int zoom) {
+        int tileCount = 1 << zoom;
+        int x = (int) Math.floor((longitude + 180) / 360 * tileCount);
+        return Math.max(0, Math.min(tileCount - 1, x));
+    }
+
+    static int getTileY(double latitude, int zoom) {
+        int tileCount = 1 << zoom;
+        double latitudeRadians = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        double mercatorY = Math.log(Math.tan(latitudeRadians) + 1 / Math.cos(latitudeRadians));
+        int y = (int) Math.floor((1 - mercatorY / Math.PI) / 2 * tileCount);
+        return Math.max(0, Math.min(tileCount - 1, y));
+    }
+
+    @Inject
+    public void setMapTileCache(MapTileCache mapTileCache) {
+        this.mapTileCache = mapTileCache;
+    }
+}
@@ -12,8 +12,9 @@ import org.visallo.core.status.StatusServer;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
 
 public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
     private final boolean statusEnabled;
@@ -24,7 +25,7 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
     private WorkQueueRepository workQueueRepository;
     private volatile boolean shouldRun;
     private StatusServer statusServer = null;
-    private final Queue<WorkerItemWrapper> tupleQueue = new LinkedList<>();
+    private final LinkedList<WorkerItemWrapper> tupleQueue = new LinkedList<>();
     private final int tupleQueueSize;
     private Thread processThread;
 
@@ -74,11 +75,14 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
                             if (!shouldRun) {
                                 return;
                             }
-                            if (tupleQueue.size() > 0) {
-                                workerItemWrapper = tupleQueue.remove();
-                                queueSizeMetric.dec();
-                                tupleQueue.notifyAll();
+                            int index = selectWorkerItem(getWorkerItems(), tupleQueue.size() >= tupleQueueSize);
+                            if (index < 0) {
+                                tupleQueue.wait();
+                                continue;
                             }
+                            workerItemWrapper = tupleQueue.remove(index);
+                            queueSizeMetric.dec();
+                            tupleQueue.notifyAll();
                         } while (shouldRun && workerItemWrapper == null);
                     }
                 } catch (Exception ex) {
@@ -151,6 +155,37 @@ public abstract class WorkerBase<TWorkerItem extends WorkerItem> {
         }
     }
 
+    private List<TWorkerItem> getWorkerItems() {
+        List<TWorkerItem> workerItems = new ArrayList<>(tupleQueue.size());
+        for (WorkerItemWrapper workerItemWrapper : tupleQueue) {
+            workerItems.add(workerItemWrapper.getWorkerItem());
+        }
+        return workerItems;
+    }
+
+    /**
+     * Chooses which of the fetched items to process next, the first one by default. When no item is chosen the
+     * process thread waits until another item is fetched or {@link #reselectWorkerItem()} is called. Once as many
+     * items as the tuple queue holds have been fetched no more are fetched until one is chosen.
+     *
+     * @param workerItems the fetched items, in the order they were fetched
+     * @param full        true if no more items will be fetched until one is chosen
+     * @return the index of the item to process next, or -1 to wait
+     */
+    protected int selectWorkerItem(List<TWorkerItem> workerItems, boolean full) {
+        return 0;
+    }
+
+    /**
+     * Has the process thread choose again from the fetched items, for when an item that could not be chosen
+     * before may be chosen now.
+     */
+    protected void reselectWorkerItem() {
+        synchronized (tupleQueue) {
+            tupleQueue.notifyAll();
+        }
+    }
+
     protected abstract StatusServer createStatusServer() throws Exception;
 
     protected abstract void process(TWorkerItem workerItem) throws Exception;
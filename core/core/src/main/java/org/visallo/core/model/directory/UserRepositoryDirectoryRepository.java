@@ -12,6 +12,7 @@ import java.util.Collections;
 import java.util.List;
 
 public class UserRepositoryDirectoryRepository extends DirectoryRepository {
+    public static final int SEARCH_PEOPLE_LIMIT = 100;
     private final UserRepository userRepository;
 
     @Inject
@@ -22,7 +23,7 @@ public class UserRepositoryDirectoryRepository extends DirectoryRepository {
     @Override
     public List<DirectoryPerson> searchPeople(String search, User user) {
         List<DirectoryPerson> results = new ArrayList<>();
-        Iterable<User> users = userRepository.find(search);
+        Iterable<User> users = userRepository.find(search, SEARCH_PEOPLE_LIMIT);
         for (User u : users) {
             results.add(userToDirectoryPerson(u));
         }
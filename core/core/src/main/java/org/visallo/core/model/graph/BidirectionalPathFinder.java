@@ -0,0 +1,309 @@
+package org.visallo.core.model.graph;
+
+import org.vertexium.*;
+
+import java.util.*;
+
+/**
+ * Finds the paths of at most a given number of hops between two vertices.
+ * <p>
+ * The graph is first explored breadth first from both ends, expanding the side with the smaller frontier one layer
+ * at a time until the two searches together cover the number of hops. Paths are then enumerated from the source
+ * over the explored edges, pruned by the distance of each vertex to the destination, and handed to the callback as
+ * they are found. Vertices with more than the maximum degree are treated as dead ends so a single hub does not pull
+ * in most of the graph. The search stops early at the maximum number of paths, when the time budget runs out or
+ * when the callback reports that it was canceled.
+ */
+public class BidirectionalPathFinder {
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    private final Graph graph;
+
+    public BidirectionalPathFinder(Graph graph) {
+        this.graph = graph;
+    }
+
+    public Result findPaths(Options options, Authorizations authorizations, Callback callback) {
+        return new Search(options, authorizations, callback).run();
+    }
+
+    public interface Callback {
+        void pathFound(List<String> path);
+
+        void progress(double progressPercent, String message);
+
+        /**
+         * Polled while searching, so it should be cheap.
+         */
+        default boolean isCanceled() {
+            return false;
+        }
+    }
+
+    public enum StopReason {
+        COMPLETE,
+        MAX_PATHS,
+        TIME_BUDGET,
+        CANCELED
+    }
+
+    public static class Options {
+        private final String sourceVertexId;
+        private final String destVertexId;
+        private final int maxHops;
+        private String[] labels;
+        private int maxPaths = Integer.MAX_VALUE;
+        private long timeBudgetMillis = Long.MAX_VALUE;
+        private int maxDegree = Integer.MAX_VALUE;
+
+        public Options(String sourceVertexId, String destVertexId, int maxHops) {
+            this.sourceVertexId = sourceVertexId;
+            this.destVertexId = destVertexId;
+            this.maxHops = maxHops;
+        }
+
+        /**
+         * @param labels the edge labels to follow, or null to follow every edge
+         */
+        public Options setLabels(String[] labels) {
+            this.labels = labels;
+            return this;
+        }
+
+        public Options setMaxPaths(int maxPaths) {
+            this.maxPaths = maxPaths;
+            return this;
+        }
+
+        public Options setTimeBudgetMillis(long timeBudgetMillis) {
+            this.timeBudgetMillis = timeBudgetMillis;
+            return this;
+        }
+
+        /**
+         * @param maxDegree the number of neighbors above which a vertex other than the source and destination is
+         *                  not passed through
+         */
+        public Options setMaxDegree(int maxDegree) {
+            this.maxDegree = maxDegree;
+            return this;
+        }
+    }
+
+    public static class Result {
+        private final int pathCount;
+        private final StopReason stopReason;
+        private final Set<String> skippedVertexIds;
+
+        private Result(int pathCount, StopReason stopReason, Set<String> skippedVertexIds) {
+            this.pathCount = pathCount;
+            this.stopReason = stopReason;
+            this.skippedVertexIds = skippedVertexIds;
+        }
+
+        public int getPathCount() {
+            return pathCount;
+        }
+
+        public StopReason getStopReason() {
+            return stopReason;
+        }
+
+        /**
+         * @return the vertices that were not passed through because they have more than the maximum degree
+         */
+        public Set<String> getSkippedVertexIds() {
+            return skippedVertexIds;
+        }
+    }
+
+    private static class StopException extends RuntimeException {
+        private final StopReason stopReason;
+
+        StopException(StopReason stopReason) {
+            super(stopReason.name(), null, false, false);
+            this.stopReason = stopReason;
+        }
+    }
+
+    private class Search {
+        private final Options options;
+        private final Authorizations authorizations;
+        private final Callback callback;
+        private final long deadline;
+        // edges seen from expanded vertices, recorded in both directions
+        private final Map<String, Set<String>> adjacency = new HashMap<>();
+        private final Set<String> expandedVertexIds = new HashSet<>();
+        private final Set<String> skippedVertexIds = new LinkedHashSet<>();
+        private final Map<String, Integer> sourceDepths = new HashMap<>();
+        private final Map<String, Integer> destDepths = new HashMap<>();
+        private int sourceLayers;
+        private int destLayers;
+        private int pathCount;
+        private int steps;
+        private final LinkedList<String> path = new LinkedList<>();
+        private final Set<String> pathVertexIds = new HashSet<>();
+
+        Search(Options options, Authorizations authorizations, Callback callback) {
+            this.options = options;
+            this.authorizations = authorizations;
+            this.callback = callback;
+            long now = System.currentTimeMillis();
+            this.deadline = options.timeBudgetMillis > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + options.timeBudgetMillis;
+        }
+
+        Result run() {
+            try {
+                if (options.maxPaths <= 0) {
+                    throw new StopException(StopReason.MAX_PATHS);
+                }
+                if (!options.sourceVertexId.equals(options.destVertexId)) {
+                    explore();
+                    enumerate();
+                }
+                return new Result(pathCount, StopReason.COMPLETE, skippedVertexIds);
+            } catch (StopException ex) {
+                return new Result(pathCount, ex.stopReason, skippedVertexIds);
+            }
+        }
+
+        private void explore() {
+            List<String> sourceFrontier = Collections.singletonList(options.sourceVertexId);
+            List<String> destFrontier = Collections.singletonList(options.destVertexId);
+            sourceDepths.put(options.sourceVertexId, 0);
+            destDepths.put(options.destVertexId, 0);
+            while (sourceLayers + destLayers < options.maxHops && !sourceFrontier.isEmpty() && !destFrontier.isEmpty()) {
+                if (sourceFrontier.size() <= destFrontier.size()) {
+                    sourceLayers++;
+                    sourceFrontier = expand(sourceFrontier, sourceDepths, sourceLayers);
+                } else {
+                    destLayers++;
+                    destFrontier = expand(destFrontier, destDepths, destLayers);
+                }
+                callback.progress(
+                        0.5 * (sourceLayers + destLayers) / options.maxHops,
+                        String.format(
+                                "Explored %d hops from the source and %d hops from the destination (%d vertices)",
+                                sourceLayers,
+                                destLayers,
+                                adjacency.size()
+                        )
+                );
+            }
+        }
+
+        /**
+         * @return the vertices first reached at the given depth
+         */
+        private List<String> expand(List<String> frontier, Map<String, Integer> depths, int depth) {
+            List<String> vertexIdsToFetch = new ArrayList<>();
+            for (String vertexId : frontier) {
+                if (!expandedVertexIds.contains(vertexId) && !skippedVertexIds.contains(vertexId)) {
+                    vertexIdsToFetch.add(vertexId);
+                }
+            }
+            if (vertexIdsToFetch.size() > 0) {
+                for (Vertex vertex : graph.getVertices(vertexIdsToFetch, FetchHint.EDGE_REFS, authorizations)) {
+                    checkStop();
+                    addNeighbors(vertex);
+                }
+            }
+
+            List<String> nextFrontier = new ArrayList<>();
+            for (String vertexId : frontier) {
+                if (!expandedVertexIds.contains(vertexId)) {
+                    continue;
+                }
+                for (String neighborId : adjacency.get(vertexId)) {
+                    if (!depths.containsKey(neighborId)) {
+                        depths.put(neighborId, depth);
+                        nextFrontier.add(neighborId);
+                    }
+                }
+            }
+            return nextFrontier;
+        }
+
+        private void addNeighbors(Vertex vertex) {
+            String vertexId = vertex.getId();
+            Iterable<String> neighborIds = options.labels == null
+                    ? vertex.getVertexIds(Direction.BOTH, authorizations)
+                    : vertex.getVertexIds(Direction.BOTH, options.labels, authorizations);
+            Set<String> neighbors = new LinkedHashSet<>();
+            boolean endpoint = vertexId.equals(options.sourceVertexId) || vertexId.equals(options.destVertexId);
+            for (String neighborId : neighborIds) {
+                if (!neighborId.equals(vertexId)) {
+                    neighbors.add(neighborId);
+                }
+                if (!endpoint && neighbors.size() > options.maxDegree) {
+                    skippedVertexIds.add(vertexId);
+                    return;
+                }
+            }
+            expandedVertexIds.add(vertexId);
+            adjacency.computeIfAbsent(vertexId, id -> new LinkedHashSet<>()).addAll(neighbors);
+            for (String neighborId : neighbors) {
+                adjacency.computeIfAbsent(neighborId, id -> new LinkedHashSet<>()).add(vertexId);
+            }
+        }
+
+        private void enumerate() {
+            path.add(options.sourceVertexId);
+            pathVertexIds.add(options.sourceVertexId);
+            enumerate(options.sourceVertexId);
+        }
+
+        /**
+         * Every edge of a path that fits in the hops is known: a vertex that was not expanded from either side can
+         * only be at the position where the two searches meet, and its neighbors on the path were expanded.
+         */
+        private void enumerate(String vertexId) {
+            int remainingHops = options.maxHops - path.size();
+            Set<String> neighborIds = adjacency.get(vertexId);
+            if (neighborIds == null) {
+                return;
+            }
+            for (String neighborId : neighborIds) {
+                if (++steps % TIME_CHECK_INTERVAL == 0) {
+                    checkStop();
+                }
+                if (neighborId.equals(options.destVertexId)) {
+                    path.add(neighborId);
+                    foundPath();
+                    path.removeLast();
+                    continue;
+                }
+                if (pathVertexIds.contains(neighborId) || skippedVertexIds.contains(neighborId)) {
+                    continue;
+                }
+                // vertices the destination search did not reach are further from it than it searched
+                Integer destDepth = destDepths.get(neighborId);
+                int minHopsToDest = destDepth == null ? destLayers + 1 : destDepth;
+                if (minHopsToDest > remainingHops) {
+                    continue;
+                }
+                path.add(neighborId);
+                pathVertexIds.add(neighborId);
+                enumerate(neighborId);
+                pathVertexIds.remove(neighborId);
+                path.removeLast();
+            }
+        }
+
+        private void foundPath() {
+            pathCount++;
+            callback.pathFound(new ArrayList<>(path));
+            if (pathCount >= options.maxPaths) {
+                throw new StopException(StopReason.MAX_PATHS);
+            }
+        }
+
+        private void checkStop() {
+            if (System.currentTimeMillis() > deadline) {
+                throw new StopException(StopReason.TIME_BUDGET);
+            }
+            if (callback.isCanceled()) {
+                throw new StopException(StopReason.CANCELED);
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package org.visallo.core.model.graph;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONObject;
+import org.vertexium.*;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.user.AuthorizationRepository;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.GraphChangeListener;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.util.ShutdownListener;
+import org.visallo.core.util.ShutdownService;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materialized vertex counts keyed by concept type and visibility.
+ * <p>
+ * The counts are built by a full scan in the background the first time they are read; until the scan finishes
+ * reads fall back to aggregating the concept type property over the graph. The counts are then kept current from
+ * the element and property changes pushed through {@link WorkQueueRepository} in this JVM and from publish
+ * broadcasts. Every change re-reads the vertex with the system user's authorizations, the same view the scan
+ * uses, and moves the vertex from the concept type and visibilities it was counted under to its current ones.
+ * Hides are scoped to a workspace visibility the system user can not read, so they do not change the counts.
+ * Changes made in other processes are corrected by a background recount every
+ * {@link #CONFIG_RECONCILE_INTERVAL_SECONDS} seconds. Reads are filtered by the caller's authorizations so their
+ * cost depends on the number of distinct concept type and visibility combinations, not on the size of the graph.
+ */
+@Singleton
+public class ConceptTypeCountRepository implements GraphChangeListener, ShutdownListener {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ConceptTypeCountRepository.class);
+    public static final String CONFIG_RECONCILE_INTERVAL_SECONDS = ConceptTypeCountRepository.class.getName() + ".reconcileIntervalSeconds";
+    public static final int DEFAULT_RECONCILE_INTERVAL_SECONDS = 10 * 60;
+    private static final String CONCEPT_TYPE_PROPERTY_NAME = VisalloProperties.CONCEPT_TYPE.getPropertyName();
+    private static final String VISIBILITY_JSON_PROPERTY_NAME = VisalloProperties.VISIBILITY_JSON.getPropertyName();
+    private final Graph graph;
+    private final WorkQueueRepository workQueueRepository;
+    private final UserRepository userRepository;
+    private final AuthorizationRepository authorizationRepository;
+    private final ScheduledExecutorService reconcileExecutor;
+    private final AtomicBoolean loadStarted = new AtomicBoolean();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final Object reconcileLock = new Object();
+    private volatile Counts counts;
+    private volatile Set<String> changedWhileScanning;
+
+    @Inject
+    public ConceptTypeCountRepository(
+            Graph graph,
+            WorkQueueRepository workQueueRepository,
+            UserRepository userRepository,
+            AuthorizationRepository authorizationRepository,
+            Configuration configuration,
+            ShutdownService shutdownService
+    ) {
+        this.graph = graph;
+        this.workQueueRepository = workQueueRepository;
+        this.userRepository = userRepository;
+        this.authorizationRepository = authorizationRepository;
+
+        int reconcileIntervalSeconds = configuration.getInt(CONFIG_RECONCILE_INTERVAL_SECONDS, DEFAULT_RECONCILE_INTERVAL_SECONDS);
+        this.reconcileExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("concept-type-count-reconcile-%d")
+                        .build()
+        );
+        if (reconcileIntervalSeconds > 0) {
+            this.reconcileExecutor.scheduleWithFixedDelay(
+                    this::reconcileIfLoaded,
+                    reconcileIntervalSeconds,
+                    reconcileIntervalSeconds,
+                    TimeUnit.SECONDS
+            );
+        }
+
+        workQueueRepository.addGraphChangeListener(this);
+        shutdownService.register(this);
+    }
+
+    /**
+     * @return the number of vertices of each concept type whose vertex and concept type property are both
+     * visible with the given authorizations
+     */
+    public Map<Object, Long> getCounts(Authorizations authorizations) {
+        Counts counts = this.counts;
+        if (counts == null) {
+            if (loadStarted.compareAndSet(false, true)) {
+                reconcileExecutor.execute(this::reconcileIfNotLoaded);
+            }
+            return graph.getVertexPropertyCountByValue(CONCEPT_TYPE_PROPERTY_NAME, authorizations);
+        }
+
+        Map<String, Boolean> canReadCache = new HashMap<>();
+        Map<Object, Long> results = new HashMap<>();
+        for (CountKey key : counts.keys.values()) {
+            long count = key.count.get();
+            if (count <= 0) {
+                continue;
+            }
+            if (!canRead(key.vertexVisibility, authorizations, canReadCache)
+                    || !canRead(key.propertyVisibility, authorizations, canReadCache)) {
+                continue;
+            }
+            results.merge(key.conceptType, count, Long::sum);
+        }
+        return results;
+    }
+
+    /**
+     * Rebuilds the counts from a full scan of the graph and swaps them in.
+     */
+    public void reconcile() {
+        synchronized (reconcileLock) {
+            subscribeToBroadcastMessages();
+            long startTime = System.currentTimeMillis();
+            Counts newCounts = new Counts(authorizationRepository.getGraphAuthorizations(userRepository.getSystemUser()));
+
+            // registered before the scan starts, so a vertex the scan read before it changed is read again below
+            Set<String> changedVertexIds = ConcurrentHashMap.newKeySet();
+            changedWhileScanning = changedVertexIds;
+            long vertexCount = 0;
+            try {
+                for (Vertex vertex : graph.getVertices(EnumSet.of(FetchHint.PROPERTIES), newCounts.authorizations)) {
+                    newCounts.set(vertex.getId(), newCounts.getKey(vertex));
+                    vertexCount++;
+                }
+                this.counts = newCounts;
+            } finally {
+                changedWhileScanning = null;
+            }
+            for (String vertexId : changedVertexIds) {
+                refresh(newCounts, vertexId);
+            }
+            LOGGER.debug(
+                    "reconciled concept type counts from %d vertices in %dms",
+                    vertexCount,
+                    System.currentTimeMillis() - startTime
+            );
+        }
+    }
+
+    boolean isLoaded() {
+        return counts != null;
+    }
+
+    private void reconcileIfNotLoaded() {
+        try {
+            if (counts == null) {
+                reconcile();
+            }
+        } catch (Exception ex) {
+            loadStarted.set(false);
+            LOGGER.error("Could not load concept type counts", ex);
+        }
+    }
+
+    private void reconcileIfLoaded() {
+        try {
+            if (counts != null) {
+                reconcile();
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Could not reconcile concept type counts", ex);
+        }
+    }
+
+    @Override
+    public void graphChanged(Element element, String propertyKey, String propertyName, ElementOrPropertyStatus status) {
+        if (!(element instanceof Vertex)) {
+            return;
+        }
+        if (propertyName != null
+                && !propertyName.equals(CONCEPT_TYPE_PROPERTY_NAME)
+                && !propertyName.equals(VISIBILITY_JSON_PROPERTY_NAME)) {
+            return;
+        }
+        vertexChanged(element.getId());
+    }
+
+    private void vertexChanged(String vertexId) {
+        Set<String> changedWhileScanning = this.changedWhileScanning;
+        if (changedWhileScanning != null) {
+            changedWhileScanning.add(vertexId);
+        }
+        Counts counts = this.counts;
+        if (counts != null) {
+            refresh(counts, vertexId);
+        }
+    }
+
+    private void refresh(Counts counts, String vertexId) {
+        Vertex vertex = graph.getVertex(vertexId, EnumSet.of(FetchHint.PROPERTIES), counts.authorizations);
+        counts.set(vertexId, vertex == null ? null : counts.getKey(vertex));
+    }
+
+    private void subscribeToBroadcastMessages() {
+        // subscribed when the counts are first built so that processes which never read them do not consume broadcasts
+        if (!subscribed.compareAndSet(false, true)) {
+            return;
+        }
+        workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
+            @Override
+            public void broadcastReceived(JSONObject json) {
+                try {
+                    handleBroadcast(json);
+                } catch (Exception ex) {
+                    LOGGER.error("Could not handle broadcast: %s", json, ex);
+                }
+            }
+        });
+    }
+
+    private void handleBroadcast(JSONObject json) {
+        // publishing alters the visibility of a vertex and its properties without pushing a change
+        if (!"publish".equals(json.optString("type"))) {
+            return;
+        }
+        JSONObject data = json.optJSONObject("data");
+        String vertexId = data == null ? null : data.optString("graphVertexId", null);
+        if (vertexId != null) {
+            vertexChanged(vertexId);
+        }
+    }
+
+    private static boolean canRead(String visibilityString, Authorizations authorizations, Map<String, Boolean> canReadCache) {
+        return canReadCache.computeIfAbsent(
+                visibilityString,
+                v -> v.length() == 0 || authorizations.canRead(new Visibility(v))
+        );
+    }
+
+    @Override
+    public void shutdown() {
+        workQueueRepository.removeGraphChangeListener(this);
+        reconcileExecutor.shutdownNow();
+    }
+
+    private static class Counts {
+        private final Authorizations authorizations;
+        private final Map<CountKey, CountKey> keys = new ConcurrentHashMap<>();
+        private final Map<String, CountKey> vertexKeys = new ConcurrentHashMap<>();
+
+        private Counts(Authorizations authorizations) {
+            this.authorizations = authorizations;
+        }
+
+        private CountKey getKey(Vertex vertex) {
+            Property conceptType = vertex.getProperty(CONCEPT_TYPE_PROPERTY_NAME);
+            if (conceptType == null || conceptType.getValue() == null) {
+                return null;
+            }
+            return new CountKey(
+                    conceptType.getValue().toString(),
+                    vertex.getVisibility().getVisibilityString(),
+                    conceptType.getVisibility() == null ? "" : conceptType.getVisibility().getVisibilityString()
+            );
+        }
+
+        /**
+         * Moves the vertex from the key it is counted under to the given key, or stops counting it if the key is
+         * null. Setting the same key again has no effect, so a vertex is counted once no matter how often it is
+         * pushed.
+         */
+        private void set(String vertexId, CountKey key) {
+            vertexKeys.compute(vertexId, (id, previousKey) -> {
+                if (Objects.equals(previousKey, key)) {
+                    return previousKey;
+                }
+                if (previousKey != null) {
+                    previousKey.count.decrementAndGet();
+                }
+                if (key == null) {
+                    return null;
+                }
+                CountKey sharedKey = keys.computeIfAbsent(key, k -> k);
+                sharedKey.count.incrementAndGet();
+                return sharedKey;
+            });
+        }
+    }
+
+    private static class CountKey {
+        private final String conceptType;
+        private final String vertexVisibility;
+        private final String propertyVisibility;
+        private final AtomicLong count = new AtomicLong();
+
+        private CountKey(String conceptType, String vertexVisibility, String propertyVisibility) {
+            this.conceptType = conceptType;
+            this.vertexVisibility = vertexVisibility;
+            this.propertyVisibility = propertyVisibility;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CountKey countKey = (CountKey) o;
+            return conceptType.equals(countKey.conceptType)
+                    && vertexVisibility.equals(countKey.vertexVisibility)
+                    && propertyVisibility.equals(countKey.propertyVisibility);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(conceptType, vertexVisibility, propertyVisibility);
+        }
+    }
+}
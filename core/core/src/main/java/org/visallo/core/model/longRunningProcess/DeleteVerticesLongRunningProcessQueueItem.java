@@ -0,0 +1,48 @@
+package org.visallo.core.model.longRunningProcess;
+
+import org.json.JSONObject;
+import org.vertexium.Authorizations;
+import org.visallo.core.util.ClientApiConverter;
+
+public class DeleteVerticesLongRunningProcessQueueItem {
+    public static final String TYPE = "deleteVertices";
+    private String[] vertexIds;
+    private String workspaceId;
+    private String userId;
+    private String[] authorizations;
+
+    public DeleteVerticesLongRunningProcessQueueItem() {
+
+    }
+
+    public DeleteVerticesLongRunningProcessQueueItem(String[] vertexIds, String workspaceId, String userId, Authorizations authorizations) {
+        this.vertexIds = vertexIds;
+        this.workspaceId = workspaceId;
+        this.userId = userId;
+        this.authorizations = authorizations.getAuthorizations();
+    }
+
+    public String[] getVertexIds() {
+        return vertexIds;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String[] getAuthorizations() {
+        return authorizations;
+    }
+
+    public String getType() {
+        return TYPE;
+    }
+
+    public JSONObject toJson() {
+        return new JSONObject(ClientApiConverter.clientApiToString(this));
+    }
+}
@@ -0,0 +1,79 @@
+package org.visallo.core.model.longRunningProcess;
+
+import com.google.inject.Inject;
+import org.json.JSONObject;
+import org.vertexium.Authorizations;
+import org.vertexium.Graph;
+import org.vertexium.Vertex;
+import org.visallo.core.model.Description;
+import org.visallo.core.model.Name;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workspace.WorkspaceHelper;
+import org.visallo.core.user.User;
+import org.visallo.core.util.ClientApiConverter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.vertexium.util.IterableUtils.toList;
+
+@Name("Delete Vertices")
+@Description("Deletes many vertices from a workspace")
+public class DeleteVerticesLongRunningProcessWorker extends LongRunningProcessWorker {
+    private final Graph graph;
+    private final UserRepository userRepository;
+    private final WorkspaceHelper workspaceHelper;
+    private final LongRunningProcessRepository longRunningProcessRepository;
+
+    @Inject
+    public DeleteVerticesLongRunningProcessWorker(
+            Graph graph,
+            UserRepository userRepository,
+            WorkspaceHelper workspaceHelper,
+            LongRunningProcessRepository longRunningProcessRepository
+    ) {
+        this.graph = graph;
+        this.userRepository = userRepository;
+        this.workspaceHelper = workspaceHelper;
+        this.longRunningProcessRepository = longRunningProcessRepository;
+    }
+
+    @Override
+    public boolean isHandled(JSONObject longRunningProcessQueueItem) {
+        return longRunningProcessQueueItem.getString("type").equals(DeleteVerticesLongRunningProcessQueueItem.TYPE);
+    }
+
+    @Override
+    protected void processInternal(
+            JSONObject longRunningProcessQueueItem,
+            LongRunningProcessCancellationToken cancellationToken
+    ) {
+        DeleteVerticesLongRunningProcessQueueItem item = ClientApiConverter.toClientApi(
+                longRunningProcessQueueItem.toString(),
+                DeleteVerticesLongRunningProcessQueueItem.class
+        );
+        Authorizations authorizations = graph.createAuthorizations(item.getAuthorizations());
+        User user = userRepository.findById(item.getUserId());
+
+        longRunningProcessRepository.reportProgress(longRunningProcessQueueItem, 0.0, "Loading vertices");
+        List<Vertex> vertices = toList(graph.getVertices(Arrays.asList(item.getVertexIds()), authorizations));
+
+        workspaceHelper.deleteVertices(
+                vertices,
+                item.getWorkspaceId(),
+                Priority.HIGH,
+                authorizations,
+                user,
+                (deletedCount, totalCount) -> {
+                    longRunningProcessRepository.reportProgress(
+                            longRunningProcessQueueItem,
+                            ((double) deletedCount) / ((double) totalCount),
+                            String.format("Deleted %,d of %,d", deletedCount, totalCount)
+                    );
+                    cancellationToken.throwIfCanceled();
+                }
+        );
+        longRunningProcessQueueItem.put("deletedCount", vertices.size());
+    }
+}
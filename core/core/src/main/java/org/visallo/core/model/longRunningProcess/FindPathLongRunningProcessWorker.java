@@ -1,29 +1,64 @@
 package org.visallo.core.model.longRunningProcess;
 
 import com.google.inject.Inject;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.vertexium.*;
+import org.visallo.core.config.Configuration;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
+import org.visallo.core.model.graph.BidirectionalPathFinder;
 import org.visallo.core.util.ClientApiConverter;
-import org.visallo.web.clientapi.model.ClientApiVertexFindPathResponse;
 
-import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Finds the paths between two vertices with {@link BidirectionalPathFinder}. Paths are saved with
+ * {@link LongRunningProcessRepository#saveResults(String, JSONObject)} and reported as progress while they are
+ * found, at most every {@link #CONFIG_RESULTS_INTERVAL_MILLIS} milliseconds, so that the queue item only holds the
+ * number of paths. Every save replaces the results with all of the paths found so far, so the paths are only saved
+ * again once their number has doubled. That keeps the bytes written under twice the size of the final results
+ * however high {@link #CONFIG_MAX_PATHS} is set.
+ * <p>
+ * Configuration:
+ *
+ * <pre><code>
+ * org.visallo.core.model.longRunningProcess.FindPathLongRunningProcessWorker.maxPaths=1000
+ * org.visallo.core.model.longRunningProcess.FindPathLongRunningProcessWorker.timeBudgetSeconds=600
+ * org.visallo.core.model.longRunningProcess.FindPathLongRunningProcessWorker.maxDegree=10000
+ * org.visallo.core.model.longRunningProcess.FindPathLongRunningProcessWorker.resultsIntervalMillis=1000
+ * </code></pre>
+ */
 @Name("Find Path")
 @Description("Finds a path between two vertices")
 public class FindPathLongRunningProcessWorker extends LongRunningProcessWorker {
+    public static final String CONFIG_MAX_PATHS = FindPathLongRunningProcessWorker.class.getName() + ".maxPaths";
+    public static final int DEFAULT_MAX_PATHS = 1000;
+    public static final String CONFIG_TIME_BUDGET_SECONDS = FindPathLongRunningProcessWorker.class.getName() + ".timeBudgetSeconds";
+    public static final long DEFAULT_TIME_BUDGET_SECONDS = 10 * 60;
+    public static final String CONFIG_MAX_DEGREE = FindPathLongRunningProcessWorker.class.getName() + ".maxDegree";
+    public static final int DEFAULT_MAX_DEGREE = 10000;
+    public static final String CONFIG_RESULTS_INTERVAL_MILLIS = FindPathLongRunningProcessWorker.class.getName() + ".resultsIntervalMillis";
+    public static final long DEFAULT_RESULTS_INTERVAL_MILLIS = 1000;
     private final Graph graph;
     private final LongRunningProcessRepository longRunningProcessRepository;
+    private final int maxPaths;
+    private final long timeBudgetMillis;
+    private final int maxDegree;
+    private final long resultsIntervalMillis;
 
     @Inject
     public FindPathLongRunningProcessWorker(
             Graph graph,
-            LongRunningProcessRepository longRunningProcessRepository
+            LongRunningProcessRepository longRunningProcessRepository,
+            Configuration configuration
     ) {
         this.graph = graph;
         this.longRunningProcessRepository = longRunningProcessRepository;
+        this.maxPaths = configuration.getInt(CONFIG_MAX_PATHS, DEFAULT_MAX_PATHS);
+        this.timeBudgetMillis = configuration.getLong(CONFIG_TIME_BUDGET_SECONDS, DEFAULT_TIME_BUDGET_SECONDS) * 1000;
+        this.maxDegree = configuration.getInt(CONFIG_MAX_DEGREE, DEFAULT_MAX_DEGREE);
+        this.resultsIntervalMillis = configuration.getLong(CONFIG_RESULTS_INTERVAL_MILLIS, DEFAULT_RESULTS_INTERVAL_MILLIS);
     }
 
     @Override
@@ -32,40 +67,90 @@ public class FindPathLongRunningProcessWorker extends LongRunningProcessWorker {
     }
 
     @Override
-    public void processInternal(final JSONObject longRunningProcessQueueItem) {
+    protected void processInternal(
+            final JSONObject longRunningProcessQueueItem,
+            LongRunningProcessCancellationToken cancellationToken
+    ) {
         FindPathLongRunningProcessQueueItem findPath = ClientApiConverter.toClientApi(longRunningProcessQueueItem.toString(), FindPathLongRunningProcessQueueItem.class);
+        String longRunningProcessId = longRunningProcessQueueItem.getString("id");
 
         Authorizations authorizations = getAuthorizations(findPath.getAuthorizations());
-        String[] labels = findPath.getLabels();
-        int hops = findPath.getHops();
-
-        ClientApiVertexFindPathResponse results = new ClientApiVertexFindPathResponse();
-        ProgressCallback progressCallback = new ProgressCallback() {
-            @Override
-            public void progress(double progressPercent, Step step, Integer edgeIndex, Integer vertexCount) {
-                longRunningProcessRepository.reportProgress(longRunningProcessQueueItem, progressPercent, step.formatMessage(edgeIndex, vertexCount));
-            }
-        };
-
-        FindPathOptions findPathOptions = new FindPathOptions(findPath.getOutVertexId(), findPath.getInVertexId(), hops)
-                .setLabels(labels)
-                .setProgressCallback(progressCallback);
-        Iterable<Path> paths = graph.findPaths(findPathOptions, authorizations);
-        for (Path path : paths) {
-            List<String> clientApiVertexPath = new ArrayList<>();
-            for (String s : path) {
-                clientApiVertexPath.add(s);
-            }
-            results.getPaths().add(clientApiVertexPath);
-        }
+        BidirectionalPathFinder.Options options = new BidirectionalPathFinder.Options(
+                findPath.getOutVertexId(),
+                findPath.getInVertexId(),
+                findPath.getHops()
+        )
+                .setLabels(findPath.getLabels())
+                .setMaxPaths(maxPaths)
+                .setTimeBudgetMillis(timeBudgetMillis)
+                .setMaxDegree(maxDegree);
+
+        ResultsWriter resultsWriter = new ResultsWriter(longRunningProcessId, cancellationToken);
+        BidirectionalPathFinder.Result result = new BidirectionalPathFinder(graph).findPaths(options, authorizations, resultsWriter);
+        resultsWriter.save(result);
 
-        String resultsString = ClientApiConverter.clientApiToString(results);
-        JSONObject resultsJson = new JSONObject(resultsString);
-        longRunningProcessQueueItem.put("results", resultsJson);
-        longRunningProcessQueueItem.put("resultsCount", results.getPaths().size());
+        longRunningProcessQueueItem.put("resultsCount", result.getPathCount());
+        longRunningProcessQueueItem.put("stopReason", result.getStopReason().name());
+        longRunningProcessQueueItem.put("skippedVertexCount", result.getSkippedVertexIds().size());
     }
 
     private Authorizations getAuthorizations(String[] authorizations) {
         return graph.createAuthorizations(authorizations);
     }
+
+    private class ResultsWriter implements BidirectionalPathFinder.Callback {
+        private final String longRunningProcessId;
+        private final LongRunningProcessCancellationToken cancellationToken;
+        private final JSONArray paths = new JSONArray();
+        private int savedPathCount;
+        private long lastReportTime = System.currentTimeMillis();
+
+        ResultsWriter(String longRunningProcessId, LongRunningProcessCancellationToken cancellationToken) {
+            this.longRunningProcessId = longRunningProcessId;
+            this.cancellationToken = cancellationToken;
+        }
+
+        @Override
+        public void pathFound(List<String> path) {
+            paths.put(new JSONArray(path));
+            long now = System.currentTimeMillis();
+            if (now - lastReportTime < resultsIntervalMillis) {
+                return;
+            }
+            lastReportTime = now;
+            if (paths.length() >= 2 * savedPathCount) {
+                save(null);
+            }
+            // the path finder reports the first half while it explores the graph
+            longRunningProcessRepository.reportProgress(
+                    longRunningProcessId,
+                    0.5 + 0.5 * Math.min(1.0, (double) paths.length() / maxPaths),
+                    String.format("Found %d of at most %d paths", paths.length(), maxPaths)
+            );
+        }
+
+        @Override
+        public void progress(double progressPercent, String message) {
+            longRunningProcessRepository.reportProgress(longRunningProcessId, progressPercent, message);
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return cancellationToken.isCanceled();
+        }
+
+        void save(BidirectionalPathFinder.Result result) {
+            if (result == null && paths.length() == savedPathCount) {
+                return;
+            }
+            JSONObject results = new JSONObject();
+            results.put("paths", paths);
+            if (result != null) {
+                results.put("stopReason", result.getStopReason().name());
+                results.put("skippedVertexIds", new JSONArray(result.getSkippedVertexIds()));
+            }
+            longRunningProcessRepository.saveResults(longRunningProcessId, results);
+            savedPathCount = paths.length();
+        }
+    }
 }
@@ -0,0 +1,9 @@
+package org.visallo.core.model.longRunningProcess;
+
+import org.visallo.core.exception.VisalloException;
+
+public class LongRunningProcessCanceledException extends VisalloException {
+    public LongRunningProcessCanceledException(String message) {
+        super(message);
+    }
+}
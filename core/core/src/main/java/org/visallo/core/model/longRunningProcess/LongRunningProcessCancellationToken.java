@@ -0,0 +1,39 @@
+package org.visallo.core.model.longRunningProcess;
+
+/**
+ * Tells a {@link LongRunningProcessWorker} that its process was canceled by the user or ran past its timeout.
+ * Checking the token only reads a volatile field, so workers can poll it in their inner loops.
+ */
+public class LongRunningProcessCancellationToken {
+    private volatile String reason;
+
+    public boolean isCanceled() {
+        return reason != null;
+    }
+
+    /**
+     * @return why the process was canceled, or null if it was not
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @throws LongRunningProcessCanceledException if the process was canceled
+     */
+    public void throwIfCanceled() {
+        String reason = this.reason;
+        if (reason != null) {
+            throw new LongRunningProcessCanceledException(reason);
+        }
+    }
+
+    /**
+     * Only the first reason is kept.
+     */
+    public synchronized void cancel(String reason) {
+        if (this.reason == null) {
+            this.reason = reason;
+        }
+    }
+}
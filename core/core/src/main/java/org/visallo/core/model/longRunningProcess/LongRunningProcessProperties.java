@@ -1,6 +1,7 @@
 package org.visallo.core.model.longRunningProcess;
 
 import org.visallo.core.model.properties.types.JsonSingleValueVisalloProperty;
+import org.visallo.core.model.properties.types.StreamingSingleValueVisalloProperty;
 
 public class LongRunningProcessProperties {
     public static final String LONG_RUNNING_PROCESS_CONCEPT_IRI = "http://visallo.org/longRunningProcess#longRunningProcess";
@@ -9,4 +10,6 @@ public class LongRunningProcessProperties {
     public static final String OWL_IRI = "http://visallo.org/longRunningProcess";
 
     public static JsonSingleValueVisalloProperty QUEUE_ITEM_JSON_PROPERTY = new JsonSingleValueVisalloProperty("http://visallo.org/longRunningProcess#queueItemJson");
+    public static JsonSingleValueVisalloProperty CHECKPOINT_JSON_PROPERTY = new JsonSingleValueVisalloProperty("http://visallo.org/longRunningProcess#checkpointJson");
+    public static StreamingSingleValueVisalloProperty RESULTS_JSON_PROPERTY = new StreamingSingleValueVisalloProperty("http://visallo.org/longRunningProcess#resultsJson");
 }
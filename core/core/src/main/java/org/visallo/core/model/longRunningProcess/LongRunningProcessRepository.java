@@ -37,4 +37,26 @@ public abstract class LongRunningProcessRepository {
     public abstract void reportProgress(String longRunningProcessId, double progressPercent, String message);
 
     public abstract void delete(String longRunningProcessId, User authUser);
+
+    /**
+     * Stores worker state that must survive the queue item being redelivered. Unlike the queue item JSON, the
+     * checkpoint is not overwritten when the process begins work again.
+     */
+    public abstract void saveCheckpoint(String longRunningProcessId, JSONObject checkpoint);
+
+    /**
+     * @return the last checkpoint saved for the process or null if none was saved
+     */
+    public abstract JSONObject findCheckpoint(String longRunningProcessId);
+
+    /**
+     * Stores the results of a process. Results can be much larger than the queue item JSON, which is rewritten and
+     * broadcast on every progress report, so they are kept apart from it and replaced on every save.
+     */
+    public abstract void saveResults(String longRunningProcessId, JSONObject results);
+
+    /**
+     * @return the last results saved for the process or null if none were saved
+     */
+    public abstract JSONObject findResults(String longRunningProcessId, User user);
 }
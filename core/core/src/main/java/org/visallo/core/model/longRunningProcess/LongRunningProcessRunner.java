@@ -8,6 +8,7 @@ import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.WorkQueueNames;
 import org.visallo.core.model.WorkerBase;
 import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.Priority;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.status.MetricsManager;
 import org.visallo.core.status.StatusRepository;
@@ -22,11 +23,15 @@ import org.visallo.core.util.VisalloLoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class LongRunningProcessRunner extends WorkerBase<LongRunningProcessWorkerItem> {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(LongRunningProcessRunner.class);
+    public static final String CONFIG_REQUEUE_DELAY_MILLIS = LongRunningProcessRunner.class.getName() + ".requeueDelayMillis";
+    public static final long DEFAULT_REQUEUE_DELAY_MILLIS = 1000;
     private UserRepository userRepository;
     private LongRunningProcessRepository longRunningProcessRepository;
+    private LongRunningProcessScheduler longRunningProcessScheduler;
     private User user;
     private WorkQueueNames workQueueNames;
     private Configuration configuration;
@@ -82,6 +87,7 @@ public class LongRunningProcessRunner extends WorkerBase<LongRunningProcessWorke
                 for (LongRunningProcessWorker worker : workers) {
                     status.getRunningWorkers().add(worker.getStatus());
                 }
+                status.getSchedulerMetrics().putAll(longRunningProcessScheduler.getMetrics());
                 return status;
             }
         };
@@ -92,6 +98,25 @@ public class LongRunningProcessRunner extends WorkerBase<LongRunningProcessWorke
         return new LongRunningProcessWorkerItem(data);
     }
 
+    @Override
+    public void run() throws Exception {
+        Runnable capacityListener = this::reselectWorkerItem;
+        longRunningProcessScheduler.addCapacityListener(capacityListener);
+        try {
+            super.run();
+        } finally {
+            longRunningProcessScheduler.removeCapacityListener(capacityListener);
+        }
+    }
+
+    @Override
+    protected int selectWorkerItem(List<LongRunningProcessWorkerItem> workerItems, boolean full) {
+        List<JSONObject> queueItems = workerItems.stream()
+                .map(LongRunningProcessWorkerItem::getJson)
+                .collect(Collectors.toList());
+        return longRunningProcessScheduler.selectNext(queueItems, full);
+    }
+
     @Override
     public void process(LongRunningProcessWorkerItem workerItem) {
         JSONObject longRunningProcessQueueItem = workerItem.getJson();
@@ -99,30 +124,128 @@ public class LongRunningProcessRunner extends WorkerBase<LongRunningProcessWorke
 
         for (LongRunningProcessWorker worker : workers) {
             if (worker.isHandled(longRunningProcessQueueItem)) {
+                if (isCanceledOrDeleted(longRunningProcessQueueItem)) {
+                    return;
+                }
+                LongRunningProcessScheduler.Ticket ticket = longRunningProcessScheduler.tryAcquire(longRunningProcessQueueItem);
+                if (ticket == null) {
+                    requeue(longRunningProcessQueueItem);
+                    return;
+                }
                 try {
-                    longRunningProcessQueueItem.put("startTime", System.currentTimeMillis());
-                    longRunningProcessQueueItem.put("progress", 0.0);
-                    longRunningProcessRepository.beginWork(longRunningProcessQueueItem);
-                    getWorkQueueRepository().broadcastLongRunningProcessChange(longRunningProcessQueueItem);
-
-                    worker.process(longRunningProcessQueueItem);
-
-                    longRunningProcessQueueItem.put("endTime", System.currentTimeMillis());
-                    longRunningProcessQueueItem.put("progress", 1.0);
-                    longRunningProcessRepository.ack(longRunningProcessQueueItem);
-                    getWorkQueueRepository().broadcastLongRunningProcessChange(longRunningProcessQueueItem);
-                } catch (Throwable ex) {
-                    LOGGER.error("Failed to process long running process queue item", ex);
-                    longRunningProcessQueueItem.put("error", ex.getMessage());
-                    longRunningProcessQueueItem.put("endTime", System.currentTimeMillis());
-                    longRunningProcessRepository.nak(longRunningProcessQueueItem, ex);
-                    getWorkQueueRepository().broadcastLongRunningProcessChange(longRunningProcessQueueItem);
+                    process(worker, longRunningProcessQueueItem, ticket);
+                } finally {
+                    longRunningProcessScheduler.release(ticket);
                 }
                 return;
             }
         }
     }
 
+    /**
+     * Processes canceled or deleted while they were queued are not started.
+     */
+    private boolean isCanceledOrDeleted(JSONObject longRunningProcessQueueItem) {
+        String longRunningProcessId = longRunningProcessQueueItem.optString("id", null);
+        if (longRunningProcessId == null) {
+            return false;
+        }
+        JSONObject storedQueueItem = longRunningProcessRepository.findById(longRunningProcessId, user);
+        if (storedQueueItem == null) {
+            LOGGER.info("long running process %s was deleted before it started", longRunningProcessId);
+            return true;
+        }
+        if (!storedQueueItem.optBoolean("canceled", false)) {
+            return false;
+        }
+        LOGGER.info("long running process %s was canceled before it started", longRunningProcessId);
+        longRunningProcessQueueItem.put("canceled", true);
+        longRunningProcessQueueItem.put("endTime", System.currentTimeMillis());
+        longRunningProcessRepository.ack(longRunningProcessQueueItem);
+        getWorkQueueRepository().broadcastLongRunningProcessChange(longRunningProcessQueueItem);
+        return true;
+    }
+
+    /**
+     * Puts a process whose type is at its limit back on the queue, without telling clients since its state has not
+     * changed, so that this runner can fetch processes of other types. The runner then pauses so that a queue
+     * holding only processes of types at their limit is not cycled through as fast as it can be read.
+     */
+    private void requeue(JSONObject longRunningProcessQueueItem) {
+        LOGGER.debug("long running process %s is at its type's limit, putting it back on the queue", longRunningProcessQueueItem.optString("id"));
+        Priority priority = Priority.safeParse(longRunningProcessQueueItem.optString("priority", null));
+        getWorkQueueRepository().pushOnQueue(
+                workQueueNames.getLongRunningProcessQueueName(),
+                longRunningProcessQueueItem.toString().getBytes(),
+                priority
+        );
+        try {
+            Thread.sleep(configuration.getLong(CONFIG_REQUEUE_DELAY_MILLIS, DEFAULT_REQUEUE_DELAY_MILLIS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Workers that do not poll the cancellation token finish all of their work even after their process timed out.
+     * Those processes are completed with a timedOut flag instead of failing, and their errors are reported as is.
+     */
+    private void process(
+            LongRunningProcessWorker worker,
+            JSONObject longRunningProcessQueueItem,
+            LongRunningProcessScheduler.Ticket ticket
+    ) {
+        LongRunningProcessCancellationToken cancellationToken = ticket.getCancellationToken();
+        boolean cancelable = !(worker instanceof NonCancelableLongRunningProcessWorker);
+        try {
+            longRunningProcessQueueItem.put("startTime", System.currentTimeMillis());
+            longRunningProcessQueueItem.put("progress", 0.0);
+            longRunningProcessRepository.beginWork(longRunningProcessQueueItem);
+            getWorkQueueRepository().broadcastLongRunningProcessChange(longRunningProcessQueueItem);
+
+            worker.process(longRunningProcessQueueItem, cancellationToken);
+
+            if (!cancelable && ticket.isTimedOut() && !ticket.isDeleted()) {
+                LOGGER.info("long running process %s completed after it timed out", longRunningProcessQueueItem.optString("id"));
+                longRunningProcessQueueItem.put("timedOut", true);
+            } else if (cancellationToken.isCanceled()) {
+                processCanceled(longRunningProcessQueueItem, ticket);
+                return;
+            }
+            longRunningProcessQueueItem.put("endTime", System.currentTimeMillis());
+            longRunningProcessQueueItem.put("progress", 1.0);
+            longRunningProcessRepository.ack(longRunningProcessQueueItem);
+            getWorkQueueRepository().broadcastLongRunningProcessChange(longRunningProcessQueueItem);
+        } catch (Throwable ex) {
+            if (cancelable && cancellationToken.isCanceled()) {
+                processCanceled(longRunningProcessQueueItem, ticket);
+                return;
+            }
+            LOGGER.error("Failed to process long running process queue item", ex);
+            longRunningProcessQueueItem.put("error", ex.getMessage());
+            longRunningProcessQueueItem.put("endTime", System.currentTimeMillis());
+            longRunningProcessRepository.nak(longRunningProcessQueueItem, ex);
+            getWorkQueueRepository().broadcastLongRunningProcessChange(longRunningProcessQueueItem);
+        }
+    }
+
+    private void processCanceled(JSONObject longRunningProcessQueueItem, LongRunningProcessScheduler.Ticket ticket) {
+        String reason = ticket.getCancellationToken().getReason();
+        LOGGER.info("long running process %s stopped: %s", longRunningProcessQueueItem.optString("id"), reason);
+        if (ticket.isDeleted()) {
+            return;
+        }
+        longRunningProcessQueueItem.put("endTime", System.currentTimeMillis());
+        if (ticket.isTimedOut()) {
+            longRunningProcessQueueItem.put("error", reason);
+            longRunningProcessRepository.nak(longRunningProcessQueueItem, new LongRunningProcessCanceledException(reason));
+        } else {
+            longRunningProcessQueueItem.put("canceled", true);
+            longRunningProcessRepository.ack(longRunningProcessQueueItem);
+        }
+        getWorkQueueRepository().broadcastLongRunningProcessChange(longRunningProcessQueueItem);
+    }
+
     @Override
     protected String getQueueName() {
         return workQueueNames.getLongRunningProcessQueueName();
@@ -138,6 +261,11 @@ public class LongRunningProcessRunner extends WorkerBase<LongRunningProcessWorke
         this.longRunningProcessRepository = longRunningProcessRepository;
     }
 
+    @Inject
+    public void setLongRunningProcessScheduler(LongRunningProcessScheduler longRunningProcessScheduler) {
+        this.longRunningProcessScheduler = longRunningProcessScheduler;
+    }
+
     @Inject
     public void setWorkQueueNames(WorkQueueNames workQueueNames) {
         this.workQueueNames = workQueueNames;
@@ -0,0 +1,393 @@
+package org.visallo.core.model.longRunningProcess;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONObject;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.status.MetricsManager;
+import org.visallo.core.status.model.Status;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Decides which of the processes the {@link LongRunningProcessRunner} threads of this JVM have taken from the queue
+ * they start next.
+ * <p>
+ * Each runner thread holds the processes it has fetched but not started yet. Of those it starts the one whose user
+ * has used the least run time divided by the user's weight, ties by arrival, so one user's long processes do not
+ * hold back everyone else's. A user's run time decays by half every {@link #CONFIG_USAGE_HALF_LIFE_SECONDS}, so
+ * past usage stops counting against the user over time.
+ * <p>
+ * Each process type can be limited to a number of concurrently running processes. Processes of a type at its limit
+ * are passed over for processes of other types, and when a runner thread has fetched as many processes as it holds
+ * and all of them are at their limit, one is put back on the queue so the thread can fetch others. Processes of a
+ * type can be given a wall clock timeout. Timed out processes, and processes canceled by their user, are told so
+ * through their {@link LongRunningProcessCancellationToken}.
+ * <p>
+ * Configuration, where the type is the "type" of the queue item:
+ *
+ * <pre><code>
+ * org.visallo.core.model.longRunningProcess.LongRunningProcessScheduler.concurrency.findPath=2
+ * org.visallo.core.model.longRunningProcess.LongRunningProcessScheduler.timeoutSeconds.findPath=3600
+ * org.visallo.core.model.longRunningProcess.LongRunningProcessScheduler.userWeight.USER_admin=2
+ * org.visallo.core.model.longRunningProcess.LongRunningProcessScheduler.usageHalfLifeSeconds=3600
+ * </code></pre>
+ */
+@Singleton
+public class LongRunningProcessScheduler {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(LongRunningProcessScheduler.class);
+    public static final String CONFIG_CONCURRENCY_PREFIX = LongRunningProcessScheduler.class.getName() + ".concurrency.";
+    public static final String CONFIG_TIMEOUT_SECONDS_PREFIX = LongRunningProcessScheduler.class.getName() + ".timeoutSeconds.";
+    public static final String CONFIG_USER_WEIGHT_PREFIX = LongRunningProcessScheduler.class.getName() + ".userWeight.";
+    public static final String CONFIG_USAGE_HALF_LIFE_SECONDS = LongRunningProcessScheduler.class.getName() + ".usageHalfLifeSeconds";
+    public static final long DEFAULT_USAGE_HALF_LIFE_SECONDS = 60 * 60;
+    // users without running processes whose decayed usage is below this many milliseconds are forgotten
+    private static final double MIN_USAGE_MILLIS = 1;
+    private final Configuration configuration;
+    private final WorkQueueRepository workQueueRepository;
+    private final MetricsManager metricsManager;
+    private final String metricsNamePrefix;
+    private final long usageHalfLifeMillis;
+    private final ScheduledExecutorService timeoutExecutor;
+    private final Map<String, TypeState> types = new HashMap<>();
+    private final Map<String, UserShare> users = new HashMap<>();
+    private final Map<String, Ticket> ticketsById = new ConcurrentHashMap<>();
+    private final Set<Runnable> capacityListeners = new CopyOnWriteArraySet<>();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    @Inject
+    public LongRunningProcessScheduler(
+            Configuration configuration,
+            WorkQueueRepository workQueueRepository,
+            MetricsManager metricsManager
+    ) {
+        this.configuration = configuration;
+        this.workQueueRepository = workQueueRepository;
+        this.metricsManager = metricsManager;
+        this.metricsNamePrefix = metricsManager.getNamePrefix(this);
+        this.usageHalfLifeMillis = 1000L * configuration.getLong(CONFIG_USAGE_HALF_LIFE_SECONDS, DEFAULT_USAGE_HALF_LIFE_SECONDS);
+        this.timeoutExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("long-running-process-timeout-%d")
+                        .build()
+        );
+    }
+
+    /**
+     * Chooses which of the fetched queue items to start next.
+     *
+     * @param full true if the caller can not fetch more queue items until one is chosen, in which case a queue item
+     *             of a type at its limit is chosen if there is nothing else, to be put back on the queue
+     * @return the index of the queue item to start next, or -1 if none can start now
+     */
+    public synchronized int selectNext(List<JSONObject> longRunningProcessQueueItems, boolean full) {
+        long now = System.currentTimeMillis();
+        int next = -1;
+        double nextUsage = 0;
+        long nextEnqueueTime = 0;
+        for (int i = 0; i < longRunningProcessQueueItems.size(); i++) {
+            JSONObject queueItem = longRunningProcessQueueItems.get(i);
+            if (!getTypeState(queueItem.optString("type")).hasCapacity()) {
+                continue;
+            }
+            UserShare userShare = users.get(queueItem.optString("userId", ""));
+            double usage = userShare == null ? 0 : userShare.getUsage(now);
+            long enqueueTime = queueItem.optLong("enqueueTime", now);
+            if (next == -1 || usage < nextUsage || (usage == nextUsage && enqueueTime < nextEnqueueTime)) {
+                next = i;
+                nextUsage = usage;
+                nextEnqueueTime = enqueueTime;
+            }
+        }
+        if (next == -1 && full && longRunningProcessQueueItems.size() > 0) {
+            return 0;
+        }
+        return next;
+    }
+
+    /**
+     * Starts the process if its type is below its limit. The returned ticket must be passed to
+     * {@link #release(Ticket)} once the process is done.
+     *
+     * @return the ticket of the started process, or null if the type is at its limit and the queue item should be
+     * put back on the queue
+     */
+    public Ticket tryAcquire(JSONObject longRunningProcessQueueItem) {
+        subscribeToBroadcastMessages();
+
+        long now = System.currentTimeMillis();
+        Ticket ticket = new Ticket(
+                longRunningProcessQueueItem.optString("id", null),
+                longRunningProcessQueueItem.getString("type"),
+                longRunningProcessQueueItem.optString("userId", ""),
+                longRunningProcessQueueItem.optLong("enqueueTime", now)
+        );
+
+        TypeState typeState;
+        synchronized (this) {
+            typeState = getTypeState(ticket.type);
+            if (!typeState.hasCapacity()) {
+                typeState.requeuedCounter.inc();
+                return null;
+            }
+            ticket.startTime = now;
+            typeState.running++;
+            typeState.runningCounter.inc();
+            getUserShare(ticket.userId).running.add(ticket);
+        }
+        if (ticket.id != null) {
+            ticketsById.put(ticket.id, ticket);
+        }
+        typeState.queueWaitTimer.update(Math.max(0, now - ticket.enqueueTime), TimeUnit.MILLISECONDS);
+
+        if (typeState.timeoutSeconds > 0) {
+            ticket.timeoutFuture = timeoutExecutor.schedule(
+                    () -> {
+                        typeState.timedOutCounter.inc();
+                        ticket.timedOut = true;
+                        cancel(ticket, String.format("Timed out after %d seconds", typeState.timeoutSeconds));
+                    },
+                    typeState.timeoutSeconds,
+                    TimeUnit.SECONDS
+            );
+        }
+        return ticket;
+    }
+
+    public void release(Ticket ticket) {
+        if (ticket.timeoutFuture != null) {
+            ticket.timeoutFuture.cancel(false);
+        }
+        if (ticket.id != null) {
+            ticketsById.remove(ticket.id, ticket);
+        }
+        synchronized (this) {
+            if (ticket.released) {
+                return;
+            }
+            ticket.released = true;
+            long now = System.currentTimeMillis();
+            long runTime = now - ticket.startTime;
+            TypeState typeState = getTypeState(ticket.type);
+            typeState.running--;
+            typeState.runningCounter.dec();
+            typeState.runTimeTimer.update(runTime, TimeUnit.MILLISECONDS);
+            UserShare userShare = getUserShare(ticket.userId);
+            userShare.running.remove(ticket);
+            userShare.addUsage(now, runTime / userShare.weight);
+            removeIdleUsers(now);
+        }
+        // called outside of the lock, the listeners take the locks of the runner threads which call selectNext
+        for (Runnable capacityListener : capacityListeners) {
+            capacityListener.run();
+        }
+    }
+
+    /**
+     * Registers a listener run whenever a process is released, after which a queue item that could not be
+     * selected before may be selected.
+     */
+    public void addCapacityListener(Runnable capacityListener) {
+        capacityListeners.add(capacityListener);
+    }
+
+    public void removeCapacityListener(Runnable capacityListener) {
+        capacityListeners.remove(capacityListener);
+    }
+
+    /**
+     * Cancels the process if it is running in this JVM.
+     */
+    public void cancel(String longRunningProcessId, String reason) {
+        Ticket ticket = ticketsById.get(longRunningProcessId);
+        if (ticket != null) {
+            cancel(ticket, reason);
+        }
+    }
+
+    private void cancel(Ticket ticket, String reason) {
+        LOGGER.info("canceling long running process %s: %s", ticket.id, reason);
+        ticket.token.cancel(reason);
+    }
+
+    /**
+     * @return the queue wait and run time metrics of each process type, keyed by type and metric name
+     */
+    public synchronized Map<String, Status.Metric> getMetrics() {
+        Map<String, Status.Metric> metrics = new TreeMap<>();
+        for (Map.Entry<String, TypeState> entry : types.entrySet()) {
+            String type = entry.getKey();
+            TypeState typeState = entry.getValue();
+            metrics.put(type + ".queueWait", Status.Metric.create(typeState.queueWaitTimer));
+            metrics.put(type + ".runTime", Status.Metric.create(typeState.runTimeTimer));
+            metrics.put(type + ".running", Status.Metric.create(typeState.runningCounter));
+            metrics.put(type + ".requeued", Status.Metric.create(typeState.requeuedCounter));
+            metrics.put(type + ".timedOut", Status.Metric.create(typeState.timedOutCounter));
+        }
+        return metrics;
+    }
+
+    synchronized int getUserCount() {
+        return users.size();
+    }
+
+    private void removeIdleUsers(long now) {
+        users.values().removeIf(userShare -> userShare.running.isEmpty() && userShare.getUsage(now) < MIN_USAGE_MILLIS);
+    }
+
+    private TypeState getTypeState(String type) {
+        return types.computeIfAbsent(type, TypeState::new);
+    }
+
+    private UserShare getUserShare(String userId) {
+        return users.computeIfAbsent(userId, id -> {
+            double weight = Double.parseDouble(configuration.get(CONFIG_USER_WEIGHT_PREFIX + id, "1"));
+            return new UserShare(weight > 0 ? weight : 1);
+        });
+    }
+
+    private void subscribeToBroadcastMessages() {
+        // subscribed on first use so that processes which never run long running processes do not consume broadcasts
+        if (!subscribed.compareAndSet(false, true)) {
+            return;
+        }
+        workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
+            @Override
+            public void broadcastReceived(JSONObject json) {
+                try {
+                    handleBroadcast(json);
+                } catch (Exception ex) {
+                    LOGGER.error("Could not handle broadcast: %s", json, ex);
+                }
+            }
+        });
+    }
+
+    private void handleBroadcast(JSONObject json) {
+        switch (json.optString("type")) {
+            case "longRunningProcessChange":
+                JSONObject data = json.optJSONObject("data");
+                if (data != null && data.optBoolean("canceled", false) && data.has("id")) {
+                    cancel(data.getString("id"), "Canceled");
+                }
+                break;
+            case "longRunningProcessDeleted":
+                String id = json.optString("data", null);
+                Ticket ticket = id == null ? null : ticketsById.get(id);
+                if (ticket != null) {
+                    ticket.deleted = true;
+                    cancel(ticket, "Deleted");
+                }
+                break;
+        }
+    }
+
+    public static class Ticket {
+        private final String id;
+        private final String type;
+        private final String userId;
+        private final long enqueueTime;
+        private final LongRunningProcessCancellationToken token = new LongRunningProcessCancellationToken();
+        private long startTime;
+        private boolean released;
+        private ScheduledFuture<?> timeoutFuture;
+        private volatile boolean timedOut;
+        private volatile boolean deleted;
+
+        private Ticket(String id, String type, String userId, long enqueueTime) {
+            this.id = id;
+            this.type = type;
+            this.userId = userId;
+            this.enqueueTime = enqueueTime;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public LongRunningProcessCancellationToken getCancellationToken() {
+            return token;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * @return true if the process was deleted while it was running
+         */
+        public boolean isDeleted() {
+            return deleted;
+        }
+    }
+
+    private class TypeState {
+        private final int concurrency;
+        private final long timeoutSeconds;
+        private int running;
+        private final Timer queueWaitTimer;
+        private final Timer runTimeTimer;
+        private final Counter runningCounter;
+        private final Counter requeuedCounter;
+        private final Counter timedOutCounter;
+
+        TypeState(String type) {
+            this.concurrency = configuration.getInt(CONFIG_CONCURRENCY_PREFIX + type, 0);
+            this.timeoutSeconds = configuration.getLong(CONFIG_TIMEOUT_SECONDS_PREFIX + type, 0);
+            String namePrefix = metricsNamePrefix + type + ".";
+            this.queueWaitTimer = metricsManager.timer(namePrefix + "queue-wait");
+            this.runTimeTimer = metricsManager.timer(namePrefix + "run-time");
+            this.runningCounter = metricsManager.counter(namePrefix + "running");
+            this.requeuedCounter = metricsManager.counter(namePrefix + "requeued");
+            this.timedOutCounter = metricsManager.counter(namePrefix + "timed-out");
+        }
+
+        boolean hasCapacity() {
+            return concurrency <= 0 || running < concurrency;
+        }
+    }
+
+    private class UserShare {
+        private final double weight;
+        private final Set<Ticket> running = new HashSet<>();
+        private double usage;
+        private long usageTime;
+
+        UserShare(double weight) {
+            this.weight = weight;
+        }
+
+        void addUsage(long now, double weightedRunTime) {
+            usage = getFinishedUsage(now) + weightedRunTime;
+            usageTime = now;
+        }
+
+        /**
+         * @return the decayed, weighted run time of the user's finished processes plus the weighted run time of the
+         * user's running processes
+         */
+        double getUsage(long now) {
+            double result = getFinishedUsage(now);
+            for (Ticket ticket : running) {
+                result += (now - ticket.startTime) / weight;
+            }
+            return result;
+        }
+
+        private double getFinishedUsage(long now) {
+            if (usage == 0 || usageHalfLifeMillis <= 0) {
+                return usage;
+            }
+            return usage * Math.pow(0.5, (double) (now - usageTime) / usageHalfLifeMillis);
+        }
+    }
+}
@@ -16,6 +16,7 @@ public abstract class LongRunningProcessWorker {
     private MetricsManager metricsManager;
     private Counter totalProcessedCounter;
     private Counter totalErrorCounter;
+    private Counter totalCanceledCounter;
     private Counter processingCounter;
     private Timer processingTimeTimer;
 
@@ -24,20 +25,29 @@ public abstract class LongRunningProcessWorker {
         totalProcessedCounter = getMetricsManager().counter(namePrefix + "total-processed");
         processingCounter = getMetricsManager().counter(namePrefix + "processing");
         totalErrorCounter = getMetricsManager().counter(namePrefix + "total-errors");
+        totalCanceledCounter = getMetricsManager().counter(namePrefix + "total-canceled");
         processingTimeTimer = getMetricsManager().timer(namePrefix + "processing-time");
     }
 
     public abstract boolean isHandled(JSONObject longRunningProcessQueueItem);
 
     public final void process(JSONObject longRunningProcessQueueItem) {
+        process(longRunningProcessQueueItem, new LongRunningProcessCancellationToken());
+    }
+
+    public final void process(JSONObject longRunningProcessQueueItem, LongRunningProcessCancellationToken cancellationToken) {
         try (Timer.Context t = processingTimeTimer.time()) {
             processingCounter.inc();
             try {
-                processInternal(longRunningProcessQueueItem);
+                processInternal(longRunningProcessQueueItem, cancellationToken);
             } finally {
                 processingCounter.dec();
             }
             totalProcessedCounter.inc();
+        } catch (LongRunningProcessCanceledException ex) {
+            LOGGER.info("Stopped long running process %s: %s", longRunningProcessQueueItem.optString("id"), ex.getMessage());
+            this.totalCanceledCounter.inc();
+            throw ex;
         } catch (Throwable ex) {
             LOGGER.error("Failed to complete long running process: " + longRunningProcessQueueItem, ex);
             this.totalErrorCounter.inc();
@@ -45,7 +55,15 @@ public abstract class LongRunningProcessWorker {
         }
     }
 
-    protected abstract void processInternal(JSONObject longRunningProcessQueueItem);
+    /**
+     * Works on the process. Workers should poll the cancellation token in their loops and stop once it is canceled,
+     * either by the user or because the process ran longer than its timeout. Workers that can not stop early extend
+     * {@link NonCancelableLongRunningProcessWorker} instead.
+     */
+    protected abstract void processInternal(
+            JSONObject longRunningProcessQueueItem,
+            LongRunningProcessCancellationToken cancellationToken
+    );
 
     public LongRunningProcessRunnerStatus.LongRunningProcessWorkerStatus getStatus() {
         LongRunningProcessRunnerStatus.LongRunningProcessWorkerStatus status = new LongRunningProcessRunnerStatus.LongRunningProcessWorkerStatus();
@@ -53,6 +71,7 @@ public abstract class LongRunningProcessWorker {
         status.getMetrics().put("totalProcessed", Status.Metric.create(totalProcessedCounter));
         status.getMetrics().put("processing", Status.Metric.create(processingCounter));
         status.getMetrics().put("totalErrors", Status.Metric.create(totalErrorCounter));
+        status.getMetrics().put("totalCanceled", Status.Metric.create(totalCanceledCounter));
         status.getMetrics().put("processingTime", Status.Metric.create(processingTimeTimer));
         return status;
     }
@@ -0,0 +1,20 @@
+package org.visallo.core.model.longRunningProcess;
+
+import org.json.JSONObject;
+
+/**
+ * Base class for workers that do not poll the cancellation token. They keep running until they finish, after which
+ * processes canceled by their user are marked canceled and processes that ran past their timeout are completed with
+ * a timedOut flag.
+ */
+public abstract class NonCancelableLongRunningProcessWorker extends LongRunningProcessWorker {
+    @Override
+    protected final void processInternal(
+            JSONObject longRunningProcessQueueItem,
+            LongRunningProcessCancellationToken cancellationToken
+    ) {
+        processInternal(longRunningProcessQueueItem);
+    }
+
+    protected abstract void processInternal(JSONObject longRunningProcessQueueItem);
+}
@@ -0,0 +1,68 @@
+package org.visallo.core.model.longRunningProcess;
+
+import org.json.JSONObject;
+import org.vertexium.Authorizations;
+import org.visallo.core.util.ClientApiConverter;
+import org.visallo.web.clientapi.model.ClientApiPublishItem;
+
+public class PublishLongRunningProcessQueueItem {
+    public static final String TYPE = "publish";
+    private String publishData;
+    private int itemCount;
+    private String workspaceId;
+    private String userId;
+    private String[] authorizations;
+
+    public PublishLongRunningProcessQueueItem() {
+
+    }
+
+    public PublishLongRunningProcessQueueItem(
+            ClientApiPublishItem[] publishData,
+            String workspaceId,
+            String userId,
+            Authorizations authorizations
+    ) {
+        this.publishData = ClientApiConverter.clientApiToString(publishData);
+        this.itemCount = publishData.length;
+        this.workspaceId = workspaceId;
+        this.userId = userId;
+        this.authorizations = authorizations.getAuthorizations();
+    }
+
+    /**
+     * The publish items are kept as a JSON string so the queue item JSON does not depend on how the polymorphic
+     * publish items serialize their type.
+     */
+    public String getPublishData() {
+        return publishData;
+    }
+
+    public ClientApiPublishItem[] toPublishItems() {
+        return ClientApiConverter.toClientApi(publishData, ClientApiPublishItem[].class);
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String[] getAuthorizations() {
+        return authorizations;
+    }
+
+    public String getType() {
+        return TYPE;
+    }
+
+    public JSONObject toJson() {
+        return new JSONObject(ClientApiConverter.clientApiToString(this));
+    }
+}
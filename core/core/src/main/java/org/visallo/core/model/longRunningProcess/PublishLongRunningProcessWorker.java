@@ -0,0 +1,120 @@
+package org.visallo.core.model.longRunningProcess;
+
+import com.google.inject.Inject;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.vertexium.Authorizations;
+import org.vertexium.Graph;
+import org.visallo.core.model.Description;
+import org.visallo.core.model.Name;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.core.user.User;
+import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+import org.visallo.web.clientapi.model.ClientApiPublishItem;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@Name("Publish")
+@Description("Publishes workspace changes in chunks")
+public class PublishLongRunningProcessWorker extends LongRunningProcessWorker {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(PublishLongRunningProcessWorker.class);
+    private final Graph graph;
+    private final UserRepository userRepository;
+    private final WorkspaceRepository workspaceRepository;
+    private final LongRunningProcessRepository longRunningProcessRepository;
+
+    @Inject
+    public PublishLongRunningProcessWorker(
+            Graph graph,
+            UserRepository userRepository,
+            WorkspaceRepository workspaceRepository,
+            LongRunningProcessRepository longRunningProcessRepository
+    ) {
+        this.graph = graph;
+        this.userRepository = userRepository;
+        this.workspaceRepository = workspaceRepository;
+        this.longRunningProcessRepository = longRunningProcessRepository;
+    }
+
+    @Override
+    public boolean isHandled(JSONObject longRunningProcessQueueItem) {
+        return longRunningProcessQueueItem.getString("type").equals(PublishLongRunningProcessQueueItem.TYPE);
+    }
+
+    @Override
+    protected void processInternal(
+            JSONObject longRunningProcessQueueItem,
+            LongRunningProcessCancellationToken cancellationToken
+    ) {
+        PublishLongRunningProcessQueueItem item = ClientApiConverter.toClientApi(
+                longRunningProcessQueueItem.toString(),
+                PublishLongRunningProcessQueueItem.class
+        );
+        String longRunningProcessId = longRunningProcessQueueItem.getString("id");
+        Authorizations authorizations = graph.createAuthorizations(item.getAuthorizations());
+        User user = userRepository.findById(item.getUserId());
+        ClientApiPublishItem[] publishData = item.toPublishItems();
+
+        // failures of chunks published before a restart are only known from the checkpoint
+        Map<Integer, String> failures = new TreeMap<>();
+        int firstChunk = 0;
+        JSONObject checkpoint = longRunningProcessRepository.findCheckpoint(longRunningProcessId);
+        if (checkpoint != null) {
+            firstChunk = checkpoint.getInt("publishedChunkCount");
+            JSONArray checkpointFailures = checkpoint.getJSONArray("failures");
+            for (int i = 0; i < checkpointFailures.length(); i++) {
+                JSONObject failure = checkpointFailures.getJSONObject(i);
+                failures.put(failure.getInt("index"), failure.getString("errorMessage"));
+            }
+            LOGGER.info("resuming publish %s after chunk %d", longRunningProcessId, firstChunk);
+        }
+
+        workspaceRepository.publish(
+                publishData,
+                user,
+                item.getWorkspaceId(),
+                authorizations,
+                firstChunk,
+                (publishedChunkCount, totalChunkCount) -> {
+                    collectFailures(publishData, failures);
+                    JSONObject newCheckpoint = new JSONObject();
+                    newCheckpoint.put("publishedChunkCount", publishedChunkCount);
+                    newCheckpoint.put("failures", failuresToJson(failures));
+                    longRunningProcessRepository.saveCheckpoint(longRunningProcessId, newCheckpoint);
+                    longRunningProcessRepository.reportProgress(
+                            longRunningProcessQueueItem,
+                            ((double) publishedChunkCount) / ((double) totalChunkCount),
+                            String.format("Published %,d of %,d chunks", publishedChunkCount, totalChunkCount)
+                    );
+                    // stopping between chunks leaves the checkpoint consistent with what was published
+                    cancellationToken.throwIfCanceled();
+                }
+        );
+
+        collectFailures(publishData, failures);
+        longRunningProcessQueueItem.put("failures", failuresToJson(failures));
+    }
+
+    private void collectFailures(ClientApiPublishItem[] publishData, Map<Integer, String> failures) {
+        for (int i = 0; i < publishData.length; i++) {
+            if (publishData[i].getErrorMessage() != null) {
+                failures.put(i, publishData[i].getErrorMessage());
+            }
+        }
+    }
+
+    private JSONArray failuresToJson(Map<Integer, String> failures) {
+        JSONArray json = new JSONArray();
+        for (Map.Entry<Integer, String> failure : failures.entrySet()) {
+            JSONObject failureJson = new JSONObject();
+            failureJson.put("index", failure.getKey());
+            failureJson.put("errorMessage", failure.getValue());
+            json.put(failureJson);
+        }
+        return json;
+    }
+}
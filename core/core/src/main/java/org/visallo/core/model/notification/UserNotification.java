@@ -7,8 +7,14 @@ import org.json.JSONObject;
 
 import java.util.*;
 
+/**
+ * User notifications are stored with ids starting with the user id followed by the zero padded sent time, so the
+ * notifications of one user are read with a prefix scan in the order they were sent.
+ */
 @Entity(tableName = "userNotifications")
 public class UserNotification extends Notification {
+    private static final char ROW_KEY_SEPARATOR = ':';
+
     @Field
     private String userId;
 
@@ -55,7 +61,7 @@ public class UserNotification extends Notification {
             Date sentDate,
             ExpirationAge expirationAge
     ) {
-        super(createRowKey(sentDate), title, message, actionEvent, actionPayload);
+        super(createRowKey(userId, sentDate), title, message, actionEvent, actionPayload);
         this.userId = userId;
         this.sentDate = sentDate;
         this.markedRead = false;
@@ -66,8 +72,33 @@ public class UserNotification extends Notification {
         }
     }
 
-    private static String createRowKey(Date date) {
-        return Long.toString(date.getTime()) + ":" + UUID.randomUUID().toString();
+    private static String createRowKey(String userId, Date date) {
+        return getRowKeyPrefix(userId) + String.format("%019d", date.getTime()) + ROW_KEY_SEPARATOR
+                + UUID.randomUUID().toString();
+    }
+
+    public static String getRowKeyPrefix(String userId) {
+        return userId + ROW_KEY_SEPARATOR;
+    }
+
+    /**
+     * @return the id of the user the notification with the given id belongs to, or null if the id was created
+     * before ids started with the user id
+     */
+    public static String getUserIdFromRowKey(String rowKey) {
+        int uuidStart = rowKey.lastIndexOf(ROW_KEY_SEPARATOR);
+        int sentDateStart = uuidStart <= 0 ? -1 : rowKey.lastIndexOf(ROW_KEY_SEPARATOR, uuidStart - 1);
+        if (sentDateStart <= 0) {
+            return null;
+        }
+        return rowKey.substring(0, sentDateStart);
+    }
+
+    /**
+     * @return true if the id of this notification does not start with its user id
+     */
+    public boolean hasLegacyRowKey() {
+        return !getId().startsWith(getRowKeyPrefix(getUserId()));
     }
 
     public String getUserId() {
@@ -111,6 +142,21 @@ public class UserNotification extends Notification {
         return sentDate.before(now) && (expirationDate == null || expirationDate.after(now));
     }
 
+    /**
+     * @return the time since which the notification is no longer shown, or null if it is still active
+     */
+    public Date getInactiveDate() {
+        if (isMarkedRead()) {
+            // the time it was read is not stored
+            return getSentDate();
+        }
+        Date expirationDate = getExpirationDate();
+        if (expirationDate != null && !expirationDate.after(new Date())) {
+            return expirationDate;
+        }
+        return null;
+    }
+
     public Date getExpirationDate() {
         ExpirationAge age = getExpirationAge();
         if (age == null) {
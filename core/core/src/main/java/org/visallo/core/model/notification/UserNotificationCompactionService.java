@@ -0,0 +1,52 @@
+package org.visallo.core.model.notification;
+
+import com.google.inject.Inject;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.model.lock.LockRepository;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.util.PeriodicBackgroundService;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes user notifications that have been read or expired for longer than the retention, so the prefix scans
+ * of a user's notifications only read recent ones.
+ */
+public class UserNotificationCompactionService extends PeriodicBackgroundService {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(UserNotificationCompactionService.class);
+    private static final int CHECK_INTERVAL_SECONDS_DEFAULT = 60 * 60;
+    private static final String CHECK_INTERVAL_CONFIG_NAME = UserNotificationCompactionService.class.getName() + ".checkIntervalSeconds";
+    private static final int RETENTION_DAYS_DEFAULT = 7;
+    private static final String RETENTION_DAYS_CONFIG_NAME = UserNotificationCompactionService.class.getName() + ".retentionDays";
+    private final UserRepository userRepository;
+    private final UserNotificationRepository userNotificationRepository;
+    private final int checkIntervalSeconds;
+    private final int retentionDays;
+
+    @Inject
+    public UserNotificationCompactionService(
+            Configuration configuration,
+            UserRepository userRepository,
+            LockRepository lockRepository,
+            UserNotificationRepository userNotificationRepository
+    ) {
+        super(lockRepository);
+        this.userRepository = userRepository;
+        this.userNotificationRepository = userNotificationRepository;
+        this.checkIntervalSeconds = configuration.getInt(CHECK_INTERVAL_CONFIG_NAME, CHECK_INTERVAL_SECONDS_DEFAULT);
+        this.retentionDays = configuration.getInt(RETENTION_DAYS_CONFIG_NAME, RETENTION_DAYS_DEFAULT);
+    }
+
+    @Override
+    protected void run() {
+        int deleted = userNotificationRepository.compact(retentionDays, TimeUnit.DAYS, userRepository.getSystemUser());
+        LOGGER.debug("deleted %d inactive user notifications", deleted);
+    }
+
+    @Override
+    protected int getCheckIntervalSeconds() {
+        return checkIntervalSeconds;
+    }
+}
@@ -6,14 +6,15 @@ import com.v5analytics.simpleorm.SimpleOrmContext;
 import com.v5analytics.simpleorm.SimpleOrmSession;
 import org.json.JSONObject;
 import org.visallo.core.bootstrap.InjectHelper;
+import org.visallo.core.exception.VisalloAccessDeniedException;
+import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.model.user.UserRepository;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.user.User;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Date;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -45,12 +46,17 @@ public class UserNotificationRepository extends NotificationRepository {
 
     public Stream<UserNotification> getActiveNotifications(User user) {
         Date now = new Date();
-        return findAll(user)
-                .filter(notification ->
-                                user.getUserId().equals(notification.getUserId())
-                                        && notification.getSentDate().before(now)
-                                        && notification.isActive()
-                );
+        return findByUserId(user.getUserId(), user)
+                .filter(notification -> notification.getSentDate().before(now) && notification.isActive());
+    }
+
+    private Stream<UserNotification> findByUserId(String userId, User user) {
+        SimpleOrmContext ctx = getUserRepository().getSimpleOrmContext(user);
+        return stream(getSimpleOrmSession().findByIdStartsWith(
+                UserNotification.class,
+                UserNotification.getRowKeyPrefix(userId),
+                ctx
+        ));
     }
 
     private Stream<UserNotification> findAll(User user) {
@@ -120,30 +126,125 @@ public class UserNotificationRepository extends NotificationRepository {
     }
 
     /**
-     * This method only allows marking items read for the passed in user
+     * This method only allows marking items read for the passed in user. The other sessions of the user are told
+     * through the websocket so they stop showing the notifications.
      */
     public void markRead(String[] notificationIds, User user) {
+        for (String notificationId : notificationIds) {
+            String userId = UserNotification.getUserIdFromRowKey(notificationId);
+            if (userId != null && !userId.equals(user.getUserId())) {
+                throw new VisalloAccessDeniedException(
+                        "Cannot mark notification read that do not belong to you",
+                        user,
+                        notificationId
+                );
+            }
+        }
+
+        Map<String, UserNotification> notifications = findByIds(Arrays.asList(notificationIds), user);
         Collection<UserNotification> toSave = new ArrayList<>();
         for (String notificationId : notificationIds) {
-            UserNotification notification = getNotification(notificationId, user);
-            checkNotNull(notification, "Could not find notification with id " + notificationId);
-            notification.setMarkedRead(true);
-            toSave.add(notification);
+            UserNotification notification = notifications.get(notificationId);
+            if (notification == null) {
+                throw new VisalloResourceNotFoundException("Could not find notification with id: " + notificationId);
+            }
+            if (!notification.getUserId().equals(user.getUserId())) {
+                throw new VisalloAccessDeniedException(
+                        "Cannot mark notification read that do not belong to you",
+                        user,
+                        notificationId
+                );
+            }
+            if (!notification.isMarkedRead()) {
+                notification.setMarkedRead(true);
+                toSave.add(notification);
+            }
+        }
+        if (toSave.size() == 0) {
+            return;
         }
         getSimpleOrmSession().saveMany(toSave, VISIBILITY_STRING, getUserRepository().getSimpleOrmContext(user));
+        workQueueRepository.pushUserNotificationsMarkedRead(
+                user.getUserId(),
+                toSave.stream().map(UserNotification::getId).collect(Collectors.toList())
+        );
     }
 
     public void markNotified(Iterable<String> notificationIds, User user) {
+        Map<String, UserNotification> notifications = findByIds(notificationIds, user);
         Collection<UserNotification> toSave = new ArrayList<>();
         for (String notificationId : notificationIds) {
-            UserNotification notification = getNotification(notificationId, user);
+            UserNotification notification = notifications.get(notificationId);
             checkNotNull(notification, "Could not find notification with id " + notificationId);
-            notification.setNotified(true);
-            toSave.add(notification);
+            if (!notification.isNotified()) {
+                notification.setNotified(true);
+                toSave.add(notification);
+            }
+        }
+        if (toSave.size() == 0) {
+            return;
         }
         getSimpleOrmSession().saveMany(toSave, VISIBILITY_STRING, getUserRepository().getSimpleOrmContext(user));
     }
 
+    /**
+     * Reads the notifications with the given ids with one prefix scan per user they belong to. Only notifications
+     * with ids from before ids started with the user id are read one by one.
+     */
+    private Map<String, UserNotification> findByIds(Iterable<String> notificationIds, User user) {
+        Set<String> userIds = new HashSet<>();
+        Map<String, UserNotification> notifications = new HashMap<>();
+        for (String notificationId : notificationIds) {
+            String userId = UserNotification.getUserIdFromRowKey(notificationId);
+            if (userId != null) {
+                userIds.add(userId);
+            } else {
+                UserNotification notification = getNotification(notificationId, user);
+                if (notification != null) {
+                    notifications.put(notificationId, notification);
+                }
+            }
+        }
+        for (String userId : userIds) {
+            findByUserId(userId, user).forEach(notification -> notifications.put(notification.getId(), notification));
+        }
+        return notifications;
+    }
+
+    /**
+     * Deletes the notifications that have been inactive, read or expired, for longer than the retention, and moves
+     * active notifications stored before ids started with the user id to ids that do.
+     *
+     * @return the number of notifications deleted
+     */
+    public int compact(int retention, TimeUnit timeUnit, User user) {
+        Date deleteInactiveBefore = new Date(System.currentTimeMillis() - timeUnit.toMillis(retention));
+        SimpleOrmContext ctx = getUserRepository().getSimpleOrmContext(user);
+        int deleted = 0;
+        for (UserNotification notification : getSimpleOrmSession().findAll(UserNotification.class, ctx)) {
+            Date inactiveDate = notification.getInactiveDate();
+            if (inactiveDate != null && inactiveDate.before(deleteInactiveBefore)) {
+                getSimpleOrmSession().delete(UserNotification.class, notification.getId(), ctx);
+                deleted++;
+            } else if (notification.hasLegacyRowKey()) {
+                UserNotification moved = new UserNotification(
+                        notification.getUserId(),
+                        notification.getTitle(),
+                        notification.getMessage(),
+                        notification.getActionEvent(),
+                        notification.getActionPayload(),
+                        notification.getSentDate(),
+                        notification.getExpirationAge()
+                );
+                moved.setMarkedRead(notification.isMarkedRead());
+                moved.setNotified(notification.isNotified());
+                getSimpleOrmSession().save(moved, VISIBILITY_STRING, ctx);
+                getSimpleOrmSession().delete(UserNotification.class, notification.getId(), ctx);
+            }
+        }
+        return deleted;
+    }
+
     /**
      * Avoid circular reference with UserRepository
      */
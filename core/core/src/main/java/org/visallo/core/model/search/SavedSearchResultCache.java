@@ -0,0 +1,444 @@
+package org.visallo.core.model.search;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.vertexium.Authorizations;
+import org.vertexium.Edge;
+import org.vertexium.Element;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
+import org.visallo.core.model.ontology.Concept;
+import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.core.model.ontology.Relationship;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.workQueue.GraphChangeListener;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.status.MetricsManager;
+import org.visallo.core.util.JSONUtil;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Materialized results of saved searches, so that dashboards shared by many users do not run the same saved search
+ * for every user on every refresh.
+ * <p>
+ * Results are keyed by saved search id, the normalized search parameters, the workspace and the authorizations of
+ * the user. Each result records the concept types and edge labels the search is limited to and the properties its
+ * filters, sorts and aggregations read, and is dropped when an element or property change pushed through
+ * {@link WorkQueueRepository} in this JVM could change it. Changes made by graph property workers and other web
+ * servers arrive as work queue broadcasts, which name the concept type or edge label and the property of a changed
+ * element. Publish and delete broadcasts do not name the types of their elements, so they drop every result.
+ * Changes pushed with {@link org.visallo.core.model.workQueue.Priority#LOW} are not broadcast, and are picked up by
+ * other processes when the result expires after {@link #CONFIG_TTL_SECONDS} seconds. Results are evicted least
+ * recently used first once they take more than {@link #CONFIG_MAX_SIZE_BYTES} bytes.
+ */
+@Singleton
+public class SavedSearchResultCache implements GraphChangeListener {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(SavedSearchResultCache.class);
+    public static final String CONFIG_TTL_SECONDS = SavedSearchResultCache.class.getName() + ".ttlSeconds";
+    public static final long DEFAULT_TTL_SECONDS = 5 * 60;
+    public static final String CONFIG_MAX_SIZE_BYTES = SavedSearchResultCache.class.getName() + ".maxSizeBytes";
+    public static final long DEFAULT_MAX_SIZE_BYTES = 64L * 1024 * 1024;
+    private static final String CONCEPT_TYPE_PROPERTY_NAME = VisalloProperties.CONCEPT_TYPE.getPropertyName();
+    private final OntologyRepository ontologyRepository;
+    private final WorkQueueRepository workQueueRepository;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final Cache<Key, Entry> cache;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter invalidationCounter;
+
+    @Inject
+    public SavedSearchResultCache(
+            Configuration configuration,
+            OntologyRepository ontologyRepository,
+            WorkQueueRepository workQueueRepository,
+            MetricsManager metricsManager
+    ) {
+        this.ontologyRepository = ontologyRepository;
+        this.workQueueRepository = workQueueRepository;
+        long ttlSeconds = configuration.getLong(CONFIG_TTL_SECONDS, DEFAULT_TTL_SECONDS);
+        long maxSizeBytes = configuration.getLong(CONFIG_MAX_SIZE_BYTES, DEFAULT_MAX_SIZE_BYTES);
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumWeight(maxSizeBytes)
+                .weigher((Key key, Entry entry) -> (int) Math.min(Integer.MAX_VALUE, entry.sizeBytes))
+                .build();
+
+        String namePrefix = metricsManager.getNamePrefix(this);
+        this.hitCounter = metricsManager.counter(namePrefix + "hits");
+        this.missCounter = metricsManager.counter(namePrefix + "misses");
+        this.invalidationCounter = metricsManager.counter(namePrefix + "invalidations");
+
+        workQueueRepository.addGraphChangeListener(this);
+    }
+
+    public Key createKey(String savedSearchId, SearchOptions searchOptions, Authorizations authorizations) {
+        SortedMap<String, List<String>> parameters = new TreeMap<>();
+        for (Map.Entry<String, Object> parameter : searchOptions.getParameters().entrySet()) {
+            String name = parameter.getKey();
+            // servlet attributes and the jQuery cache buster change between requests for the same search
+            if (name.startsWith("javax.") || name.equals("_")) {
+                continue;
+            }
+            List<String> values = toStrings(parameter.getValue());
+            if (values != null) {
+                parameters.put(name, values);
+            }
+        }
+        String[] authorizationStrings = authorizations.getAuthorizations().clone();
+        Arrays.sort(authorizationStrings);
+        return new Key(savedSearchId, searchOptions.getWorkspaceId(), parameters, Arrays.asList(authorizationStrings));
+    }
+
+    private static List<String> toStrings(Object value) {
+        if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return Collections.singletonList(value.toString());
+        }
+        if (value instanceof Object[]) {
+            value = Arrays.asList((Object[]) value);
+        }
+        if (value instanceof Collection) {
+            List<String> results = new ArrayList<>();
+            for (Object item : (Collection<?>) value) {
+                results.add(String.valueOf(item));
+            }
+            return results;
+        }
+        return null;
+    }
+
+    /**
+     * @return the cached result, or null if the search has to be run
+     */
+    public <T> T get(Key key, Class<T> resultType) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null || !resultType.isInstance(entry.value)) {
+            missCounter.inc();
+            return null;
+        }
+        hitCounter.inc();
+        return resultType.cast(entry.value);
+    }
+
+    /**
+     * @param value       the result of the search, which must not be modified once it is cached
+     * @param sizeBytes   the approximate size of the result, weighed against {@link #CONFIG_MAX_SIZE_BYTES}
+     * @param hasElements true if the result includes elements, which change with any of their properties
+     */
+    public void put(Key key, SearchOptions searchOptions, Object value, long sizeBytes, boolean hasElements) {
+        Set<String> elementTypes = getElementTypes(searchOptions);
+        Set<String> propertyNames = hasElements ? null : getPropertyNames(searchOptions);
+        subscribeToBroadcastMessages();
+        cache.put(key, new Entry(value, sizeBytes, elementTypes, propertyNames));
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long getSizeBytes() {
+        long sizeBytes = 0;
+        for (Entry entry : cache.asMap().values()) {
+            sizeBytes += entry.sizeBytes;
+        }
+        return sizeBytes;
+    }
+
+    public long getHitCount() {
+        return hitCounter.getCount();
+    }
+
+    public long getMissCount() {
+        return missCounter.getCount();
+    }
+
+    @Override
+    public void graphChanged(Element element, String propertyKey, String propertyName, ElementOrPropertyStatus status) {
+        String elementType;
+        if (element instanceof Edge) {
+            elementType = ((Edge) element).getLabel();
+        } else {
+            elementType = VisalloProperties.CONCEPT_TYPE.getPropertyValue(element);
+        }
+        elementChanged(element.getId(), elementType, propertyName);
+    }
+
+    private void elementChanged(String elementId, String elementType, String propertyName) {
+        if (cache.size() == 0) {
+            return;
+        }
+        // an element whose concept type changed may leave the results of searches for its old concept type
+        boolean conceptTypeChanged = CONCEPT_TYPE_PROPERTY_NAME.equals(propertyName);
+
+        int removed = 0;
+        Iterator<Entry> it = cache.asMap().values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (conceptTypeChanged || entry.dependsOn(elementType, propertyName)) {
+                it.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            invalidationCounter.inc(removed);
+            LOGGER.debug("invalidated %d saved search results for element %s", removed, elementId);
+        }
+    }
+
+    private void invalidateAll(String reason) {
+        long removed = cache.size();
+        cache.invalidateAll();
+        if (removed > 0) {
+            invalidationCounter.inc(removed);
+            LOGGER.debug("invalidated %d saved search results for %s", removed, reason);
+        }
+    }
+
+    private void subscribeToBroadcastMessages() {
+        // subscribed on first use so that processes which never cache results, like workers, do not consume broadcasts
+        if (!subscribed.compareAndSet(false, true)) {
+            return;
+        }
+        workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
+            @Override
+            public void broadcastReceived(JSONObject json) {
+                try {
+                    handleBroadcast(json);
+                } catch (Exception ex) {
+                    LOGGER.error("Could not handle broadcast: %s", json, ex);
+                }
+            }
+        });
+    }
+
+    private void handleBroadcast(JSONObject json) {
+        String type = json.optString("type");
+        JSONObject data = json.optJSONObject("data");
+        if (data == null) {
+            return;
+        }
+        switch (type) {
+            case "propertyChange":
+                String elementId = data.optString("graphVertexId", data.optString("graphEdgeId", null));
+                String elementType = data.optString("conceptType", data.optString("edgeLabel", null));
+                if (elementType == null) {
+                    // a vertex broadcast without its concept type could be of any type
+                    invalidateAll("element " + elementId);
+                } else {
+                    elementChanged(elementId, elementType, data.optString("propertyName", null));
+                }
+                break;
+            case "publish":
+            case "edgeDeletion":
+            case "verticesDeleted":
+            case "elementsDeleted":
+                invalidateAll(type);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return the concept types and edge labels the search is limited to, or null if any element can be in the
+     * results
+     */
+    private Set<String> getElementTypes(SearchOptions searchOptions) {
+        if (searchOptions.getOptionalParameter("relatedToVertexIds[]", String[].class) != null
+                || searchOptions.getOptionalParameter("elementExtendedData", String.class) != null) {
+            return null;
+        }
+        String workspaceId = searchOptions.getWorkspaceId();
+        Boolean includeChildNodes = searchOptions.getOptionalParameter("includeChildNodes", Boolean.class);
+        Set<String> elementTypes = new HashSet<>();
+        for (OntologyRepository.ElementTypeFilter filter : getTypeFilters(searchOptions, "conceptTypes", "conceptType", includeChildNodes)) {
+            if (filter.includeChildNodes) {
+                Set<Concept> concepts = ontologyRepository.getConceptAndAllChildrenByIri(filter.iri, workspaceId);
+                if (concepts != null) {
+                    for (Concept concept : concepts) {
+                        elementTypes.add(concept.getIRI());
+                    }
+                }
+            }
+            elementTypes.add(filter.iri);
+        }
+        for (OntologyRepository.ElementTypeFilter filter : getTypeFilters(searchOptions, "edgeLabels", "edgeLabel", includeChildNodes)) {
+            if (filter.includeChildNodes) {
+                Set<Relationship> relationships = ontologyRepository.getRelationshipAndAllChildrenByIRI(filter.iri, workspaceId);
+                if (relationships != null) {
+                    for (Relationship relationship : relationships) {
+                        elementTypes.add(relationship.getIRI());
+                    }
+                }
+            }
+            elementTypes.add(filter.iri);
+        }
+        return elementTypes.isEmpty() ? null : elementTypes;
+    }
+
+    private static List<OntologyRepository.ElementTypeFilter> getTypeFilters(
+            SearchOptions searchOptions,
+            String parameterName,
+            String legacyParameterName,
+            Boolean includeChildNodes
+    ) {
+        List<OntologyRepository.ElementTypeFilter> filters = new ArrayList<>();
+        String types = searchOptions.getOptionalParameter(parameterName, String.class);
+        if (types == null) {
+            String type = searchOptions.getOptionalParameter(legacyParameterName, String.class);
+            if (type != null) {
+                filters.add(new OntologyRepository.ElementTypeFilter(type, includeChildNodes == null || includeChildNodes));
+            }
+            return filters;
+        }
+        JSONArray typesJson = new JSONArray(types);
+        for (int i = 0; i < typesJson.length(); i++) {
+            JSONObject typeJson = typesJson.getJSONObject(i);
+            filters.add(new OntologyRepository.ElementTypeFilter(
+                    typeJson.getString("iri"),
+                    typeJson.optBoolean("includeChildNodes", false)
+            ));
+        }
+        return filters;
+    }
+
+    /**
+     * @return the properties the filters, sorts and aggregations of the search read, or null if a change to any
+     * property can change the results
+     */
+    private Set<String> getPropertyNames(SearchOptions searchOptions) {
+        String q = searchOptions.getOptionalParameter("q", String.class);
+        if (q != null && !q.trim().isEmpty() && !q.trim().equals("*")) {
+            return null;
+        }
+
+        Set<String> propertyNames = new HashSet<>();
+        JSONArray filterJson = searchOptions.getOptionalParameter("filter", JSONArray.class);
+        if (filterJson != null) {
+            // resolve the property ids of a copy, the search runner resolves its own
+            filterJson = new JSONArray(filterJson.toString());
+            ontologyRepository.resolvePropertyIds(filterJson, searchOptions.getWorkspaceId());
+            for (int i = 0; i < filterJson.length(); i++) {
+                JSONObject obj = filterJson.getJSONObject(i);
+                if (obj.length() == 0) {
+                    continue;
+                }
+                String propertyName = obj.optString("propertyName", null);
+                if (propertyName == null) {
+                    return null;
+                }
+                propertyNames.add(propertyName);
+            }
+        }
+
+        String[] sorts = searchOptions.getOptionalParameter("sort[]", String[].class);
+        if (sorts == null) {
+            JSONArray sortsJson = searchOptions.getOptionalParameter("sort", JSONArray.class);
+            if (sortsJson != null) {
+                sorts = JSONUtil.toStringList(sortsJson).toArray(new String[sortsJson.length()]);
+            }
+        }
+        if (sorts != null) {
+            for (String sort : sorts) {
+                int colon = sort.lastIndexOf(':');
+                propertyNames.add(colon < 0 ? sort : sort.substring(0, colon));
+            }
+        }
+
+        String[] aggregations = searchOptions.getOptionalParameter("aggregations[]", String[].class);
+        if (aggregations != null) {
+            for (String aggregation : aggregations) {
+                addAggregationFields(new JSONObject(aggregation), propertyNames);
+            }
+        }
+        return propertyNames;
+    }
+
+    private static void addAggregationFields(JSONObject aggregationJson, Set<String> propertyNames) {
+        String field = aggregationJson.optString("field", null);
+        if (field != null) {
+            propertyNames.add(field);
+        }
+        JSONArray nested = aggregationJson.optJSONArray("nested");
+        if (nested != null) {
+            for (int i = 0; i < nested.length(); i++) {
+                addAggregationFields(nested.getJSONObject(i), propertyNames);
+            }
+        }
+    }
+
+    public static final class Key {
+        private final String savedSearchId;
+        private final String workspaceId;
+        private final SortedMap<String, List<String>> parameters;
+        private final List<String> authorizations;
+
+        private Key(String savedSearchId, String workspaceId, SortedMap<String, List<String>> parameters, List<String> authorizations) {
+            this.savedSearchId = savedSearchId;
+            this.workspaceId = workspaceId;
+            this.parameters = parameters;
+            this.authorizations = authorizations;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return savedSearchId.equals(key.savedSearchId)
+                    && Objects.equals(workspaceId, key.workspaceId)
+                    && parameters.equals(key.parameters)
+                    && authorizations.equals(key.authorizations);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(savedSearchId, workspaceId, parameters, authorizations);
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "savedSearchId='" + savedSearchId + '\'' +
+                    ", workspaceId='" + workspaceId + '\'' +
+                    ", parameters=" + parameters +
+                    ", authorizations=" + authorizations +
+                    '}';
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long sizeBytes;
+        private final Set<String> elementTypes;
+        private final Set<String> propertyNames;
+
+        private Entry(Object value, long sizeBytes, Set<String> elementTypes, Set<String> propertyNames) {
+            this.value = value;
+            this.sizeBytes = sizeBytes;
+            this.elementTypes = elementTypes;
+            this.propertyNames = propertyNames;
+        }
+
+        boolean dependsOn(String elementType, String propertyName) {
+            if (elementTypes != null && (elementType == null || !elementTypes.contains(elementType))) {
+                return false;
+            }
+            return propertyName == null || propertyNames == null || propertyNames.contains(propertyName);
+        }
+    }
+}
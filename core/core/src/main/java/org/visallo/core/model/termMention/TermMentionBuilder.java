@@ -231,6 +231,12 @@ public class TermMentionBuilder {
         Authorizations termMentionAuthorizations = graph.createAuthorizations(authorizations, TermMentionRepository.VISIBILITY_STRING);
         Vertex termMentionVertex = vertexBuilder.save(termMentionAuthorizations);
 
+        TermMentionIndex termMentionIndex = new TermMentionIndex(graph);
+        termMentionIndex.indexHasTermMention(this.outVertex, vertexId, this.propertyKey, this.propertyName);
+        if (this.resolvedToVertexId != null) {
+            termMentionIndex.indexResolvedTo(this.resolvedToVertexId, vertexId, this.resolvedToVertexId, null, null, null);
+        }
+
         String hasTermMentionId = vertexId + "_hasTermMention";
         EdgeBuilder termMentionEdgeBuilder = graph.prepareEdge(hasTermMentionId, this.outVertex, termMentionVertex, VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION, visibility);
         VisalloProperties.TERM_MENTION_VISIBILITY_JSON.setProperty(termMentionEdgeBuilder, this.visibilityJson, visibility);
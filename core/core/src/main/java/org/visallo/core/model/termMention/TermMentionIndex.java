@@ -0,0 +1,310 @@
+package org.visallo.core.model.termMention;
+
+import org.vertexium.*;
+import org.vertexium.mutation.ElementMutation;
+import org.vertexium.mutation.ExistingElementMutation;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.security.VisalloVisibility;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Indexes term mentions in extended data tables of the vertices they are attached to, so that the mentions of one
+ * property can be found without loading every term mention of the vertex.
+ * <p>
+ * The vertex containing the mentioned text gets a row per term mention in a table named after the text property
+ * key and name, and the vertex a term mention resolves to gets a row in a table named after the property key and
+ * name the term mention was created for, holding the element id and property visibility. A lookup by property
+ * therefore only reads the rows of that property. A vertex is only read through the index once it is marked as
+ * indexed, which happens when its first term mention is indexed or when the term mention index migration is run
+ * for data created before the index existed. Rows are not removed when term mentions are deleted, deleted term
+ * mentions are skipped when the term mention vertices are loaded.
+ * <p>
+ * The index is read and written with system authorizations, so whether a vertex is indexed does not depend on
+ * which term mentions the current user can see.
+ */
+public class TermMentionIndex {
+    public static final String TABLE_NAME = TermMentionRepository.OWL_IRI + "#index";
+    public static final String INDEXED_TABLE_NAME = TermMentionRepository.OWL_IRI + "#indexed";
+    private static final String COLUMN_TERM_MENTION_ID = "termMentionId";
+    private static final String COLUMN_FOR_ELEMENT_ID = "forElementId";
+    private static final String COLUMN_REF_PROPERTY_VISIBILITY = "refPropertyVisibility";
+    private static final String COLUMN_INDEXED = "indexed";
+    private static final Visibility VISIBILITY = new Visibility(TermMentionRepository.VISIBILITY_STRING);
+    private final Graph graph;
+    private final Authorizations systemAuthorizations;
+
+    public enum Kind {
+        HAS_TERM_MENTION("hasTermMention", Direction.OUT, VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION),
+        RESOLVED_TO("resolvedTo", Direction.IN, VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO);
+
+        private final String id;
+        private final Direction direction;
+        private final String label;
+
+        Kind(String id, Direction direction, String label) {
+            this.id = id;
+            this.direction = direction;
+            this.label = label;
+        }
+
+        /**
+         * Key and name are length prefixed so that no two properties share a table, and a missing key or name is
+         * kept apart from an empty one.
+         */
+        private String getTableName(String propertyKey, String propertyName) {
+            return TABLE_NAME + ":" + id + ":" + encode(propertyKey) + ":" + encode(propertyName);
+        }
+
+        private static String encode(String value) {
+            return value == null ? "" : value.length() + "." + value;
+        }
+    }
+
+    public TermMentionIndex(Graph graph) {
+        this.graph = graph;
+        this.systemAuthorizations = graph.createAuthorizations(
+                VisalloVisibility.SUPER_USER_VISIBILITY_STRING,
+                TermMentionRepository.VISIBILITY_STRING
+        );
+    }
+
+    public Authorizations getSystemAuthorizations() {
+        return systemAuthorizations;
+    }
+
+    /**
+     * Indexes a term mention on the vertex containing the mentioned text. Must be called before the term mention's
+     * hasTermMention edge is added.
+     */
+    public void indexHasTermMention(Vertex outVertex, String termMentionId, String propertyKey, String propertyName) {
+        ExistingElementMutation<Vertex> m = prepareIndexMutation(outVertex, Kind.HAS_TERM_MENTION);
+        addHasTermMentionRow(m, termMentionId, propertyKey, propertyName);
+        m.save(systemAuthorizations);
+    }
+
+    /**
+     * Indexes a term mention on the vertex it resolves to. Must be called before the term mention's resolvedTo edge
+     * is added.
+     */
+    public void indexResolvedTo(
+            Vertex vertex,
+            String termMentionId,
+            String forElementId,
+            String refPropertyKey,
+            String refPropertyName,
+            String refPropertyVisibility
+    ) {
+        ExistingElementMutation<Vertex> m = prepareIndexMutation(vertex, Kind.RESOLVED_TO);
+        addResolvedToRow(m, termMentionId, forElementId, refPropertyKey, refPropertyName, refPropertyVisibility);
+        m.save(systemAuthorizations);
+    }
+
+    /**
+     * Indexes a term mention on the vertex it resolves to, loading the vertex first.
+     */
+    public void indexResolvedTo(
+            String vertexId,
+            String termMentionId,
+            String forElementId,
+            String refPropertyKey,
+            String refPropertyName,
+            String refPropertyVisibility
+    ) {
+        Vertex vertex = graph.getVertex(vertexId, FetchHint.EDGE_REFS, systemAuthorizations);
+        if (vertex != null) {
+            indexResolvedTo(vertex, termMentionId, forElementId, refPropertyKey, refPropertyName, refPropertyVisibility);
+        }
+    }
+
+    /**
+     * Reads only the indexed mark of the vertex. Its edges are only read the first time, to decide whether the
+     * vertex has term mentions from before the index existed, which the migration marks once they are indexed.
+     */
+    private ExistingElementMutation<Vertex> prepareIndexMutation(Vertex vertex, Kind kind) {
+        ExistingElementMutation<Vertex> m = vertex.prepareMutation();
+        if (!isIndexed(vertex.getId(), kind)) {
+            Vertex systemVertex = graph.getVertex(vertex.getId(), FetchHint.EDGE_REFS, systemAuthorizations);
+            if (systemVertex != null
+                    && !systemVertex.getVertexIds(kind.direction, kind.label, systemAuthorizations).iterator().hasNext()) {
+                m.addExtendedData(INDEXED_TABLE_NAME, kind.id, COLUMN_INDEXED, true, VISIBILITY);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Indexes every term mention attached to the vertex and marks the vertex as indexed. Vertices without term
+     * mentions are left unchanged.
+     *
+     * @return the number of term mentions indexed
+     */
+    public int reindex(Vertex vertex) {
+        ExistingElementMutation<Vertex> m = vertex.prepareMutation();
+        int count = 0;
+        for (Vertex termMention : vertex.getVertices(
+                Kind.HAS_TERM_MENTION.direction,
+                Kind.HAS_TERM_MENTION.label,
+                systemAuthorizations
+        )) {
+            addHasTermMentionRow(
+                    m,
+                    termMention.getId(),
+                    VisalloProperties.TERM_MENTION_PROPERTY_KEY.getPropertyValue(termMention),
+                    VisalloProperties.TERM_MENTION_PROPERTY_NAME.getPropertyValue(termMention)
+            );
+            count++;
+        }
+        for (Vertex termMention : vertex.getVertices(
+                Kind.RESOLVED_TO.direction,
+                Kind.RESOLVED_TO.label,
+                systemAuthorizations
+        )) {
+            addResolvedToRow(
+                    m,
+                    termMention.getId(),
+                    VisalloProperties.TERM_MENTION_FOR_ELEMENT_ID.getPropertyValue(termMention),
+                    VisalloProperties.TERM_MENTION_REF_PROPERTY_KEY.getPropertyValue(termMention),
+                    VisalloProperties.TERM_MENTION_REF_PROPERTY_NAME.getPropertyValue(termMention),
+                    VisalloProperties.TERM_MENTION_REF_PROPERTY_VISIBILITY.getPropertyValue(termMention)
+            );
+            count++;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        for (Kind kind : Kind.values()) {
+            m.addExtendedData(INDEXED_TABLE_NAME, kind.id, COLUMN_INDEXED, true, VISIBILITY);
+        }
+        m.save(systemAuthorizations);
+        return count;
+    }
+
+    private static void addHasTermMentionRow(
+            ElementMutation<Vertex> m,
+            String termMentionId,
+            String propertyKey,
+            String propertyName
+    ) {
+        String tableName = Kind.HAS_TERM_MENTION.getTableName(propertyKey, propertyName);
+        m.addExtendedData(tableName, termMentionId, COLUMN_TERM_MENTION_ID, termMentionId, VISIBILITY);
+    }
+
+    private static void addResolvedToRow(
+            ElementMutation<Vertex> m,
+            String termMentionId,
+            String forElementId,
+            String refPropertyKey,
+            String refPropertyName,
+            String refPropertyVisibility
+    ) {
+        String tableName = Kind.RESOLVED_TO.getTableName(refPropertyKey, refPropertyName);
+        m.addExtendedData(tableName, termMentionId, COLUMN_TERM_MENTION_ID, termMentionId, VISIBILITY);
+        if (forElementId != null) {
+            m.addExtendedData(tableName, termMentionId, COLUMN_FOR_ELEMENT_ID, forElementId, VISIBILITY);
+        }
+        if (refPropertyVisibility != null) {
+            m.addExtendedData(tableName, termMentionId, COLUMN_REF_PROPERTY_VISIBILITY, refPropertyVisibility, VISIBILITY);
+        }
+    }
+
+    public boolean isIndexed(String vertexId, Kind kind) {
+        Iterable<ExtendedDataRow> rows = graph.getExtendedData(
+                ElementType.VERTEX,
+                vertexId,
+                INDEXED_TABLE_NAME,
+                systemAuthorizations
+        );
+        for (ExtendedDataRow row : rows) {
+            if (kind.id.equals(row.getId().getRowId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the term mentions of a vertex indexed for a property whose index entry matches the filter, loading
+     * only the matching term mention vertices with the given authorizations.
+     *
+     * @param propertyKey  the text property key for {@link Kind#HAS_TERM_MENTION}, the ref property key for
+     *                     {@link Kind#RESOLVED_TO} or null for term mentions of a whole element
+     * @param propertyName the property name, see propertyKey
+     * @return the matching term mentions, or null if the vertex is not indexed and the term mentions have to be
+     * found through the vertex's edges
+     */
+    public Iterable<Vertex> find(
+            String vertexId,
+            Kind kind,
+            String propertyKey,
+            String propertyName,
+            Predicate<Entry> filter,
+            Authorizations authorizations
+    ) {
+        List<String> termMentionIds = findIds(vertexId, kind, propertyKey, propertyName, filter);
+        if (termMentionIds == null) {
+            return null;
+        }
+        if (termMentionIds.size() == 0) {
+            return Collections.emptyList();
+        }
+        return graph.getVertices(termMentionIds, authorizations);
+    }
+
+    /**
+     * @return the ids of the matching term mentions, or null if the vertex is not indexed
+     */
+    public List<String> findIds(
+            String vertexId,
+            Kind kind,
+            String propertyKey,
+            String propertyName,
+            Predicate<Entry> filter
+    ) {
+        if (!isIndexed(vertexId, kind)) {
+            return null;
+        }
+        List<String> termMentionIds = new ArrayList<>();
+        Iterable<ExtendedDataRow> rows = graph.getExtendedData(
+                ElementType.VERTEX,
+                vertexId,
+                kind.getTableName(propertyKey, propertyName),
+                systemAuthorizations
+        );
+        for (ExtendedDataRow row : rows) {
+            Entry entry = new Entry(row);
+            if (filter.test(entry)) {
+                termMentionIds.add(entry.getTermMentionId());
+            }
+        }
+        return termMentionIds;
+    }
+
+    public static class Entry {
+        private final ExtendedDataRow row;
+
+        private Entry(ExtendedDataRow row) {
+            this.row = row;
+        }
+
+        public String getTermMentionId() {
+            return row.getId().getRowId();
+        }
+
+        public String getForElementId() {
+            return getColumn(COLUMN_FOR_ELEMENT_ID);
+        }
+
+        public String getRefPropertyVisibility() {
+            return getColumn(COLUMN_REF_PROPERTY_VISIBILITY);
+        }
+
+        private String getColumn(String column) {
+            Object value = row.getPropertyValue(column);
+            return value == null ? null : value.toString();
+        }
+    }
+}
@@ -15,6 +15,11 @@ import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.ClientApiSourceInfo;
 import org.visallo.web.clientapi.model.ClientApiTermMentionsResponse;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -27,10 +32,12 @@ public class TermMentionRepository {
     public static final String VISIBILITY_STRING = "termMention";
     public static final String OWL_IRI = "http://visallo.org/termMention";
     private final Graph graph;
+    private final TermMentionIndex termMentionIndex;
 
     @Inject
     public TermMentionRepository(Graph graph, GraphAuthorizationRepository graphAuthorizationRepository) {
         this.graph = graph;
+        this.termMentionIndex = new TermMentionIndex(graph);
         graphAuthorizationRepository.addAuthorizationToGraph(VISIBILITY_STRING);
     }
 
@@ -41,25 +48,59 @@ public class TermMentionRepository {
             Authorizations authorizations
     ) {
         authorizations = getAuthorizations(authorizations);
-        return new FilterIterable<Vertex>(findByOutVertex(outVertexId, authorizations)) {
+        Iterable<Vertex> termMentions = termMentionIndex.find(
+                outVertexId,
+                TermMentionIndex.Kind.HAS_TERM_MENTION,
+                propertyKey,
+                propertyName,
+                entry -> true,
+                authorizations
+        );
+        if (termMentions != null && VisalloProperties.TEXT.getPropertyName().equals(propertyName)) {
+            // legacy term mentions of the text property were indexed without a property name
+            termMentions = new JoinIterable<>(termMentions, termMentionIndex.find(
+                    outVertexId,
+                    TermMentionIndex.Kind.HAS_TERM_MENTION,
+                    propertyKey,
+                    null,
+                    entry -> true,
+                    authorizations
+            ));
+        }
+        if (termMentions == null) {
+            termMentions = findByOutVertex(outVertexId, authorizations);
+        }
+        return new FilterIterable<Vertex>(termMentions) {
             @Override
             protected boolean isIncluded(Vertex v) {
-                String vertexPropertyKey = VisalloProperties.TERM_MENTION_PROPERTY_KEY.getPropertyValue(v);
-                if (!propertyKey.equals(vertexPropertyKey)) {
-                    return false;
-                }
-
-                // handle legacy data which did not have property name
-                String vertexPropertyName = VisalloProperties.TERM_MENTION_PROPERTY_NAME.getPropertyValue(v, null);
-                if (VisalloProperties.TEXT.getPropertyName().equals(propertyName) && vertexPropertyName == null) {
-                    return true;
-                }
-
-                return propertyName.equals(vertexPropertyName);
+                return isTermMentionForTextProperty(
+                        VisalloProperties.TERM_MENTION_PROPERTY_KEY.getPropertyValue(v),
+                        VisalloProperties.TERM_MENTION_PROPERTY_NAME.getPropertyValue(v, null),
+                        propertyKey,
+                        propertyName
+                );
             }
         };
     }
 
+    private static boolean isTermMentionForTextProperty(
+            String termMentionPropertyKey,
+            String termMentionPropertyName,
+            String propertyKey,
+            String propertyName
+    ) {
+        if (!propertyKey.equals(termMentionPropertyKey)) {
+            return false;
+        }
+
+        // handle legacy data which did not have property name
+        if (VisalloProperties.TEXT.getPropertyName().equals(propertyName) && termMentionPropertyName == null) {
+            return true;
+        }
+
+        return propertyName.equals(termMentionPropertyName);
+    }
+
     public Iterable<Vertex> findByOutVertex(String outVertexId, Authorizations authorizations) {
         Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
         Vertex outVertex = graph.getVertex(outVertexId, authorizationsWithTermMention);
@@ -100,7 +141,17 @@ public class TermMentionRepository {
      * @return term mention vertices matching the criteria.
      */
     public Iterable<Vertex> findByVertexIdForVertex(final String vertexId, Authorizations authorizations) {
-        return new FilterIterable<Vertex>(findByVertexId(vertexId, authorizations)) {
+        Iterable<Vertex> termMentions = findResolvedToInIndex(
+                vertexId,
+                null,
+                null,
+                entry -> vertexId.equals(entry.getForElementId()),
+                authorizations
+        );
+        if (termMentions == null) {
+            termMentions = findByVertexId(vertexId, authorizations);
+        }
+        return new FilterIterable<Vertex>(termMentions) {
             @Override
             protected boolean isIncluded(Vertex termMention) {
                 String forElementId = VisalloProperties.TERM_MENTION_FOR_ELEMENT_ID.getPropertyValue(termMention);
@@ -125,7 +176,17 @@ public class TermMentionRepository {
      * @return term mention vertices matching the criteria.
      */
     public Iterable<Vertex> findByEdgeForEdge(final Edge edge, Authorizations authorizations) {
-        return new FilterIterable<Vertex>(findByEdge(edge, authorizations)) {
+        Iterable<Vertex> termMentions = findResolvedToInIndex(
+                edge,
+                null,
+                null,
+                entry -> edge.getId().equals(entry.getForElementId()),
+                authorizations
+        );
+        if (termMentions == null) {
+            termMentions = findByEdge(edge, authorizations);
+        }
+        return new FilterIterable<Vertex>(termMentions) {
             @Override
             protected boolean isIncluded(Vertex termMention) {
                 String forElementId = VisalloProperties.TERM_MENTION_FOR_ELEMENT_ID.getPropertyValue(termMention);
@@ -153,7 +214,18 @@ public class TermMentionRepository {
             final Visibility propertyVisibility,
             Authorizations authorizations
     ) {
-        return new FilterIterable<Vertex>(findByVertexId(vertexId, authorizations)) {
+        Iterable<Vertex> termMentions = findResolvedToInIndex(
+                vertexId,
+                propertyKey,
+                propertyName,
+                entry -> vertexId.equals(entry.getForElementId())
+                        && propertyVisibility.getVisibilityString().equals(entry.getRefPropertyVisibility()),
+                authorizations
+        );
+        if (termMentions == null) {
+            termMentions = findByVertexId(vertexId, authorizations);
+        }
+        return new FilterIterable<Vertex>(termMentions) {
             @Override
             protected boolean isIncluded(Vertex termMention) {
                 String forElementId = VisalloProperties.TERM_MENTION_FOR_ELEMENT_ID.getPropertyValue(termMention);
@@ -175,7 +247,18 @@ public class TermMentionRepository {
             final Visibility propertyVisibility,
             Authorizations authorizations
     ) {
-        return new FilterIterable<Vertex>(findByEdge(edge, authorizations)) {
+        Iterable<Vertex> termMentions = findResolvedToInIndex(
+                edge,
+                propertyKey,
+                propertyName,
+                entry -> edge.getId().equals(entry.getForElementId())
+                        && propertyVisibility.getVisibilityString().equals(entry.getRefPropertyVisibility()),
+                authorizations
+        );
+        if (termMentions == null) {
+            termMentions = findByEdge(edge, authorizations);
+        }
+        return new FilterIterable<Vertex>(termMentions) {
             @Override
             protected boolean isIncluded(Vertex termMention) {
                 String forElementId = VisalloProperties.TERM_MENTION_FOR_ELEMENT_ID.getPropertyValue(termMention);
@@ -187,6 +270,62 @@ public class TermMentionRepository {
         };
     }
 
+    /**
+     * Finds the term mentions resolved to a vertex for a ref property, or for the whole element if the ref property
+     * key and name are null, through the vertex's term mention index.
+     *
+     * @return the matching term mentions, or null if the vertex is not indexed
+     */
+    private Iterable<Vertex> findResolvedToInIndex(
+            String vertexId,
+            String refPropertyKey,
+            String refPropertyName,
+            Predicate<TermMentionIndex.Entry> filter,
+            Authorizations authorizations
+    ) {
+        return termMentionIndex.find(
+                vertexId,
+                TermMentionIndex.Kind.RESOLVED_TO,
+                refPropertyKey,
+                refPropertyName,
+                filter,
+                getAuthorizations(authorizations)
+        );
+    }
+
+    /**
+     * Finds the term mentions resolved to either side of an edge through the term mention index of both vertices.
+     *
+     * @return the matching term mentions, or null if either vertex is not indexed
+     */
+    private Iterable<Vertex> findResolvedToInIndex(
+            Edge edge,
+            String refPropertyKey,
+            String refPropertyName,
+            Predicate<TermMentionIndex.Entry> filter,
+            Authorizations authorizations
+    ) {
+        Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
+        Set<String> termMentionIds = new HashSet<>();
+        for (Direction direction : new Direction[]{Direction.IN, Direction.OUT}) {
+            List<String> ids = termMentionIndex.findIds(
+                    edge.getVertexId(direction),
+                    TermMentionIndex.Kind.RESOLVED_TO,
+                    refPropertyKey,
+                    refPropertyName,
+                    filter
+            );
+            if (ids == null) {
+                return null;
+            }
+            termMentionIds.addAll(ids);
+        }
+        if (termMentionIds.size() == 0) {
+            return Collections.emptyList();
+        }
+        return graph.getVertices(termMentionIds, authorizationsWithTermMention);
+    }
+
     private boolean isTermMentionForProperty(
             Vertex termMention,
             String propertyKey,
@@ -241,6 +380,22 @@ public class TermMentionRepository {
             );
         }
         m.save(authorizationsWithTermMention);
+        if (refPropertyVisibility != null) {
+            for (String resolvedToVertexId : termMention.getVertexIds(
+                    Direction.OUT,
+                    VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO,
+                    authorizationsWithTermMention
+            )) {
+                termMentionIndex.indexResolvedTo(
+                        resolvedToVertexId,
+                        termMention.getId(),
+                        VisalloProperties.TERM_MENTION_FOR_ELEMENT_ID.getPropertyValue(termMention),
+                        VisalloProperties.TERM_MENTION_REF_PROPERTY_KEY.getPropertyValue(termMention),
+                        VisalloProperties.TERM_MENTION_REF_PROPERTY_NAME.getPropertyValue(termMention),
+                        newVisibility.getVisibilityString()
+                );
+            }
+        }
         for (Edge edge : termMention.getEdges(Direction.BOTH, authorizationsWithTermMention)) {
             ExistingElementMutation<Edge> edgeMutation = edge.prepareMutation();
             edgeMutation.alterElementVisibility(newVisibilityWithTermMention);
@@ -261,6 +416,28 @@ public class TermMentionRepository {
         );
     }
 
+    /**
+     * Finds the term mentions resolved to any of the given vertices using one read for the resolved vertices and one
+     * read for the term mentions.
+     */
+    public Iterable<Vertex> findResolvedTo(Iterable<String> inVertexIds, Authorizations authorizations) {
+        Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
+        Set<String> termMentionIds = new HashSet<>();
+        for (Vertex inVertex : graph.getVertices(inVertexIds, authorizationsWithTermMention)) {
+            for (String termMentionId : inVertex.getVertexIds(
+                    Direction.IN,
+                    VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO,
+                    authorizationsWithTermMention
+            )) {
+                termMentionIds.add(termMentionId);
+            }
+        }
+        if (termMentionIds.size() == 0) {
+            return Collections.emptyList();
+        }
+        return graph.getVertices(termMentionIds, authorizationsWithTermMention);
+    }
+
     public Stream<Vertex> findResolvedToForRef(
             String inVertexId,
             String refPropertyKey,
@@ -270,7 +447,17 @@ public class TermMentionRepository {
         checkNotNull(refPropertyKey, "refPropertyKey cannot be null");
         checkNotNull(refPropertyName, "refPropertyName cannot be null");
 
-        return stream(findResolvedTo(inVertexId, authorizations))
+        Iterable<Vertex> termMentions = findResolvedToInIndex(
+                inVertexId,
+                refPropertyKey,
+                refPropertyName,
+                entry -> true,
+                authorizations
+        );
+        if (termMentions == null) {
+            termMentions = findResolvedTo(inVertexId, authorizations);
+        }
+        return stream(termMentions)
                 .filter(vertex -> {
                     String vertexRefPropertyKey = VisalloProperties.TERM_MENTION_REF_PROPERTY_KEY.getPropertyValue(
                             vertex,
@@ -288,7 +475,17 @@ public class TermMentionRepository {
      * Gets all the resolve to term mentions for the element not a particular property.
      */
     public Stream<Vertex> findResolvedToForRefElement(String inVertexId, Authorizations authorizations) {
-        return stream(findResolvedTo(inVertexId, authorizations))
+        Iterable<Vertex> termMentions = findResolvedToInIndex(
+                inVertexId,
+                null,
+                null,
+                entry -> true,
+                authorizations
+        );
+        if (termMentions == null) {
+            termMentions = findResolvedTo(inVertexId, authorizations);
+        }
+        return stream(termMentions)
                 .filter(vertex -> {
                     String vertexRefPropertyKey = VisalloProperties.TERM_MENTION_REF_PROPERTY_KEY.getPropertyValue(
                             vertex,
@@ -340,6 +537,18 @@ public class TermMentionRepository {
         );
     }
 
+    public String findOutVertexId(Vertex termMention, Authorizations authorizations) {
+        Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
+        return singleOrDefault(
+                termMention.getVertexIds(
+                        Direction.IN,
+                        VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION,
+                        authorizationsWithTermMention
+                ),
+                null
+        );
+    }
+
     public Authorizations getAuthorizations(Authorizations authorizations) {
         return graph.createAuthorizations(authorizations, VISIBILITY_STRING);
     }
@@ -537,6 +746,15 @@ public class TermMentionRepository {
         VisalloProperties.TERM_MENTION_END_OFFSET.setProperty(m, endOffset, visibility);
         Vertex termMention = m.save(authorizations);
 
+        termMentionIndex.indexHasTermMention(outVertex, termMentionVertexId, textPropertyKey, textPropertyName);
+        termMentionIndex.indexResolvedTo(
+                vertex,
+                termMentionVertexId,
+                forElementId,
+                propertyKey,
+                propertyName,
+                propertyVisibility == null ? null : propertyVisibility.getVisibilityString()
+        );
         graph.addEdge(
                 VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION + termMentionVertexId,
                 outVertex,
@@ -681,6 +899,10 @@ public class TermMentionRepository {
         );
     }
 
+    /**
+     * A null property key or name matches term mentions of any property, which the index can not answer since it
+     * keeps the term mentions of each property apart, so those are found through the vertex's edges.
+     */
     private Vertex findTermMention(
             String vertexId,
             String forElementId,
@@ -690,17 +912,29 @@ public class TermMentionRepository {
             Authorizations authorizations
     ) {
         Authorizations authorizationsWithTermMentions = getAuthorizations(authorizations);
-        Vertex vertex = graph.getVertex(vertexId, authorizationsWithTermMentions);
-
-        if (vertex == null) {
-            return null;
+        Iterable<Vertex> termMentions = null;
+        if (propertyKey != null && propertyName != null) {
+            termMentions = findResolvedToInIndex(
+                    vertexId,
+                    propertyKey,
+                    propertyName,
+                    entry -> (forElementId == null || forElementId.equals(entry.getForElementId()))
+                            && (propertyVisibility == null
+                            || propertyVisibility.toString().equals(entry.getRefPropertyVisibility())),
+                    authorizationsWithTermMentions
+            );
+        }
+        if (termMentions == null) {
+            Vertex vertex = graph.getVertex(vertexId, authorizationsWithTermMentions);
+            if (vertex == null) {
+                return null;
+            }
+            termMentions = vertex.getVertices(
+                    Direction.IN,
+                    VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO,
+                    authorizationsWithTermMentions
+            );
         }
-
-        Iterable<Vertex> termMentions = vertex.getVertices(
-                Direction.IN,
-                VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO,
-                authorizationsWithTermMentions
-        );
         for (Vertex termMention : termMentions) {
             if (forElementId != null && !forElementId.equals(
                     VisalloProperties.TERM_MENTION_FOR_ELEMENT_ID.getPropertyValue(termMention))) {
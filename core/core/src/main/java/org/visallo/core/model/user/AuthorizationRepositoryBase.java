@@ -1,27 +1,103 @@
 package org.visallo.core.model.user;
 
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSortedSet;
 import org.vertexium.Graph;
 import org.visallo.core.bootstrap.InjectHelper;
 import org.visallo.core.user.User;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public abstract class AuthorizationRepositoryBase implements AuthorizationRepository {
+    private static final char CACHE_KEY_SEPARATOR = '\u001f';
     private final Graph graph;
     private UserRepository userRepository;
 
+    /**
+     * Graph authorizations by user id and additional authorizations. Entries are only used while the version they
+     * were created with, see {@link #getAuthorizationsVersion(User)}, still matches the user.
+     */
+    private final Cache<String, CachedAuthorizations> graphAuthorizationsCache = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * Users with the same authorizations share one Authorizations instance, so caches keyed by Authorizations
+     * further down, such as visibility evaluation, are shared too.
+     */
+    private final Cache<Set<String>, org.vertexium.Authorizations> internedAuthorizations = CacheBuilder.newBuilder()
+            .weakValues()
+            .build();
+
     protected AuthorizationRepositoryBase(Graph graph) {
         this.graph = graph;
     }
 
     public org.vertexium.Authorizations getGraphAuthorizations(User user, String... additionalAuthorizations) {
         checkNotNull(user, "User cannot be null");
+        String version = getAuthorizationsVersion(user);
+        if (version == null || user.getUserId() == null) {
+            return createGraphAuthorizations(user, additionalAuthorizations);
+        }
+
+        String cacheKey = getGraphAuthorizationsCacheKey(user.getUserId(), additionalAuthorizations);
+        CachedAuthorizations cached = graphAuthorizationsCache.getIfPresent(cacheKey);
+        if (cached != null && cached.version.equals(version)) {
+            return cached.authorizations;
+        }
+        org.vertexium.Authorizations authorizations = createGraphAuthorizations(user, additionalAuthorizations);
+        graphAuthorizationsCache.put(cacheKey, new CachedAuthorizations(version, authorizations));
+        return authorizations;
+    }
+
+    private org.vertexium.Authorizations createGraphAuthorizations(User user, String... additionalAuthorizations) {
         Set<String> userAuthorizations = getAuthorizations(user);
         Collections.addAll(userAuthorizations, additionalAuthorizations);
-        return graph.createAuthorizations(userAuthorizations);
+        userAuthorizations.remove(null);
+        ImmutableSortedSet<String> authorizationsSet = ImmutableSortedSet.copyOf(userAuthorizations);
+        try {
+            return internedAuthorizations.get(authorizationsSet, () -> graph.createAuthorizations(authorizationsSet));
+        } catch (ExecutionException ex) {
+            return graph.createAuthorizations(authorizationsSet);
+        }
+    }
+
+    /**
+     * Returns a value that changes whenever the result of {@link #getAuthorizations(User)} for the user changes,
+     * allowing the graph authorizations created for the user to be cached. Returns null, which disables caching,
+     * unless overridden.
+     */
+    protected String getAuthorizationsVersion(User user) {
+        return null;
+    }
+
+    /**
+     * Forgets the cached graph authorizations of a user. Called when the authorizations of the user are changed in
+     * this process. Changes made elsewhere are detected by {@link #getAuthorizationsVersion(User)}.
+     */
+    protected void invalidateGraphAuthorizations(User user) {
+        String keyPrefix = user.getUserId() + CACHE_KEY_SEPARATOR;
+        graphAuthorizationsCache.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    private static String getGraphAuthorizationsCacheKey(String userId, String... additionalAuthorizations) {
+        StringBuilder key = new StringBuilder(userId).append(CACHE_KEY_SEPARATOR);
+        String[] sorted = additionalAuthorizations;
+        if (additionalAuthorizations.length > 1) {
+            sorted = additionalAuthorizations.clone();
+            Arrays.sort(sorted, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+        }
+        return Joiner.on(CACHE_KEY_SEPARATOR).useForNull("").appendTo(key, sorted).toString();
     }
 
     // Need to late bind since UserRepository injects AuthorizationRepository in constructor
@@ -31,4 +107,14 @@ public abstract class AuthorizationRepositoryBase implements AuthorizationReposi
         }
         return userRepository;
     }
+
+    private static class CachedAuthorizations {
+        private final String version;
+        private final org.vertexium.Authorizations authorizations;
+
+        private CachedAuthorizations(String version, org.vertexium.Authorizations authorizations) {
+            this.version = version;
+            this.authorizations = authorizations;
+        }
+    }
 }
@@ -0,0 +1,379 @@
+package org.visallo.core.model.user;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.user.User;
+import org.visallo.web.clientapi.model.UserStatus;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An in-memory index of the usernames and display names of all users, used to search users without reading every
+ * user from the repository.
+ * <p>
+ * Names are lower cased and trimmed. Every name and every word of a name is kept in a sorted map for prefix lookups
+ * and every three character sequence of a name in a trigram map, queries of three characters or more only check the
+ * users having the query's rarest trigram. A user matches when the query is contained in its username or display
+ * name, and matches are ranked by exact name match, name prefix, word prefix and finally other matches.
+ * <p>
+ * The index only maps names to user ids, the matching users are read by id so that a user deleted or changed on
+ * another server is never returned as it was when it was indexed. The index is loaded on the first search and kept
+ * current by the {@link UserListener} events of this process. After the rebuild interval it is loaded again on a
+ * background thread while searches keep using the current index, so that users added on other servers and display
+ * name changes are found.
+ */
+public class UserDirectoryIndex extends DefaultUserListener {
+    public static final String CONFIGURATION_PARAMETER_REBUILD_INTERVAL_SECONDS = UserDirectoryIndex.class.getName() + ".rebuildIntervalSeconds";
+    public static final int CONFIGURATION_DEFAULT_REBUILD_INTERVAL_SECONDS = 600;
+    private static final int TRIGRAM_LENGTH = 3;
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_NAME_PREFIX = 1;
+    private static final int RANK_WORD_PREFIX = 2;
+    private static final int RANK_CONTAINS = 3;
+    private final Supplier<Iterable<User>> allUsers;
+    private final Function<String, User> findById;
+    private final long rebuildIntervalMillis;
+    private final ExecutorService rebuildExecutor;
+    private final Object lock = new Object();
+    private Index index;
+    private long lastBuildTime;
+    private Future<?> rebuild;
+    private Map<String, User> changedWhileBuilding;
+
+    /**
+     * @param allUsers              loads every user when the index is built
+     * @param findById              reads a matching user, returns null if the user no longer exists
+     * @param rebuildIntervalMillis time after which the index is loaded again in the background
+     */
+    public UserDirectoryIndex(
+            Supplier<Iterable<User>> allUsers,
+            Function<String, User> findById,
+            long rebuildIntervalMillis
+    ) {
+        this.allUsers = allUsers;
+        this.findById = findById;
+        this.rebuildIntervalMillis = rebuildIntervalMillis;
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("user-directory-index-%d")
+                        .build()
+        );
+    }
+
+    /**
+     * Finds the users whose username or display name contains the query.
+     *
+     * @return at most limit users, best matches first
+     */
+    public List<User> find(String query, int limit) {
+        Index index = getIndex();
+        String normalizedQuery = normalize(query);
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        List<Match> matches;
+        synchronized (lock) {
+            matches = index.find(normalizedQuery, limit);
+        }
+
+        List<User> results = new ArrayList<>(Math.min(limit, matches.size()));
+        for (Match match : matches) {
+            if (results.size() >= limit) {
+                break;
+            }
+            User user = findById.apply(match.entry.userId);
+            if (user != null) {
+                results.add(user);
+            }
+        }
+        return results;
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            index = null;
+        }
+    }
+
+    @Override
+    public void newUserAdded(User user) {
+        update(user.getUserId(), user);
+    }
+
+    @Override
+    public void userDeleted(User user) {
+        update(user.getUserId(), null);
+    }
+
+    @Override
+    public void userLogin(User user, AuthorizationContext authorizationContext) {
+        update(user.getUserId(), user);
+    }
+
+    @Override
+    public void userStatusChange(User user, UserStatus status) {
+        update(user.getUserId(), user);
+    }
+
+    /**
+     * @param user the changed user, or null if it was deleted
+     */
+    private void update(String userId, User user) {
+        synchronized (lock) {
+            // a build that already read the user applies the change again once it is done
+            if (changedWhileBuilding != null) {
+                changedWhileBuilding.put(userId, user);
+            }
+            // users changed before the index is built are read when it is built
+            if (index != null) {
+                index.remove(userId);
+                if (user != null) {
+                    index.add(user);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a build when the index is missing or older than the rebuild interval. Only the first search waits for
+     * the build, later searches use the current index until the new one replaces it.
+     */
+    private Index getIndex() {
+        while (true) {
+            Future<?> build;
+            synchronized (lock) {
+                boolean stale = index == null || System.currentTimeMillis() - lastBuildTime >= rebuildIntervalMillis;
+                if (stale && rebuild == null) {
+                    changedWhileBuilding = new HashMap<>();
+                    rebuild = rebuildExecutor.submit(this::build);
+                }
+                if (index != null) {
+                    return index;
+                }
+                build = rebuild;
+            }
+            try {
+                build.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new VisalloException("Interrupted while building the user directory index", ex);
+            } catch (ExecutionException ex) {
+                throw new VisalloException("Could not build the user directory index", ex.getCause());
+            }
+        }
+    }
+
+    private void build() {
+        try {
+            Index newIndex = new Index();
+            for (User user : allUsers.get()) {
+                newIndex.add(user);
+            }
+            synchronized (lock) {
+                for (Map.Entry<String, User> change : changedWhileBuilding.entrySet()) {
+                    newIndex.remove(change.getKey());
+                    if (change.getValue() != null) {
+                        newIndex.add(change.getValue());
+                    }
+                }
+                index = newIndex;
+                lastBuildTime = System.currentTimeMillis();
+            }
+        } finally {
+            synchronized (lock) {
+                changedWhileBuilding = null;
+                rebuild = null;
+            }
+        }
+    }
+
+    private static class Index {
+        private final Map<String, Entry> entriesByUserId = new HashMap<>();
+        private final NavigableMap<String, List<Entry>> entriesByWord = new TreeMap<>();
+        private final Map<String, List<Entry>> entriesByTrigram = new HashMap<>();
+
+        /**
+         * @return every match, best first. More than limit are kept because some of the users may no longer exist.
+         */
+        List<Match> find(String normalizedQuery, int limit) {
+            Collection<Entry> candidates;
+            if (normalizedQuery.length() >= TRIGRAM_LENGTH) {
+                candidates = getTrigramCandidates(normalizedQuery);
+            } else {
+                candidates = getPrefixCandidates(normalizedQuery);
+                // matches which are not prefixes rank last so they are only needed when there are too few prefix matches
+                if (candidates.size() < limit) {
+                    candidates = entriesByUserId.values();
+                }
+            }
+
+            List<Match> matches = new ArrayList<>();
+            for (Entry entry : candidates) {
+                int rank = entry.getRank(normalizedQuery);
+                if (rank >= 0) {
+                    matches.add(new Match(entry, rank));
+                }
+            }
+            Collections.sort(matches);
+            return matches;
+        }
+
+        private Collection<Entry> getTrigramCandidates(String normalizedQuery) {
+            List<Entry> rarest = null;
+            for (String trigram : getTrigrams(normalizedQuery)) {
+                List<Entry> entries = entriesByTrigram.get(trigram);
+                if (entries == null) {
+                    return Collections.emptyList();
+                }
+                if (rarest == null || entries.size() < rarest.size()) {
+                    rarest = entries;
+                }
+            }
+            return rarest == null ? Collections.emptyList() : rarest;
+        }
+
+        private Collection<Entry> getPrefixCandidates(String normalizedQuery) {
+            Set<Entry> candidates = new LinkedHashSet<>();
+            String end = normalizedQuery + Character.MAX_VALUE;
+            for (List<Entry> entries : entriesByWord.subMap(normalizedQuery, true, end, false).values()) {
+                candidates.addAll(entries);
+            }
+            return candidates;
+        }
+
+        private void add(User user) {
+            Entry entry = new Entry(user);
+            entriesByUserId.put(user.getUserId(), entry);
+            for (String word : entry.getWords()) {
+                entriesByWord.computeIfAbsent(word, k -> new ArrayList<>(1)).add(entry);
+            }
+            for (String trigram : entry.getTrigrams()) {
+                entriesByTrigram.computeIfAbsent(trigram, k -> new ArrayList<>(1)).add(entry);
+            }
+        }
+
+        private void remove(String userId) {
+            Entry entry = entriesByUserId.remove(userId);
+            if (entry == null) {
+                return;
+            }
+            for (String word : entry.getWords()) {
+                removeFromList(entriesByWord, word, entry);
+            }
+            for (String trigram : entry.getTrigrams()) {
+                removeFromList(entriesByTrigram, trigram, entry);
+            }
+        }
+
+        private static void removeFromList(Map<String, List<Entry>> entriesByKey, String key, Entry entry) {
+            List<Entry> entries = entriesByKey.get(key);
+            if (entries == null) {
+                return;
+            }
+            entries.remove(entry);
+            if (entries.isEmpty()) {
+                entriesByKey.remove(key);
+            }
+        }
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+
+    private static Set<String> getTrigrams(String value) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= value.length(); i++) {
+            trigrams.add(value.substring(i, i + TRIGRAM_LENGTH));
+        }
+        return trigrams;
+    }
+
+    private static void addWords(Set<String> words, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        words.add(value);
+        for (String word : value.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final String userId;
+        private final String username;
+        private final String displayName;
+
+        Entry(User user) {
+            this.userId = user.getUserId();
+            this.username = normalize(user.getUsername());
+            this.displayName = normalize(user.getDisplayName());
+        }
+
+        Set<String> getWords() {
+            Set<String> words = new HashSet<>();
+            addWords(words, username);
+            addWords(words, displayName);
+            return words;
+        }
+
+        Set<String> getTrigrams() {
+            Set<String> trigrams = UserDirectoryIndex.getTrigrams(username);
+            trigrams.addAll(UserDirectoryIndex.getTrigrams(displayName));
+            return trigrams;
+        }
+
+        /**
+         * @return the rank of the match, lower is better, or -1 if the query does not match
+         */
+        int getRank(String normalizedQuery) {
+            if (username.equals(normalizedQuery) || displayName.equals(normalizedQuery)) {
+                return RANK_EXACT;
+            }
+            if (username.startsWith(normalizedQuery) || displayName.startsWith(normalizedQuery)) {
+                return RANK_NAME_PREFIX;
+            }
+            if (!username.contains(normalizedQuery) && !displayName.contains(normalizedQuery)) {
+                return -1;
+            }
+            for (String word : getWords()) {
+                if (word.startsWith(normalizedQuery)) {
+                    return RANK_WORD_PREFIX;
+                }
+            }
+            return RANK_CONTAINS;
+        }
+    }
+
+    private static class Match implements Comparable<Match> {
+        private final Entry entry;
+        private final int rank;
+
+        Match(Entry entry, int rank) {
+            this.entry = entry;
+            this.rank = rank;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            int result = Integer.compare(rank, other.rank);
+            if (result == 0) {
+                result = entry.displayName.compareTo(other.entry.displayName);
+            }
+            if (result == 0) {
+                result = entry.username.compareTo(other.entry.username);
+            }
+            return result;
+        }
+    }
+}
@@ -99,6 +99,19 @@ public abstract class UserPropertyAuthorizationRepositoryBase extends Authorizat
         return ImmutableSet.of();
     }
 
+    /**
+     * The raw authorizations property of the user, so graph authorizations are rebuilt whenever the property is
+     * changed, including by another process.
+     */
+    @Override
+    protected String getAuthorizationsVersion(User user) {
+        if (user instanceof SystemUser) {
+            return SystemUser.class.getName();
+        }
+        String authorizations = (String) user.getProperty(AUTHORIZATIONS_PROPERTY_IRI);
+        return authorizations == null ? "" : authorizations;
+    }
+
     protected void addAuthorization(User user, String auth, User authUser) {
         auth = auth.trim();
         Set<String> auths = getAuthorizations(user);
@@ -112,6 +125,7 @@ public abstract class UserPropertyAuthorizationRepositoryBase extends Authorizat
             auths.add(auth);
             authorizationRepository.addAuthorizationToGraph(auth);
             getUserRepository().setPropertyOnUser(user, AUTHORIZATIONS_PROPERTY_IRI, Joiner.on(SEPARATOR).join(auths));
+            invalidateGraphAuthorizations(user);
             sendNotificationToUserAboutAddAuthorization(user, auth, authUser);
             fireUserAddAuthorizationEvent(user, auth);
         }
@@ -128,6 +142,7 @@ public abstract class UserPropertyAuthorizationRepositoryBase extends Authorizat
             );
             auths.remove(auth);
             getUserRepository().setPropertyOnUser(user, AUTHORIZATIONS_PROPERTY_IRI, Joiner.on(SEPARATOR).join(auths));
+            invalidateGraphAuthorizations(user);
             sendNotificationToUserAboutRemoveAuthorization(user, auth, authUser);
             fireUserRemoveAuthorizationEvent(user, auth);
         }
@@ -147,6 +162,7 @@ public abstract class UserPropertyAuthorizationRepositoryBase extends Authorizat
 
         Set<String> currentAuthorizations = getAuthorizations(user);
         getUserRepository().setPropertyOnUser(user, AUTHORIZATIONS_PROPERTY_IRI, newAuthorizationsString);
+        invalidateGraphAuthorizations(user);
 
         Set<String> addedAuthorizations = new HashSet<>(newAuthorizations);
         addedAuthorizations.removeAll(currentAuthorizations);
@@ -23,6 +23,7 @@ import org.visallo.web.clientapi.model.UserStatus;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 import static org.vertexium.util.IterableUtils.toList;
@@ -42,6 +43,7 @@ public abstract class UserRepository {
     private final PrivilegeRepository privilegeRepository;
     private LongRunningProcessRepository longRunningProcessRepository; // can't inject this because of circular dependencies
     private Collection<UserListener> userListeners;
+    private final UserDirectoryIndex userDirectoryIndex;
 
     protected UserRepository(
             Configuration configuration,
@@ -59,6 +61,15 @@ public abstract class UserRepository {
         this.lockRepository = lockRepository;
         this.authorizationRepository = authorizationRepository;
         this.privilegeRepository = privilegeRepository;
+        int directoryIndexRebuildIntervalSeconds = configuration.getInt(
+                UserDirectoryIndex.CONFIGURATION_PARAMETER_REBUILD_INTERVAL_SECONDS,
+                UserDirectoryIndex.CONFIGURATION_DEFAULT_REBUILD_INTERVAL_SECONDS
+        );
+        this.userDirectoryIndex = new UserDirectoryIndex(
+                () -> filter(user -> true),
+                this::findById,
+                TimeUnit.SECONDS.toMillis(directoryIndexRebuildIntervalSeconds)
+        );
     }
 
     public abstract User findByUsername(String username);
@@ -283,10 +294,17 @@ public abstract class UserRepository {
     }
 
     public Iterable<User> find(String query) {
-        final String lowerCaseQuery = query == null ? null : query.toLowerCase();
-        return filter(user -> lowerCaseQuery == null
-                || user.getDisplayName().toLowerCase().contains(lowerCaseQuery)
-                || user.getUsername().toLowerCase().contains(lowerCaseQuery));
+        return find(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the users whose username or display name contains the query, using the in-memory
+     * {@link UserDirectoryIndex}.
+     *
+     * @return at most limit users, best matches first
+     */
+    public List<User> find(String query, int limit) {
+        return userDirectoryIndex.find(query, limit);
     }
 
     public static String createRandomPassword() {
@@ -304,24 +322,28 @@ public abstract class UserRepository {
     }
 
     private void fireNewUserAddedEvent(User user) {
+        userDirectoryIndex.newUserAdded(user);
         for (UserListener userListener : getUserListeners()) {
             userListener.newUserAdded(user);
         }
     }
 
     private void fireUserDeletedEvent(User user) {
+        userDirectoryIndex.userDeleted(user);
         for (UserListener userListener : getUserListeners()) {
             userListener.userDeleted(user);
         }
     }
 
     protected void fireUserLoginEvent(User user, AuthorizationContext authorizationContext) {
+        userDirectoryIndex.userLogin(user, authorizationContext);
         for (UserListener userListener : getUserListeners()) {
             userListener.userLogin(user, authorizationContext);
         }
     }
 
     protected void fireUserStatusChangeEvent(User user, UserStatus status) {
+        userDirectoryIndex.userStatusChange(user, status);
         for (UserListener userListener : getUserListeners()) {
             userListener.userStatusChange(user, status);
         }
@@ -0,0 +1,19 @@
+package org.visallo.core.model.workQueue;
+
+import org.vertexium.Element;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
+
+/**
+ * Notified in-process of the element and property changes pushed through {@link WorkQueueRepository}. Listeners
+ * are registered with {@link WorkQueueRepository#addGraphChangeListener(GraphChangeListener)} and are called on the
+ * pushing thread, so implementations must be cheap and thread safe.
+ */
+public interface GraphChangeListener {
+    /**
+     * @param element      the element that changed
+     * @param propertyKey  the key of the changed property, or null if the change applies to the whole element
+     * @param propertyName the name of the changed property, or null if the change applies to the whole element
+     * @param status       the kind of change
+     */
+    void graphChanged(Element element, String propertyKey, String propertyName, ElementOrPropertyStatus status);
+}
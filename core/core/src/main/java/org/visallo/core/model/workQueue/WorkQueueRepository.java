@@ -1,5 +1,6 @@
 package org.visallo.core.model.workQueue;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -19,6 +20,7 @@ import org.visallo.core.model.WorkQueueNames;
 import org.visallo.core.model.notification.SystemNotification;
 import org.visallo.core.model.notification.UserNotification;
 import org.visallo.core.model.properties.MediaVisalloProperties;
+import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.properties.types.VisalloPropertyUpdate;
 import org.visallo.core.model.properties.types.VisalloPropertyUpdateRemove;
 import org.visallo.core.model.user.AuthorizationRepository;
@@ -36,6 +38,7 @@ import org.visallo.web.clientapi.model.ClientApiWorkspace;
 import org.visallo.web.clientapi.model.UserStatus;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -48,6 +51,7 @@ public abstract class WorkQueueRepository {
     private AuthorizationRepository authorizationRepository;
     private WorkspaceRepository workspaceRepository;
     private UserRepository userRepository;
+    private final List<GraphChangeListener> graphChangeListeners = new CopyOnWriteArrayList<>();
 
     protected WorkQueueRepository(
             Graph graph,
@@ -104,6 +108,7 @@ public abstract class WorkQueueRepository {
             }
 
             ElementOrPropertyStatus status = ElementOrPropertyStatus.getStatus(propertyUpdate);
+            fireGraphChanged(element, propertyKey, propertyName, status);
             if (canHandle(element, propertyKey, propertyName, status)) {
                 Long beforeDeleteTimestamp = propertyUpdate instanceof VisalloPropertyUpdateRemove
                         ? ((VisalloPropertyUpdateRemove) propertyUpdate).getBeforeDeleteTimestamp()
@@ -347,6 +352,7 @@ public abstract class WorkQueueRepository {
         List<String> vertices = new ArrayList<>();
         List<String> edges = new ArrayList<>();
         for (Element element : elements) {
+            fireGraphChanged(element, propertyKey, propertyName, status);
             if (!canHandle(element, propertyKey, propertyName, status)) {
                 continue;
             }
@@ -397,6 +403,7 @@ public abstract class WorkQueueRepository {
         );
 
         addElementTypeToJson(data, element);
+        fireGraphChanged(element, propertyKey, propertyName, status);
 
         if (canHandle(element, property, status)) {
             pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
@@ -432,6 +439,7 @@ public abstract class WorkQueueRepository {
         );
 
         addElementTypeToJson(data, element);
+        fireGraphChanged(element, propertyKey, propertyName, status);
 
         if (canHandle(element, propertyKey, propertyName, status)) {
             pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
@@ -442,6 +450,43 @@ public abstract class WorkQueueRepository {
         }
     }
 
+    /**
+     * Pushes a property change that the graph property runner of this process has already run the given workers on,
+     * so that only the workers of other processes run on it.
+     */
+    public void pushGraphPropertyQueue(
+            Element element,
+            String propertyKey,
+            String propertyName,
+            String workspaceId,
+            String visibilitySource,
+            Priority priority,
+            Collection<String> skipWorkers
+    ) {
+        getGraph().flush();
+        checkNotNull(element);
+
+        GraphPropertyMessage data = createPropertySpecificMessage(
+                propertyKey,
+                propertyName,
+                workspaceId,
+                visibilitySource,
+                ElementOrPropertyStatus.UPDATE,
+                null,
+                priority
+        );
+        data.setSkipWorkers(skipWorkers.toArray(new String[skipWorkers.size()]));
+
+        addElementTypeToJson(data, element);
+        fireGraphChanged(element, propertyKey, propertyName, ElementOrPropertyStatus.UPDATE);
+
+        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+
+        if (shouldBroadcastGraphPropertyChange(element, propertyKey, propertyName, workspaceId, priority)) {
+            broadcastPropertyChange(element, propertyKey, propertyName, workspaceId);
+        }
+    }
+
     private boolean canHandle(Element element, Property property, ElementOrPropertyStatus status) {
         String propertyKey = property == null ? null : property.getKey();
         String propertyName = property == null ? null : property.getName();
@@ -502,6 +547,7 @@ public abstract class WorkQueueRepository {
         GraphPropertyMessage data = new GraphPropertyMessage();
         data.setPriority(priority);
         addElementTypeToJson(data, element);
+        fireGraphChanged(element, null, null, ElementOrPropertyStatus.UPDATE);
 
         if (workspaceId != null && !workspaceId.equals("")) {
             data.setWorkspaceId(workspaceId);
@@ -776,6 +822,84 @@ public abstract class WorkQueueRepository {
         broadcastJson(json);
     }
 
+    /**
+     * Notifies clients and graph property workers of many deleted and hidden elements at once. Clients receive a
+     * single elementsDeleted broadcast and the graph property queue receives one message per status instead of one
+     * message per element.
+     */
+    public void pushElementsDeletion(
+            Collection<? extends Element> deletedElements,
+            Collection<? extends Element> hiddenElements,
+            long beforeActionTimestamp,
+            Priority priority
+    ) {
+        if (deletedElements.size() == 0 && hiddenElements.size() == 0) {
+            return;
+        }
+
+        JSONArray vertexIds = new JSONArray();
+        JSONArray edgeIds = new JSONArray();
+        for (Element element : Iterables.concat(deletedElements, hiddenElements)) {
+            if (element instanceof Vertex) {
+                vertexIds.put(element.getId());
+            } else if (element instanceof Edge) {
+                edgeIds.put(element.getId());
+            } else {
+                throw new VisalloException("Unexpected element type: " + element.getClass().getName());
+            }
+        }
+        broadcastElementsDeletion(vertexIds, edgeIds);
+
+        pushElementsStatus(deletedElements, ElementOrPropertyStatus.DELETION, beforeActionTimestamp, priority);
+        pushElementsStatus(hiddenElements, ElementOrPropertyStatus.HIDDEN, beforeActionTimestamp, priority);
+    }
+
+    private void pushElementsStatus(
+            Collection<? extends Element> elements,
+            ElementOrPropertyStatus status,
+            long beforeActionTimestamp,
+            Priority priority
+    ) {
+        if (elements.size() == 0) {
+            return;
+        }
+
+        GraphPropertyMessage data = createPropertySpecificMessage(
+                null,
+                null,
+                null,
+                null,
+                status,
+                beforeActionTimestamp,
+                priority
+        );
+        List<String> vertices = new ArrayList<>();
+        List<String> edges = new ArrayList<>();
+        for (Element element : elements) {
+            fireGraphChanged(element, null, null, status);
+            if (element instanceof Vertex) {
+                vertices.add(element.getId());
+            } else {
+                edges.add(element.getId());
+            }
+        }
+        data.setGraphVertexId(vertices.toArray(new String[vertices.size()]));
+        data.setGraphEdgeId(edges.toArray(new String[edges.size()]));
+
+        pushOnQueue(workQueueNames.getGraphPropertyQueueName(), data.toBytes(), priority);
+    }
+
+    protected void broadcastElementsDeletion(JSONArray vertexIds, JSONArray edgeIds) {
+        JSONObject dataJson = new JSONObject();
+        dataJson.put("vertexIds", vertexIds);
+        dataJson.put("edgeIds", edgeIds);
+
+        JSONObject json = new JSONObject();
+        json.put("type", "elementsDeleted");
+        json.put("data", dataJson);
+        broadcastJson(json);
+    }
+
     public void pushOntologyChange(String workspaceId) {
         pushOntologyChange(workspaceId, null, null, null);
     }
@@ -1006,6 +1130,22 @@ public abstract class WorkQueueRepository {
         broadcastJson(json);
     }
 
+    public void pushUserNotificationsMarkedRead(String userId, Collection<String> notificationIds) {
+        JSONObject json = new JSONObject();
+        json.put("type", "userNotificationsMarkedRead");
+
+        JSONObject permissions = new JSONObject();
+        JSONArray users = new JSONArray();
+        users.put(userId);
+        permissions.put("users", users);
+        json.put("permissions", permissions);
+
+        JSONObject data = new JSONObject();
+        json.put("data", data);
+        data.put("notificationIds", new JSONArray(notificationIds));
+        broadcastJson(json);
+    }
+
     public void pushSystemNotification(SystemNotification notification) {
         JSONObject json = new JSONObject();
         json.put("type", "notification");
@@ -1089,6 +1229,9 @@ public abstract class WorkQueueRepository {
 
         JSONObject dataJson = new JSONObject();
         dataJson.put("graphVertexId", graphVertex.getId());
+        dataJson.putOpt("conceptType", VisalloProperties.CONCEPT_TYPE.getPropertyValue(graphVertex));
+        dataJson.putOpt("propertyKey", propertyKey);
+        dataJson.putOpt("propertyName", propertyName);
         dataJson.putOpt("workspaceId", workspaceId);
 
         json.put("data", dataJson);
@@ -1110,6 +1253,9 @@ public abstract class WorkQueueRepository {
         dataJson.put("graphEdgeId", edge.getId());
         dataJson.put("outVertexId", edge.getVertexId(Direction.OUT));
         dataJson.put("inVertexId", edge.getVertexId(Direction.IN));
+        dataJson.put("edgeLabel", edge.getLabel());
+        dataJson.putOpt("propertyKey", propertyKey);
+        dataJson.putOpt("propertyName", propertyName);
         dataJson.putOpt("workspaceId", workspaceId);
 
         json.put("data", dataJson);
@@ -1314,6 +1460,29 @@ public abstract class WorkQueueRepository {
         public abstract void broadcastReceived(JSONObject json);
     }
 
+    public void addGraphChangeListener(GraphChangeListener listener) {
+        graphChangeListeners.add(listener);
+    }
+
+    public void removeGraphChangeListener(GraphChangeListener listener) {
+        graphChangeListeners.remove(listener);
+    }
+
+    private void fireGraphChanged(
+            Element element,
+            String propertyKey,
+            String propertyName,
+            ElementOrPropertyStatus status
+    ) {
+        for (GraphChangeListener listener : graphChangeListeners) {
+            try {
+                listener.graphChanged(element, propertyKey, propertyName, status);
+            } catch (Exception ex) {
+                LOGGER.error("graph change listener %s failed for element %s", listener, element.getId(), ex);
+            }
+        }
+    }
+
     protected WorkQueueNames getWorkQueueNames() {
         return workQueueNames;
     }
@@ -1,80 +1,384 @@
 package org.visallo.core.model.workspace;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.vertexium.*;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.formula.FormulaEvaluator;
+import org.visallo.core.ingest.graphProperty.ElementOrPropertyStatus;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.user.AuthorizationRepository;
 import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.GraphChangeListener;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.status.PrometheusTextExporter;
 import org.visallo.core.trace.Traced;
 import org.visallo.core.user.User;
 import org.visallo.core.util.JSONUtil;
 import org.visallo.core.util.JsonSerializer;
 import org.visallo.core.util.SandboxStatusUtil;
+import org.visallo.core.util.ShutdownListener;
+import org.visallo.core.util.ShutdownService;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.ClientApiWorkspaceDiff;
 import org.visallo.web.clientapi.model.SandboxStatus;
 
-import java.util.ArrayList;
-import java.util.EnumSet;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import static org.vertexium.util.IterableUtils.toList;
 
-public class WorkspaceDiffHelper {
+/**
+ * Builds the diff of a workspace against the published graph.
+ * <p>
+ * The last diff is cached per workspace, user, locale and time zone. The next diff only fetches the entities and
+ * edges that were added to the workspace since, or that an element change named. Changes are learned from the
+ * graph changes pushed through {@link WorkQueueRepository} in this process and from the change broadcasts of every
+ * process. A cached diff is fully rebuilt once it is older than {@link #CONFIGURATION_PARAMETER_MAX_REUSE_SECONDS}
+ * seconds, which bounds how long a change that was never broadcast goes unseen.
+ */
+@Singleton
+public class WorkspaceDiffHelper implements GraphChangeListener, ShutdownListener {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(WorkspaceDiffHelper.class);
+    private static final String CONFIGURATION_PARAMETER_MAX_THREADS = WorkspaceDiffHelper.class.getName() + ".max.threads";
+    private static final int CONFIGURATION_DEFAULT_MAX_THREADS = 4;
+    public static final String CONFIGURATION_PARAMETER_MAX_SIZE_BYTES = WorkspaceDiffHelper.class.getName() + ".maxSizeBytes";
+    public static final long CONFIGURATION_DEFAULT_MAX_SIZE_BYTES = 64L * 1024 * 1024;
+    public static final String CONFIGURATION_PARAMETER_MAX_REUSE_SECONDS = WorkspaceDiffHelper.class.getName() + ".maxReuseSeconds";
+    public static final long CONFIGURATION_DEFAULT_MAX_REUSE_SECONDS = 60;
+    private static final String THREAD_POOL_NAME = "workspace-diff";
+    // rough heap sizes used to weigh cached diffs
+    private static final int ELEMENT_SIZE_BYTES = 256;
+    private static final int ITEM_SIZE_BYTES = 1024;
+    private static final EnumSet<FetchHint> ENTITY_FETCH_HINTS = EnumSet.of(
+            FetchHint.PROPERTIES,
+            FetchHint.PROPERTY_METADATA,
+            FetchHint.INCLUDE_HIDDEN
+    );
+    private static final EnumSet<FetchHint> ENTITY_WITH_EDGE_REFS_FETCH_HINTS = EnumSet.of(
+            FetchHint.PROPERTIES,
+            FetchHint.PROPERTY_METADATA,
+            FetchHint.OUT_EDGE_REFS,
+            FetchHint.INCLUDE_HIDDEN
+    );
     private final Graph graph;
     private final UserRepository userRepository;
     private final AuthorizationRepository authorizationRepository;
     private final FormulaEvaluator formulaEvaluator;
+    private final WorkQueueRepository workQueueRepository;
+    private final ExecutorService executorService;
+    private final long maxReuseMillis;
+    private final Cache<String, CachedDiff> diffCache;
+    private final Set<CachedDiff> buildingDiffs = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
 
     @Inject
     public WorkspaceDiffHelper(
             Graph graph,
+            Configuration configuration,
             UserRepository userRepository,
             AuthorizationRepository authorizationRepository,
-            FormulaEvaluator formulaEvaluator
+            FormulaEvaluator formulaEvaluator,
+            WorkQueueRepository workQueueRepository,
+            ShutdownService shutdownService
     ) {
         this.graph = graph;
         this.userRepository = userRepository;
         this.authorizationRepository = authorizationRepository;
         this.formulaEvaluator = formulaEvaluator;
+        this.workQueueRepository = workQueueRepository;
+        this.maxReuseMillis = TimeUnit.SECONDS.toMillis(configuration.getLong(
+                CONFIGURATION_PARAMETER_MAX_REUSE_SECONDS,
+                CONFIGURATION_DEFAULT_MAX_REUSE_SECONDS
+        ));
+        this.diffCache = CacheBuilder.newBuilder()
+                .maximumWeight(configuration.getLong(CONFIGURATION_PARAMETER_MAX_SIZE_BYTES, CONFIGURATION_DEFAULT_MAX_SIZE_BYTES))
+                .weigher((String key, CachedDiff diff) -> (int) Math.min(Integer.MAX_VALUE, diff.sizeBytes))
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+
+        executorService = Executors.newFixedThreadPool(
+                configuration.getInt(CONFIGURATION_PARAMETER_MAX_THREADS, CONFIGURATION_DEFAULT_MAX_THREADS),
+                new ThreadFactoryBuilder().setNameFormat("workspace-diff-%d").setDaemon(true).build()
+        );
+        PrometheusTextExporter.registerThreadPool(THREAD_POOL_NAME, executorService);
+
+        workQueueRepository.addGraphChangeListener(this);
+        shutdownService.register(this);
     }
 
+    @Override
+    public void shutdown() {
+        close();
+    }
+
+    public void close() {
+        workQueueRepository.removeGraphChangeListener(this);
+        PrometheusTextExporter.unregisterThreadPool(THREAD_POOL_NAME);
+        executorService.shutdown();
+    }
+
+    public void clearCache() {
+        diffCache.invalidateAll();
+    }
+
+    /**
+     * @param entityVertexIds the ids of the entities on the workspace, the diff lists them in this order
+     */
     @Traced
     public ClientApiWorkspaceDiff diff(
             Workspace workspace,
-            Iterable<WorkspaceEntity> workspaceEntities,
-            Iterable<Edge> workspaceEdges,
+            Collection<String> entityVertexIds,
             FormulaEvaluator.UserContext userContext,
             User user
     ) {
+        subscribeToBroadcastMessages();
         Authorizations authorizations = authorizationRepository.getGraphAuthorizations(
                 user,
                 WorkspaceRepository.VISIBILITY_STRING,
                 workspace.getWorkspaceId()
         );
 
-        ClientApiWorkspaceDiff result = new ClientApiWorkspaceDiff();
-        for (WorkspaceEntity workspaceEntity : workspaceEntities) {
-            List<ClientApiWorkspaceDiff.Item> entityDiffs = diffWorkspaceEntity(
-                    workspace,
-                    workspaceEntity,
-                    userContext,
+        String cacheKey = getDiffCacheKey(workspace, userContext, user);
+        long now = System.currentTimeMillis();
+        CachedDiff previousDiff = diffCache.getIfPresent(cacheKey);
+        if (previousDiff != null && now - previousDiff.fullFetchTime >= maxReuseMillis) {
+            previousDiff = null;
+        }
+        CachedDiff nextDiff = new CachedDiff(previousDiff == null ? now : previousDiff.fullFetchTime);
+
+        // registered before the changed ids are read, so a change made while building is seen by the next diff
+        buildingDiffs.add(nextDiff);
+        try {
+            Set<String> changedIds = previousDiff == null ? Collections.emptySet() : previousDiff.getChangedIds();
+            Set<String> entityIds = new LinkedHashSet<>(entityVertexIds);
+            List<CachedElementDiff> vertexDiffs = this.<Vertex>diffElements(
+                    entityIds,
+                    previousDiff == null ? null : previousDiff.vertexDiffs,
+                    changedIds,
+                    nextDiff.vertexDiffs,
+                    ids -> graph.getVertices(ids, ENTITY_WITH_EDGE_REFS_FETCH_HINTS, authorizations),
+                    vertex -> diffVertex(workspace, vertex, userContext, authorizations),
                     authorizations
             );
-            if (entityDiffs != null) {
-                result.addAll(entityDiffs);
+
+            Set<String> edgeIds = new LinkedHashSet<>();
+            for (CachedElementDiff vertexDiff : vertexDiffs) {
+                for (Map.Entry<String, String> outEdge : vertexDiff.outEdgeInVertexIds.entrySet()) {
+                    if (entityIds.contains(outEdge.getValue())) {
+                        edgeIds.add(outEdge.getKey());
+                    }
+                }
             }
+            List<CachedElementDiff> edgeDiffs = this.<Edge>diffElements(
+                    edgeIds,
+                    previousDiff == null ? null : previousDiff.edgeDiffs,
+                    changedIds,
+                    nextDiff.edgeDiffs,
+                    ids -> graph.getEdges(ids, FetchHint.ALL_INCLUDING_HIDDEN, authorizations),
+                    edge -> diffEdge(workspace, edge, authorizations),
+                    authorizations
+            );
+            nextDiff.computeSize();
+            diffCache.put(cacheKey, nextDiff);
+
+            ClientApiWorkspaceDiff result = new ClientApiWorkspaceDiff();
+            vertexDiffs.forEach(diff -> result.addAll(diff.items));
+            edgeDiffs.forEach(diff -> result.addAll(diff.items));
+            return result;
+        } finally {
+            buildingDiffs.remove(nextDiff);
         }
+    }
 
-        for (Edge workspaceEdge : workspaceEdges) {
-            List<ClientApiWorkspaceDiff.Item> entityDiffs = diffEdge(workspace, workspaceEdge, authorizations);
-            if (entityDiffs != null) {
-                result.addAll(entityDiffs);
+    private String getDiffCacheKey(Workspace workspace, FormulaEvaluator.UserContext userContext, User user) {
+        String key = workspace.getWorkspaceId() + ":" + user.getUserId();
+        if (userContext != null) {
+            key += ":" + userContext.getLocale() + ":" + userContext.getTimeZone();
+        }
+        return key;
+    }
+
+    /**
+     * Elements in the previous diff that did not change since are reused without being fetched. The others are
+     * fetched with a single call and their diff items are built on the diff pool, unless their mutation version
+     * shows they did not change after all. Element order is preserved and elements the user cannot see are dropped.
+     */
+    private <T extends Element> List<CachedElementDiff> diffElements(
+            Set<String> elementIds,
+            Map<String, CachedElementDiff> previousDiffs,
+            Set<String> changedIds,
+            Map<String, CachedElementDiff> nextDiffs,
+            Function<Set<String>, Iterable<T>> fetcher,
+            Function<T, List<ClientApiWorkspaceDiff.Item>> differ,
+            Authorizations authorizations
+    ) {
+        Set<String> idsToFetch = new LinkedHashSet<>();
+        for (String elementId : elementIds) {
+            if (previousDiffs == null || !previousDiffs.containsKey(elementId) || changedIds.contains(elementId)) {
+                idsToFetch.add(elementId);
+            }
+        }
+        Map<String, T> fetchedElements = new HashMap<>();
+        if (idsToFetch.size() > 0) {
+            for (T element : fetcher.apply(idsToFetch)) {
+                fetchedElements.put(element.getId(), element);
             }
         }
 
-        return result;
+        Map<String, CompletableFuture<CachedElementDiff>> futures = new LinkedHashMap<>();
+        for (String elementId : elementIds) {
+            T element = fetchedElements.get(elementId);
+            if (element != null) {
+                CachedElementDiff previous = previousDiffs == null ? null : previousDiffs.get(elementId);
+                futures.put(elementId, CompletableFuture.supplyAsync(() -> {
+                    String mutationVersion = getMutationVersion(element, authorizations);
+                    if (previous != null && previous.mutationVersion.equals(mutationVersion)) {
+                        return previous;
+                    }
+                    return new CachedElementDiff(mutationVersion, differ.apply(element), getOutEdgeInVertexIds(element, authorizations));
+                }, executorService));
+            } else if (!idsToFetch.contains(elementId)) {
+                futures.put(elementId, CompletableFuture.completedFuture(previousDiffs.get(elementId)));
+            }
+            // otherwise the element was fetched but the user cannot see it
+        }
+
+        try {
+            List<CachedElementDiff> results = new ArrayList<>(futures.size());
+            for (Map.Entry<String, CompletableFuture<CachedElementDiff>> future : futures.entrySet()) {
+                CachedElementDiff elementDiff = future.getValue().get();
+                nextDiffs.put(future.getKey(), elementDiff);
+                results.add(elementDiff);
+            }
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted while building workspace diff", ex);
+        } catch (ExecutionException ex) {
+            throw new VisalloException("Could not build workspace diff", ex.getCause());
+        }
+    }
+
+    private static Map<String, String> getOutEdgeInVertexIds(Element element, Authorizations authorizations) {
+        if (!(element instanceof Vertex)) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> results = new HashMap<>();
+        for (EdgeInfo edgeInfo : ((Vertex) element).getEdgeInfos(Direction.OUT, authorizations)) {
+            results.put(edgeInfo.getEdgeId(), edgeInfo.getVertexId());
+        }
+        return results;
+    }
+
+    @Override
+    public void graphChanged(Element element, String propertyKey, String propertyName, ElementOrPropertyStatus status) {
+        List<String> elementIds = new ArrayList<>();
+        elementIds.add(element.getId());
+        if (element instanceof Edge) {
+            // the vertices are fetched again to find the edge
+            elementIds.add(((Edge) element).getVertexId(Direction.OUT));
+            elementIds.add(((Edge) element).getVertexId(Direction.IN));
+        }
+        elementsChanged(elementIds);
+    }
+
+    private void elementsChanged(Collection<String> elementIds) {
+        if (elementIds.isEmpty()) {
+            return;
+        }
+        for (CachedDiff buildingDiff : buildingDiffs) {
+            buildingDiff.addChangedIds(elementIds, false);
+        }
+        for (CachedDiff cachedDiff : diffCache.asMap().values()) {
+            cachedDiff.addChangedIds(elementIds, true);
+        }
+    }
+
+    private void subscribeToBroadcastMessages() {
+        // subscribed on first use so that processes which never build diffs, like workers, do not consume broadcasts
+        if (!subscribed.compareAndSet(false, true)) {
+            return;
+        }
+        workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
+            @Override
+            public void broadcastReceived(JSONObject json) {
+                try {
+                    handleBroadcast(json);
+                } catch (Exception ex) {
+                    LOGGER.error("Could not handle broadcast: %s", json, ex);
+                }
+            }
+        });
+    }
+
+    private void handleBroadcast(JSONObject json) {
+        JSONObject data = json.optJSONObject("data");
+        if (data == null) {
+            return;
+        }
+        switch (json.optString("type")) {
+            case "propertyChange":
+            case "publish":
+            case "edgeDeletion":
+            case "verticesDeleted":
+            case "elementsDeleted":
+                Set<String> elementIds = new HashSet<>();
+                for (String name : new String[]{"graphVertexId", "graphEdgeId", "edgeId", "outVertexId", "inVertexId"}) {
+                    String id = data.optString(name, null);
+                    if (id != null) {
+                        elementIds.add(id);
+                    }
+                }
+                for (String name : new String[]{"vertexIds", "edgeIds"}) {
+                    JSONArray ids = data.optJSONArray(name);
+                    if (ids != null) {
+                        elementIds.addAll(JSONUtil.toStringList(ids));
+                    }
+                }
+                elementsChanged(elementIds);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * The mutation version is derived from the element itself: every property write carries a new timestamp and
+     * publish or undo changes visibilities and hidden flags.
+     */
+    private static String getMutationVersion(Element element, Authorizations authorizations) {
+        StringBuilder version = new StringBuilder();
+        version.append(element.getVisibility().getVisibilityString())
+                .append(element.isHidden(authorizations) ? 'h' : 'v');
+        for (Property property : element.getProperties()) {
+            version.append('|')
+                    .append(property.getName()).append(':')
+                    .append(property.getKey()).append(':')
+                    .append(property.getVisibility().getVisibilityString()).append(':')
+                    .append(property.getTimestamp())
+                    .append(property.isHidden(authorizations) ? 'h' : 'v');
+        }
+        // out edge refs decide which edges are diffed
+        for (String edgeId : new TreeSet<>(getOutEdgeInVertexIds(element, authorizations).keySet())) {
+            version.append('>').append(edgeId);
+        }
+        return version.toString();
     }
 
     @Traced
@@ -138,12 +442,9 @@ public class WorkspaceDiffHelper {
             FormulaEvaluator.UserContext userContext,
             Authorizations authorizations
     ) {
-        List<ClientApiWorkspaceDiff.Item> result = new ArrayList<>();
-
-        EnumSet<FetchHint> hints = EnumSet.of(FetchHint.PROPERTIES, FetchHint.PROPERTY_METADATA, FetchHint.INCLUDE_HIDDEN);
         // Workspace vertex will be null if deleted, so retrieve with hidden
         Vertex entityVertex = workspaceEntity.getVertex() == null ?
-            this.graph.getVertex(workspaceEntity.getEntityVertexId(), hints, authorizations) :
+            this.graph.getVertex(workspaceEntity.getEntityVertexId(), ENTITY_FETCH_HINTS, authorizations) :
             workspaceEntity.getVertex();
 
         // vertex can be null if the user doesn't have access to the entity
@@ -151,6 +452,17 @@ public class WorkspaceDiffHelper {
             return null;
         }
 
+        return diffVertex(workspace, entityVertex, userContext, authorizations);
+    }
+
+    private List<ClientApiWorkspaceDiff.Item> diffVertex(
+            Workspace workspace,
+            Vertex entityVertex,
+            FormulaEvaluator.UserContext userContext,
+            Authorizations authorizations
+    ) {
+        List<ClientApiWorkspaceDiff.Item> result = new ArrayList<>();
+
         SandboxStatus sandboxStatus = SandboxStatusUtil.getSandboxStatus(entityVertex, workspace.getWorkspaceId());
         boolean isPrivateChange = sandboxStatus != SandboxStatus.PUBLIC;
         boolean isPublicDelete = WorkspaceDiffHelper.isPublicDelete(entityVertex, authorizations);
@@ -303,4 +615,57 @@ public class WorkspaceDiffHelper {
         }
         return false;
     }
+
+    private static class CachedDiff {
+        final long fullFetchTime;
+        final Map<String, CachedElementDiff> vertexDiffs = new ConcurrentHashMap<>();
+        final Map<String, CachedElementDiff> edgeDiffs = new ConcurrentHashMap<>();
+        private final Set<String> changedIds = ConcurrentHashMap.newKeySet();
+        long sizeBytes;
+
+        CachedDiff(long fullFetchTime) {
+            this.fullFetchTime = fullFetchTime;
+        }
+
+        void addChangedIds(Collection<String> elementIds, boolean onlyCachedElements) {
+            for (String elementId : elementIds) {
+                if (!onlyCachedElements || vertexDiffs.containsKey(elementId) || edgeDiffs.containsKey(elementId)) {
+                    changedIds.add(elementId);
+                }
+            }
+        }
+
+        Set<String> getChangedIds() {
+            return new HashSet<>(changedIds);
+        }
+
+        void computeSize() {
+            long size = 0;
+            for (Map<String, CachedElementDiff> elementDiffs : Arrays.asList(vertexDiffs, edgeDiffs)) {
+                for (Map.Entry<String, CachedElementDiff> elementDiff : elementDiffs.entrySet()) {
+                    size += ELEMENT_SIZE_BYTES
+                            + 2L * (elementDiff.getKey().length() + elementDiff.getValue().mutationVersion.length())
+                            + (long) ITEM_SIZE_BYTES * elementDiff.getValue().items.size()
+                            + (long) ELEMENT_SIZE_BYTES * elementDiff.getValue().outEdgeInVertexIds.size();
+                }
+            }
+            sizeBytes = size;
+        }
+    }
+
+    private static class CachedElementDiff {
+        final String mutationVersion;
+        final List<ClientApiWorkspaceDiff.Item> items;
+        final Map<String, String> outEdgeInVertexIds;
+
+        CachedElementDiff(
+                String mutationVersion,
+                List<ClientApiWorkspaceDiff.Item> items,
+                Map<String, String> outEdgeInVertexIds
+        ) {
+            this.mutationVersion = mutationVersion;
+            this.items = items;
+            this.outEdgeInVertexIds = outEdgeInVertexIds;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package org.visallo.core.model.workspace;
 
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.vertexium.*;
@@ -27,9 +28,15 @@ import org.visallo.web.clientapi.model.VisibilityJson;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.vertexium.util.IterableUtils.toList;
+import static org.visallo.core.util.StreamUtil.stream;
 import static org.visallo.core.model.ontology.OntologyRepository.PUBLIC;
 
 @Singleton
@@ -37,6 +44,7 @@ public class WorkspaceHelper {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(WorkspaceHelper.class);
     //TODO fix this key when there's a migration capability
     private static final String DETECTED_OBJECT_MULTI_VALUE_KEY_PREFIX = "org.visallo.web.routes.vertex.ResolveDetectedObject";
+    private static final int DELETE_VERTICES_BATCH_SIZE = 500;
     private final TermMentionRepository termMentionRepository;
     private final WorkQueueRepository workQueueRepository;
     private final Graph graph;
@@ -392,6 +400,240 @@ public class WorkspaceHelper {
         LOGGER.debug("END deleteVertex");
     }
 
+    /**
+     * Deletes many vertices from a workspace. Unlike calling {@link #deleteVertex} in a loop, dependent edges and term
+     * mentions are loaded with batched reads, all mutations for a batch are sent with a single flush and clients are
+     * notified with one broadcast per batch.
+     */
+    public void deleteVertices(
+            Collection<Vertex> vertices,
+            String workspaceId,
+            Priority priority,
+            Authorizations authorizations,
+            User user,
+            DeleteVerticesProgressListener progressListener
+    ) {
+        LOGGER.debug(
+                "BEGIN deleteVertices(count: %d, workspaceId: %s, user: %s)",
+                vertices.size(),
+                workspaceId,
+                user.getUsername()
+        );
+        ensureOntologyIrisInitialized();
+
+        int deletedCount = 0;
+        for (List<Vertex> batch : Iterables.partition(vertices, DELETE_VERTICES_BATCH_SIZE)) {
+            deleteVerticesBatch(batch, workspaceId, priority, authorizations, user);
+            deletedCount += batch.size();
+            if (progressListener != null) {
+                progressListener.progress(deletedCount, vertices.size());
+            }
+        }
+        LOGGER.debug("END deleteVertices");
+    }
+
+    private void deleteVerticesBatch(
+            List<Vertex> vertices,
+            String workspaceId,
+            Priority priority,
+            Authorizations authorizations,
+            User user
+    ) {
+        long beforeActionTimestamp = System.currentTimeMillis() - 1;
+        List<String> vertexIds = new ArrayList<>();
+        List<Vertex> publicVertices = new ArrayList<>();
+        List<Vertex> sandboxedVertices = new ArrayList<>();
+        for (Vertex vertex : vertices) {
+            vertexIds.add(vertex.getId());
+            if (SandboxStatusUtil.getSandboxStatus(vertex, workspaceId) == SandboxStatus.PUBLIC) {
+                publicVertices.add(vertex);
+            } else {
+                sandboxedVertices.add(vertex);
+            }
+            // the element level deletion message pushed below covers every property so no per property messages are sent
+            deletePropertiesWithoutFlush(vertex, workspaceId, authorizations);
+        }
+
+        // make sure the entities are on the workspace so that they show up in the diff panel
+        Workspace workspace = workspaceRepository.findById(workspaceId, user);
+        workspaceRepository.updateEntitiesOnWorkspace(workspace, vertexIds, user);
+
+        List<Edge> deletedEdges = new ArrayList<>();
+        List<Runnable> workQueuePushes = new ArrayList<>();
+
+        // because we store the current vertex image in a property we need to possibly find that property and change it
+        //  if we are deleting the current image.
+        LOGGER.debug("change entity image properties");
+        List<Edge> entityHasImageEdges = getInEdges(vertices, entityHasImageIri, authorizations);
+        Map<String, Vertex> entityHasImageOutVertices = getOutVerticesById(entityHasImageEdges, authorizations);
+        for (Edge edge : entityHasImageEdges) {
+            Vertex outVertex = entityHasImageOutVertices.get(edge.getVertexId(Direction.OUT));
+            Property entityHasImage = outVertex == null
+                    ? null
+                    : outVertex.getProperty(VisalloProperties.ENTITY_IMAGE_VERTEX_ID.getPropertyName());
+            if (entityHasImage != null) {
+                outVertex.softDeleteProperty(entityHasImage.getKey(), entityHasImage.getName(), authorizations);
+                workQueuePushes.add(() -> workQueueRepository.pushElementImageQueue(outVertex, entityHasImage, priority));
+            }
+            graph.softDeleteEdge(edge, authorizations);
+            deletedEdges.add(edge);
+        }
+
+        // because detected objects are currently stored as properties on the artifact that reference the entity
+        //   that they are resolved to we need to delete that property
+        LOGGER.debug("change artifact contains image of entity");
+        Map<String, Vertex> verticesById = vertices.stream().collect(Collectors.toMap(Vertex::getId, v -> v, (v1, v2) -> v1));
+        List<Edge> containsImageOfEntityEdges = getInEdges(vertices, artifactContainsImageOfEntityIri, authorizations);
+        Map<String, Vertex> containsImageOfEntityOutVertices = getOutVerticesById(containsImageOfEntityEdges, authorizations);
+        for (Edge edge : containsImageOfEntityEdges) {
+            Vertex vertex = verticesById.get(edge.getVertexId(Direction.IN));
+            VisibilityJson visibilityJson = VisalloProperties.VISIBILITY_JSON.getPropertyValue(vertex);
+            String visibilitySource = VisibilityJson.removeFromAllWorkspace(visibilityJson).getSource();
+            Vertex outVertex = containsImageOfEntityOutVertices.get(edge.getVertexId(Direction.OUT));
+            if (outVertex != null) {
+                for (Property rowKeyProperty : vertex.getProperties(VisalloProperties.ROW_KEY.getPropertyName())) {
+                    String multiValueKey = rowKeyProperty.getValue().toString();
+                    VisalloProperties.DETECTED_OBJECT.removeProperty(outVertex, multiValueKey, authorizations);
+                    workQueuePushes.add(() -> workQueueRepository.pushGraphPropertyQueue(
+                            outVertex,
+                            multiValueKey,
+                            VisalloProperties.DETECTED_OBJECT.getPropertyName(),
+                            workspaceId,
+                            visibilitySource,
+                            ElementOrPropertyStatus.DELETION,
+                            beforeActionTimestamp,
+                            priority
+                    ));
+                }
+            }
+            graph.softDeleteEdge(edge, authorizations);
+            deletedEdges.add(edge);
+        }
+
+        // because we store term mentions with an added visibility we need to delete them with that added authorizations.
+        //  we also need to notify the front-end of changes as well as audit the changes
+        LOGGER.debug("unresolve terms");
+        Set<String> textUpdatedVertexIds = unresolveTermsWithoutFlush(
+                termMentionRepository.findResolvedTo(vertexIds, authorizations),
+                deletedEdges,
+                authorizations
+        );
+
+        Visibility workspaceVisibility = new Visibility(workspaceId);
+        for (Vertex vertex : publicVertices) {
+            graph.markVertexHidden(vertex, workspaceVisibility, authorizations);
+        }
+
+        if (sandboxedVertices.size() > 0) {
+            // because we store workspaces with an added visibility we need to delete them with that added authorizations.
+            LOGGER.debug("soft delete edges");
+            Authorizations systemAuthorization = authorizationRepository.getGraphAuthorizations(
+                    user,
+                    WorkspaceRepository.VISIBILITY_STRING,
+                    workspaceId
+            );
+            List<String> workspaceEdgeIds = sandboxedVertices.stream()
+                    .map(vertex -> WorkspaceRepository.getWorkspaceToEntityEdgeId(workspaceId, vertex.getId()))
+                    .collect(Collectors.toList());
+            for (Edge edge : graph.getEdges(workspaceEdgeIds, systemAuthorization)) {
+                graph.softDeleteEdge(edge, systemAuthorization);
+            }
+
+            LOGGER.debug("soft delete vertices");
+            for (Vertex vertex : sandboxedVertices) {
+                graph.softDeleteVertex(vertex, authorizations);
+            }
+        }
+
+        graph.flush();
+
+        workQueuePushes.forEach(Runnable::run);
+        for (String textUpdatedVertexId : textUpdatedVertexIds) {
+            workQueueRepository.pushTextUpdated(textUpdatedVertexId);
+        }
+        List<Element> deletedElements = new ArrayList<>(deletedEdges);
+        deletedElements.addAll(sandboxedVertices);
+        workQueueRepository.pushElementsDeletion(deletedElements, publicVertices, beforeActionTimestamp, Priority.HIGH);
+    }
+
+    private List<Edge> getInEdges(List<Vertex> vertices, String label, Authorizations authorizations) {
+        if (label == null) {
+            return Collections.emptyList();
+        }
+        Set<String> edgeIds = new HashSet<>();
+        for (Vertex vertex : vertices) {
+            for (String edgeId : vertex.getEdgeIds(Direction.IN, label, authorizations)) {
+                edgeIds.add(edgeId);
+            }
+        }
+        if (edgeIds.size() == 0) {
+            return Collections.emptyList();
+        }
+        return toList(graph.getEdges(edgeIds, authorizations));
+    }
+
+    private Map<String, Vertex> getOutVerticesById(List<Edge> edges, Authorizations authorizations) {
+        if (edges.size() == 0) {
+            return Collections.emptyMap();
+        }
+        Set<String> outVertexIds = edges.stream()
+                .map(edge -> edge.getVertexId(Direction.OUT))
+                .collect(Collectors.toSet());
+        return stream(graph.getVertices(outVertexIds, authorizations))
+                .collect(Collectors.toMap(Vertex::getId, v -> v, (v1, v2) -> v1));
+    }
+
+    private void deletePropertiesWithoutFlush(Vertex vertex, String workspaceId, Authorizations authorizations) {
+        List<Property> properties = IterableUtils.toList(vertex.getProperties());
+        SandboxStatus[] sandboxStatuses = SandboxStatusUtil.getPropertySandboxStatuses(properties, workspaceId);
+
+        for (int i = 0; i < sandboxStatuses.length; i++) {
+            Property property = properties.get(i);
+            if (sandboxStatuses[i] == SandboxStatus.PUBLIC && workspaceId != null) {
+                vertex.markPropertyHidden(property, new Visibility(workspaceId), authorizations);
+            } else {
+                vertex.softDeleteProperty(property.getKey(), property.getName(), property.getVisibility(), authorizations);
+            }
+        }
+    }
+
+    /**
+     * @return the ids of the vertices whose text changed because a term mention was removed
+     */
+    private Set<String> unresolveTermsWithoutFlush(
+            Iterable<Vertex> termMentions,
+            List<Edge> deletedEdges,
+            Authorizations authorizations
+    ) {
+        Set<String> outVertexIds = new HashSet<>();
+        Set<String> resolveEdgeIds = new HashSet<>();
+        for (Vertex termMention : termMentions) {
+            String outVertexId = termMentionRepository.findOutVertexId(termMention, authorizations);
+            if (outVertexId == null) {
+                continue;
+            }
+            outVertexIds.add(outVertexId);
+
+            String resolveEdgeId = VisalloProperties.TERM_MENTION_RESOLVED_EDGE_ID.getPropertyValue(termMention, null);
+            if (resolveEdgeId != null) {
+                resolveEdgeIds.add(resolveEdgeId);
+            }
+            termMentionRepository.delete(termMention, authorizations);
+        }
+
+        if (resolveEdgeIds.size() > 0) {
+            for (Edge resolveEdge : graph.getEdges(resolveEdgeIds, authorizations)) {
+                graph.softDeleteEdge(resolveEdge, authorizations);
+                deletedEdges.add(resolveEdge);
+            }
+        }
+        return outVertexIds;
+    }
+
+    public interface DeleteVerticesProgressListener {
+        void progress(int deletedCount, int totalCount);
+    }
+
     private void unresolveTermMentionsForProperty(Vertex vertex, Property property, Authorizations authorizations) {
         for (Vertex termMention : termMentionRepository.findResolvedTo(vertex.getId(), authorizations)) {
             String key = VisalloProperties.TERM_MENTION_REF_PROPERTY_KEY.getPropertyValue(termMention);
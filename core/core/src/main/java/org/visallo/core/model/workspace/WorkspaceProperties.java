@@ -1,6 +1,7 @@
 package org.visallo.core.model.workspace;
 
 import org.visallo.core.model.properties.types.BooleanSingleValueVisalloProperty;
+import org.visallo.core.model.properties.types.LongSingleValueVisalloProperty;
 import org.visallo.core.model.properties.types.StreamingVisalloProperty;
 import org.visallo.core.model.properties.types.StringSingleValueVisalloProperty;
 import org.visallo.core.model.properties.types.StringVisalloProperty;
@@ -20,6 +21,7 @@ public class WorkspaceProperties {
     public static final String DASHBOARD_TO_DASHBOARD_ITEM_RELATIONSHIP_IRI = "http://visallo.org/workspace#toDashboardItem";
 
     public static final StringSingleValueVisalloProperty TITLE = new StringSingleValueVisalloProperty("http://visallo.org/workspace#workspace/title");
+    public static final LongSingleValueVisalloProperty VERSION = new LongSingleValueVisalloProperty("http://visallo.org/workspace#workspace/version");
     public static final BooleanSingleValueVisalloProperty WORKSPACE_TO_USER_IS_CREATOR = new BooleanSingleValueVisalloProperty("http://visallo.org/workspace#toUser/creator");
     public static final StringSingleValueVisalloProperty WORKSPACE_TO_USER_ACCESS = new StringSingleValueVisalloProperty("http://visallo.org/workspace#toUser/access");
 
@@ -41,6 +41,7 @@ import org.visallo.web.clientapi.model.*;
 
 import java.io.InputStream;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -59,6 +60,8 @@ public abstract class WorkspaceRepository {
     public static final String WORKSPACE_TO_USER_RELATIONSHIP_IRI = WorkspaceProperties.WORKSPACE_TO_USER_RELATIONSHIP_IRI;
     public static final String WORKSPACE_ID_PREFIX = "WORKSPACE_";
     public static final String OWL_IRI = "http://visallo.org/workspace";
+    public static final String CONFIG_PUBLISH_CHUNK_SIZE = WorkspaceRepository.class.getName() + ".publish.chunkSize";
+    public static final int DEFAULT_PUBLISH_CHUNK_SIZE = 500;
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(WorkspaceRepository.class);
     private final Graph graph;
     private final Configuration configuration;
@@ -313,51 +316,105 @@ public abstract class WorkspaceRepository {
             User user,
             String workspaceId,
             Authorizations authorizations
+    ) {
+        publish(publishData, user, workspaceId, authorizations, 0, null);
+
+        ClientApiWorkspacePublishResponse workspacePublishResponse = new ClientApiWorkspacePublishResponse();
+        for (ClientApiPublishItem data : publishData) {
+            if (data.getErrorMessage() != null) {
+                workspacePublishResponse.addFailure(data);
+            }
+        }
+        return workspacePublishResponse;
+    }
+
+    /**
+     * Publishes the items in chunks of at most {@link #CONFIG_PUBLISH_CHUNK_SIZE} items, flushing the graph once
+     * per chunk. Chunks are built deterministically from publishData, so an interrupted publish can be resumed by
+     * passing the number of chunks that were already published as firstChunk. Failures are reported by setting
+     * the error message of the failed items.
+     */
+    public void publish(
+            ClientApiPublishItem[] publishData,
+            User user,
+            String workspaceId,
+            Authorizations authorizations,
+            int firstChunk,
+            PublishProgressListener progressListener
     ) {
         if (this.entityHasImageIri == null) {
             this.entityHasImageIri = ontologyRepository.getRequiredRelationshipIRIByIntent("entityHasImage", workspaceId);
         }
 
-        Map<ClientApiPublishItem.Action, List<ClientApiPublishItem>> publishDataByAction = Arrays.stream(publishData)
+        List<ClientApiPublishItem> validData = Arrays.stream(publishData)
                 .filter(ClientApiPublishItem::validate)
-                .collect(Collectors.groupingBy(ClientApiPublishItem::getAction));
+                .collect(Collectors.toList());
+        List<ClientApiPublishItem> addUpdateData = validData.stream()
+                .filter(data -> data.getAction() == ClientApiPublishItem.Action.ADD_OR_UPDATE)
+                .collect(Collectors.toList());
+        List<ClientApiPublishItem> deletionData = validData.stream()
+                .filter(data -> data.getAction() == ClientApiPublishItem.Action.DELETE)
+                .collect(Collectors.toList());
 
-        List<ClientApiPublishItem> addUpdateData = publishDataByAction.get(ClientApiPublishItem.Action.ADD_OR_UPDATE);
-        if (addUpdateData != null && !addUpdateData.isEmpty()) {
+        // Publishing the ontology is idempotent so it is repeated when resuming, which also restores the
+        // error messages of the items that can not be published
+        if (!addUpdateData.isEmpty()) {
             publishRequiredConcepts(addUpdateData, user, workspaceId, authorizations);
             publishRequiredRelationships(addUpdateData, user, workspaceId, authorizations);
             publishRequiredPropertyTypes(addUpdateData, user, workspaceId);
-
-            // Don't publish any data for which we couldn't also publish the required ontology
-            addUpdateData = addUpdateData.stream().filter(data -> data.getErrorMessage() == null).collect(Collectors.toList());
-
-            publishVertices(addUpdateData, workspaceId, authorizations);
-            publishEdges(addUpdateData, workspaceId, authorizations);
         }
 
-        publishProperties(publishData, workspaceId, authorizations);
-
-        List<ClientApiPublishItem> deletionData = publishDataByAction.get(ClientApiPublishItem.Action.DELETE);
-        if (deletionData != null && !deletionData.isEmpty()) {
-            publishEdges(deletionData, workspaceId, authorizations);
-            publishVertices(deletionData, workspaceId, authorizations);
+        int chunkSize = configuration.getInt(CONFIG_PUBLISH_CHUNK_SIZE, DEFAULT_PUBLISH_CHUNK_SIZE);
+        List<Runnable> chunks = new ArrayList<>();
+        addPublishChunks(chunks, addUpdateData, ClientApiVertexPublishItem.class, chunkSize,
+                chunk -> publishVertices(chunk, workspaceId, authorizations));
+        addPublishChunks(chunks, addUpdateData, ClientApiRelationshipPublishItem.class, chunkSize,
+                chunk -> publishEdges(chunk, workspaceId, authorizations));
+        addPublishChunks(chunks, validData, ClientApiPropertyPublishItem.class, chunkSize,
+                chunk -> publishProperties(chunk, workspaceId, authorizations));
+        addPublishChunks(chunks, deletionData, ClientApiRelationshipPublishItem.class, chunkSize,
+                chunk -> publishEdges(chunk, workspaceId, authorizations));
+        addPublishChunks(chunks, deletionData, ClientApiVertexPublishItem.class, chunkSize,
+                chunk -> publishVertices(chunk, workspaceId, authorizations));
+
+        for (int i = firstChunk; i < chunks.size(); i++) {
+            chunks.get(i).run();
+            if (progressListener != null) {
+                progressListener.chunkPublished(i + 1, chunks.size());
+            }
         }
+    }
 
-        ClientApiWorkspacePublishResponse workspacePublishResponse = new ClientApiWorkspacePublishResponse();
-        for (ClientApiPublishItem data : publishData) {
-            if (data.getErrorMessage() != null) {
-                workspacePublishResponse.addFailure(data);
-            }
+    private <T extends ClientApiPublishItem> void addPublishChunks(
+            List<Runnable> chunks,
+            List<ClientApiPublishItem> publishData,
+            Class<T> publishItemType,
+            int chunkSize,
+            Consumer<List<T>> publishChunk
+    ) {
+        List<T> items = publishData.stream()
+                .filter(publishItemType::isInstance)
+                .map(publishItemType::cast)
+                .collect(Collectors.toList());
+        for (int i = 0; i < items.size(); i += chunkSize) {
+            List<T> chunk = items.subList(i, Math.min(i + chunkSize, items.size()));
+            chunks.add(() -> publishChunk.accept(chunk));
         }
-        return workspacePublishResponse;
     }
 
-    private void publishVertices(List<ClientApiPublishItem> publishData, String workspaceId, Authorizations authorizations) {
+    public interface PublishProgressListener {
+        void chunkPublished(int publishedChunkCount, int totalChunkCount);
+    }
+
+    private void publishVertices(
+            List<ClientApiVertexPublishItem> publishData,
+            String workspaceId,
+            Authorizations authorizations
+    ) {
         LOGGER.debug("BEGIN publishVertices");
 
         Map<String, ClientApiVertexPublishItem> vertexIdToPublishData = publishData.stream()
-                .filter(data -> data instanceof ClientApiVertexPublishItem)
-                .map(data -> ((ClientApiVertexPublishItem) data))
+                .filter(data -> data.getErrorMessage() == null)
                 .collect(Collectors.toMap(ClientApiVertexPublishItem::getVertexId, Function.identity()));
 
         // Need to elevate with videoFrame auth to be able to load and publish VideoFrame properties
@@ -371,6 +428,7 @@ public abstract class WorkspaceRepository {
                 authWithVideoFrame
         );
 
+        List<Runnable> afterFlush = new ArrayList<>();
         for (Vertex vertex : verticesToPublish) {
             String vertexId = vertex.getId();
             ClientApiPublishItem data = vertexIdToPublishData.get(vertexId);
@@ -388,7 +446,7 @@ public abstract class WorkspaceRepository {
                     data.setErrorMessage(msg);
                     continue;
                 }
-                publishVertex(vertex, data.getAction(), authWithVideoFrame, workspaceId);
+                publishVertex(vertex, data.getAction(), authWithVideoFrame, workspaceId, afterFlush);
             } catch (Exception ex) {
                 data.setErrorMessage(ex.getMessage());
             }
@@ -401,6 +459,7 @@ public abstract class WorkspaceRepository {
 
         LOGGER.debug("END publishVertices");
         graph.flush();
+        afterFlush.forEach(Runnable::run);
     }
 
     private void publishRequiredConcepts(
@@ -579,24 +638,36 @@ public abstract class WorkspaceRepository {
     }
 
     private void publishEdges(
-            List<ClientApiPublishItem> publishData,
+            List<ClientApiRelationshipPublishItem> publishData,
             String workspaceId,
             Authorizations authorizations
     ) {
         LOGGER.debug("BEGIN publishEdges");
-        for (ClientApiPublishItem data : publishData) {
+        List<ClientApiRelationshipPublishItem> edgePublishData = publishData.stream()
+                .filter(data -> data.getErrorMessage() == null)
+                .collect(Collectors.toList());
+
+        Map<String, Edge> edgesById = stream(graph.getEdges(
+                edgePublishData.stream().map(ClientApiRelationshipPublishItem::getEdgeId).collect(Collectors.toSet()),
+                FetchHint.ALL_INCLUDING_HIDDEN,
+                authorizations
+        )).collect(Collectors.toMap(Edge::getId, Function.identity(), (e1, e2) -> e1));
+        Set<String> edgeVertexIds = edgesById.values().stream()
+                .flatMap(edge -> Stream.of(edge.getVertexId(Direction.OUT), edge.getVertexId(Direction.IN)))
+                .collect(Collectors.toSet());
+        Map<String, Vertex> edgeVerticesById = stream(graph.getVertices(edgeVertexIds, authorizations))
+                .collect(Collectors.toMap(Vertex::getId, Function.identity(), (v1, v2) -> v1));
+
+        List<Runnable> afterFlush = new ArrayList<>();
+        for (ClientApiRelationshipPublishItem data : edgePublishData) {
             try {
-                if (!(data instanceof ClientApiRelationshipPublishItem)) {
+                Edge edge = edgesById.get(data.getEdgeId());
+                if (edge == null) {
+                    data.setErrorMessage("Unable to load edge with id " + data.getEdgeId());
                     continue;
                 }
-                ClientApiRelationshipPublishItem relationshipPublishItem = (ClientApiRelationshipPublishItem) data;
-                Edge edge = graph.getEdge(
-                        relationshipPublishItem.getEdgeId(),
-                        FetchHint.ALL_INCLUDING_HIDDEN,
-                        authorizations
-                );
-                Vertex outVertex = edge.getVertex(Direction.OUT, authorizations);
-                Vertex inVertex = edge.getVertex(Direction.IN, authorizations);
+                Vertex outVertex = edgeVerticesById.get(edge.getVertexId(Direction.OUT));
+                Vertex inVertex = edgeVerticesById.get(edge.getVertexId(Direction.IN));
                 if (SandboxStatusUtil.getSandboxStatus(edge, workspaceId) == SandboxStatus.PUBLIC
                         && !WorkspaceDiffHelper.isPublicDelete(edge, authorizations)) {
                     String error_msg;
@@ -615,31 +686,53 @@ public abstract class WorkspaceRepository {
                     data.setErrorMessage("Cannot publish edge, " + edge.getId() + ", because either source and/or dest vertex are not public");
                     continue;
                 }
-                publishEdge(edge, outVertex, inVertex, data.getAction(), workspaceId, authorizations);
+                publishEdge(edge, outVertex, inVertex, data.getAction(), workspaceId, authorizations, afterFlush);
             } catch (Exception ex) {
                 data.setErrorMessage(ex.getMessage());
             }
         }
         LOGGER.debug("END publishEdges");
         graph.flush();
+        afterFlush.forEach(Runnable::run);
     }
 
     private void publishProperties(
-            ClientApiPublishItem[] publishData,
+            List<ClientApiPropertyPublishItem> publishData,
             String workspaceId,
             Authorizations authorizations
     ) {
         LOGGER.debug("BEGIN publishProperties");
-        for (ClientApiPublishItem data : publishData) {
+        List<ClientApiPropertyPublishItem> propertyPublishData = publishData.stream()
+                .filter(data -> data.getErrorMessage() == null)
+                .collect(Collectors.toList());
+
+        Set<String> edgeIds = new HashSet<>();
+        Set<String> vertexIds = new HashSet<>();
+        for (ClientApiPropertyPublishItem data : propertyPublishData) {
+            if (data.getEdgeId() != null) {
+                edgeIds.add(data.getEdgeId());
+            }
+            if (data.getVertexId() != null) {
+                vertexIds.add(data.getVertexId());
+            }
+            if (data.getElementId() != null) {
+                edgeIds.add(data.getElementId());
+                vertexIds.add(data.getElementId());
+            }
+        }
+        Map<String, Element> edgesById = stream(graph.getEdges(edgeIds, FetchHint.ALL_INCLUDING_HIDDEN, authorizations))
+                .collect(Collectors.toMap(Edge::getId, Function.identity(), (e1, e2) -> e1));
+        Map<String, Element> verticesById = stream(graph.getVertices(vertexIds, FetchHint.ALL_INCLUDING_HIDDEN, authorizations))
+                .collect(Collectors.toMap(Vertex::getId, Function.identity(), (v1, v2) -> v1));
+
+        List<Runnable> afterFlush = new ArrayList<>();
+        Set<String> publishedPropertyIds = new HashSet<>();
+        for (ClientApiPropertyPublishItem data : propertyPublishData) {
             try {
-                if (!(data instanceof ClientApiPropertyPublishItem) || data.getErrorMessage() != null) {
-                    continue;
-                }
-                ClientApiPropertyPublishItem propertyPublishItem = (ClientApiPropertyPublishItem) data;
-                Element element = getPropertyElement(propertyPublishItem, authorizations);
+                Element element = getPropertyElement(data, verticesById, edgesById);
 
-                String propertyKey = propertyPublishItem.getKey();
-                String propertyName = propertyPublishItem.getName();
+                String propertyKey = data.getKey();
+                String propertyName = data.getName();
 
                 OntologyProperty ontologyProperty = ontologyRepository.getPropertyByIRI(propertyName, workspaceId);
                 checkNotNull(ontologyProperty, "Could not find ontology property: " + propertyName);
@@ -652,36 +745,47 @@ public abstract class WorkspaceRepository {
                     continue;
                 }
 
-                publishProperty(element, data.getAction(), propertyKey, propertyName, workspaceId, authorizations);
+                // the prefetched element does not reflect changes made earlier in this chunk to the same property
+                if (!publishedPropertyIds.add(element.getId() + propertyKey + propertyName)) {
+                    graph.flush();
+                    element = reloadPropertyElement(element, verticesById, edgesById, authorizations);
+                }
+
+                publishProperty(element, data.getAction(), propertyKey, propertyName, workspaceId, authorizations, afterFlush);
             } catch (Exception ex) {
                 data.setErrorMessage(ex.getMessage());
             }
         }
         LOGGER.debug("END publishProperties");
         graph.flush();
+        afterFlush.forEach(Runnable::run);
     }
 
-    private Element getPropertyElement(ClientApiPropertyPublishItem data, Authorizations authorizations) {
+    private Element getPropertyElement(
+            ClientApiPropertyPublishItem data,
+            Map<String, Element> verticesById,
+            Map<String, Element> edgesById
+    ) {
         Element element = null;
 
         String elementId = data.getEdgeId();
         if (elementId != null) {
-            element = graph.getEdge(elementId, FetchHint.ALL_INCLUDING_HIDDEN, authorizations);
+            element = edgesById.get(elementId);
         }
 
         if (element == null) {
             elementId = data.getVertexId();
             if (elementId != null) {
-                element = graph.getVertex(elementId, FetchHint.ALL_INCLUDING_HIDDEN, authorizations);
+                element = verticesById.get(elementId);
             }
         }
 
         if (element == null) {
             elementId = data.getElementId();
             checkNotNull(elementId, "elementId, vertexId, or edgeId is required to publish a property");
-            element = graph.getVertex(elementId, FetchHint.ALL_INCLUDING_HIDDEN, authorizations);
+            element = verticesById.get(elementId);
             if (element == null) {
-                element = graph.getEdge(elementId, FetchHint.ALL_INCLUDING_HIDDEN, authorizations);
+                element = edgesById.get(elementId);
             }
         }
 
@@ -689,17 +793,39 @@ public abstract class WorkspaceRepository {
         return element;
     }
 
+    private Element reloadPropertyElement(
+            Element element,
+            Map<String, Element> verticesById,
+            Map<String, Element> edgesById,
+            Authorizations authorizations
+    ) {
+        Element reloadedElement;
+        if (element instanceof Vertex) {
+            reloadedElement = graph.getVertex(element.getId(), FetchHint.ALL_INCLUDING_HIDDEN, authorizations);
+            verticesById.put(element.getId(), reloadedElement);
+        } else {
+            reloadedElement = graph.getEdge(element.getId(), FetchHint.ALL_INCLUDING_HIDDEN, authorizations);
+            edgesById.put(element.getId(), reloadedElement);
+        }
+        checkNotNull(reloadedElement, "Could not find edge/vertex with id: " + element.getId());
+        return reloadedElement;
+    }
+
     private void publishVertex(
             Vertex vertex,
             ClientApiPublishItem.Action action,
             Authorizations authorizations,
-            String workspaceId
+            String workspaceId,
+            List<Runnable> afterFlush
     ) {
         if (action == ClientApiPublishItem.Action.DELETE || WorkspaceDiffHelper.isPublicDelete(vertex, authorizations)) {
             long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
             graph.softDeleteVertex(vertex, authorizations);
-            graph.flush();
-            workQueueRepository.pushPublishedVertexDeletion(vertex, beforeDeletionTimestamp, Priority.HIGH);
+            afterFlush.add(() -> workQueueRepository.pushPublishedVertexDeletion(
+                    vertex,
+                    beforeDeletionTimestamp,
+                    Priority.HIGH
+            ));
             return;
         }
 
@@ -740,8 +866,7 @@ public abstract class WorkspaceRepository {
             termMentionRepository.updateVisibility(termMention, visalloVisibility.getVisibility(), authorizations);
         }
 
-        graph.flush();
-        workQueueRepository.broadcastPublishVertex(vertex);
+        afterFlush.add(() -> workQueueRepository.broadcastPublishVertex(vertex));
     }
 
     private void publishProperty(
@@ -750,13 +875,19 @@ public abstract class WorkspaceRepository {
             String key,
             String name,
             String workspaceId,
-            Authorizations authorizations
+            Authorizations authorizations,
+            List<Runnable> afterFlush
     ) {
         long beforeActionTimestamp = System.currentTimeMillis() - 1;
         if (action == ClientApiPublishItem.Action.DELETE) {
             element.softDeleteProperty(key, name, authorizations);
-            graph.flush();
-            workQueueRepository.pushPublishedPropertyDeletion(element, key, name, beforeActionTimestamp, Priority.HIGH);
+            afterFlush.add(() -> workQueueRepository.pushPublishedPropertyDeletion(
+                    element,
+                    key,
+                    name,
+                    beforeActionTimestamp,
+                    Priority.HIGH
+            ));
             return;
         }
         ExistingElementMutation elementMutation = element.prepareMutation();
@@ -781,25 +912,24 @@ public abstract class WorkspaceRepository {
             if (WorkspaceDiffHelper.isPublicDelete(property, authorizations)) {
                 if (publicProperty == null) {
                     element.softDeleteProperty(key, name, new Visibility(workspaceId), authorizations);
-                    graph.flush();
-                    workQueueRepository.pushPublishedPropertyDeletion(
+                    afterFlush.add(() -> workQueueRepository.pushPublishedPropertyDeletion(
                             element,
                             key,
                             name,
                             beforeActionTimestamp,
                             Priority.HIGH
-                    );
+                    ));
                     foundProperty = true;
                 }
             } else if (sandboxStatus == SandboxStatus.PUBLIC_CHANGED) {
                 element.softDeleteProperty(key, name, propertyVisibility, authorizations);
-                workQueueRepository.pushPublishedPropertyDeletion(
+                afterFlush.add(() -> workQueueRepository.pushPublishedPropertyDeletion(
                         element,
                         key,
                         name,
                         beforeActionTimestamp,
                         Priority.HIGH
-                );
+                ));
                 if (publicProperty != null) {
                     element.markPropertyVisible(publicProperty, new Visibility(workspaceId), authorizations);
 
@@ -821,22 +951,20 @@ public abstract class WorkspaceRepository {
                         newVisibility = publicVisibility;
                     }
                     element.addPropertyValue(key, name, property.getValue(), metadata, newVisibility, authorizations);
-                    workQueueRepository.pushGraphPropertyQueue(
+                    afterFlush.add(() -> workQueueRepository.pushGraphPropertyQueue(
                             element,
                             key,
                             name,
                             ElementOrPropertyStatus.UNHIDDEN,
                             beforeActionTimestamp,
                             Priority.HIGH
-                    );
+                    ));
                 }
-                graph.flush();
-                workQueueRepository.broadcastPublishProperty(element, key, name);
+                afterFlush.add(() -> workQueueRepository.broadcastPublishProperty(element, key, name));
                 foundProperty = true;
             } else if (publishNewProperty(elementMutation, property, workspaceId)) {
                 elementMutation.save(authorizations);
-                graph.flush();
-                workQueueRepository.broadcastPublishProperty(element, key, name);
+                afterFlush.add(() -> workQueueRepository.broadcastPublishProperty(element, key, name));
                 foundProperty = true;
             }
 
@@ -906,17 +1034,21 @@ public abstract class WorkspaceRepository {
 
     private void publishEdge(
             Edge edge,
-            @SuppressWarnings("UnusedParameters") Vertex outVertex,
+            Vertex outVertex,
             Vertex inVertex,
             ClientApiPublishItem.Action action,
             String workspaceId,
-            Authorizations authorizations
+            Authorizations authorizations,
+            List<Runnable> afterFlush
     ) {
         if (action == ClientApiPublishItem.Action.DELETE || WorkspaceDiffHelper.isPublicDelete(edge, authorizations)) {
             long beforeDeletionTimestamp = System.currentTimeMillis() - 1;
             graph.softDeleteEdge(edge, authorizations);
-            graph.flush();
-            workQueueRepository.pushPublishedEdgeDeletion(edge, beforeDeletionTimestamp, Priority.HIGH);
+            afterFlush.add(() -> workQueueRepository.pushPublishedEdgeDeletion(
+                    edge,
+                    beforeDeletionTimestamp,
+                    Priority.HIGH
+            ));
             return;
         }
 
@@ -931,7 +1063,7 @@ public abstract class WorkspaceRepository {
         }
 
         if (edge.getLabel().equals(entityHasImageIri)) {
-            publishGlyphIconProperties(edge, workspaceId, authorizations);
+            publishGlyphIconProperties(edge, outVertex, workspaceId, authorizations);
         }
 
         edge.softDeleteProperty(
@@ -972,18 +1104,17 @@ public abstract class WorkspaceRepository {
                 visibilityJson,
                 visibilityTranslator.getDefaultVisibility()
         );
-        edge = edgeExistingElementMutation.save(authorizations);
+        Edge publishedEdge = edgeExistingElementMutation.save(authorizations);
 
         for (Vertex termMention : termMentionRepository.findResolvedTo(inVertex.getId(), authorizations)) {
             termMentionRepository.updateVisibility(termMention, visalloVisibility.getVisibility(), authorizations);
         }
 
-        for (Vertex termMention : termMentionRepository.findByEdgeForEdge(edge, authorizations)) {
+        for (Vertex termMention : termMentionRepository.findByEdgeForEdge(publishedEdge, authorizations)) {
             termMentionRepository.updateVisibility(termMention, visalloVisibility.getVisibility(), authorizations);
         }
 
-        graph.flush();
-        workQueueRepository.broadcastPublishEdge(edge);
+        afterFlush.add(() -> workQueueRepository.broadcastPublishEdge(publishedEdge));
     }
 
     private boolean shouldAutoPublishElementProperty(Property property, boolean userVisible) {
@@ -1017,8 +1148,12 @@ public abstract class WorkspaceRepository {
         return true;
     }
 
-    private void publishGlyphIconProperties(Edge hasImageEdge, String workspaceId, Authorizations authorizations) {
-        Vertex entityVertex = hasImageEdge.getVertex(Direction.OUT, authorizations);
+    private void publishGlyphIconProperties(
+            Edge hasImageEdge,
+            Vertex entityVertex,
+            String workspaceId,
+            Authorizations authorizations
+    ) {
         checkNotNull(entityVertex, "Could not find has image source vertex " + hasImageEdge.getVertexId(Direction.OUT));
         ExistingElementMutation elementMutation = entityVertex.prepareMutation();
         Iterable<Property> glyphIconProperties = entityVertex.getProperties(VisalloProperties.ENTITY_IMAGE_VERTEX_ID.getPropertyName());
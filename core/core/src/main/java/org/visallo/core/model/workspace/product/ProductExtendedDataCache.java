@@ -0,0 +1,397 @@
+package org.visallo.core.model.workspace.product;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.vertexium.Authorizations;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.util.JSONUtil;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Caches the extended data of products per product, request parameters and authorizations, and gives every
+ * product a change version.
+ * <p>
+ * The version of a product increases whenever a workProductChange broadcast names the product or a broadcast
+ * names a vertex or edge in the product's last snapshot, so it follows changes made by every web server. Versions
+ * are based on the clock, which keeps them increasing after the cache is emptied and makes it unlikely that two
+ * servers assign the same version to different snapshots.
+ * <p>
+ * A client that already has the extended data of a version can pass it as the sinceVersion parameter. If that
+ * version's snapshot is still cached only the entries added or changed since then are returned, together with the
+ * ids of the entries that were removed under "removed". Otherwise the full extended data is returned.
+ * <p>
+ * The snapshots are bounded by {@link #CONFIGURATION_PARAMETER_MAX_SIZE_BYTES}, approximated from the length of
+ * their JSON. Only the vertices and edges of the newest snapshot of each key are matched against broadcasts, so
+ * elements removed from a product stop changing its version once that snapshot is replaced or evicted.
+ */
+@Singleton
+public class ProductExtendedDataCache {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ProductExtendedDataCache.class);
+    public static final String CONFIGURATION_PARAMETER_MAX_SIZE = ProductExtendedDataCache.class.getName() + ".maxSize";
+    public static final int CONFIGURATION_DEFAULT_MAX_SIZE = 500;
+    public static final String CONFIGURATION_PARAMETER_MAX_SIZE_BYTES = ProductExtendedDataCache.class.getName() + ".maxSizeBytes";
+    public static final long CONFIGURATION_DEFAULT_MAX_SIZE_BYTES = 64L * 1024 * 1024;
+    public static final String CONFIGURATION_PARAMETER_EXPIRE_MINUTES = ProductExtendedDataCache.class.getName() + ".expireMinutes";
+    public static final int CONFIGURATION_DEFAULT_EXPIRE_MINUTES = 10;
+    public static final String PARAM_SINCE_VERSION = "sinceVersion";
+    public static final String VERSION = "version";
+    public static final String SINCE_VERSION = "sinceVersion";
+    public static final String REMOVED = "removed";
+    private static final int SNAPSHOTS_PER_KEY = 3;
+    private final WorkQueueRepository workQueueRepository;
+    private final Cache<String, ProductState> productStates;
+    private final Cache<String, Snapshots> snapshotsByKey;
+    private final Set<Set<String>> changedWhileLoading = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    @Inject
+    public ProductExtendedDataCache(
+            Configuration configuration,
+            WorkQueueRepository workQueueRepository
+    ) {
+        this.workQueueRepository = workQueueRepository;
+        int maxSize = configuration.getInt(CONFIGURATION_PARAMETER_MAX_SIZE, CONFIGURATION_DEFAULT_MAX_SIZE);
+        int expireMinutes = configuration.getInt(CONFIGURATION_PARAMETER_EXPIRE_MINUTES, CONFIGURATION_DEFAULT_EXPIRE_MINUTES);
+        productStates = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(expireMinutes, TimeUnit.MINUTES)
+                .build();
+        snapshotsByKey = CacheBuilder.newBuilder()
+                .maximumWeight(configuration.getLong(CONFIGURATION_PARAMETER_MAX_SIZE_BYTES, CONFIGURATION_DEFAULT_MAX_SIZE_BYTES))
+                .weigher((String cacheKey, Snapshots snapshots) -> (int) Math.min(Integer.MAX_VALUE, snapshots.sizeBytes))
+                .expireAfterAccess(expireMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * @param loader builds the full extended data of the product, it is only called when the current version is
+     *               not cached
+     */
+    public JSONObject getExtendedData(
+            String productId,
+            JSONObject params,
+            Authorizations authorizations,
+            Supplier<JSONObject> loader
+    ) {
+        subscribeToBroadcastMessages();
+
+        ProductState productState = getProductState(productId);
+        long version = productState.getVersion();
+        String cacheKey = getCacheKey(productId, params, authorizations);
+        Snapshots snapshots = snapshotsByKey.getIfPresent(cacheKey);
+
+        JSONObject current = snapshots == null ? null : snapshots.get(version);
+        if (current == null) {
+            // registered before loading, so a change to an element of the product that is only broadcast while
+            // the product is loading still increases the version once the element ids are known
+            Set<String> changedElementIds = ConcurrentHashMap.newKeySet();
+            changedWhileLoading.add(changedElementIds);
+            try {
+                current = loader.get();
+                if (current == null) {
+                    return null;
+                }
+                Set<String> elementIds = getElementIds(current);
+                snapshots = putSnapshot(productId, cacheKey, version, current, elementIds);
+                if (!Collections.disjoint(elementIds, changedElementIds)) {
+                    productState.increaseVersion();
+                }
+            } finally {
+                changedWhileLoading.remove(changedElementIds);
+            }
+        }
+
+        Long sinceVersion = JSONUtil.getOptionalLong(params, PARAM_SINCE_VERSION);
+        JSONObject since = sinceVersion == null ? null : snapshots.get(sinceVersion);
+        JSONObject result;
+        if (since == null) {
+            result = new JSONObject();
+            for (String key : getKeys(current)) {
+                result.put(key, current.get(key));
+            }
+        } else {
+            result = diff(since, current);
+            result.put(SINCE_VERSION, sinceVersion.longValue());
+        }
+        result.put(VERSION, version);
+        return result;
+    }
+
+    public void productChanged(String productId) {
+        ProductState productState = productStates.getIfPresent(productId);
+        if (productState != null) {
+            productState.increaseVersion();
+        }
+    }
+
+    public void productDeleted(String productId) {
+        productStates.invalidate(productId);
+        snapshotsByKey.asMap().values().removeIf(snapshots -> snapshots.productId.equals(productId));
+    }
+
+    public void clearCache() {
+        productStates.invalidateAll();
+        snapshotsByKey.invalidateAll();
+    }
+
+    private ProductState getProductState(String productId) {
+        try {
+            return productStates.get(productId, ProductState::new);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Could not get product state: " + productId, ex);
+        }
+    }
+
+    /**
+     * Snapshots are replaced rather than changed in place so that the cache weighs them again.
+     */
+    private Snapshots putSnapshot(String productId, String cacheKey, long version, JSONObject extendedData, Set<String> elementIds) {
+        Snapshot snapshot = new Snapshot(version, extendedData, elementIds, 2L * extendedData.toString().length());
+        return snapshotsByKey.asMap().compute(
+                cacheKey,
+                (key, snapshots) -> snapshots == null ? new Snapshots(productId, snapshot) : snapshots.with(snapshot)
+        );
+    }
+
+    private static String getCacheKey(String productId, JSONObject params, Authorizations authorizations) {
+        StringBuilder key = new StringBuilder(productId);
+        List<String> paramNames = getKeys(params);
+        Collections.sort(paramNames);
+        for (String paramName : paramNames) {
+            if (!PARAM_SINCE_VERSION.equals(paramName)) {
+                key.append('\n').append(paramName).append('=').append(params.get(paramName));
+            }
+        }
+        String[] auths = authorizations.getAuthorizations().clone();
+        Arrays.sort(auths);
+        key.append('\n').append(String.join(",", auths));
+        return key.toString();
+    }
+
+    private static Set<String> getElementIds(JSONObject extendedData) {
+        Set<String> elementIds = new HashSet<>();
+        for (String key : getKeys(extendedData)) {
+            JSONObject entries = extendedData.optJSONObject(key);
+            if (entries != null) {
+                elementIds.addAll(getKeys(entries));
+            }
+        }
+        return elementIds;
+    }
+
+    /**
+     * Compares the top level objects of two extended data snapshots, which are keyed by vertex or edge id, entry
+     * by entry. Values that are not objects are returned whenever they differ.
+     */
+    private static JSONObject diff(JSONObject since, JSONObject current) {
+        JSONObject result = new JSONObject();
+        JSONObject removed = new JSONObject();
+        for (String key : getKeys(current)) {
+            Object currentValue = current.get(key);
+            Object sinceValue = since.opt(key);
+            if (currentValue instanceof JSONObject && sinceValue instanceof JSONObject) {
+                JSONObject currentEntries = (JSONObject) currentValue;
+                JSONObject sinceEntries = (JSONObject) sinceValue;
+                JSONObject changedEntries = new JSONObject();
+                for (String id : getKeys(currentEntries)) {
+                    Object entry = currentEntries.get(id);
+                    if (!sinceEntries.has(id) || !JSONUtil.areEqual(sinceEntries.get(id), entry)) {
+                        changedEntries.put(id, entry);
+                    }
+                }
+                result.put(key, changedEntries);
+
+                JSONArray removedIds = new JSONArray();
+                for (String id : getKeys(sinceEntries)) {
+                    if (!currentEntries.has(id)) {
+                        removedIds.put(id);
+                    }
+                }
+                if (removedIds.length() > 0) {
+                    removed.put(key, removedIds);
+                }
+            } else if (sinceValue == null || !JSONUtil.areEqual(sinceValue, currentValue)) {
+                result.put(key, currentValue);
+            }
+        }
+        result.put(REMOVED, removed);
+        return result;
+    }
+
+    private static List<String> getKeys(JSONObject json) {
+        return JSONUtil.streamKeys(json).collect(Collectors.toList());
+    }
+
+    private void subscribeToBroadcastMessages() {
+        // subscribed on first use so that processes which never read products, like workers, do not consume broadcasts
+        if (!subscribed.compareAndSet(false, true)) {
+            return;
+        }
+        workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
+            @Override
+            public void broadcastReceived(JSONObject json) {
+                try {
+                    handleBroadcast(json);
+                } catch (Exception ex) {
+                    LOGGER.error("Could not handle broadcast: %s", json, ex);
+                }
+            }
+        });
+    }
+
+    private void handleBroadcast(JSONObject json) {
+        String type = json.optString("type");
+        JSONObject data = json.optJSONObject("data");
+        if (data == null) {
+            return;
+        }
+        switch (type) {
+            case "workProductChange":
+                productChanged(data.getString("id"));
+                break;
+            case "workProductDelete":
+                productDeleted(data.getString("id"));
+                break;
+            case "propertyChange":
+            case "edgeDeletion":
+            case "verticesDeleted":
+            case "elementsDeleted":
+                Set<String> elementIds = new HashSet<>();
+                for (String name : new String[]{"graphVertexId", "graphEdgeId", "edgeId", "outVertexId", "inVertexId"}) {
+                    String id = data.optString(name, null);
+                    if (id != null) {
+                        elementIds.add(id);
+                    }
+                }
+                for (String name : new String[]{"vertexIds", "edgeIds"}) {
+                    JSONArray ids = data.optJSONArray(name);
+                    if (ids != null) {
+                        elementIds.addAll(JSONUtil.toStringList(ids));
+                    }
+                }
+                elementsChanged(elementIds);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void elementsChanged(Set<String> elementIds) {
+        if (elementIds.isEmpty()) {
+            return;
+        }
+        for (Set<String> changedElementIds : changedWhileLoading) {
+            changedElementIds.addAll(elementIds);
+        }
+        Set<String> changedProductIds = new HashSet<>();
+        for (Snapshots snapshots : snapshotsByKey.asMap().values()) {
+            if (!changedProductIds.contains(snapshots.productId) && snapshots.containsAny(elementIds)) {
+                changedProductIds.add(snapshots.productId);
+            }
+        }
+        for (String productId : changedProductIds) {
+            productChanged(productId);
+        }
+    }
+
+    private static class ProductState {
+        private long version = System.currentTimeMillis();
+
+        public synchronized long getVersion() {
+            return version;
+        }
+
+        public synchronized void increaseVersion() {
+            version = Math.max(version + 1, System.currentTimeMillis());
+        }
+    }
+
+    private static class Snapshot {
+        private final long version;
+        private final JSONObject extendedData;
+        private final Set<String> elementIds;
+        private final long sizeBytes;
+
+        private Snapshot(long version, JSONObject extendedData, Set<String> elementIds, long sizeBytes) {
+            this.version = version;
+            this.extendedData = extendedData;
+            this.elementIds = elementIds;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+
+    /**
+     * The last {@link #SNAPSHOTS_PER_KEY} snapshots of a key, oldest first. Instances are not changed once created.
+     */
+    private static class Snapshots {
+        private final String productId;
+        private final List<Snapshot> snapshots;
+        private final Snapshot newest;
+        private final long sizeBytes;
+
+        private Snapshots(String productId, Snapshot snapshot) {
+            this(productId, Collections.singletonList(snapshot));
+        }
+
+        private Snapshots(String productId, List<Snapshot> snapshots) {
+            this.productId = productId;
+            this.snapshots = snapshots;
+            Snapshot newest = null;
+            long sizeBytes = 0;
+            for (Snapshot snapshot : snapshots) {
+                if (newest == null || snapshot.version > newest.version) {
+                    newest = snapshot;
+                }
+                sizeBytes += snapshot.sizeBytes;
+            }
+            this.newest = newest;
+            this.sizeBytes = sizeBytes;
+        }
+
+        public JSONObject get(long version) {
+            for (Snapshot snapshot : snapshots) {
+                if (snapshot.version == version) {
+                    return snapshot.extendedData;
+                }
+            }
+            return null;
+        }
+
+        public Snapshots with(Snapshot snapshot) {
+            List<Snapshot> newSnapshots = new ArrayList<>(snapshots.size() + 1);
+            for (Snapshot existing : snapshots) {
+                if (existing.version != snapshot.version) {
+                    newSnapshots.add(existing);
+                }
+            }
+            newSnapshots.add(snapshot);
+            while (newSnapshots.size() > SNAPSHOTS_PER_KEY) {
+                newSnapshots.remove(0);
+            }
+            return new Snapshots(productId, newSnapshots);
+        }
+
+        public boolean containsAny(Set<String> elementIds) {
+            for (String elementId : elementIds) {
+                if (newest.elementIds.contains(elementId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
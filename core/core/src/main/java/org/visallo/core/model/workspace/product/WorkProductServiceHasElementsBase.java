@@ -69,11 +69,13 @@ public abstract class WorkProductServiceHasElementsBase implements WorkProductSe
                     user,
                     VisalloVisibility.SUPER_USER_VISIBILITY_STRING
             );
-            Iterable<Vertex> productVertices = Lists.newArrayList(productVertex.getVertices(
+            // only the edge references are needed to find the related edges
+            List<String> productVertexIds = Lists.newArrayList(productVertex.getVertexIds(
                     Direction.OUT,
                     WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
                     systemAuthorizations
             ));
+            Iterable<Vertex> productVertices = Lists.newArrayList(graph.getVertices(productVertexIds, FetchHint.EDGE_REFS, systemAuthorizations));
             Iterable<RelatedEdge> productRelatedEdges = graph.findRelatedEdgeSummaryForVertices(productVertices, authorizations);
             List<String> ids = StreamUtil.stream(productRelatedEdges)
                     .map(RelatedEdge::getEdgeId)
@@ -7,14 +7,14 @@ import org.vertexium.Graph;
 import org.vertexium.Vertex;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
-import org.visallo.core.model.longRunningProcess.LongRunningProcessWorker;
+import org.visallo.core.model.longRunningProcess.NonCancelableLongRunningProcessWorker;
 import org.visallo.core.model.user.AuthorizationRepository;
 import org.visallo.core.model.user.UserRepository;
 import org.visallo.core.util.ClientApiConverter;
 
 @Name("Ping")
 @Description("run on special Ping vertices to measure LRP wait time")
-public class PingLongRunningProcess extends LongRunningProcessWorker {
+public class PingLongRunningProcess extends NonCancelableLongRunningProcessWorker {
     private final UserRepository userRepository;
     private final Graph graph;
     private final PingUtil pingUtil;
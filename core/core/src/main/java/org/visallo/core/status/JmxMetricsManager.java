@@ -15,6 +15,13 @@ public class JmxMetricsManager implements MetricsManager {
         JMX_REPORTER.start();
     }
 
+    /**
+     * The registry behind every {@link JmxMetricsManager}, also written by {@link PrometheusTextExporter}.
+     */
+    public static MetricRegistry getRegistry() {
+        return REGISTRY;
+    }
+
     private static int nextId() {
         return ID.getAndIncrement();
     }
@@ -0,0 +1,217 @@
+package org.visallo.core.status;
+
+import com.codahale.metrics.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.*;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the metrics of this process in the Prometheus text exposition format (version 0.0.4): JVM memory, thread,
+ * garbage collection and uptime gauges, gauges for registered thread pools, the {@link JmxMetricsManager} metrics
+ * and the registered {@link LatencyHistogram}s as summaries with p50, p99 and p999 quantiles. Durations are
+ * written in seconds.
+ */
+public class PrometheusTextExporter {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final ConcurrentMap<String, HistogramFamily> LATENCY_HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, ThreadPoolExecutor> THREAD_POOLS = new ConcurrentHashMap<>();
+
+    /**
+     * Gets or creates the histogram with the given name and labels. Callers on a hot path should keep the returned
+     * histogram rather than looking it up for every value.
+     */
+    public static LatencyHistogram getLatencyHistogram(String name, String help, SortedMap<String, String> labels) {
+        HistogramFamily family = LATENCY_HISTOGRAMS.computeIfAbsent(sanitizeName(name), n -> new HistogramFamily(help));
+        return family.histograms.computeIfAbsent(formatLabels(labels), l -> new LatencyHistogram());
+    }
+
+    /**
+     * Exports the active, pool and queue sizes of the executor under the given name. Executors that are not
+     * {@link ThreadPoolExecutor}s are ignored.
+     */
+    public static void registerThreadPool(String name, ExecutorService executorService) {
+        if (executorService instanceof ThreadPoolExecutor) {
+            THREAD_POOLS.put(name, (ThreadPoolExecutor) executorService);
+        }
+    }
+
+    public static void unregisterThreadPool(String name) {
+        THREAD_POOLS.remove(name);
+    }
+
+    public static void write(Writer out) throws IOException {
+        writeJvm(out);
+        writeThreadPools(out);
+        writeMetricRegistry(out, JmxMetricsManager.getRegistry());
+        writeLatencyHistograms(out);
+    }
+
+    private static void writeJvm(Writer out) throws IOException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        writeHeader(out, "jvm_memory_used_bytes", "gauge", "Used bytes of a JVM memory area");
+        writeSample(out, "jvm_memory_used_bytes", "area=\"heap\"", memory.getHeapMemoryUsage().getUsed());
+        writeSample(out, "jvm_memory_used_bytes", "area=\"nonheap\"", memory.getNonHeapMemoryUsage().getUsed());
+        writeHeader(out, "jvm_memory_max_bytes", "gauge", "Max bytes of a JVM memory area");
+        writeSample(out, "jvm_memory_max_bytes", "area=\"heap\"", memory.getHeapMemoryUsage().getMax());
+        writeSample(out, "jvm_memory_max_bytes", "area=\"nonheap\"", memory.getNonHeapMemoryUsage().getMax());
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        writeHeader(out, "jvm_threads_current", "gauge", "Current thread count of the JVM");
+        writeSample(out, "jvm_threads_current", null, threads.getThreadCount());
+        writeHeader(out, "jvm_threads_daemon", "gauge", "Daemon thread count of the JVM");
+        writeSample(out, "jvm_threads_daemon", null, threads.getDaemonThreadCount());
+
+        writeHeader(out, "jvm_gc_collections_total", "counter", "Garbage collections by collector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            writeSample(out, "jvm_gc_collections_total", label("gc", gc.getName()), gc.getCollectionCount());
+        }
+        writeHeader(out, "jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection by collector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            writeSample(out, "jvm_gc_collection_seconds_total", label("gc", gc.getName()), gc.getCollectionTime() / 1000.0);
+        }
+
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        writeHeader(out, "process_uptime_seconds", "gauge", "Uptime of the JVM");
+        writeSample(out, "process_uptime_seconds", null, runtime.getUptime() / 1000.0);
+    }
+
+    private static void writeThreadPools(Writer out) throws IOException {
+        if (THREAD_POOLS.isEmpty()) {
+            return;
+        }
+        Map<String, ThreadPoolExecutor> threadPools = new TreeMap<>(THREAD_POOLS);
+        writeHeader(out, "thread_pool_active_threads", "gauge", "Threads actively executing tasks");
+        for (Map.Entry<String, ThreadPoolExecutor> entry : threadPools.entrySet()) {
+            writeSample(out, "thread_pool_active_threads", label("pool", entry.getKey()), entry.getValue().getActiveCount());
+        }
+        writeHeader(out, "thread_pool_size", "gauge", "Threads in the pool");
+        for (Map.Entry<String, ThreadPoolExecutor> entry : threadPools.entrySet()) {
+            writeSample(out, "thread_pool_size", label("pool", entry.getKey()), entry.getValue().getPoolSize());
+        }
+        writeHeader(out, "thread_pool_queued_tasks", "gauge", "Tasks waiting for a thread");
+        for (Map.Entry<String, ThreadPoolExecutor> entry : threadPools.entrySet()) {
+            writeSample(out, "thread_pool_queued_tasks", label("pool", entry.getKey()), entry.getValue().getQueue().size());
+        }
+        writeHeader(out, "thread_pool_completed_tasks_total", "counter", "Tasks completed by the pool");
+        for (Map.Entry<String, ThreadPoolExecutor> entry : threadPools.entrySet()) {
+            writeSample(out, "thread_pool_completed_tasks_total", label("pool", entry.getKey()), entry.getValue().getCompletedTaskCount());
+        }
+    }
+
+    private static void writeMetricRegistry(Writer out, MetricRegistry registry) throws IOException {
+        for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+            String name = sanitizeName(entry.getKey());
+            writeHeader(out, name, "gauge", entry.getKey());
+            writeSample(out, name, null, entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+            String name = sanitizeName(entry.getKey());
+            writeHeader(out, name + "_total", "counter", entry.getKey());
+            writeSample(out, name + "_total", null, entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+            String name = sanitizeName(entry.getKey()) + "_seconds";
+            Timer timer = entry.getValue();
+            Snapshot snapshot = timer.getSnapshot();
+            writeHeader(out, name, "summary", entry.getKey());
+            for (double quantile : QUANTILES) {
+                writeSample(out, name, quantileLabel(null, quantile), snapshot.getValue(quantile) / NANOS_PER_SECOND);
+            }
+            writeSample(out, name + "_count", null, timer.getCount());
+        }
+        for (Map.Entry<String, Gauge> entry : registry.getGauges().entrySet()) {
+            Object value = entry.getValue().getValue();
+            if (value instanceof Number) {
+                String name = sanitizeName(entry.getKey());
+                writeHeader(out, name, "gauge", entry.getKey());
+                writeSample(out, name, null, ((Number) value).doubleValue());
+            }
+        }
+    }
+
+    private static void writeLatencyHistograms(Writer out) throws IOException {
+        for (Map.Entry<String, HistogramFamily> familyEntry : new TreeMap<>(LATENCY_HISTOGRAMS).entrySet()) {
+            String name = familyEntry.getKey();
+            writeHeader(out, name, "summary", familyEntry.getValue().help);
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(familyEntry.getValue().histograms).entrySet()) {
+                String labels = entry.getKey();
+                LatencyHistogram histogram = entry.getValue();
+                for (double quantile : QUANTILES) {
+                    double value = histogram.getValueAtQuantile(quantile) / NANOS_PER_SECOND;
+                    writeSample(out, name, quantileLabel(labels, quantile), value);
+                }
+                writeSample(out, name + "_sum", labels, histogram.getSum() / NANOS_PER_SECOND);
+                writeSample(out, name + "_count", labels, histogram.getCount());
+            }
+        }
+    }
+
+    private static void writeHeader(Writer out, String name, String type, String help) throws IOException {
+        if (help != null) {
+            out.write("# HELP " + name + " " + help.replace("\\", "\\\\").replace("\n", "\\n") + "\n");
+        }
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void writeSample(Writer out, String name, String labels, double value) throws IOException {
+        out.write(name);
+        if (labels != null && labels.length() > 0) {
+            out.write("{" + labels + "}");
+        }
+        out.write(" ");
+        out.write(value == (long) value ? Long.toString((long) value) : Double.toString(value));
+        out.write("\n");
+    }
+
+    private static String quantileLabel(String labels, double quantile) {
+        String quantileLabel = label("quantile", Double.toString(quantile));
+        return labels == null || labels.length() == 0 ? quantileLabel : labels + "," + quantileLabel;
+    }
+
+    private static String formatLabels(SortedMap<String, String> labels) {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, String> entry : labels.entrySet()) {
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(label(entry.getKey(), entry.getValue()));
+        }
+        return result.toString();
+    }
+
+    private static String label(String name, String value) {
+        String escapedValue = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return sanitizeName(name) + "=\"" + escapedValue + "\"";
+    }
+
+    static String sanitizeName(String name) {
+        StringBuilder result = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+                    || (i > 0 && c >= '0' && c <= '9');
+            result.append(valid ? c : '_');
+        }
+        return result.toString();
+    }
+
+    private static class HistogramFamily {
+        private final String help;
+        private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+        private HistogramFamily(String help) {
+            this.help = help;
+        }
+    }
+}
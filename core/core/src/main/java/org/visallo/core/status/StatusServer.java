@@ -16,7 +16,10 @@ import org.visallo.core.util.VisalloLoggerFactory;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Map;
 import java.util.UUID;
@@ -79,6 +82,7 @@ public abstract class StatusServer {
             try {
                 HttpServer httpServer = HttpServer.create(new InetSocketAddress(i), 0);
                 httpServer.createContext("/", new StatusHandler());
+                httpServer.createContext("/metrics", new MetricsHandler());
                 httpServer.setExecutor(null);
                 httpServer.start();
                 LOGGER.info("Started status HTTP server on port: %s", i);
@@ -118,6 +122,21 @@ public abstract class StatusServer {
         }
     }
 
+    private static class MetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange t) throws IOException {
+            try {
+                t.getResponseHeaders().set("Content-Type", PrometheusTextExporter.CONTENT_TYPE);
+                t.sendResponseHeaders(200, 0);
+                try (Writer out = new OutputStreamWriter(t.getResponseBody(), StandardCharsets.UTF_8)) {
+                    PrometheusTextExporter.write(out);
+                }
+            } catch (Throwable ex) {
+                LOGGER.error("Could not process metrics request", ex);
+            }
+        }
+    }
+
     private Status getStatus() {
         ProcessStatus status = createStatus();
         getGeneralInfo(status, this.sourceClass);
@@ -1,6 +1,19 @@
 package org.visallo.core.status.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class LongRunningProcessRunnerStatus extends WorkerRunnerStatus {
+    private Map<String, Metric> schedulerMetrics = new HashMap<>();
+
+    /**
+     * @return the queue wait and run time of each process type, see
+     * {@link org.visallo.core.model.longRunningProcess.LongRunningProcessScheduler}
+     */
+    public Map<String, Metric> getSchedulerMetrics() {
+        return schedulerMetrics;
+    }
+
     public static class LongRunningProcessWorkerStatus extends WorkerStatus {
 
     }
@@ -1,6 +1,7 @@
 package org.visallo.core.status.model;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
@@ -118,11 +119,15 @@ public abstract class Status implements ClientApiObject {
 
     @JsonTypeName("timer")
     public static class TimerMetric extends Metric {
+        private static final double NANOS_PER_MILLI = 1000000.0;
         private long count;
         private double meanRate;
         private double oneMinuteRate;
         private double fiveMinuteRate;
         private double fifteenMinuteRate;
+        private double meanDurationMillis;
+        private double percentile95DurationMillis;
+        private double maxDurationMillis;
 
         public TimerMetric() {
 
@@ -134,6 +139,10 @@ public abstract class Status implements ClientApiObject {
             this.oneMinuteRate = metric.getOneMinuteRate();
             this.fiveMinuteRate = metric.getFiveMinuteRate();
             this.fifteenMinuteRate = metric.getFifteenMinuteRate();
+            Snapshot snapshot = metric.getSnapshot();
+            this.meanDurationMillis = snapshot.getMean() / NANOS_PER_MILLI;
+            this.percentile95DurationMillis = snapshot.get95thPercentile() / NANOS_PER_MILLI;
+            this.maxDurationMillis = snapshot.getMax() / NANOS_PER_MILLI;
         }
 
         public long getCount() {
@@ -175,5 +184,29 @@ public abstract class Status implements ClientApiObject {
         public void setFifteenMinuteRate(double fifteenMinuteRate) {
             this.fifteenMinuteRate = fifteenMinuteRate;
         }
+
+        public double getMeanDurationMillis() {
+            return meanDurationMillis;
+        }
+
+        public void setMeanDurationMillis(double meanDurationMillis) {
+            this.meanDurationMillis = meanDurationMillis;
+        }
+
+        public double getPercentile95DurationMillis() {
+            return percentile95DurationMillis;
+        }
+
+        public void setPercentile95DurationMillis(double percentile95DurationMillis) {
+            this.percentile95DurationMillis = percentile95DurationMillis;
+        }
+
+        public double getMaxDurationMillis() {
+            return maxDurationMillis;
+        }
+
+        public void setMaxDurationMillis(double maxDurationMillis) {
+            this.maxDurationMillis = maxDurationMillis;
+        }
     }
 }
@@ -0,0 +1,92 @@
+package org.visallo.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An inclusive range of bytes as requested by an HTTP Range header (RFC 7233).
+ */
+public class ByteRange {
+    private static final Pattern RANGE_SPEC_PATTERN = Pattern.compile("\\s*([0-9]*)\\s*-\\s*([0-9]*)\\s*");
+    private static final String BYTES_UNIT = "bytes=";
+    private final long start;
+    private final long end;
+
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses a Range header against a value of the given length.
+     *
+     * @return null if the header is missing or malformed and the whole value should be returned, otherwise the
+     * satisfiable ranges in the order requested. An empty list means none of the ranges can be satisfied.
+     */
+    public static List<ByteRange> parse(String rangeHeader, long totalLength) {
+        if (rangeHeader == null || !rangeHeader.startsWith(BYTES_UNIT)) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String rangeSpec : rangeHeader.substring(BYTES_UNIT.length()).split(",")) {
+            Matcher m = RANGE_SPEC_PATTERN.matcher(rangeSpec);
+            if (!m.matches() || (m.group(1).length() == 0 && m.group(2).length() == 0)) {
+                return null;
+            }
+
+            long start;
+            long end;
+            try {
+                if (m.group(1).length() == 0) {
+                    long suffixLength = Long.parseLong(m.group(2));
+                    start = Math.max(0, totalLength - suffixLength);
+                    end = totalLength - 1;
+                    if (suffixLength == 0) {
+                        continue;
+                    }
+                } else {
+                    start = Long.parseLong(m.group(1));
+                    end = m.group(2).length() == 0 ? totalLength - 1 : Long.parseLong(m.group(2));
+                    if (end < start) {
+                        return null;
+                    }
+                    end = Math.min(end, totalLength - 1);
+                }
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+
+            if (start < totalLength) {
+                ranges.add(new ByteRange(start, end));
+            }
+        }
+        return ranges;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    public String toContentRange(long totalLength) {
+        return "bytes " + start + "-" + end + "/" + totalLength;
+    }
+
+    @Override
+    public String toString() {
+        return "ByteRange{" +
+                "start=" + start +
+                ", end=" + end +
+                '}';
+    }
+}
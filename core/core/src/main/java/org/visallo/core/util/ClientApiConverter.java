@@ -295,6 +295,31 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
             Iterable<HistoricalPropertyValue> historicalPropertyValues, Locale locale, ResourceBundle resourceBundle,
             boolean withVisibility
     ) {
+        return calculateHistoricalPropertyDeltas(historicalPropertyValues, null, null, locale, resourceBundle, withVisibility, true);
+    }
+
+    /**
+     * Sort HistoricalPropertyValue chronologically and generate at most pageSize events starting at the cursor.
+     * Values before the cursor are only used to rebuild the previous state of each property, no events are
+     * generated for them and their streaming values are never read.
+     *
+     * @param cursor                  position to resume from, or null to start at the oldest value
+     * @param pageSize                maximum number of events to return, or null for all events. Must be greater
+     *                                than 0, a page without events would continue at the same position forever.
+     * @param includeStreamingContent if false, streaming values are summarized by their length instead of read
+     */
+    public static ClientApiHistoricalPropertyResults calculateHistoricalPropertyDeltas(
+            Iterable<HistoricalPropertyValue> historicalPropertyValues,
+            HistoricalPropertyValueCursor cursor,
+            Integer pageSize,
+            Locale locale,
+            ResourceBundle resourceBundle,
+            boolean withVisibility,
+            boolean includeStreamingContent
+    ) {
+        if (pageSize != null && pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be greater than 0: " + pageSize);
+        }
         ClientApiHistoricalPropertyResults result = new ClientApiHistoricalPropertyResults();
 
         // Sort chronologically
@@ -304,47 +329,66 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
         Map<String, HistoricalPropertyValue> cachedValues = new HashMap<>();
         ClientApiHistoricalPropertyResults.Event event;
         HistoricalPropertyValue conceptTypeHpv;
+        HistoryValueFormatter formatter = new HistoryValueFormatter(locale, resourceBundle, withVisibility, includeStreamingContent);
 
+        long currentTimestamp = Long.MIN_VALUE;
+        int offsetAtTimestamp = 0;
         int i = 0;
         for (HistoricalPropertyValue hpv : sortedHistoricalValues) {
+            if (hpv.getTimestamp() != currentTimestamp) {
+                currentTimestamp = hpv.getTimestamp();
+                offsetAtTimestamp = 0;
+            }
+            boolean generateEvent = cursor == null || !cursor.isBefore(hpv, offsetAtTimestamp);
+            if (generateEvent && pageSize != null && result.events.size() >= pageSize) {
+                result.continuationToken = new HistoricalPropertyValueCursor(currentTimestamp, offsetAtTimestamp).toContinuationToken();
+                break;
+            }
+
             String key = hpv.getPropertyKey() + hpv.getPropertyName();
             HistoricalPropertyValue cached = cachedValues.get(key);
             event = null;
 
             if (cached == null) { // Add
                 if (hpv.getPropertyName().equals(VisalloProperties.CONCEPT_TYPE.getPropertyName())) {
-                    conceptTypeHpv = hpv;
-                    HistoricalPropertyValue modifiedByHpv = cachedValues.get(VisalloProperties.MODIFIED_BY.getPropertyName());
-
-                    int j = i;
-                    while (modifiedByHpv == null && j < sortedHistoricalValues.size()) {
-                        HistoricalPropertyValue v = sortedHistoricalValues.get(j);
-                        if (v.getPropertyName().equals(VisalloProperties.MODIFIED_BY.getPropertyName())) {
-                            modifiedByHpv = v;
+                    if (generateEvent) {
+                        conceptTypeHpv = hpv;
+                        HistoricalPropertyValue modifiedByHpv = cachedValues.get(VisalloProperties.MODIFIED_BY.getPropertyName());
+
+                        int j = i;
+                        while (modifiedByHpv == null && j < sortedHistoricalValues.size()) {
+                            HistoricalPropertyValue v = sortedHistoricalValues.get(j);
+                            if (v.getPropertyName().equals(VisalloProperties.MODIFIED_BY.getPropertyName())) {
+                                modifiedByHpv = v;
+                            }
+                            j++;
                         }
-                        j++;
-                    }
 
-                    event = generatePropertyAddedEvent(conceptTypeHpv, locale, resourceBundle, withVisibility);
+                        event = generatePropertyAddedEvent(conceptTypeHpv, formatter);
 
-                    if (modifiedByHpv != null) {
-                        // Use the ModifiedBy property to complete the ConceptType event
-                        ClientApiHistoricalPropertyResults.Event modifiedByEvent = generatePropertyAddedEvent(modifiedByHpv, locale, resourceBundle, withVisibility);
-                        event.modifiedBy = modifiedByEvent.fields.get("value");
+                        if (modifiedByHpv != null) {
+                            // Use the ModifiedBy property to complete the ConceptType event
+                            ClientApiHistoricalPropertyResults.Event modifiedByEvent = generatePropertyAddedEvent(modifiedByHpv, formatter);
+                            event.modifiedBy = modifiedByEvent.fields.get("value");
+                        }
                     }
                 } else {
-                    event = generatePropertyAddedEvent(hpv, locale, resourceBundle, withVisibility);
+                    if (generateEvent) {
+                        event = generatePropertyAddedEvent(hpv, formatter);
+                    }
                     cachedValues.put(key, hpv);
                 }
             } else if (hpv.isDeleted()) {  // Delete
                 // Non-consecutive delete events
-                if (hpv.isDeleted() != cached.isDeleted()) {
-                    event = generatePropertyDeletedEvent(hpv, locale, resourceBundle, withVisibility);
+                if (generateEvent && hpv.isDeleted() != cached.isDeleted()) {
+                    event = generatePropertyDeletedEvent(hpv, formatter);
                 }
                 cachedValues.remove(key);
             } else { // Check if modified
                 if (hasHistoricalPropertyChanged(cached, hpv, withVisibility)) {
-                    event = generatePropertyModifiedEvent(hpv, cached, locale, resourceBundle, withVisibility);
+                    if (generateEvent) {
+                        event = generatePropertyModifiedEvent(hpv, cached, formatter);
+                    }
                 } else {
                     LOGGER.debug("Historical property value did not change. Ignore");
                     LOGGER.debug("  was:" + hpv);
@@ -356,6 +400,7 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
                 result.events.add(event);
             }
 
+            offsetAtTimestamp++;
             i++;
         }
 
@@ -374,21 +419,15 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
 
     private static ClientApiHistoricalPropertyResults.Event generatePropertyAddedEvent(
             HistoricalPropertyValue hpv,
-            Locale locale,
-            ResourceBundle resourceBundle,
-            boolean withVisibility
+            HistoryValueFormatter formatter
     ) {
         ClientApiHistoricalPropertyResults.Event event = generateGenericEvent(hpv);
         event.setEventType(ClientApiHistoricalPropertyResults.EventType.PROPERTY_ADDED);
         Map<String, String> fields = new HashMap<>();
 
-        Object value = hpv.getValue();
-        if (value instanceof StreamingPropertyValue) {
-            value = readStreamingPropertyValueForHistory((StreamingPropertyValue) value, locale, resourceBundle);
-        }
-        fields.put("value", toClientApiValue(value).toString());
+        fields.put("value", formatter.formatValue(hpv.getValue()));
 
-        if (withVisibility) {
+        if (formatter.withVisibility) {
             fields.put("visibility", removeWorkspaceVisibility(hpv.getPropertyVisibility().getVisibilityString()));
         }
         event.fields = fields;
@@ -398,9 +437,7 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
 
     private static ClientApiHistoricalPropertyResults.Event generatePropertyDeletedEvent(
             HistoricalPropertyValue hpv,
-            Locale locale,
-            ResourceBundle resourceBundle,
-            boolean withVisibility
+            HistoryValueFormatter formatter
     ) {
 
         ClientApiHistoricalPropertyResults.Event event = generateGenericEvent(hpv);
@@ -409,13 +446,10 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
 
         Object value = hpv.getValue();
         if (value != null) {
-            if (value instanceof StreamingPropertyValue) {
-                value = readStreamingPropertyValueForHistory((StreamingPropertyValue) value, locale, resourceBundle);
-            }
-            changed.put("value", toClientApiValue(value).toString());
+            changed.put("value", formatter.formatValue(value));
         }
 
-        if (withVisibility) {
+        if (formatter.withVisibility) {
             changed.put("visibility", removeWorkspaceVisibility(hpv.getPropertyVisibility().getVisibilityString()));
         }
         event.fields = null;
@@ -427,9 +461,7 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
     private static ClientApiHistoricalPropertyResults.Event generatePropertyModifiedEvent(
             HistoricalPropertyValue hpv,
             HistoricalPropertyValue cached,
-            Locale locale,
-            ResourceBundle resourceBundle,
-            boolean withVisibility
+            HistoryValueFormatter formatter
     ) {
         ClientApiHistoricalPropertyResults.Event event = generateGenericEvent(hpv);
         event.setEventType(ClientApiHistoricalPropertyResults.EventType.PROPERTY_MODIFIED);
@@ -437,16 +469,12 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
         Map<String, String> fields = new HashMap<>();
         Map<String, String> changed = new HashMap<>();
 
-        Object value = hpv.getValue();
-        if (value instanceof StreamingPropertyValue) {
-            value = readStreamingPropertyValueForHistory((StreamingPropertyValue) value, locale, resourceBundle);
-        }
-        fields.put("value", toClientApiValue(value).toString());
+        fields.put("value", formatter.formatValue(hpv.getValue()));
         if (!hpv.getValue().equals(cached.getValue())) {
-            changed.put("value", toClientApiValue(cached.getValue()).toString());
+            changed.put("value", formatter.formatValue(cached.getValue()));
         }
 
-        if (withVisibility) {
+        if (formatter.withVisibility) {
             String currentVis = removeWorkspaceVisibility(hpv.getPropertyVisibility().getVisibilityString());
             String previousVis = removeWorkspaceVisibility(cached.getPropertyVisibility().getVisibilityString());
             fields.put("visibility", currentVis);
@@ -485,17 +513,62 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
         return calculateHistoricalPropertyDeltas(historicalPropertyValues, locale, resourceBundle, withVisibility);
     }
 
-    ;
+    public static ClientApiHistoricalPropertyResults toClientApi(
+            Iterable<HistoricalPropertyValue> historicalPropertyValues,
+            HistoricalPropertyValueCursor cursor,
+            Integer pageSize,
+            Locale locale,
+            ResourceBundle resourceBundle,
+            boolean withVisibility,
+            boolean includeStreamingContent
+    ) {
+        return calculateHistoricalPropertyDeltas(
+                historicalPropertyValues,
+                cursor,
+                pageSize,
+                locale,
+                resourceBundle,
+                withVisibility,
+                includeStreamingContent
+        );
+    }
+
+    private static class HistoryValueFormatter {
+        private final Locale locale;
+        private final ResourceBundle resourceBundle;
+        private final boolean withVisibility;
+        private final boolean includeStreamingContent;
+
+        private HistoryValueFormatter(
+                Locale locale,
+                ResourceBundle resourceBundle,
+                boolean withVisibility,
+                boolean includeStreamingContent
+        ) {
+            this.locale = locale;
+            this.resourceBundle = resourceBundle;
+            this.withVisibility = withVisibility;
+            this.includeStreamingContent = includeStreamingContent;
+        }
+
+        private String formatValue(Object value) {
+            if (value instanceof StreamingPropertyValue) {
+                value = readStreamingPropertyValueForHistory((StreamingPropertyValue) value, this);
+            }
+            return toClientApiValue(value).toString();
+        }
+    }
 
     private static String readStreamingPropertyValueForHistory(
             StreamingPropertyValue spv,
-            Locale locale,
-            ResourceBundle resourceBundle
+            HistoryValueFormatter formatter
     ) {
-        if (spv.getValueType() == String.class) {
-            return readStreamingPropertyValueStringForHistory(spv);
+        if (spv.getValueType() != String.class) {
+            return String.format(formatter.locale, formatter.resourceBundle.getString("history.nondisplayable"), spv.getLength());
+        } else if (!formatter.includeStreamingContent) {
+            return String.format(formatter.locale, formatter.resourceBundle.getString("history.streamingsummary"), spv.getLength());
         } else {
-            return String.format(locale, resourceBundle.getString("history.nondisplayable"), spv.getLength());
+            return readStreamingPropertyValueStringForHistory(spv);
         }
     }
 
@@ -592,6 +665,25 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
         return results;
     }
 
+    /**
+     * @param propertyNames the names of the properties to include, or null to include every property
+     */
+    public static ClientApiExtendedDataRow toClientApiExtendedDataRow(
+            ExtendedDataRow row,
+            String workspaceId,
+            Set<String> propertyNames
+    ) {
+        if (propertyNames == null) {
+            return toClientApiExtendedDataRow(row, workspaceId);
+        }
+        ClientApiExtendedDataRow results = new ClientApiExtendedDataRow(toClientApiExtendedDataRowId(row.getId()));
+        List<Property> properties = stream(row.getProperties())
+                .filter(property -> propertyNames.contains(property.getName()))
+                .collect(Collectors.toList());
+        results.getProperties().addAll(toClientApiProperties(properties, workspaceId));
+        return results;
+    }
+
     public static ClientApiExtendedDataRowId toClientApiExtendedDataRowId(ExtendedDataRowId id) {
         return new ClientApiExtendedDataRowId(
                 id.getElementType().name(),
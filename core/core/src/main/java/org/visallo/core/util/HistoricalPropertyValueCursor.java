@@ -0,0 +1,75 @@
+package org.visallo.core.util;
+
+import org.vertexium.HistoricalPropertyValue;
+
+/**
+ * Position within the chronologically sorted history of an element. The cursor points at the first
+ * historical value that has not been turned into an event yet, identified by its timestamp and the number
+ * of values with that same timestamp that precede it.
+ */
+public class HistoricalPropertyValueCursor {
+    private static final String SEPARATOR = ":";
+    private final long timestamp;
+    private final int offset;
+
+    public HistoricalPropertyValueCursor(long timestamp, int offset) {
+        this.timestamp = timestamp;
+        this.offset = offset;
+    }
+
+    /**
+     * @return the cursor, or null if there is no token
+     * @throws IllegalArgumentException if the token was not created by {@link #toContinuationToken()}
+     */
+    public static HistoricalPropertyValueCursor parse(String continuationToken) {
+        if (continuationToken == null || continuationToken.trim().length() == 0) {
+            return null;
+        }
+        String[] parts = continuationToken.split(SEPARATOR);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid history continuation token: " + continuationToken);
+        }
+        int offset;
+        long timestamp;
+        try {
+            timestamp = Long.parseLong(parts[0]);
+            offset = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid history continuation token: " + continuationToken, ex);
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Invalid history continuation token: " + continuationToken);
+        }
+        return new HistoricalPropertyValueCursor(timestamp, offset);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @param hpv                 the historical value being processed
+     * @param offsetAtTimestamp   the number of values already seen with the same timestamp as hpv
+     * @return true if hpv was already returned in a previous page
+     */
+    public boolean isBefore(HistoricalPropertyValue hpv, int offsetAtTimestamp) {
+        return hpv.getTimestamp() < timestamp
+                || (hpv.getTimestamp() == timestamp && offsetAtTimestamp < offset);
+    }
+
+    public String toContinuationToken() {
+        return timestamp + SEPARATOR + offset;
+    }
+
+    @Override
+    public String toString() {
+        return "HistoricalPropertyValueCursor{" +
+                "timestamp=" + timestamp +
+                ", offset=" + offset +
+                '}';
+    }
+}
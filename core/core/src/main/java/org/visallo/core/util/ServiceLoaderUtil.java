@@ -1,7 +1,10 @@
 package org.visallo.core.util;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.inject.Injector;
+import com.google.inject.Scopes;
 import org.visallo.core.bootstrap.InjectHelper;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
@@ -13,18 +16,43 @@ import java.io.InputStreamReader;
 import java.lang.reflect.Constructor;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class exists to provide much deeper and extensive debugging and logging as
  * opposed to (@see java.util.ServiceLoader)
+ * <p>
+ * The classes found for each service interface are cached per configuration and class loader, as are the instances
+ * of services bound as singletons. The cache is rebuilt when the configuration is modified, since that can change
+ * which services are disabled, and can be cleared with {@link #clearCache()}.
  */
 public class ServiceLoaderUtil {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ServiceLoaderUtil.class);
     private static final String PREFIX = "META-INF/services/";
     public static final String CONFIG_DISABLE_PREFIX = "disable.";
+    private static final Map<Configuration, Registry> registries = Collections.synchronizedMap(new WeakHashMap<>());
 
+    @SuppressWarnings("unchecked")
     public static <T> Iterable<T> load(Class<T> clazz, Configuration configuration) {
+        Registry registry = getRegistry(configuration);
+        Injector injector = InjectHelper.getInjector();
+        if (registry != null && injector != null) {
+            List<?> instances = registry.getSingletonInstances(clazz, injector);
+            if (instances != null) {
+                return (List<T>) instances;
+            }
+        }
+
         Iterable<Class<? extends T>> classes = loadClasses(clazz, configuration);
+        if (registry != null && injector != null && areAllSingletons(classes, injector)) {
+            List<T> instances = ImmutableList.copyOf(instantiate(classes));
+            registry.putSingletonInstances(clazz, injector, instances);
+            return instances;
+        }
+        return instantiate(classes);
+    }
+
+    private static <T> Iterable<T> instantiate(Iterable<Class<? extends T>> classes) {
         return Iterables.transform(classes, new Function<Class<? extends T>, T>() {
             @Nullable
             @Override
@@ -58,7 +86,66 @@ public class ServiceLoaderUtil {
         });
     }
 
+    @SuppressWarnings("unchecked")
     public static <T> Iterable<Class<? extends T>> loadClasses(Class<T> clazz, Configuration configuration) {
+        Registry registry = getRegistry(configuration);
+        if (registry == null) {
+            return scanClasses(clazz, configuration);
+        }
+        // not computeIfAbsent, loading a service class may look up other services from its static initializer
+        List<Class<?>> classes = registry.classes.get(clazz);
+        if (classes == null) {
+            classes = ImmutableList.copyOf(scanClasses(clazz, configuration));
+            registry.classes.putIfAbsent(clazz, classes);
+        }
+        return (List<Class<? extends T>>) (List) classes;
+    }
+
+    /**
+     * Forgets all cached service classes and instances. The next lookup for each service interface scans the
+     * class path again.
+     */
+    public static void clearCache() {
+        registries.clear();
+    }
+
+    /**
+     * @return the registry for the configuration, or null if results should not be cached for the current
+     * class loader
+     */
+    private static Registry getRegistry(Configuration configuration) {
+        if (configuration == null) {
+            return null;
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        synchronized (registries) {
+            Registry registry = registries.get(configuration);
+            if (registry == null || registry.modificationCount != configuration.getModificationCount()) {
+                if (registry != null) {
+                    LOGGER.debug("configuration was modified, rebuilding service registry");
+                }
+                registry = new Registry(classLoader, configuration.getModificationCount());
+                registries.put(configuration, registry);
+            }
+            return registry.classLoader == classLoader ? registry : null;
+        }
+    }
+
+    private static <T> boolean areAllSingletons(Iterable<Class<? extends T>> classes, Injector injector) {
+        try {
+            for (Class<? extends T> serviceClass : classes) {
+                if (!Scopes.isSingleton(injector.getBinding(serviceClass))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception ex) {
+            // let InjectHelper.getInstance report the problem with the binding
+            return false;
+        }
+    }
+
+    private static <T> Set<Class<? extends T>> scanClasses(Class<T> clazz, Configuration configuration) {
         Set<Class<? extends T>> services = new HashSet<>();
         String fullName = PREFIX + clazz.getName();
         LOGGER.debug("loading services for class %s", fullName);
@@ -123,4 +210,32 @@ public class ServiceLoaderUtil {
             throw new VisalloException(errorMessage, t);
         }
     }
+
+    private static class Registry {
+        private final ClassLoader classLoader;
+        private final long modificationCount;
+        private final Map<Class<?>, List<Class<?>>> classes = new ConcurrentHashMap<>();
+        private final Map<Class<?>, List<?>> singletonInstances = new ConcurrentHashMap<>();
+        private Injector singletonInstancesInjector;
+
+        private Registry(ClassLoader classLoader, long modificationCount) {
+            this.classLoader = classLoader;
+            this.modificationCount = modificationCount;
+        }
+
+        private synchronized List<?> getSingletonInstances(Class<?> clazz, Injector injector) {
+            if (injector != singletonInstancesInjector) {
+                return null;
+            }
+            return singletonInstances.get(clazz);
+        }
+
+        private synchronized void putSingletonInstances(Class<?> clazz, Injector injector, List<?> instances) {
+            if (injector != singletonInstancesInjector) {
+                singletonInstances.clear();
+                singletonInstancesInjector = injector;
+            }
+            singletonInstances.put(clazz, instances);
+        }
+    }
 }
@@ -0,0 +1,309 @@
+package org.visallo.core.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import org.vertexium.property.StreamingPropertyValue;
+import org.visallo.core.exception.VisalloException;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes byte ranges of a {@link StreamingPropertyValue} without reading the bytes that precede them more than
+ * once.
+ * <ul>
+ * <li>File backed values whose input stream is a {@link FileInputStream} are read positionally through its
+ * {@link FileChannel} and copied with {@link FileChannel#transferTo(long, long, WritableByteChannel)}. File
+ * streams wrapped by the store, for example in a {@link BufferedInputStream}, are read forward like other
+ * values, skipping through the wrapper seeks the file.</li>
+ * <li>Values that were spilled for an earlier request with the same cache key are read from the spill file the
+ * same way.</li>
+ * <li>Other values are read in a single forward pass when the ranges are ascending and do not overlap, skipping
+ * the bytes between them. Stores that can seek implement {@link InputStream#skip(long)} by seeking.</li>
+ * <li>Otherwise the value is spilled to a local file which is then read like a file backed value. Spill files are
+ * shared by the requests for the same cache key until they are evicted by total size or after
+ * {@link #SPILL_FILE_EXPIRE_MINUTES} minutes without use, and are deleted once the last request reading them
+ * finishes.</li>
+ * </ul>
+ */
+public class StreamingPropertyValueRangeWriter {
+    public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    public static final long DEFAULT_MAX_SPILL_SIZE_BYTES = 1024L * 1024 * 1024;
+    public static final int SPILL_FILE_EXPIRE_MINUTES = 10;
+    private final int bufferSize;
+    private final File spillDirectory;
+    private final long maxSpillSizeBytes;
+    private final Cache<String, SpillFile> spillFiles;
+
+    public StreamingPropertyValueRangeWriter(int bufferSize, File spillDirectory, long maxSpillSizeBytes) {
+        this.bufferSize = bufferSize;
+        this.spillDirectory = spillDirectory;
+        this.maxSpillSizeBytes = maxSpillSizeBytes;
+        this.spillFiles = CacheBuilder.newBuilder()
+                .maximumWeight(maxSpillSizeBytes)
+                .weigher((String cacheKey, SpillFile spillFile) -> (int) Math.min(Integer.MAX_VALUE, spillFile.length))
+                .expireAfterAccess(SPILL_FILE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .removalListener((RemovalListener<String, SpillFile>) notification -> notification.getValue().evict())
+                .build();
+    }
+
+    public void write(String cacheKey, StreamingPropertyValue value, ByteRange range, OutputStream out) throws IOException {
+        write(cacheKey, value, Collections.singletonList(range), out, null);
+    }
+
+    /**
+     * @param cacheKey      identifies the value across requests so a spill file can be shared, for example the
+     *                      element id, property key, name and timestamp. May be null to never share the spill file.
+     * @param rangeListener called before each range is written, for example to write a multipart header. May be
+     *                      null.
+     */
+    public void write(
+            String cacheKey,
+            StreamingPropertyValue value,
+            List<ByteRange> ranges,
+            OutputStream out,
+            RangeListener rangeListener
+    ) throws IOException {
+        SpillFile spillFile = cacheKey == null ? null : spillFiles.getIfPresent(cacheKey);
+        if (spillFile != null && writeFromSpillFile(spillFile, ranges, out, rangeListener)) {
+            return;
+        }
+
+        try (InputStream in = value.getInputStream()) {
+            FileChannel channel = getFileChannel(in);
+            if (channel != null) {
+                write(channel, ranges, out, rangeListener);
+            } else if (isAscending(ranges)) {
+                writeForward(in, ranges, out, rangeListener);
+            } else if (cacheKey == null || value.getLength() > maxSpillSizeBytes) {
+                writeFromSpillFile(spill(in, false), ranges, out, rangeListener);
+            } else {
+                writeFromSharedSpillFile(cacheKey, value, in, ranges, out, rangeListener);
+            }
+        }
+    }
+
+    private void write(
+            FileChannel channel,
+            List<ByteRange> ranges,
+            OutputStream out,
+            RangeListener rangeListener
+    ) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        for (ByteRange range : ranges) {
+            if (rangeListener != null) {
+                rangeListener.beforeRange(range);
+            }
+            long position = range.getStart();
+            long remaining = range.getLength();
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    throw new EOFException("Unexpected end of file at position " + position + " writing " + range);
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private void writeForward(
+            InputStream in,
+            List<ByteRange> ranges,
+            OutputStream out,
+            RangeListener rangeListener
+    ) throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        long position = 0;
+        for (ByteRange range : ranges) {
+            skipFully(in, range.getStart() - position);
+            if (rangeListener != null) {
+                rangeListener.beforeRange(range);
+            }
+            if (copy(in, out, range.getLength(), buffer) > 0) {
+                throw new EOFException("Unexpected end of stream writing " + range);
+            }
+            position = range.getEnd() + 1;
+        }
+    }
+
+    private void writeFromSharedSpillFile(
+            String cacheKey,
+            StreamingPropertyValue value,
+            InputStream in,
+            List<ByteRange> ranges,
+            OutputStream out,
+            RangeListener rangeListener
+    ) throws IOException {
+        SpillFile spillFile;
+        try {
+            // concurrent requests for the same value wait for the first one to spill it
+            spillFile = spillFiles.get(cacheKey, () -> spill(in, true));
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new VisalloException("Could not spill " + cacheKey, ex.getCause());
+        }
+        if (writeFromSpillFile(spillFile, ranges, out, rangeListener)) {
+            return;
+        }
+
+        // evicted before it could be read, the stream may already have been spilled so it is opened again
+        try (InputStream retryIn = value.getInputStream()) {
+            writeFromSpillFile(spill(retryIn, false), ranges, out, rangeListener);
+        }
+    }
+
+    /**
+     * @return false if the spill file was deleted before it could be read
+     */
+    private boolean writeFromSpillFile(
+            SpillFile spillFile,
+            List<ByteRange> ranges,
+            OutputStream out,
+            RangeListener rangeListener
+    ) throws IOException {
+        if (!spillFile.acquire()) {
+            return false;
+        }
+        try {
+            write(spillFile.channel, ranges, out, rangeListener);
+            return true;
+        } finally {
+            spillFile.release();
+        }
+    }
+
+    /**
+     * @param shared true if the spill file is added to the spill file cache, otherwise it is deleted once it is
+     *               released
+     */
+    private SpillFile spill(InputStream in, boolean shared) throws IOException {
+        File file = File.createTempFile("visallo-spv-", ".spill", spillDirectory);
+        try {
+            try (OutputStream spillOut = new FileOutputStream(file)) {
+                copy(in, spillOut, Long.MAX_VALUE, new byte[bufferSize]);
+            }
+            return new SpillFile(file, shared);
+        } catch (IOException | RuntimeException ex) {
+            deleteFile(file);
+            throw ex;
+        }
+    }
+
+    /**
+     * @return the channel of the file the stream reads, or null if the stream does not read a file directly
+     */
+    private static FileChannel getFileChannel(InputStream in) {
+        if (in instanceof FileInputStream) {
+            return ((FileInputStream) in).getChannel();
+        }
+        return null;
+    }
+
+    private static void deleteFile(File file) {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private static boolean isAscending(List<ByteRange> ranges) {
+        long position = 0;
+        for (ByteRange range : ranges) {
+            if (range.getStart() < position) {
+                return false;
+            }
+            position = range.getEnd() + 1;
+        }
+        return true;
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("Unexpected end of stream while skipping");
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    /**
+     * @return the number of bytes that could not be copied because the end of the stream was reached
+     */
+    private static long copy(InputStream in, OutputStream out, long length, byte[] buffer) throws IOException {
+        int read;
+        while (length > 0 && (read = in.read(buffer, 0, (int) Math.min(length, buffer.length))) > 0) {
+            out.write(buffer, 0, read);
+            length -= read;
+        }
+        return length;
+    }
+
+    public interface RangeListener {
+        void beforeRange(ByteRange range) throws IOException;
+    }
+
+    private static class SpillFile {
+        private final File file;
+        private final long length;
+        private final FileChannel channel;
+        private final boolean shared;
+        private int references;
+        private boolean evicted;
+        private boolean closed;
+
+        private SpillFile(File file, boolean shared) throws IOException {
+            this.file = file;
+            this.length = file.length();
+            this.channel = new RandomAccessFile(file, "r").getChannel();
+            this.shared = shared;
+        }
+
+        private synchronized boolean acquire() {
+            if (closed) {
+                return false;
+            }
+            references++;
+            return true;
+        }
+
+        private synchronized void release() {
+            references--;
+            // spill files that are not shared are deleted after their only use
+            if (!shared) {
+                evicted = true;
+            }
+            closeIfUnused();
+        }
+
+        private synchronized void evict() {
+            evicted = true;
+            closeIfUnused();
+        }
+
+        private void closeIfUnused() {
+            if (!evicted || references > 0 || closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // the file is deleted below either way
+            }
+            deleteFile(file);
+        }
+    }
+}
@@ -12,9 +12,14 @@ import org.visallo.core.user.User;
 import org.visallo.web.clientapi.model.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 import static org.vertexium.util.IterableUtils.count;
@@ -43,7 +48,8 @@ public class VertexiumWorkspaceRepositoryTest extends WorkspaceRepositoryTestBas
                 getTermMentionRepository(),
                 getOntologyRepository(),
                 getWorkQueueRepository(),
-                getAuthorizationRepository()
+                getAuthorizationRepository(),
+                getProductExtendedDataCache()
         ) {
             @Override
             protected Collection<WorkspaceListener> getWorkspaceListeners() {
@@ -243,4 +249,75 @@ public class VertexiumWorkspaceRepositoryTest extends WorkspaceRepositoryTestBas
                 count(getGraph().getEdges(allAuths))
         ); // +2 = the edges between workspaces and users
     }
+
+    @Test
+    public void testEntityChangesIncrementVersion() {
+        String workspaceId = "testWorkspaceId";
+        Workspace workspace = getWorkspaceRepository().add(workspaceId, "workspace1", user);
+        Authorizations authorizations = getWorkspaceAuthorizations(workspaceId);
+        assertEquals(0L, getWorkspaceVersion(workspaceId, authorizations));
+        addVertices(authorizations, "v1", "v2");
+
+        getWorkspaceRepository().updateEntitiesOnWorkspace(workspace, Arrays.asList("v1", "v2"), user);
+        assertEquals(1L, getWorkspaceVersion(workspaceId, authorizations));
+        assertNotNull(getGraph().getEdge(WorkspaceRepository.getWorkspaceToEntityEdgeId(workspaceId, "v1"), authorizations));
+        assertNotNull(getGraph().getEdge(WorkspaceRepository.getWorkspaceToEntityEdgeId(workspaceId, "v2"), authorizations));
+
+        getWorkspaceRepository().updateEntitiesOnWorkspace(workspace, Collections.emptyList(), user);
+        assertEquals(1L, getWorkspaceVersion(workspaceId, authorizations));
+
+        getWorkspaceRepository().softDeleteEntitiesFromWorkspace(workspace, Collections.singletonList("v1"), user);
+        assertEquals(2L, getWorkspaceVersion(workspaceId, authorizations));
+    }
+
+    @Test
+    public void testConcurrentEntityUpdatesDoNotLoseVersions() throws Exception {
+        String workspaceId = "testWorkspaceId";
+        Workspace workspace = getWorkspaceRepository().add(workspaceId, "workspace1", user);
+        Authorizations authorizations = getWorkspaceAuthorizations(workspaceId);
+        int threadCount = 4;
+        int updatesPerThread = 10;
+        List<String> vertexIds = new ArrayList<>();
+        List<Callable<Void>> updates = new ArrayList<>();
+        for (int i = 0; i < threadCount * updatesPerThread; i++) {
+            String vertexId = "v" + i;
+            addVertices(authorizations, vertexId);
+            vertexIds.add(vertexId);
+            updates.add(() -> {
+                getWorkspaceRepository().updateEntitiesOnWorkspace(workspace, Collections.singletonList(vertexId), user);
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            for (Future<Void> future : executor.invokeAll(updates)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals((long) vertexIds.size(), getWorkspaceVersion(workspaceId, authorizations));
+        for (String vertexId : vertexIds) {
+            String edgeId = WorkspaceRepository.getWorkspaceToEntityEdgeId(workspaceId, vertexId);
+            assertNotNull(edgeId, getGraph().getEdge(edgeId, authorizations));
+        }
+    }
+
+    private Authorizations getWorkspaceAuthorizations(String workspaceId) {
+        return getAuthorizationRepository().getGraphAuthorizations(user, WorkspaceRepository.VISIBILITY_STRING, workspaceId);
+    }
+
+    private void addVertices(Authorizations authorizations, String... vertexIds) {
+        for (String vertexId : vertexIds) {
+            getGraph().addVertex(vertexId, new Visibility(""), authorizations);
+        }
+        getGraph().flush();
+    }
+
+    private long getWorkspaceVersion(String workspaceId, Authorizations authorizations) {
+        Vertex workspaceVertex = getGraph().getVertex(workspaceId, authorizations);
+        return WorkspaceProperties.VERSION.getPropertyValue(workspaceVertex, 0L);
+    }
 }
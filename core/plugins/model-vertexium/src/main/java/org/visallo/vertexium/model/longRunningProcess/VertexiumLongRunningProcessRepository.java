@@ -1,8 +1,10 @@
 package org.visallo.vertexium.model.longRunningProcess;
 
 import com.google.inject.Inject;
+import org.apache.commons.io.IOUtils;
 import org.json.JSONObject;
 import org.vertexium.*;
+import org.vertexium.property.StreamingPropertyValue;
 import org.vertexium.util.ConvertingIterable;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.longRunningProcess.LongRunningProcessProperties;
@@ -15,6 +17,10 @@ import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.user.SystemUser;
 import org.visallo.core.user.User;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -224,6 +230,65 @@ public class VertexiumLongRunningProcessRepository extends LongRunningProcessRep
         }
     }
 
+    @Override
+    public void saveCheckpoint(String longRunningProcessId, JSONObject checkpoint) {
+        Authorizations authorizations = getAuthorizations(userRepository.getSystemUser());
+        Vertex vertex = this.graph.getVertex(longRunningProcessId, authorizations);
+        checkNotNull(vertex, "Could not find long running process vertex: " + longRunningProcessId);
+        LongRunningProcessProperties.CHECKPOINT_JSON_PROPERTY.setProperty(
+                vertex,
+                checkpoint,
+                getVisibility(),
+                authorizations
+        );
+        this.graph.flush();
+    }
+
+    @Override
+    public JSONObject findCheckpoint(String longRunningProcessId) {
+        Authorizations authorizations = getAuthorizations(userRepository.getSystemUser());
+        Vertex vertex = this.graph.getVertex(longRunningProcessId, authorizations);
+        if (vertex == null) {
+            return null;
+        }
+        return LongRunningProcessProperties.CHECKPOINT_JSON_PROPERTY.getPropertyValue(vertex);
+    }
+
+    @Override
+    public void saveResults(String longRunningProcessId, JSONObject results) {
+        Authorizations authorizations = getAuthorizations(userRepository.getSystemUser());
+        Vertex vertex = this.graph.getVertex(longRunningProcessId, authorizations);
+        checkNotNull(vertex, "Could not find long running process vertex: " + longRunningProcessId);
+        byte[] resultsBytes = results.toString().getBytes(StandardCharsets.UTF_8);
+        StreamingPropertyValue value = new StreamingPropertyValue(new ByteArrayInputStream(resultsBytes), byte[].class);
+        value.searchIndex(false);
+        LongRunningProcessProperties.RESULTS_JSON_PROPERTY.setProperty(
+                vertex,
+                value,
+                getVisibility(),
+                authorizations
+        );
+        this.graph.flush();
+    }
+
+    @Override
+    public JSONObject findResults(String longRunningProcessId, User user) {
+        Authorizations authorizations = getAuthorizations(user);
+        Vertex vertex = this.graph.getVertex(longRunningProcessId, authorizations);
+        if (vertex == null) {
+            return null;
+        }
+        StreamingPropertyValue value = LongRunningProcessProperties.RESULTS_JSON_PROPERTY.getPropertyValue(vertex);
+        if (value == null) {
+            return null;
+        }
+        try (InputStream in = value.getInputStream()) {
+            return new JSONObject(IOUtils.toString(in, StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new VisalloException("Could not read results of long running process: " + longRunningProcessId, ex);
+        }
+    }
+
     private Visibility getVisibility() {
         return new Visibility(VISIBILITY_STRING);
     }
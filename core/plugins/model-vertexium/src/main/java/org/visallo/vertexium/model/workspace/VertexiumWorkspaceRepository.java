@@ -12,11 +12,11 @@ import org.apache.commons.codec.digest.DigestUtils;
 import org.json.JSONObject;
 import org.vertexium.*;
 import org.vertexium.mutation.ExistingEdgeMutation;
+import org.vertexium.mutation.ExistingElementMutation;
 import org.vertexium.property.StreamingPropertyValue;
 import org.vertexium.query.Compare;
 import org.vertexium.query.QueryResultsIterable;
 import org.vertexium.search.IndexHint;
-import org.vertexium.util.FilterIterable;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloAccessDeniedException;
 import org.visallo.core.exception.VisalloException;
@@ -37,6 +37,7 @@ import org.visallo.core.model.workQueue.Priority;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.model.workspace.*;
 import org.visallo.core.model.workspace.product.Product;
+import org.visallo.core.model.workspace.product.ProductExtendedDataCache;
 import org.visallo.core.model.workspace.product.WorkProductService;
 import org.visallo.core.model.workspace.product.WorkProductServiceHasElements;
 import org.visallo.core.security.VisalloVisibility;
@@ -71,6 +72,7 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
     private final GraphAuthorizationRepository graphAuthorizationRepository;
     private final WorkspaceDiffHelper workspaceDiff;
     private final LockRepository lockRepository;
+    private final ProductExtendedDataCache productExtendedDataCache;
 
     private Cache<String, Boolean> usersWithReadAccessCache = CacheBuilder.newBuilder()
             .expireAfterWrite(15, TimeUnit.SECONDS)
@@ -109,7 +111,8 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
             TermMentionRepository termMentionRepository,
             OntologyRepository ontologyRepository,
             WorkQueueRepository workQueueRepository,
-            AuthorizationRepository authorizationRepository
+            AuthorizationRepository authorizationRepository,
+            ProductExtendedDataCache productExtendedDataCache
     ) {
         super(
                 graph,
@@ -125,6 +128,7 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
         this.graphAuthorizationRepository = graphAuthorizationRepository;
         this.workspaceDiff = workspaceDiff;
         this.lockRepository = lockRepository;
+        this.productExtendedDataCache = productExtendedDataCache;
 
         graphAuthorizationRepository.addAuthorizationToGraph(VISIBILITY_STRING);
         graphAuthorizationRepository.addAuthorizationToGraph(VisalloVisibility.SUPER_USER_VISIBILITY_STRING);
@@ -426,10 +430,7 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
             );
         }
 
-        return lockRepository.lock(
-                getLockName(workspace),
-                () -> findEntitiesNoLock(workspace, false, fetchVertices, user)
-        );
+        return Collections.unmodifiableList(findEntitiesNoLock(workspace, false, fetchVertices, user));
     }
 
     @Traced
@@ -542,22 +543,20 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
                 VISIBILITY_STRING,
                 workspace.getWorkspaceId()
         );
-        final Vertex workspaceVertex = getVertexFromWorkspace(workspace, true, authorizations);
-        List<Edge> allEdges = stream(workspaceVertex.getEdges(
-                Direction.BOTH,
-                authorizations
-        )).collect(Collectors.toList());
+        Vertex workspaceVertex = getVertexFromWorkspace(workspace, true, authorizations);
+        Map<String, List<Edge>> edgesByEntityVertexId = new HashMap<>();
+        for (Edge edge : workspaceVertex.getEdges(Direction.BOTH, authorizations)) {
+            String entityVertexId = edge.getOtherVertexId(workspaceVertex.getId()).toLowerCase(Locale.ROOT);
+            edgesByEntityVertexId.computeIfAbsent(entityVertexId, k -> new ArrayList<>()).add(edge);
+        }
 
-        for (final String vertexId : entityIdsToDelete) {
+        for (String vertexId : entityIdsToDelete) {
             LOGGER.debug("workspace delete (%s): %s", workspace.getWorkspaceId(), vertexId);
 
-            Iterable<Edge> edges = new FilterIterable<Edge>(allEdges) {
-                @Override
-                protected boolean isIncluded(Edge o) {
-                    String entityVertexId = o.getOtherVertexId(workspaceVertex.getId());
-                    return entityVertexId.equalsIgnoreCase(vertexId);
-                }
-            };
+            List<Edge> edges = edgesByEntityVertexId.get(vertexId.toLowerCase(Locale.ROOT));
+            if (edges == null) {
+                continue;
+            }
             for (Edge edge : edges) {
                 ExistingEdgeMutation m = edge.prepareMutation();
                 m.setIndexHint(IndexHint.DO_NOT_INDEX);
@@ -565,6 +564,7 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
             }
         }
         getGraph().flush();
+        incrementVersion(workspace, authorizations);
     }
 
     @Override
@@ -584,45 +584,72 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
             );
         }
 
-        lockRepository.lock(getLockName(workspace.getWorkspaceId()), () -> {
-            Authorizations authorizations = getAuthorizationRepository().getGraphAuthorizations(
-                    user,
-                    VISIBILITY_STRING,
+        Authorizations authorizations = getAuthorizationRepository().getGraphAuthorizations(
+                user,
+                VISIBILITY_STRING,
+                workspace.getWorkspaceId()
+        );
+
+        Vertex workspaceVertex = getVertexFromWorkspace(workspace, true, authorizations);
+        if (workspaceVertex == null) {
+            throw new VisalloResourceNotFoundException(
+                    "Could not find workspace vertex: " + workspace.getWorkspaceId(),
                     workspace.getWorkspaceId()
             );
+        }
 
-            Vertex workspaceVertex = getVertexFromWorkspace(workspace, true, authorizations);
-            if (workspaceVertex == null) {
-                throw new VisalloResourceNotFoundException(
-                        "Could not find workspace vertex: " + workspace.getWorkspaceId(),
+        Iterable<Vertex> vertices = getGraph().getVertices(vertexIds, authorizations);
+        ImmutableMap<String, Vertex> verticesMap = Maps.uniqueIndex(vertices, Element::getId);
+
+        for (String vertexId : vertexIds) {
+            Vertex otherVertex = verticesMap.get(vertexId);
+            if (otherVertex == null) {
+                LOGGER.error(
+                        "updateEntitiesOnWorkspace: could not find vertex with id \"%s\" for workspace \"%s\"",
+                        vertexId,
                         workspace.getWorkspaceId()
                 );
+                continue;
             }
 
-            Iterable<Vertex> vertices = getGraph().getVertices(vertexIds, authorizations);
-            ImmutableMap<String, Vertex> verticesMap = Maps.uniqueIndex(vertices, Element::getId);
+            createEdge(
+                    workspaceVertex,
+                    otherVertex,
+                    authorizations
+            );
+        }
+        getGraph().flush();
+        incrementVersion(workspace, authorizations);
 
-            for (String vertexId : vertexIds) {
-                Vertex otherVertex = verticesMap.get(vertexId);
-                if (otherVertex == null) {
-                    LOGGER.error(
-                            "updateEntitiesOnWorkspace: could not find vertex with id \"%s\" for workspace \"%s\"",
-                            vertexId,
-                            workspace.getWorkspaceId()
-                    );
-                    continue;
-                }
+        fireWorkspaceUpdateEntities(workspace, vertexIds, user);
+    }
 
-                createEdge(
-                        workspaceVertex,
-                        otherVertex,
-                        authorizations
+    /**
+     * Workspace to entity edges have deterministic ids so concurrent writers converge on the same edges without
+     * holding the workspace lock. The lock only guards the read-increment-write of the workspace version, which
+     * callers bump after flushing their changes.
+     */
+    private long incrementVersion(Workspace workspace, Authorizations authorizations) {
+        return lockRepository.lock(getLockName(workspace), () -> {
+            Vertex workspaceVertex = getGraph().getVertex(
+                    workspace.getWorkspaceId(),
+                    EnumSet.of(FetchHint.PROPERTIES, FetchHint.INCLUDE_HIDDEN),
+                    authorizations
+            );
+            if (workspaceVertex == null) {
+                throw new VisalloResourceNotFoundException(
+                        "Could not find workspace vertex: " + workspace.getWorkspaceId(),
+                        workspace.getWorkspaceId()
                 );
             }
+            long version = WorkspaceProperties.VERSION.getPropertyValue(workspaceVertex, 0L) + 1;
+            ExistingElementMutation<Vertex> m = workspaceVertex.prepareMutation();
+            m.setIndexHint(IndexHint.DO_NOT_INDEX);
+            WorkspaceProperties.VERSION.setProperty(m, version, VISIBILITY.getVisibility());
+            m.save(authorizations);
             getGraph().flush();
+            return version;
         });
-
-        fireWorkspaceUpdateEntities(workspace, vertexIds, user);
     }
 
     @Override
@@ -1101,6 +1128,7 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
                 skipSourceId = broadcastOptions.getString("sourceGuid");
             }
         }
+        productExtendedDataCache.productChanged(productVertex.getId());
         getWorkQueueRepository().broadcastWorkProductChange(productVertex.getId(), userWorkspace, user, skipSourceId);
 
         Product product = productVertexToProduct(workspaceId, productVertex, false, null, authorizations, user);
@@ -1157,6 +1185,7 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
 
         getGraph().softDeleteVertex(productId, authorizations);
         getGraph().flush();
+        productExtendedDataCache.productDeleted(productId);
 
         Workspace ws = findById(workspaceId, user);
         ClientApiWorkspace userWorkspace = toClientApi(ws, user, authorizations);
@@ -1201,7 +1230,12 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
         JSONObject extendedData = null;
         if (includeExtended) {
             checkNotNull(params, "params is required when getting extended data");
-            extendedData = workProductService.getExtendedData(getGraph(), getVertex(workspaceId, user), productVertex, params, user, authorizations);
+            extendedData = productExtendedDataCache.getExtendedData(
+                    productId,
+                    params,
+                    authorizations,
+                    () -> workProductService.getExtendedData(getGraph(), getVertex(workspaceId, user), productVertex, params, user, authorizations)
+            );
         }
 
         return productVertexToProduct(workspaceId, productVertex, includeExtended, extendedData, authorizations, user);
@@ -1441,11 +1475,11 @@ public class VertexiumWorkspaceRepository extends WorkspaceRepository {
             );
         }
 
-        return lockRepository.lock(getLockName(workspace), () -> {
-            List<WorkspaceEntity> workspaceEntities = findEntitiesNoLock(workspace, true, true, user);
-            Iterable<Edge> workspaceEdges = findModifiedEdges(workspace, workspaceEntities, true, user);
-            return workspaceDiff.diff(workspace, workspaceEntities, workspaceEdges, userContext, user);
-        });
+        // the diff helper fetches only the entities and edges that changed since its last diff
+        List<String> entityVertexIds = findEntitiesNoLock(workspace, true, false, user).stream()
+                .map(WorkspaceEntity::getEntityVertexId)
+                .collect(Collectors.toList());
+        return workspaceDiff.diff(workspace, entityVertexIds, userContext, user);
     }
 
     private class ProductPreview {
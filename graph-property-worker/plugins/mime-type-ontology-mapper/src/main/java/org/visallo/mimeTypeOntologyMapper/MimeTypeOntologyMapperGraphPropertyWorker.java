@@ -112,15 +112,8 @@ public class MimeTypeOntologyMapperGraphPropertyWorker extends GraphPropertyWork
         List<VisalloPropertyUpdate> changedProperties = new ArrayList<>();
         ExistingElementMutation<Element> m = data.getElement().prepareMutation();
         VisalloProperties.CONCEPT_TYPE.updateProperty(changedProperties, data.getElement(), m, concept.getIRI(), (Metadata) null, getVisibilityTranslator().getDefaultVisibility());
-        m.save(getAuthorizations());
-        getGraph().flush();
-        getWorkQueueRepository().pushGraphVisalloPropertyQueue(
-                data.getElement(),
-                changedProperties,
-                data.getWorkspaceId(),
-                data.getVisibilitySource(),
-                data.getPriority()
-        );
+        Element element = m.save(getAuthorizations());
+        continueWithChangedProperties(data, element, changedProperties);
     }
 
     @Override
@@ -231,17 +231,8 @@ public class TikaTextExtractorGraphPropertyWorker extends GraphPropertyWorker {
             }
         }
 
-        m.save(getAuthorizations());
-
-        getGraph().flush();
-        getWorkQueueRepository().pushGraphPropertyQueue(
-                data.getElement(),
-                propertyKey,
-                textExtractMapping.getExtractedTextPropertyName(),
-                data.getWorkspaceId(),
-                data.getVisibilitySource(),
-                data.getPriority()
-        );
+        Vertex vertex = m.save(getAuthorizations());
+        continueWithProperty(data, vertex, propertyKey, textExtractMapping.getExtractedTextPropertyName());
     }
 
     private void addTextProperty(
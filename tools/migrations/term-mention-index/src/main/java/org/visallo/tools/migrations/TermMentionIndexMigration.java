@@ -0,0 +1,56 @@
+package org.visallo.tools.migrations;
+
+import com.beust.jcommander.Parameters;
+import org.vertexium.Authorizations;
+import org.vertexium.FetchHint;
+import org.vertexium.Vertex;
+import org.visallo.core.cmdline.CommandLineTool;
+import org.visallo.core.model.termMention.TermMentionIndex;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+@Parameters(commandDescription = "Index the term mentions created before the term mention index existed")
+public class TermMentionIndexMigration extends CommandLineTool {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(TermMentionIndexMigration.class);
+    private static final int LOG_INTERVAL = 10000;
+
+    public static void main(String[] args) throws Exception {
+        CommandLineTool.main(new TermMentionIndexMigration(), args);
+    }
+
+    @Override
+    protected int run() throws Exception {
+        TermMentionIndex termMentionIndex = new TermMentionIndex(getGraph());
+        // system authorizations, so vertices and term mentions are indexed no matter who can see them
+        Authorizations authorizations = termMentionIndex.getSystemAuthorizations();
+
+        long vertexCount = 0;
+        long indexedVertexCount = 0;
+        long termMentionCount = 0;
+        for (Vertex vertex : getGraph().getVertices(FetchHint.EDGE_REFS, authorizations)) {
+            int count = termMentionIndex.reindex(vertex);
+            if (count > 0) {
+                indexedVertexCount++;
+                termMentionCount += count;
+            }
+            vertexCount++;
+            if (vertexCount % LOG_INTERVAL == 0) {
+                getGraph().flush();
+                LOGGER.info(
+                        "checked %d vertices, indexed %d term mentions of %d vertices",
+                        vertexCount,
+                        termMentionCount,
+                        indexedVertexCount
+                );
+            }
+        }
+        getGraph().flush();
+        LOGGER.info(
+                "finished: checked %d vertices, indexed %d term mentions of %d vertices",
+                vertexCount,
+                termMentionCount,
+                indexedVertexCount
+        );
+        return 0;
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 
 public class ClientApiExtendedDataGetResponse implements ClientApiObject {
     private final List<ClientApiExtendedDataRow> rows;
+    private String nextRowId;
 
     public ClientApiExtendedDataGetResponse() {
         this.rows = new ArrayList<ClientApiExtendedDataRow>();
@@ -17,4 +18,15 @@ public class ClientApiExtendedDataGetResponse implements ClientApiObject {
     public List<ClientApiExtendedDataRow> getRows() {
         return rows;
     }
+
+    /**
+     * @return the row id to pass as afterRowId to get the next page, or null if this is the last page
+     */
+    public String getNextRowId() {
+        return nextRowId;
+    }
+
+    public void setNextRowId(String nextRowId) {
+        this.nextRowId = nextRowId;
+    }
 }
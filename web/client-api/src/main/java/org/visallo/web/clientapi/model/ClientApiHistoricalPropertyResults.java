@@ -15,6 +15,11 @@ public class ClientApiHistoricalPropertyResults implements ClientApiObject {
 
     public List<Event> events = new ArrayList<Event>();
 
+    /**
+     * Token to pass back to retrieve the next page of events, or null if there are no more events.
+     */
+    public String continuationToken;
+
     public enum EventType {
         PROPERTY_ADDED("Added"),
         PROPERTY_MODIFIED("Modified"),
@@ -6,6 +6,7 @@ public class ClientApiLongRunningProcess implements ClientApiObject {
     private String error;
     private Double progress;
     private boolean canceled;
+    private boolean timedOut;
     private String resultsString;
     private String userId;
 
@@ -49,6 +50,14 @@ public class ClientApiLongRunningProcess implements ClientApiObject {
         this.canceled = canceled;
     }
 
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+
     public String getResultsString() {
         return resultsString;
     }
@@ -0,0 +1,382 @@
+package org.visallo.web.product.graph;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.vertexium.*;
+import org.visallo.core.model.graph.GraphUpdateContext;
+import org.visallo.core.model.workspace.WorkspaceProperties;
+import org.visallo.core.util.JSONUtil;
+import org.visallo.web.clientapi.model.GraphPosition;
+
+import java.util.*;
+
+import static org.visallo.core.model.workspace.product.WorkProductServiceHasElementsBase.getEdgeId;
+
+/**
+ * The positions, parents and children of every node of a graph product, loaded with a single read of the product's
+ * edges. Moves, removals and compound node changes are applied in memory and {@link #save} writes only the edges
+ * that changed into one {@link GraphUpdateContext}, so the cost of an operation on many nodes does not grow with
+ * graph round trips.
+ * <p>
+ * A layout is built for a single request and is not thread safe.
+ */
+public class GraphProductLayout {
+    public static final String ROOT_NODE_ID = "root";
+    private final String productVertexId;
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final Set<String> removedCompoundNodeIds = new LinkedHashSet<>();
+    private final Set<String> removedVertexIds = new LinkedHashSet<>();
+
+    private GraphProductLayout(String productVertexId) {
+        this.productVertexId = productVertexId;
+    }
+
+    public static GraphProductLayout load(Vertex productVertex, Authorizations authorizations) {
+        GraphProductLayout layout = new GraphProductLayout(productVertex.getId());
+        Iterable<Edge> productVertexEdges = productVertex.getEdges(
+                Direction.OUT,
+                WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
+                authorizations
+        );
+        for (Edge productVertexEdge : productVertexEdges) {
+            String id = productVertexEdge.getOtherVertexId(productVertex.getId());
+            JSONObject position = GraphProductOntology.ENTITY_POSITION.getPropertyValue(productVertexEdge);
+            JSONArray children = GraphProductOntology.NODE_CHILDREN.getPropertyValue(productVertexEdge);
+            Node node = new Node(
+                    id,
+                    position == null ? new GraphPosition(0, 0) : new GraphPosition(position),
+                    GraphProductOntology.PARENT_NODE.getPropertyValue(productVertexEdge, ROOT_NODE_ID),
+                    children == null ? null : new LinkedHashSet<>(JSONUtil.toStringList(children)),
+                    GraphProductOntology.NODE_TITLE.getPropertyValue(productVertexEdge)
+            );
+            layout.nodes.put(id, node);
+        }
+        return layout;
+    }
+
+    public Node getNode(String id) {
+        return nodes.get(id);
+    }
+
+    public Collection<Node> getNodes() {
+        return Collections.unmodifiableCollection(nodes.values());
+    }
+
+    /**
+     * Adds a node to the layout, or updates the position, parent and children of an existing one, from the json
+     * sent by the client.
+     */
+    public Node update(String id, JSONObject update) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            node = new Node(id, new GraphPosition(0, 0), ROOT_NODE_ID, null, null);
+            node.positionChanged = true;
+            node.parentChanged = true;
+            nodes.put(id, node);
+        }
+
+        JSONObject position = update.optJSONObject("pos");
+        if (position != null) {
+            node.setPosition(new GraphPosition(position));
+        }
+        if (update.has("parent")) {
+            node.setParentId(update.getString("parent"));
+        }
+        JSONArray children = update.optJSONArray("children");
+        if (children != null) {
+            node.children = new LinkedHashSet<>(JSONUtil.toStringList(children));
+            node.childrenChanged = true;
+        }
+        return node;
+    }
+
+    /**
+     * Adds a compound node to the layout and moves the given children into it. The compound node's vertex must
+     * already exist.
+     */
+    public Node addCompoundNode(String id, JSONObject params) {
+        JSONObject position = params.optJSONObject("pos");
+        Node node = new Node(
+                id,
+                position == null ? new GraphPosition(0, 0) : new GraphPosition(position),
+                params.optString("parent", ROOT_NODE_ID),
+                new LinkedHashSet<>(),
+                params.optString("title", null)
+        );
+        node.positionChanged = true;
+        node.parentChanged = true;
+        node.childrenChanged = true;
+        nodes.put(id, node);
+        removedCompoundNodeIds.remove(id);
+
+        // added to its parent first so that moving the children can not empty it
+        addChild(id, node.parentId);
+        JSONArray children = params.optJSONArray("children");
+        if (children != null) {
+            for (String childId : JSONUtil.toStringList(children)) {
+                move(childId, id);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Moves a node to a new parent, keeping its position on screen by translating it between the coordinate
+     * spaces of the old and the new parent.
+     */
+    public void move(String childId, String newParentId) {
+        Node child = nodes.get(childId);
+        if (child == null) {
+            return;
+        }
+        String oldParentId = child.parentId;
+        if (Objects.equals(oldParentId, newParentId)) {
+            return;
+        }
+
+        child.setPosition(calculatePositionFromParents(child, oldParentId, newParentId));
+        child.setParentId(newParentId);
+
+        // added before it is removed so that emptying the old parent can not remove the new one
+        addChild(childId, newParentId);
+        removeChild(childId, oldParentId);
+    }
+
+    /**
+     * Removes nodes from the product. The children of a removed compound node are either removed with it or moved
+     * up to its parent.
+     */
+    public void remove(Collection<String> ids, boolean removeChildren) {
+        for (String id : ids) {
+            Node node = nodes.get(id);
+            if (node == null) {
+                continue;
+            }
+            String parentId = node.parentId;
+
+            if (node.isCompoundNode() && node.children.size() > 0) {
+                if (removeChildren) {
+                    Deque<String> descendantIds = new ArrayDeque<>(node.children);
+                    while (!descendantIds.isEmpty()) {
+                        Node descendant = nodes.get(descendantIds.poll());
+                        if (descendant != null) {
+                            if (descendant.isCompoundNode()) {
+                                descendantIds.addAll(descendant.children);
+                            }
+                            removeNode(descendant);
+                        }
+                    }
+                } else {
+                    for (String childId : new ArrayList<>(node.children)) {
+                        move(childId, parentId);
+                    }
+                }
+            }
+            removeNode(node);
+            removeChild(id, parentId);
+        }
+    }
+
+    /**
+     * Removes a node from its parent's children without removing it from the product, for example when the
+     * node's vertex no longer exists.
+     */
+    public void detach(String id) {
+        Node node = nodes.get(id);
+        if (node != null) {
+            removeChild(id, node.parentId);
+        }
+    }
+
+    private void addChild(String childId, String parentId) {
+        if (isRoot(parentId)) {
+            return;
+        }
+        Node parent = nodes.get(parentId);
+        if (parent == null || !parent.isCompoundNode()) {
+            return;
+        }
+        if (parent.children.add(childId)) {
+            parent.childrenChanged = true;
+        }
+        nodes.get(childId).setParentId(parentId);
+    }
+
+    private void removeChild(String childId, String parentId) {
+        if (isRoot(parentId)) {
+            return;
+        }
+        Node parent = nodes.get(parentId);
+        if (parent == null || !parent.isCompoundNode() || !parent.children.remove(childId)) {
+            return;
+        }
+        parent.childrenChanged = true;
+
+        // compound nodes only exist to hold their children
+        if (parent.children.isEmpty()) {
+            removeNode(parent);
+            removeChild(parentId, parent.parentId);
+        }
+    }
+
+    private void removeNode(Node node) {
+        nodes.remove(node.id);
+        if (node.isCompoundNode()) {
+            removedCompoundNodeIds.add(node.id);
+        } else {
+            removedVertexIds.add(node.id);
+        }
+    }
+
+    private GraphPosition calculatePositionFromParents(Node child, String oldParentId, String newParentId) {
+        boolean newParentIsDescendant = false;
+        if (!isRoot(newParentId)) {
+            Node newParent = nodes.get(newParentId);
+            newParentIsDescendant = newParent != null && Objects.equals(newParent.parentId, oldParentId);
+        }
+
+        String parentOffsetId = newParentIsDescendant ? newParentId : oldParentId;
+        Node parentOffsetNode = isRoot(parentOffsetId) ? null : nodes.get(parentOffsetId);
+        GraphPosition parentOffset = parentOffsetNode == null ? new GraphPosition(0, 0) : parentOffsetNode.position;
+
+        GraphPosition graphPosition = new GraphPosition(child.position.getX(), child.position.getY());
+        if (newParentIsDescendant) {
+            graphPosition.subtract(parentOffset);
+        } else {
+            graphPosition.add(parentOffset);
+        }
+        return graphPosition;
+    }
+
+    private static boolean isRoot(String nodeId) {
+        return nodeId == null || ROOT_NODE_ID.equals(nodeId);
+    }
+
+    /**
+     * Writes the changed product edges and removes the removed nodes. Removed compound nodes are deleted with
+     * their vertex, other removed nodes only lose their product edge.
+     */
+    public void save(GraphUpdateContext ctx, Visibility visibility, Authorizations authorizations) {
+        Graph graph = ctx.getGraph();
+        for (String id : removedCompoundNodeIds) {
+            graph.softDeleteVertex(id, authorizations);
+        }
+        for (String id : removedVertexIds) {
+            graph.softDeleteEdge(getEdgeId(productVertexId, id), authorizations);
+        }
+        removedCompoundNodeIds.clear();
+        removedVertexIds.clear();
+
+        for (Node node : nodes.values()) {
+            if (!node.isChanged()) {
+                continue;
+            }
+            EdgeBuilderByVertexId edgeBuilder = graph.prepareEdge(
+                    getEdgeId(productVertexId, node.id),
+                    productVertexId,
+                    node.id,
+                    WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
+                    visibility
+            );
+            // the update runs when the context is flushed, so it must not read the node after this point
+            JSONObject position = node.positionChanged ? node.position.toJSONObject() : null;
+            String parentId = node.parentChanged ? node.parentId : null;
+            JSONArray children = node.childrenChanged ? new JSONArray(node.children) : null;
+            ctx.update(edgeBuilder, elemCtx -> {
+                if (position != null) {
+                    GraphProductOntology.ENTITY_POSITION.updateProperty(elemCtx, position, visibility);
+                }
+                if (parentId != null) {
+                    GraphProductOntology.PARENT_NODE.updateProperty(elemCtx, parentId, visibility);
+                }
+                if (children != null) {
+                    GraphProductOntology.NODE_CHILDREN.updateProperty(elemCtx, children, visibility);
+                }
+            });
+            node.positionChanged = false;
+            node.parentChanged = false;
+            node.childrenChanged = false;
+        }
+    }
+
+    public static class Node {
+        private final String id;
+        private final String title;
+        private GraphPosition position;
+        private String parentId;
+        private Set<String> children;
+        private boolean positionChanged;
+        private boolean parentChanged;
+        private boolean childrenChanged;
+
+        private Node(String id, GraphPosition position, String parentId, Set<String> children, String title) {
+            this.id = id;
+            this.position = position;
+            this.parentId = parentId;
+            this.children = children;
+            this.title = title;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public GraphPosition getPosition() {
+            return position;
+        }
+
+        private void setPosition(GraphPosition position) {
+            if (!position.equals(this.position)) {
+                this.position = position;
+                positionChanged = true;
+            }
+        }
+
+        public String getParentId() {
+            return parentId;
+        }
+
+        private void setParentId(String parentId) {
+            if (!Objects.equals(parentId, this.parentId)) {
+                this.parentId = parentId;
+                parentChanged = true;
+            }
+        }
+
+        /**
+         * @return the ids of the children of a compound node, or null if this node is a vertex
+         */
+        public Set<String> getChildren() {
+            return children == null ? null : Collections.unmodifiableSet(children);
+        }
+
+        public boolean isCompoundNode() {
+            return children != null;
+        }
+
+        private boolean isChanged() {
+            return positionChanged || parentChanged || childrenChanged;
+        }
+
+        /**
+         * @return the same json as {@link GraphWorkProductService#setEdgeJson(Edge, JSONObject)} writes for the
+         * node's edge
+         */
+        public JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("id", id);
+            json.put("pos", position.toJSONObject());
+            if (children != null) {
+                json.put("children", new JSONArray(children));
+                json.put("type", "compoundNode");
+            } else {
+                json.put("type", "vertex");
+            }
+            if (title != null) {
+                json.put("title", title);
+            }
+            json.put("parent", parentId);
+            return json;
+        }
+    }
+}
@@ -20,7 +20,6 @@ import org.visallo.core.security.VisalloVisibility;
 import org.visallo.core.user.User;
 import org.visallo.core.util.JSONUtil;
 import org.visallo.core.util.StreamUtil;
-import org.visallo.web.clientapi.model.GraphPosition;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
 import java.util.*;
@@ -30,7 +29,7 @@ import static org.visallo.web.product.graph.GraphProductOntology.ENTITY_POSITION
 
 public class GraphWorkProductService extends WorkProductServiceHasElementsBase {
     public static final String KIND = "org.visallo.web.product.graph.GraphWorkProduct";
-    private static final String ROOT_NODE_ID = "root";
+    private static final String ROOT_NODE_ID = GraphProductLayout.ROOT_NODE_ID;
     private final AuthorizationRepository authorizationRepository;
     private final GraphRepository graphRepository;
     private final UserRepository userRepository;
@@ -158,11 +157,13 @@ public class GraphWorkProductService extends WorkProductServiceHasElementsBase {
                 user,
                 VisalloVisibility.SUPER_USER_VISIBILITY_STRING
         );
-        Iterable<Vertex> productVertices = Lists.newArrayList(productVertex.getVertices(
+        // only the edge references are needed to find the related edges
+        List<String> productVertexIds = Lists.newArrayList(productVertex.getVertexIds(
                 Direction.OUT,
                 WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
                 systemAuthorizations
         ));
+        Iterable<Vertex> productVertices = Lists.newArrayList(graph.getVertices(productVertexIds, FetchHint.EDGE_REFS, systemAuthorizations));
         Iterable<RelatedEdge> productRelatedEdges = graph.findRelatedEdgeSummaryForVertices(productVertices, authorizations);
         List<String> ids = StreamUtil.stream(productRelatedEdges)
                 .map(RelatedEdge::getEdgeId)
@@ -188,29 +189,25 @@ public class GraphWorkProductService extends WorkProductServiceHasElementsBase {
     }
 
     private void trimCompoundNodes(Graph graph, Vertex productVertex) {
-        String id = productVertex.getId();
         User systemUser = userRepository.getSystemUser();
         Visibility visibility = VISIBILITY.getVisibility();
         Authorizations authorizations = authorizationRepository.getGraphAuthorizations(systemUser);
 
-        List<Edge> productVertexEdges = Lists.newArrayList(productVertex.getEdges(
-                Direction.OUT,
-                WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
-                authorizations
-        ));
-
-        List<String> ids = productVertexEdges.stream()
-                .map(edge -> edge.getOtherVertexId(id))
+        GraphProductLayout layout = GraphProductLayout.load(productVertex, authorizations);
+        List<String> ids = layout.getNodes().stream()
+                .map(GraphProductLayout.Node::getId)
                 .collect(Collectors.toList());
         Map<String, Boolean> othersById = graph.doVerticesExist(ids, authorizations);
+        List<String> missingIds = ids.stream()
+                .filter(otherId -> !othersById.getOrDefault(otherId, false))
+                .collect(Collectors.toList());
+        if (missingIds.isEmpty()) {
+            return;
+        }
 
         try (GraphUpdateContext ctx = graphRepository.beginGraphUpdate(Priority.HIGH, systemUser, authorizations)) {
-            for (Edge propertyVertexEdge : productVertexEdges) {
-                String otherId = propertyVertexEdge.getOtherVertexId(id);
-                if (!othersById.getOrDefault(otherId, false)) {
-                    removeChild(ctx, productVertex, otherId, id, visibility, authorizations);
-                }
-            }
+            missingIds.forEach(layout::detach);
+            layout.save(ctx, visibility, authorizations);
         } catch (Exception ex) {
             throw new RuntimeException("Could not clean compound Nodes", ex);
         }
@@ -248,6 +245,21 @@ public class GraphWorkProductService extends WorkProductServiceHasElementsBase {
             User user,
             Visibility visibility,
             Authorizations authorizations
+    ) {
+        GraphProductLayout layout = GraphProductLayout.load(productVertex, authorizations);
+        GraphProductLayout.Node node = addCompoundNode(ctx, layout, params, visibility);
+        layout.save(ctx, visibility, authorizations);
+
+        JSONObject json = node.toJson();
+        json.put("visible", true);
+        return json;
+    }
+
+    private GraphProductLayout.Node addCompoundNode(
+            GraphUpdateContext ctx,
+            GraphProductLayout layout,
+            JSONObject params,
+            Visibility visibility
     ) {
         try {
             VisibilityJson visibilityJson = VisibilityJson.updateVisibilitySource(null, "");
@@ -259,33 +271,12 @@ public class GraphWorkProductService extends WorkProductServiceHasElementsBase {
             });
             vertexId = vertexFuture.get().getId();
 
-            String edgeId = getEdgeId(productVertex.getId(), vertexId);
-            ctx.getOrCreateEdgeAndUpdate(edgeId, productVertex.getId(),
-                                         vertexId,
-                                         WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
-                                         visibility,
-                                         elemCtx -> updateProductEdge(elemCtx, params, visibility)
-            );
-
-            ctx.flush();
-
-            JSONArray children = params.getJSONArray("children");
-            List<String> childIds = JSONUtil.toStringList(children);
-            for (String childId : childIds) {
-                updateParent(ctx, productVertex, childId, vertexId, visibility, authorizations);
-            }
-
-            JSONObject json = new JSONObject();
-            json.put("id", vertexId);
-            json.put("visible", true);
-            setEdgeJson(ctx.getGraph().getEdge(edgeId, authorizations), json);
-            return json;
+            return layout.addCompoundNode(vertexId, params);
         } catch (Exception ex) {
             throw new VisalloException("Could not add compound node", ex);
         }
     }
 
-
     public void updateVertices(
             GraphUpdateContext ctx,
             Vertex productVertex,
@@ -294,26 +285,29 @@ public class GraphWorkProductService extends WorkProductServiceHasElementsBase {
             Visibility visibility,
             Authorizations authorizations
     ) {
+        GraphProductLayout layout = GraphProductLayout.load(productVertex, authorizations);
+
         @SuppressWarnings("unchecked")
         List<String> vertexIds = Lists.newArrayList(updateVertices.keys());
+        List<String> compoundNodeIds = vertexIds.stream()
+                .filter(id -> updateVertices.getJSONObject(id).optJSONArray("children") != null)
+                .collect(Collectors.toList());
+        Map<String, Boolean> compoundNodesExist = compoundNodeIds.isEmpty()
+                ? Collections.emptyMap()
+                : ctx.getGraph().doVerticesExist(compoundNodeIds, authorizations);
+
         for (String id : vertexIds) {
             JSONObject updateData = updateVertices.getJSONObject(id);
-            String edgeId = getEdgeId(productVertex.getId(), id);
 
             //undoing compound node removal
-            if (updateData.optJSONObject("children") != null && !ctx.getGraph().doesVertexExist(id, authorizations)) {
-                addCompoundNode(ctx, productVertex, updateData, user, visibility, authorizations);
+            if (compoundNodesExist.containsKey(id) && !compoundNodesExist.get(id)) {
+                addCompoundNode(ctx, layout, updateData, visibility);
+            } else {
+                layout.update(id, updateData);
             }
-
-            EdgeBuilderByVertexId edgeBuilder = ctx.getGraph().prepareEdge(
-                    edgeId,
-                    productVertex.getId(),
-                    id,
-                    WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
-                    visibility
-            );
-            ctx.update(edgeBuilder, elemCtx -> updateProductEdge(elemCtx, updateData, visibility));
         }
+
+        layout.save(ctx, visibility, authorizations);
     }
 
     public void removeVertices(
@@ -325,209 +319,9 @@ public class GraphWorkProductService extends WorkProductServiceHasElementsBase {
             Visibility visibility,
             Authorizations authorizations
     ) {
-        JSONUtil.toList(removeVertices)
-                .forEach(id -> {
-                    String edgeId = getEdgeId(productVertex.getId(), (String) id);
-                    Edge productVertexEdge = ctx.getGraph().getEdge(edgeId, authorizations);
-                    String parentId = GraphProductOntology.PARENT_NODE.getPropertyValue(productVertexEdge);
-                    JSONArray children = GraphProductOntology.NODE_CHILDREN.getPropertyValue(productVertexEdge);
-
-                    if (children != null && children.length() > 0) {
-                        if (removeChildren) {
-                            Queue<String> childIdQueue = Queues.newSynchronousQueue();
-                            JSONUtil.toStringList(children).forEach(childIdQueue::add);
-
-                            while (!childIdQueue.isEmpty()) {
-                                String childId = childIdQueue.poll();
-                                String childEdgeId = getEdgeId(productVertex.getId(), childId);
-
-                                Edge childEdge = ctx.getGraph().getEdge(childEdgeId, authorizations);
-                                JSONArray nextChildren = GraphProductOntology.NODE_CHILDREN.getPropertyValue(childEdge);
-                                JSONUtil.toStringList(nextChildren).forEach(childIdQueue::add);
-
-                                if (nextChildren != null) {
-                                    ctx.getGraph().softDeleteVertex(childId, authorizations);
-                                } else {
-                                    ctx.getGraph().softDeleteEdge(childEdgeId, authorizations);
-                                }
-                            }
-                        } else {
-                            JSONUtil.toStringList(children).forEach(childId -> {
-                                updateParent(ctx, productVertex, childId, parentId, visibility, authorizations);
-                            });
-                            ctx.getGraph().softDeleteVertex((String) id, authorizations);
-                        }
-                    } else {
-                        ctx.getGraph().softDeleteEdge(edgeId, authorizations);
-                    }
-
-                    if (!ROOT_NODE_ID.equals(parentId)) {
-                        removeChild(ctx, productVertex, (String) id, parentId, visibility, authorizations);
-                    }
-
-                });
-    }
-
-    private void addChild(
-            GraphUpdateContext ctx,
-            Vertex productVertex,
-            String childId,
-            String parentId,
-            Visibility visibility,
-            Authorizations authorizations
-    ) {
-        if (parentId.equals(ROOT_NODE_ID)) {
-            return;
-        }
-
-        String parentEdgeId = getEdgeId(productVertex.getId(), parentId);
-        Edge parentProductVertexEdge = ctx.getGraph().getEdge(parentEdgeId, authorizations);
-
-        JSONArray children = GraphProductOntology.NODE_CHILDREN.getPropertyValue(parentProductVertexEdge);
-        if (!JSONUtil.arrayContains(children, childId)) {
-            children.put(childId);
-
-            EdgeBuilderByVertexId parentEdgeBuilder = ctx.getGraph().prepareEdge(
-                    parentEdgeId,
-                    productVertex.getId(),
-                    childId,
-                    WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
-                    visibility
-            );
-            ctx.update(parentEdgeBuilder, elemCtx -> {
-                GraphProductOntology.NODE_CHILDREN.updateProperty(elemCtx, children, visibility);
-            });
-
-            String childEdgeId = getEdgeId(productVertex.getId(), childId);
-            EdgeBuilderByVertexId childEdgeBuilder = ctx.getGraph().prepareEdge(
-                    childEdgeId,
-                    productVertex.getId(),
-                    childId,
-                    WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
-                    visibility
-            );
-            ctx.update(childEdgeBuilder, elemCtx -> {
-                GraphProductOntology.PARENT_NODE.updateProperty(elemCtx, parentId, visibility);
-            });
-        }
-    }
-
-    private void removeChild(
-            GraphUpdateContext ctx,
-            Vertex productVertex,
-            String childId,
-            String parentId,
-            Visibility visibility,
-            Authorizations authorizations
-    ) {
-        if (parentId.equals(ROOT_NODE_ID)) {
-            return;
-        }
-
-        String edgeId = getEdgeId(productVertex.getId(), parentId);
-        Edge productVertexEdge = ctx.getGraph().getEdge(edgeId, authorizations);
-        JSONArray children = GraphProductOntology.NODE_CHILDREN.getPropertyValue(productVertexEdge);
-
-        if (children != null) {
-            for (int i = 0; i < children.length(); i++) {
-                if (children.get(i).equals(childId)) {
-                    children.remove(i);
-                    break;
-                }
-                i++;
-            }
-            if (children.length() == 0) {
-                ctx.getGraph().softDeleteVertex(parentId, authorizations);
-
-                String ancestorId = GraphProductOntology.PARENT_NODE.getPropertyValue(productVertexEdge);
-                if (ancestorId.equals(productVertex.getId())) {
-                    removeChild(ctx, productVertex, parentId, ancestorId, visibility, authorizations);
-                }
-            } else {
-                EdgeBuilderByVertexId edgeBuilder = ctx.getGraph().prepareEdge(
-                        edgeId,
-                        parentId,
-                        childId,
-                        WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
-                        visibility
-                );
-                edgeBuilder.setProperty(GraphProductOntology.NODE_CHILDREN.getPropertyName(), children, visibility);
-            }
-        }
-    }
-
-    private void updateParent(
-            GraphUpdateContext ctx,
-            Vertex productVertex,
-            String childId,
-            String parentId,
-            Visibility visibility,
-            Authorizations authorizations
-    ) {
-        String edgeId = getEdgeId(productVertex.getId(), childId);
-        Edge productVertexEdge = ctx.getGraph().getEdge(edgeId, authorizations);
-        JSONObject updateData = new JSONObject();
-        GraphPosition graphPosition;
-
-        String oldParentId = GraphProductOntology.PARENT_NODE.getPropertyValue(productVertexEdge);
-        graphPosition = calculatePositionFromParents(ctx, productVertex, childId, oldParentId, parentId, authorizations);
-
-        updateData.put("pos", graphPosition.toJSONObject());
-        updateData.put("parent", parentId);
-        EdgeBuilderByVertexId edgeBuilder = ctx.getGraph().prepareEdge(
-                edgeId,
-                productVertex.getId(),
-                childId,
-                WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
-                visibility
-        );
-        ctx.update(edgeBuilder, elemCtx -> updateProductEdge(elemCtx, updateData, visibility));
-
-        removeChild(ctx, productVertex, childId, oldParentId, visibility, authorizations);
-        addChild(ctx, productVertex, childId, parentId, visibility, authorizations);
-    }
-
-    private GraphPosition calculatePositionFromParents(
-            GraphUpdateContext ctx,
-            Vertex productVertex,
-            String childId,
-            String oldParentId,
-            String newParentId,
-            Authorizations authorizations
-    ) {
-        boolean newParentIsDescendant = false;
-        if (!newParentId.equals(ROOT_NODE_ID)) {
-            Edge newParentEdge = ctx.getGraph().getEdge(getEdgeId(productVertex.getId(), newParentId), authorizations);
-            newParentIsDescendant = GraphProductOntology.PARENT_NODE.getPropertyValue(newParentEdge).equals(oldParentId);
-        }
-
-        GraphPosition parentOffset;
-        String parentOffsetId = newParentIsDescendant ? newParentId : oldParentId;
-        if (parentOffsetId.equals(ROOT_NODE_ID)) {
-            parentOffset = new GraphPosition(0, 0);
-        } else {
-            String offsetEdgeId = getEdgeId(productVertex.getId(), parentOffsetId);
-            Edge offsetEdge = ctx.getGraph().getEdge(offsetEdgeId, authorizations);
-            parentOffset = getGraphPosition(offsetEdge);
-        }
-
-        String childEdgeId = getEdgeId(productVertex.getId(), childId);
-        Edge childEdge = ctx.getGraph().getEdge(childEdgeId, authorizations);
-
-        GraphPosition graphPosition = getGraphPosition(childEdge);
-
-        if (newParentIsDescendant) {
-            graphPosition.subtract(parentOffset);
-        } else {
-            graphPosition.add(parentOffset);
-        }
-
-        return graphPosition;
-    }
-
-    private GraphPosition getGraphPosition(Edge productVertexEdge) {
-        JSONObject edgePositionData = ENTITY_POSITION.getPropertyValue(productVertexEdge);
-        return new GraphPosition(edgePositionData);
+        GraphProductLayout layout = GraphProductLayout.load(productVertex, authorizations);
+        layout.remove(JSONUtil.toStringList(removeVertices), removeChildren);
+        layout.save(ctx, visibility, authorizations);
     }
 
     @Override
@@ -537,7 +331,7 @@ public class GraphWorkProductService extends WorkProductServiceHasElementsBase {
             ENTITY_POSITION.updateProperty(elemCtx, position, visibility);
         }
 
-        String parent = update.optString("parent");
+        String parent = update.optString("parent", null);
         if (parent != null) {
             GraphProductOntology.PARENT_NODE.updateProperty(elemCtx, parent, visibility);
         }
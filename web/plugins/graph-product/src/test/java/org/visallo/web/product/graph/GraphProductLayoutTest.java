@@ -0,0 +1,220 @@
+package org.visallo.web.product.graph;
+
+import com.google.common.collect.Sets;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.*;
+import org.visallo.core.model.graph.GraphUpdateContext;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workspace.WorkspaceProperties;
+import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.core.user.User;
+import org.visallo.core.util.VisalloInMemoryTestBase;
+import org.visallo.web.clientapi.model.GraphPosition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.visallo.core.model.workspace.product.WorkProductServiceHasElementsBase.getEdgeId;
+import static org.visallo.web.product.graph.GraphProductLayout.ROOT_NODE_ID;
+
+public class GraphProductLayoutTest extends VisalloInMemoryTestBase {
+    private static final String PRODUCT_ID = "product1";
+    private GraphWorkProductService graphWorkProductService;
+    private User user;
+    private Authorizations authorizations;
+    private Visibility visibility;
+
+    @Before
+    public void before() {
+        super.before();
+        graphWorkProductService = new GraphWorkProductService(
+                getAuthorizationRepository(),
+                getGraphRepository(),
+                getUserRepository()
+        );
+        user = getUserRepository().getSystemUser();
+        authorizations = getAuthorizationRepository().getGraphAuthorizations(user, WorkspaceRepository.VISIBILITY_STRING);
+        visibility = GraphWorkProductService.VISIBILITY.getVisibility();
+
+        // c1 at (100, 100) holds v1 and the nested compound node c2, which holds v2. v3 is on the root.
+        getGraph().addVertex(PRODUCT_ID, visibility, authorizations);
+        addNode("c1", 100, 100, ROOT_NODE_ID, "v1", "c2");
+        addNode("v1", 10, 10, "c1");
+        addNode("c2", 20, 20, "c1", "v2");
+        addNode("v2", 5, 5, "c2");
+        addNode("v3", 300, 300, ROOT_NODE_ID);
+        getGraph().flush();
+    }
+
+    @Test
+    public void testLoad() {
+        GraphProductLayout layout = loadLayout();
+        assertEquals(5, layout.getNodes().size());
+        assertEquals(Sets.newHashSet("v1", "c2"), layout.getNode("c1").getChildren());
+        assertEquals(Collections.singleton("v2"), layout.getNode("c2").getChildren());
+        assertEquals("c2", layout.getNode("v2").getParentId());
+        assertNull(layout.getNode("v3").getChildren());
+        assertEquals(new GraphPosition(5, 5), layout.getNode("v2").getPosition());
+    }
+
+    @Test
+    public void testMoveKeepsScreenPosition() throws Exception {
+        GraphProductLayout layout = loadLayout();
+        layout.move("v1", ROOT_NODE_ID);
+        layout.move("v3", "c1");
+        save(layout);
+
+        layout = loadLayout();
+        assertEquals(ROOT_NODE_ID, layout.getNode("v1").getParentId());
+        assertEquals(new GraphPosition(110, 110), layout.getNode("v1").getPosition());
+        assertEquals("c1", layout.getNode("v3").getParentId());
+        assertEquals(new GraphPosition(200, 200), layout.getNode("v3").getPosition());
+        assertEquals(Sets.newHashSet("c2", "v3"), layout.getNode("c1").getChildren());
+    }
+
+    @Test
+    public void testMovingLastChildOutRemovesEmptyAncestors() throws Exception {
+        GraphProductLayout layout = loadLayout();
+        layout.move("v1", ROOT_NODE_ID);
+        layout.move("v2", ROOT_NODE_ID);
+        assertNull(layout.getNode("c2"));
+        assertNull(layout.getNode("c1"));
+        save(layout);
+
+        assertNull(getGraph().getVertex("c1", authorizations));
+        assertNull(getGraph().getVertex("c2", authorizations));
+        layout = loadLayout();
+        assertEquals(Sets.newHashSet("v1", "v2", "v3"), Sets.newHashSet(getNodeIds(layout)));
+        assertEquals(ROOT_NODE_ID, layout.getNode("v2").getParentId());
+    }
+
+    @Test
+    public void testRemoveVertexCascadesToEmptyCompoundNodes() throws Exception {
+        GraphProductLayout layout = loadLayout();
+        layout.remove(Arrays.asList("v1", "v2"), false);
+        save(layout);
+
+        // the vertices stay in the graph, only their product edges are removed
+        assertNotNull(getGraph().getVertex("v1", authorizations));
+        assertNull(getGraph().getEdge(getEdgeId(PRODUCT_ID, "v1"), authorizations));
+        assertNull(getGraph().getVertex("c1", authorizations));
+        assertNull(getGraph().getVertex("c2", authorizations));
+        assertEquals(Collections.singletonList("v3"), getNodeIds(loadLayout()));
+    }
+
+    @Test
+    public void testRemoveCompoundNodeMovesChildrenUp() throws Exception {
+        GraphProductLayout layout = loadLayout();
+        layout.remove(Collections.singletonList("c2"), false);
+        save(layout);
+
+        assertNull(getGraph().getVertex("c2", authorizations));
+        layout = loadLayout();
+        assertEquals("c1", layout.getNode("v2").getParentId());
+        assertEquals(new GraphPosition(25, 25), layout.getNode("v2").getPosition());
+        assertEquals(Sets.newHashSet("v1", "v2"), layout.getNode("c1").getChildren());
+    }
+
+    @Test
+    public void testRemoveCompoundNodeWithChildren() throws Exception {
+        GraphProductLayout layout = loadLayout();
+        layout.remove(Collections.singletonList("c1"), true);
+        save(layout);
+
+        assertNull(getGraph().getVertex("c1", authorizations));
+        assertNull(getGraph().getVertex("c2", authorizations));
+        assertNotNull(getGraph().getVertex("v2", authorizations));
+        assertNull(getGraph().getEdge(getEdgeId(PRODUCT_ID, "v2"), authorizations));
+        assertEquals(Collections.singletonList("v3"), getNodeIds(loadLayout()));
+    }
+
+    @Test
+    public void testUndoCompoundNodeRemoval() throws Exception {
+        JSONObject c2 = loadLayout().getNode("c2").toJson();
+        try (GraphUpdateContext ctx = beginGraphUpdate()) {
+            graphWorkProductService.removeVertices(ctx, getProductVertex(), new JSONArray().put("c2"), false, user, visibility, authorizations);
+        }
+        assertNull(getGraph().getVertex("c2", authorizations));
+
+        // the client undoes a removal by sending the removed compound node back as an update
+        try (GraphUpdateContext ctx = beginGraphUpdate()) {
+            graphWorkProductService.updateVertices(ctx, getProductVertex(), new JSONObject().put("c2", c2), user, visibility, authorizations);
+        }
+
+        assertNotNull(getGraph().getVertex("c2", authorizations));
+        GraphProductLayout layout = loadLayout();
+        assertEquals(Sets.newHashSet("v1", "c2"), layout.getNode("c1").getChildren());
+        assertEquals(Collections.singleton("v2"), layout.getNode("c2").getChildren());
+        assertEquals("c1", layout.getNode("c2").getParentId());
+        assertEquals("c2", layout.getNode("v2").getParentId());
+        assertEquals(new GraphPosition(5, 5), layout.getNode("v2").getPosition());
+    }
+
+    @Test
+    public void testAddNestedCompoundNode() throws Exception {
+        JSONObject params = new JSONObject();
+        params.put("id", "c3");
+        params.put("pos", new GraphPosition(50, 50).toJSONObject());
+        params.put("parent", "c1");
+        params.put("children", new JSONArray().put("v1"));
+        try (GraphUpdateContext ctx = beginGraphUpdate()) {
+            graphWorkProductService.addCompoundNode(ctx, getProductVertex(), params, user, visibility, authorizations);
+        }
+
+        GraphProductLayout layout = loadLayout();
+        assertEquals(Sets.newHashSet("c2", "c3"), layout.getNode("c1").getChildren());
+        assertEquals("c1", layout.getNode("c3").getParentId());
+        assertEquals(Collections.singleton("v1"), layout.getNode("c3").getChildren());
+        assertEquals("c3", layout.getNode("v1").getParentId());
+        assertEquals(new GraphPosition(-40, -40), layout.getNode("v1").getPosition());
+    }
+
+    private void addNode(String id, int x, int y, String parentId, String... children) {
+        getGraph().addVertex(id, visibility, authorizations);
+        EdgeBuilderByVertexId edgeBuilder = getGraph().prepareEdge(
+                getEdgeId(PRODUCT_ID, id),
+                PRODUCT_ID,
+                id,
+                WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
+                visibility
+        );
+        GraphProductOntology.ENTITY_POSITION.setProperty(edgeBuilder, new GraphPosition(x, y).toJSONObject(), visibility);
+        GraphProductOntology.PARENT_NODE.setProperty(edgeBuilder, parentId, visibility);
+        if (children.length > 0) {
+            GraphProductOntology.NODE_CHILDREN.setProperty(edgeBuilder, new JSONArray(Arrays.asList(children)), visibility);
+        }
+        edgeBuilder.save(authorizations);
+    }
+
+    private Vertex getProductVertex() {
+        return getGraph().getVertex(PRODUCT_ID, authorizations);
+    }
+
+    private GraphProductLayout loadLayout() {
+        return GraphProductLayout.load(getProductVertex(), authorizations);
+    }
+
+    private void save(GraphProductLayout layout) throws Exception {
+        try (GraphUpdateContext ctx = beginGraphUpdate()) {
+            layout.save(ctx, visibility, authorizations);
+        }
+    }
+
+    private GraphUpdateContext beginGraphUpdate() {
+        return getGraphRepository().beginGraphUpdate(Priority.LOW, user, authorizations);
+    }
+
+    private static List<String> getNodeIds(GraphProductLayout layout) {
+        List<String> ids = new ArrayList<>();
+        for (GraphProductLayout.Node node : layout.getNodes()) {
+            ids.add(node.getId());
+        }
+        return ids;
+    }
+}
@@ -266,19 +266,21 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
                 authorizations
         );
 
+        List<Vertex> verticesToDelete = new ArrayList<>();
         for (Vertex vertex : vertices) {
             SandboxStatus sandboxStatus = SandboxStatusUtil.getSandboxStatus(vertex, workspace.getWorkspaceId());
             if (sandboxStatus != SandboxStatus.PUBLIC) {
-                workspaceHelper.deleteVertex(
-                        vertex,
-                        workspace.getWorkspaceId(),
-                        false,
-                        Priority.HIGH,
-                        authorizations,
-                        user
-                );
+                verticesToDelete.add(vertex);
             }
         }
+        workspaceHelper.deleteVertices(
+                verticesToDelete,
+                workspace.getWorkspaceId(),
+                Priority.HIGH,
+                authorizations,
+                user,
+                null
+        );
 
         return true;
     }
@@ -11,7 +11,7 @@ import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
 import org.visallo.core.model.longRunningProcess.LongRunningProcessRepository;
-import org.visallo.core.model.longRunningProcess.LongRunningProcessWorker;
+import org.visallo.core.model.longRunningProcess.NonCancelableLongRunningProcessWorker;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.user.PrivilegeRepository;
@@ -33,7 +33,7 @@ import java.text.NumberFormat;
 
 @Name("Structured Import")
 @Description("Extracts structured data from csv, and excel")
-public class StructuredIngestProcessWorker extends LongRunningProcessWorker {
+public class StructuredIngestProcessWorker extends NonCancelableLongRunningProcessWorker {
     public static final String TYPE = "org-visallo-structured-ingest";
     private OntologyRepository ontologyRepository;
     private VisibilityTranslator visibilityTranslator;
@@ -37,6 +37,11 @@ define([
         return process.canceled || process.endTime;
     }
 
+    function processShowsFinishedComponentWhileRunning(process) {
+        var handler = handlersByType[process.type];
+        return handler && handler.showFinishedComponentWhileRunning && !processIsFinished(process);
+    }
+
     function processShouldAutoDismiss(process) {
         var handler = handlersByType[process.type];
         return handler && handler.autoDismiss === true;
@@ -79,6 +84,7 @@ define([
              * @param {org.visallo.activity~titleRenderer} titleRenderer Render the title for row
              * @param {Array.<string>} [eventNames] Required if `eventWatcher`. Start event name, end event name.
              * @param {string} [finishedComponentPath] Path to {@link org.visallo.activity~FinishedComponent} to render when task is complete.
+             * @param {boolean} [showFinishedComponentWhileRunning=false] Also render the finished component while the task is running, for tasks with partial results. The component is not re-attached as the task changes.
              * @param {org.visallo.activity~onRemove} [onRemove] Invoked when row is removed
              * @param {boolean} [indeterminateProgress=false] If determinate progress is not available, will render indeterminate progress bar.
              * @param {boolean} [autoDismiss=false] Remove this activity row when complete
@@ -455,6 +461,9 @@ define([
                                 if (processIsFinished(process)) {
                                     return 'finished';
                                 }
+                                if (processShowsFinishedComponentWhileRunning(process)) {
+                                    return 'partial';
+                                }
                             });
 
                             this.select('.actions-plugin').each(function() {
@@ -465,7 +474,7 @@ define([
                                     var componentPath = handler.finishedComponentPath,
                                         Component = componentPath && finishedComponents[componentPath];
 
-                                    if (Component && datum.endTime) {
+                                    if (Component && (datum.endTime || processShowsFinishedComponentWhileRunning(datum))) {
                                         /**
                                          * FlightJS or React Component to render when activity is completed
                                          *
@@ -30,17 +30,64 @@ define([
                 addVerticesSelector: this.onAddVertices
             });
 
+            this.loadPartialResultsThrottled = _.throttle(this.loadPartialResults.bind(this), 1000);
             this.loadDefaultContent();
+            if (!this.attr.process.endTime) {
+                this.loadPartialResults();
+            }
 
             this.on(document, 'focusPaths', this.onFocusPaths);
             this.on(document, 'defocusPaths', this.onDefocusPaths);
             this.on(document, 'workspaceLoaded', this.onWorkspaceLoaded);
+            this.on(document, 'longRunningProcessChanged', this.onLongRunningProcessChanged);
         });
 
+        // while the process runs the paths found so far are read from its saved results on every progress report
+        this.onLongRunningProcessChanged = function(event, data) {
+            if (data.process.id !== this.attr.process.id) {
+                return;
+            }
+
+            this.attr.process = data.process;
+            if (data.process.endTime) {
+                this.partialResults = null;
+                if (!this.focused) {
+                    this.loadDefaultContent();
+                }
+            } else {
+                this.loadPartialResultsThrottled();
+            }
+        };
+
+        this.loadPartialResults = function() {
+            var self = this;
+
+            this.dataRequest('longRunningProcess', 'results', this.attr.process.id)
+                .then(function(results) {
+                    if (self.attr.process.endTime) {
+                        return;
+                    }
+                    self.partialResults = results;
+                    if (!self.focused) {
+                        self.loadDefaultContent();
+                    }
+                })
+                .catch(function() {
+                    // nothing is saved until the first paths are found
+                });
+        };
+
+        this.getResultsCount = function() {
+            if (this.attr.process.endTime) {
+                return this.attr.process.resultsCount || 0;
+            }
+            return this.partialResults && this.partialResults.paths ? this.partialResults.paths.length : 0;
+        };
+
         this.updateButton = function($button, workspaceId) {
             var self = this,
                 onDifferentWorkspace = workspaceId !== this.attr.process.workspaceId,
-                noResults = (self.attr.process.resultsCount || 0) === 0,
+                noResults = self.getResultsCount() === 0,
                 disabled = onDifferentWorkspace || noResults;
 
             if (disabled) {
@@ -59,7 +106,7 @@ define([
         };
 
         this.loadDefaultContent = function() {
-            var count = this.attr.process.resultsCount || 0,
+            var count = this.getResultsCount(),
                 $button = $('<button>').addClass('found-paths btn btn-mini')
                     .text(
                         i18n('popovers.find_path.paths.' + (
@@ -74,11 +121,13 @@ define([
 
         this.onFocusPaths = function(event, data) {
             if (data.processId !== this.attr.process.id) {
+                this.focused = false;
                 this.loadDefaultContent();
             }
         };
 
         this.onDefocusPaths = function(event, data) {
+            this.focused = false;
             this.loadDefaultContent();
         };
 
@@ -91,9 +140,17 @@ define([
             var self = this,
                 $target = $(event.target).addClass('loading').attr('disabled', true);
 
-            this.dataRequest('longRunningProcess', 'get', this.attr.process.id)
-                .done(function(process) {
-                    var paths = process.results && process.results.paths || [],
+            this.focused = true;
+
+            // processes finished before results were saved separately kept them in the process
+            var resultsRequest = this.attr.process.results ?
+                Promise.resolve(this.attr.process.results) :
+                this.dataRequest('longRunningProcess', 'results', this.attr.process.id);
+
+            resultsRequest
+                .then(function(results) {
+                    var process = self.attr.process,
+                        paths = results && results.paths || [],
                         vertices = _.chain(paths).flatten().uniq().value();
 
                     self.trigger('focusPaths', {
@@ -115,6 +172,10 @@ define([
                     $addButton.text(i18n('popovers.find_path.add'));
                     self.$node.append($addButton);
                 })
+                .catch(function() {
+                    self.focused = false;
+                    $target.removeClass('loading').removeAttr('disabled');
+                });
         };
     }
 });
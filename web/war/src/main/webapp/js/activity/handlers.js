@@ -28,6 +28,22 @@ define([], function() {
             allowCancel: true,
             finishedComponentPath: 'activity/builtin/CloudImport'
         },
+        {
+            type: 'deleteVertices',
+            kind: 'longRunningProcess',
+            titleRenderer: function(el, process) {
+                el.textContent = i18n('activity.tasks.type.deleteVertices.title', process.vertexIds.length);
+            },
+            autoDismiss: true
+        },
+        {
+            type: 'publish',
+            kind: 'longRunningProcess',
+            titleRenderer: function(el, process) {
+                el.textContent = i18n('activity.tasks.type.publish.title', process.itemCount);
+            },
+            autoDismiss: true
+        },
         {
             type: 'findPath',
             kind: 'longRunningProcess',
@@ -59,7 +75,8 @@ define([], function() {
             onRemove: function() {
                 this.trigger('defocusPaths');
             },
-            finishedComponentPath: 'activity/builtin/findPath'
+            finishedComponentPath: 'activity/builtin/findPath',
+            showFinishedComponentWhileRunning: true
         }
     ];
 })
@@ -80,6 +80,14 @@ define([
                     store.getStore().dispatch(actions.deleteElements({ vertexIds: data.vertexIds }));
                 });
             },
+            elementsDeleted: function(data) {
+                require(['../store/element/actions-impl'], function(actions) {
+                    store.getStore().dispatch(actions.deleteElements({
+                        vertexIds: data.vertexIds,
+                        edgeIds: data.edgeIds
+                    }));
+                });
+            },
             edgeDeletion: function(data) {
                 require(['../store/element/actions-impl'], function(actions) {
                     store.getStore().dispatch(actions.deleteElements({ edgeIds: [data.edgeId] }));
@@ -125,6 +133,14 @@ define([
                     data: data
                 });
             },
+            userNotificationsMarkedRead: function(data) {
+                data.notificationIds.forEach(function(notificationId) {
+                    dispatchMain('rebroadcastEvent', {
+                        eventName: 'notificationDeleted',
+                        data: { notificationId: notificationId }
+                    });
+                });
+            },
             systemNotificationUpdated: function(data) {
                 dispatchMain('rebroadcastEvent', {
                     eventName: 'notificationUpdated',
@@ -143,12 +143,16 @@ define([
          *
          * @param {string} edgeId
          * @param {boolean} withVisibility
+         * @param {object} [options]
+         * @param {number} [options.pageSize] Maximum number of events to return
+         * @param {string} [options.continuationToken] Token from the previous page
+         * @param {boolean} [options.includeStreamingContent=false] Read text values instead of summarizing them
          */
-        history: function(edgeId, withVisibility) {
-            return ajax('GET', '/edge/history', {
+        history: function(edgeId, withVisibility, options) {
+            return ajax('GET', '/edge/history', _.extend({
                 graphEdgeId: edgeId,
                 withVisibility: withVisibility
-            });
+            }, options));
         },
 
         /**
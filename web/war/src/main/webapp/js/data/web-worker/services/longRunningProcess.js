@@ -25,6 +25,17 @@ define([
             });
         },
 
+        /**
+         * Get the results saved by a process so far
+         *
+         * @param {string} id
+         */
+        results: function(processId) {
+            return ajax('GET', '/long-running-process/results', {
+                longRunningProcessId: processId
+            });
+        },
+
         /**
          * Cancel process (up to process implementation to handle correctly
          *
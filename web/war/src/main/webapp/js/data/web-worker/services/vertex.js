@@ -88,12 +88,12 @@ define([
                 })
         },
 
-        'geo-search': function(lat, lon, radius) {
-            return ajax('GET', '/vertex/geo-search', {
+        'geo-search': function(lat, lon, radius, options) {
+            return ajax('GET', '/vertex/geo-search', _.extend({
                 lat: lat,
                 lon: lon,
                 radius: radius
-            });
+            }, _.pick(options || {}, 'offset', 'size', 'precision')));
         },
 
         findPath: function(options) {
@@ -105,12 +105,16 @@ define([
          *
          * @param {string} vertexId
          * @param {boolean} withVisibility
+         * @param {object} [options]
+         * @param {number} [options.pageSize] Maximum number of events to return
+         * @param {string} [options.continuationToken] Token from the previous page
+         * @param {boolean} [options.includeStreamingContent=false] Read text values instead of summarizing them
          */
-        history: function(vertexId, withVisibility) {
-            return ajax('GET', '/vertex/history', {
+        history: function(vertexId, withVisibility, options) {
+            return ajax('GET', '/vertex/history', _.extend({
                 graphVertexId: vertexId,
                 withVisibility: withVisibility
-            });
+            }, options));
         },
 
         /**
@@ -207,6 +211,18 @@ define([
             })
         },
 
+        /**
+         * Delete many vertices (sandboxed) in a long running process
+         *
+         * @param {Array.<string>} vertexIds
+         * @returns {Promise} The long running process id
+         */
+        deleteMultiple: function(vertexIds) {
+            return ajax('POST', '/vertex/remove-multiple', {
+                vertexIds: vertexIds
+            })
+        },
+
         /**
          * Check if the vertices exist (in current workspace)
          *
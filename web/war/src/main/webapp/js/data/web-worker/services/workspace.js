@@ -5,14 +5,44 @@
  * @see module:dataRequest
  */
 define([
+    'configuration/plugins/registry',
     '../util/ajax',
     '../store',
     '../store/workspace/actions-impl',
     '../util/queue'
-], function(ajax, storeHelper, workspaceActions, queue) {
+], function(registry, ajax, storeHelper, workspaceActions, queue) {
     'use strict';
 
     const { getStore } = storeHelper;
+    const ASYNC_PUBLISH_MIN_CHANGES = 500;
+
+    // Resolves with the process from the longRunningProcessChange socket message that ends it. The process is
+    // fetched once after listening in case it ended before the listener was registered.
+    const waitForLongRunningProcess = function(processId) {
+        return new Promise((resolve, reject) => {
+            let done = false;
+            const finish = process => {
+                if (!done && process && process.id === processId && process.endTime) {
+                    done = true;
+                    registry.unregisterExtension(extensionUuid);
+                    resolve(process);
+                }
+            };
+            const extensionUuid = registry.registerExtension('org.visallo.websocket.message', {
+                name: 'longRunningProcessChange',
+                handler: finish
+            });
+            ajax('GET', '/long-running-process', { longRunningProcessId: processId })
+                .then(finish)
+                .catch(error => {
+                    if (!done) {
+                        done = true;
+                        registry.unregisterExtension(extensionUuid);
+                        reject(error);
+                    }
+                });
+        });
+    };
 
     /**
      * @alias module:services/workspace
@@ -289,9 +319,27 @@ define([
         }),
 
         publish: function(changes) {
-            return ajax('POST', '/workspace/publish', {
+            if (changes.length <= ASYNC_PUBLISH_MIN_CHANGES) {
+                return ajax('POST', '/workspace/publish', {
+                    publishData: JSON.stringify(changes)
+                });
+            }
+
+            // Large publishes run as a long running process, failures reference changes by index
+            return ajax('POST', '/workspace/publish-async', {
                 publishData: JSON.stringify(changes)
-            });
+            })
+                .then(({ id }) => waitForLongRunningProcess(id))
+                .then(process => {
+                    if (process.error) {
+                        throw process.error;
+                    }
+                    const failures = (process.failures || []).map(({ index, errorMessage }) => ({
+                        ...changes[index],
+                        errorMessage
+                    }));
+                    return { success: failures.length === 0, failures };
+                });
         },
 
         undo: function(changes) {
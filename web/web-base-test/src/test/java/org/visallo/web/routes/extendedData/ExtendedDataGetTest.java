@@ -0,0 +1,165 @@
+package org.visallo.web.routes.extendedData;
+
+import com.google.common.collect.Sets;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.*;
+import org.visallo.web.BadRequestException;
+import org.visallo.web.VisalloResponse;
+import org.visallo.web.routes.RouteTestBase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ExtendedDataGetTest extends RouteTestBase {
+    private static final String TABLE_NAME = "table1";
+    private ExtendedDataGet route;
+    private Authorizations authorizations;
+
+    @Before
+    public void before() throws IOException {
+        super.before();
+
+        Visibility visibility = new Visibility("");
+        authorizations = graph.createAuthorizations();
+        VertexBuilder vertexBuilder = graph.prepareVertex("v1", visibility);
+        for (int i = 1; i <= 5; i++) {
+            String rowId = "r0" + i;
+            vertexBuilder.addExtendedData(TABLE_NAME, rowId, "a", "a" + i, visibility);
+            vertexBuilder.addExtendedData(TABLE_NAME, rowId, "b", "b" + i, visibility);
+        }
+        vertexBuilder.save(authorizations);
+        graph.flush();
+
+        route = new ExtendedDataGet(graph);
+    }
+
+    @Test
+    public void testAllRows() throws Exception {
+        JSONObject json = writeRows(route, 0, null, null, null, null, null);
+
+        assertEquals(Arrays.asList("r01", "r02", "r03", "r04", "r05"), getRowIds(json));
+        assertFalse(json.has("nextRowId"));
+        assertEquals(Sets.newHashSet("a", "b"), getPropertyNames(json.getJSONArray("rows").getJSONObject(0)));
+    }
+
+    @Test
+    public void testOffsetAndSize() throws Exception {
+        JSONObject json = writeRows(route, 1, 2, null, null, null, null);
+
+        assertEquals(Arrays.asList("r02", "r03"), getRowIds(json));
+        assertEquals("r03", json.getString("nextRowId"));
+
+        json = writeRows(route, 4, 2, null, null, null, null);
+        assertEquals(Collections.singletonList("r05"), getRowIds(json));
+        assertFalse(json.has("nextRowId"));
+    }
+
+    @Test
+    public void testAfterRowId() throws Exception {
+        JSONObject firstPage = writeRows(route, 0, 2, null, null, null, null);
+        assertEquals(Arrays.asList("r01", "r02"), getRowIds(firstPage));
+
+        JSONObject secondPage = writeRows(route, 0, 2, firstPage.getString("nextRowId"), null, null, null);
+        assertEquals(Arrays.asList("r03", "r04"), getRowIds(secondPage));
+
+        JSONObject lastPage = writeRows(route, 0, 2, secondPage.getString("nextRowId"), null, null, null);
+        assertEquals(Collections.singletonList("r05"), getRowIds(lastPage));
+        assertFalse(lastPage.has("nextRowId"));
+    }
+
+    @Test
+    public void testRowIdRange() throws Exception {
+        JSONObject json = writeRows(route, 0, null, null, "r02", "r04", null);
+
+        assertEquals(Arrays.asList("r02", "r03"), getRowIds(json));
+    }
+
+    @Test
+    public void testRowIdRangeDoesNotDependOnRowOrder() throws Exception {
+        List<ExtendedDataRow> rows = new ArrayList<>();
+        for (ExtendedDataRow row : graph.getExtendedData(ElementType.VERTEX, "v1", TABLE_NAME, authorizations)) {
+            rows.add(row);
+        }
+        Collections.reverse(rows);
+        Graph unorderedGraph = mock(Graph.class);
+        when(unorderedGraph.getExtendedData(ElementType.VERTEX, "v1", TABLE_NAME, authorizations)).thenReturn(rows);
+
+        JSONObject json = writeRows(new ExtendedDataGet(unorderedGraph), 0, null, null, "r02", "r04", null);
+
+        assertEquals(Arrays.asList("r03", "r02"), getRowIds(json));
+    }
+
+    @Test
+    public void testColumns() throws Exception {
+        JSONObject json = writeRows(route, 0, 1, null, null, null, Collections.singleton("b"));
+
+        JSONObject row = json.getJSONArray("rows").getJSONObject(0);
+        assertEquals(Collections.singleton("b"), getPropertyNames(row));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testNegativeOffset() throws Exception {
+        route.handle(ElementType.VERTEX, "v1", TABLE_NAME, -1, null, null, null, null, null, authorizations, mock(VisalloResponse.class));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testNegativeSize() throws Exception {
+        route.handle(ElementType.VERTEX, "v1", TABLE_NAME, 0, -1, null, null, null, null, authorizations, mock(VisalloResponse.class));
+    }
+
+    private JSONObject writeRows(
+            ExtendedDataGet route,
+            int offset,
+            Integer size,
+            String afterRowId,
+            String startRowId,
+            String endRowId,
+            Set<String> propertyNames
+    ) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        route.writeRows(
+                out,
+                ElementType.VERTEX,
+                "v1",
+                TABLE_NAME,
+                offset,
+                size,
+                afterRowId,
+                startRowId,
+                endRowId,
+                propertyNames,
+                authorizations
+        );
+        return new JSONObject(new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static List<String> getRowIds(JSONObject json) {
+        List<String> rowIds = new ArrayList<>();
+        JSONArray rows = json.getJSONArray("rows");
+        for (int i = 0; i < rows.length(); i++) {
+            rowIds.add(rows.getJSONObject(i).getJSONObject("id").getString("rowId"));
+        }
+        return rowIds;
+    }
+
+    private static Set<String> getPropertyNames(JSONObject row) {
+        Set<String> propertyNames = new HashSet<>();
+        JSONArray properties = row.getJSONArray("properties");
+        for (int i = 0; i < properties.length(); i++) {
+            propertyNames.add(properties.getJSONObject(i).getString("name"));
+        }
+        return propertyNames;
+    }
+}
@@ -0,0 +1,148 @@
+package org.visallo.web.routes.vertex;
+
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.Vertex;
+import org.vertexium.Visibility;
+import org.visallo.core.exception.VisalloResourceNotFoundException;
+import org.visallo.web.BadRequestException;
+import org.visallo.web.clientapi.model.ClientApiVertexEdges;
+import org.visallo.web.routes.RouteTestBase;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VertexEdgesTest extends RouteTestBase {
+    private VertexEdges route;
+    private Authorizations authorizations;
+
+    @Before
+    public void before() throws IOException {
+        super.before();
+
+        Visibility visibility = new Visibility("");
+        authorizations = graph.createAuthorizations();
+
+        // v1 has three edges to v2 and one to each of v3 and v4
+        Vertex v1 = graph.addVertex("v1", visibility, authorizations);
+        Vertex v2 = graph.prepareVertex("v2", visibility)
+                .addPropertyValue("k1", "name", "value2", visibility)
+                .save(authorizations);
+        Vertex v3 = graph.addVertex("v3", visibility, authorizations);
+        Vertex v4 = graph.addVertex("v4", visibility, authorizations);
+        graph.addEdge("e1", v1, v2, "label1", visibility, authorizations);
+        graph.addEdge("e2", v1, v2, "label1", visibility, authorizations);
+        graph.addEdge("e3", v2, v1, "label2", visibility, authorizations);
+        graph.addEdge("e4", v1, v3, "label1", visibility, authorizations);
+        graph.addEdge("e5", v4, v1, "label2", visibility, authorizations);
+        graph.flush();
+
+        route = new VertexEdges(graph);
+    }
+
+    @Test
+    public void testAllEdges() throws Exception {
+        ClientApiVertexEdges response = handle(0, 25, null, null, "BOTH", null);
+
+        assertEquals(5, response.getTotalReferences());
+        assertEquals(Sets.newHashSet("e1", "e2", "e3", "e4", "e5"), getEdgeIds(response));
+        for (ClientApiVertexEdges.Edge edge : response.getRelationships()) {
+            assertNotEquals("v1", edge.getVertex().getId());
+        }
+    }
+
+    @Test
+    public void testPaging() throws Exception {
+        ClientApiVertexEdges firstPage = handle(0, 3, null, null, "BOTH", null);
+        ClientApiVertexEdges secondPage = handle(3, 3, null, null, "BOTH", null);
+
+        assertEquals(5, firstPage.getTotalReferences());
+        assertEquals(5, secondPage.getTotalReferences());
+        assertEquals(3, firstPage.getRelationships().size());
+        assertEquals(2, secondPage.getRelationships().size());
+        Set<String> edgeIds = getEdgeIds(firstPage);
+        edgeIds.addAll(getEdgeIds(secondPage));
+        assertEquals(Sets.newHashSet("e1", "e2", "e3", "e4", "e5"), edgeIds);
+    }
+
+    @Test
+    public void testEdgeLabelAndDirection() throws Exception {
+        assertEquals(Sets.newHashSet("e1", "e2", "e4"), getEdgeIds(handle(0, 25, "label1", null, "BOTH", null)));
+        assertEquals(Sets.newHashSet("e3", "e5"), getEdgeIds(handle(0, 25, null, null, "in", null)));
+    }
+
+    @Test
+    public void testRelatedVertex() throws Exception {
+        ClientApiVertexEdges response = handle(0, 25, null, "v2", "BOTH", null);
+
+        assertEquals(3, response.getTotalReferences());
+        assertEquals(Sets.newHashSet("e1", "e2", "e3"), getEdgeIds(response));
+        for (ClientApiVertexEdges.Edge edge : response.getRelationships()) {
+            assertEquals("v2", edge.getVertex().getId());
+        }
+
+        assertEquals(Sets.newHashSet("e1", "e2"), getEdgeIds(handle(0, 25, "label1", "v2", "BOTH", null)));
+        assertEquals(Sets.newHashSet("e3"), getEdgeIds(handle(0, 25, null, "v2", "IN", null)));
+    }
+
+    @Test
+    public void testRelatedVertexPaging() throws Exception {
+        ClientApiVertexEdges firstPage = handle(0, 2, null, "v2", "BOTH", null);
+        ClientApiVertexEdges secondPage = handle(2, 2, null, "v2", "BOTH", null);
+        ClientApiVertexEdges pastTheEnd = handle(5, 2, null, "v2", "BOTH", null);
+
+        assertEquals(3, firstPage.getTotalReferences());
+        assertEquals(2, firstPage.getRelationships().size());
+        assertEquals(1, secondPage.getRelationships().size());
+        Set<String> edgeIds = getEdgeIds(firstPage);
+        edgeIds.addAll(getEdgeIds(secondPage));
+        assertEquals(Sets.newHashSet("e1", "e2", "e3"), edgeIds);
+        assertEquals(3, pastTheEnd.getTotalReferences());
+        assertEquals(0, pastTheEnd.getRelationships().size());
+    }
+
+    @Test(expected = VisalloResourceNotFoundException.class)
+    public void testRelatedVertexNotFound() throws Exception {
+        handle(0, 25, null, "missing", "BOTH", null);
+    }
+
+    @Test
+    public void testFetchHints() throws Exception {
+        ClientApiVertexEdges response = handle(0, 25, null, "v2", "BOTH", new String[]{"properties"});
+
+        assertEquals(3, response.getRelationships().size());
+        assertEquals("value2", response.getRelationships().get(0).getVertex().getProperty("k1", "name").getValue());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testInvalidFetchHint() throws Exception {
+        handle(0, 25, null, null, "BOTH", new String[]{"notAFetchHint"});
+    }
+
+    private ClientApiVertexEdges handle(
+            int offset,
+            int size,
+            String edgeLabel,
+            String relatedVertexId,
+            String direction,
+            String[] fetchHints
+    ) throws Exception {
+        return route.handle("v1", offset, size, edgeLabel, relatedVertexId, direction, fetchHints, WORKSPACE_ID, authorizations);
+    }
+
+    private static Set<String> getEdgeIds(ClientApiVertexEdges response) {
+        Set<String> edgeIds = new HashSet<>();
+        for (ClientApiVertexEdges.Edge edge : response.getRelationships()) {
+            edgeIds.add(edge.getRelationship().getId());
+        }
+        return edgeIds;
+    }
+}
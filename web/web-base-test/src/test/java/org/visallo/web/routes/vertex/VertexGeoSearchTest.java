@@ -0,0 +1,206 @@
+package org.visallo.web.routes.vertex;
+
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.FetchHint;
+import org.vertexium.Graph;
+import org.vertexium.Visibility;
+import org.vertexium.query.GeohashBucket;
+import org.vertexium.query.GeohashResult;
+import org.vertexium.query.GraphQuery;
+import org.vertexium.query.QueryResultsIterable;
+import org.vertexium.type.GeoPoint;
+import org.vertexium.type.GeoRect;
+import org.visallo.core.model.ontology.OntologyProperty;
+import org.visallo.web.BadRequestException;
+import org.visallo.web.clientapi.model.ClientApiElement;
+import org.visallo.web.clientapi.model.ClientApiElementSearchResponse;
+import org.visallo.web.clientapi.model.ClientApiSearchResponse;
+import org.visallo.web.clientapi.model.ClientApiVertexiumObject;
+import org.visallo.web.clientapi.model.PropertyType;
+import org.visallo.web.routes.RouteTestBase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VertexGeoSearchTest extends RouteTestBase {
+    private static final double LATITUDE = 10;
+    private static final double LONGITUDE = 10;
+    private static final double RADIUS = 100;
+    private VertexGeoSearch route;
+    private Authorizations authorizations;
+
+    @Before
+    public void before() throws IOException {
+        super.before();
+
+        Visibility visibility = new Visibility("");
+        authorizations = graph.createAuthorizations();
+        when(ontologyRepository.getProperties(WORKSPACE_ID)).thenReturn(Arrays.asList(
+                createProperty("geo1", PropertyType.GEO_LOCATION),
+                createProperty("geo2", PropertyType.GEO_LOCATION),
+                createProperty("title", PropertyType.STRING)
+        ));
+
+        // v1 has both geo properties in the circle, v2 and v3 one each, and v4 is outside of the circle
+        GeoPoint inside = new GeoPoint(LATITUDE, LONGITUDE);
+        graph.prepareVertex("v1", visibility)
+                .setProperty("geo1", inside, visibility)
+                .setProperty("geo2", new GeoPoint(LATITUDE + 0.1, LONGITUDE), visibility)
+                .save(authorizations);
+        graph.prepareVertex("v2", visibility)
+                .setProperty("geo1", inside, visibility)
+                .save(authorizations);
+        graph.prepareVertex("v3", visibility)
+                .setProperty("geo2", inside, visibility)
+                .save(authorizations);
+        graph.prepareVertex("v4", visibility)
+                .setProperty("geo1", new GeoPoint(50, 50), visibility)
+                .save(authorizations);
+        graph.flush();
+
+        route = new VertexGeoSearch(graph, ontologyRepository);
+    }
+
+    @Test
+    public void testVertexWithTwoGeoPropertiesIsReturnedOnce() throws Exception {
+        ClientApiElementSearchResponse response = handle(0, 100, null);
+
+        assertEquals(Sets.newHashSet("v1", "v2", "v3"), getVertexIds(response));
+        assertEquals(3, response.getElements().size());
+        assertEquals(Long.valueOf(3), response.getTotalHits());
+        assertEquals(Integer.valueOf(3), response.getNextOffset());
+    }
+
+    @Test
+    public void testPaging() throws Exception {
+        // each property has two vertices in the circle, more than the one read per property for this page
+        ClientApiElementSearchResponse firstPage = handle(0, 1, null);
+        assertEquals(1, firstPage.getElements().size());
+        assertEquals(Integer.valueOf(1), firstPage.getNextOffset());
+        assertNull(firstPage.getTotalHits());
+
+        ClientApiElementSearchResponse secondPage = handle(1, 2, null);
+        assertEquals(2, secondPage.getElements().size());
+        assertEquals(Integer.valueOf(3), secondPage.getNextOffset());
+        assertEquals(Long.valueOf(3), secondPage.getTotalHits());
+
+        Set<String> vertexIds = getVertexIds(firstPage);
+        vertexIds.addAll(getVertexIds(secondPage));
+        assertEquals(Sets.newHashSet("v1", "v2", "v3"), vertexIds);
+
+        ClientApiElementSearchResponse pastTheEnd = handle(5, 2, null);
+        assertEquals(0, pastTheEnd.getElements().size());
+        assertEquals(Integer.valueOf(5), pastTheEnd.getNextOffset());
+        assertEquals(Long.valueOf(3), pastTheEnd.getTotalHits());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testPrecisionTooLow() throws Exception {
+        handle(0, 100, 0);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testPrecisionTooHigh() throws Exception {
+        handle(0, 100, 13);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testNegativeOffset() throws Exception {
+        handle(-1, 100, null);
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testNegativeSize() throws Exception {
+        handle(0, -1, null);
+    }
+
+    @Test
+    public void testClustersAreMergedAcrossProperties() throws Exception {
+        Graph clusterGraph = mock(Graph.class);
+        GraphQuery geo1Query = createClusterQuery(
+                createBucket("s0", 2, new GeoPoint(1, 1)),
+                createBucket("s1", 1, new GeoPoint(5, 5))
+        );
+        GraphQuery geo2Query = createClusterQuery(
+                createBucket("s0", 2, new GeoPoint(3, 3))
+        );
+        when(clusterGraph.query(authorizations)).thenReturn(geo1Query, geo2Query);
+
+        ClientApiElementSearchResponse response = new VertexGeoSearch(clusterGraph, ontologyRepository).handle(
+                LATITUDE, LONGITUDE, RADIUS, 0, 100, 3, WORKSPACE_ID, authorizations
+        );
+
+        assertEquals(0, response.getElements().size());
+        ClientApiSearchResponse.GeohashAggregateResult result = (ClientApiSearchResponse.GeohashAggregateResult)
+                response.getAggregates().get(VertexGeoSearch.GEOHASH_AGGREGATION_NAME);
+        assertEquals(Sets.newHashSet("s0", "s1"), result.getBuckets().keySet());
+        ClientApiSearchResponse.GeohashAggregateResult.Bucket s0 = result.getBuckets().get("s0");
+        assertEquals(4, s0.getCount());
+        // the centroid is weighted by the count of each property's bucket
+        assertEquals(2, s0.getPoint().latitude, 0.0001);
+        assertEquals(2, s0.getPoint().longitude, 0.0001);
+        assertEquals(1, result.getBuckets().get("s1").getCount());
+        assertEquals(4, result.getMaxCount());
+    }
+
+    private ClientApiElementSearchResponse handle(int offset, int size, Integer precision) throws Exception {
+        return route.handle(LATITUDE, LONGITUDE, RADIUS, offset, size, precision, WORKSPACE_ID, authorizations);
+    }
+
+    private static Set<String> getVertexIds(ClientApiElementSearchResponse response) {
+        Set<String> vertexIds = new HashSet<>();
+        for (ClientApiVertexiumObject element : response.getElements()) {
+            vertexIds.add(((ClientApiElement) element).getId());
+        }
+        return vertexIds;
+    }
+
+    private static OntologyProperty createProperty(String title, PropertyType dataType) {
+        OntologyProperty property = mock(OntologyProperty.class);
+        when(property.getTitle()).thenReturn(title);
+        when(property.getDataType()).thenReturn(dataType);
+        return property;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static GraphQuery createClusterQuery(GeohashBucket... buckets) {
+        // the builder methods of the query return the query itself
+        GraphQuery query = mock(GraphQuery.class, (InvocationOnMock invocation) ->
+                invocation.getMethod().getReturnType().isInstance(invocation.getMock())
+                        ? invocation.getMock()
+                        : Mockito.RETURNS_DEFAULTS.answer(invocation));
+        GeohashResult geohashResult = mock(GeohashResult.class);
+        when(geohashResult.getBuckets()).thenReturn(Arrays.asList(buckets));
+        QueryResultsIterable results = mock(QueryResultsIterable.class);
+        when(results.getAggregationResult(VertexGeoSearch.GEOHASH_AGGREGATION_NAME, GeohashResult.class))
+                .thenReturn(geohashResult);
+        when(query.vertices(FetchHint.NONE)).thenReturn(results);
+        return query;
+    }
+
+    private static GeohashBucket createBucket(String key, long count, GeoPoint point) {
+        GeohashBucket bucket = mock(GeohashBucket.class);
+        when(bucket.getKey()).thenReturn(key);
+        when(bucket.getCount()).thenReturn(count);
+        when(bucket.getGeoPoint()).thenReturn(point);
+        when(bucket.getGeoCell()).thenReturn(new GeoRect(
+                new GeoPoint(point.getLatitude() + 1, point.getLongitude() - 1),
+                new GeoPoint(point.getLatitude() - 1, point.getLongitude() + 1)
+        ));
+        return bucket;
+    }
+}
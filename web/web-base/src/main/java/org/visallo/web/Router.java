@@ -29,6 +29,7 @@ import org.visallo.web.routes.extendedData.ExtendedDataSearch;
 import org.visallo.web.routes.longRunningProcess.LongRunningProcessById;
 import org.visallo.web.routes.longRunningProcess.LongRunningProcessCancel;
 import org.visallo.web.routes.longRunningProcess.LongRunningProcessDelete;
+import org.visallo.web.routes.longRunningProcess.LongRunningProcessResults;
 import org.visallo.web.routes.map.GetGeocoder;
 import org.visallo.web.routes.map.MapzenTileProxy;
 import org.visallo.web.routes.notification.Notifications;
@@ -124,6 +125,7 @@ public class Router extends HttpServlet {
             app.post("/element/search", authenticator, csrfProtector, ReadPrivilegeFilter.class, ElementSearch.class);
 
             app.delete("/vertex", authenticator, csrfProtector, EditPrivilegeFilter.class, VertexRemove.class);
+            app.post("/vertex/remove-multiple", authenticator, csrfProtector, EditPrivilegeFilter.class, VertexRemoveMultiple.class);
             app.get("/vertex/highlighted-text", authenticator, csrfProtector, ReadPrivilegeFilter.class, VertexHighlightedText.class);
             app.get("/vertex/raw", authenticator, csrfProtector, ReadPrivilegeFilter.class, VertexRaw.class);
             app.get("/vertex/exists", authenticator, csrfProtector, ReadPrivilegeFilter.class, VertexExists.class);
@@ -195,6 +197,7 @@ public class Router extends HttpServlet {
             app.get("/workspace", authenticator, csrfProtector, ReadPrivilegeFilter.class, WorkspaceById.class);
             app.delete("/workspace", authenticator, csrfProtector, ReadPrivilegeFilter.class, WorkspaceDelete.class);
             app.post("/workspace/publish", authenticator, csrfProtector, PublishPrivilegeFilter.class, WorkspacePublish.class);
+            app.post("/workspace/publish-async", authenticator, csrfProtector, PublishPrivilegeFilter.class, WorkspacePublishAsync.class);
             app.post("/workspace/undo", authenticator, csrfProtector, EditPrivilegeFilter.class, WorkspaceUndo.class);
 
             app.get("/dashboard/all", authenticator, csrfProtector, ReadPrivilegeFilter.class, DashboardAll.class);
@@ -221,6 +224,7 @@ public class Router extends HttpServlet {
             app.get("/long-running-process", authenticator, csrfProtector, LongRunningProcessById.class);
             app.delete("/long-running-process", authenticator, csrfProtector, LongRunningProcessDelete.class);
             app.post("/long-running-process/cancel", authenticator, csrfProtector, LongRunningProcessCancel.class);
+            app.get("/long-running-process/results", authenticator, csrfProtector, LongRunningProcessResults.class);
 
             app.get("/admin/all", authenticator, csrfProtector, AdminPrivilegeFilter.class, AdminList.class);
             app.get("/admin/plugins", authenticator, csrfProtector, AdminPrivilegeFilter.class, PluginList.class);
@@ -0,0 +1,20 @@
+package org.visallo.web.initializers;
+
+import com.google.inject.Inject;
+import org.visallo.core.model.notification.UserNotificationCompactionService;
+
+import javax.servlet.ServletContext;
+
+public class UserNotificationCompactionInitializer extends ApplicationBootstrapInitializer {
+    private final UserNotificationCompactionService userNotificationCompactionService;
+
+    @Inject
+    public UserNotificationCompactionInitializer(UserNotificationCompactionService userNotificationCompactionService) {
+        this.userNotificationCompactionService = userNotificationCompactionService;
+    }
+
+    @Override
+    public void initialize(ServletContext context) {
+        this.userNotificationCompactionService.start();
+    }
+}
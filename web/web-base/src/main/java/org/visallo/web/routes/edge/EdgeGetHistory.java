@@ -11,7 +11,9 @@ import org.vertexium.Graph;
 import org.vertexium.HistoricalPropertyValue;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.HistoricalPropertyValueCursor;
 import org.visallo.web.clientapi.model.ClientApiHistoricalPropertyResults;
+import org.visallo.web.util.HistoryPageValidator;
 
 import java.util.Locale;
 import java.util.ResourceBundle;
@@ -30,10 +32,16 @@ public class EdgeGetHistory implements ParameterizedHandler {
             @Optional(name = "startTime") Long startTime,
             @Optional(name = "endTime") Long endTime,
             @Optional(name = "withVisibility") Boolean withVisibility,
+            @Optional(name = "pageSize") Integer pageSize,
+            @Optional(name = "continuationToken") String continuationToken,
+            @Optional(name = "includeStreamingContent", defaultValue = "false") boolean includeStreamingContent,
             Locale locale,
             ResourceBundle resourceBundle,
             Authorizations authorizations
     ) throws Exception {
+        HistoricalPropertyValueCursor cursor = HistoryPageValidator.parseContinuationToken(continuationToken);
+        HistoryPageValidator.validatePageSize(pageSize);
+
         Edge edge = graph.getEdge(graphEdgeId, authorizations);
         if (edge == null) {
             throw new VisalloResourceNotFoundException(String.format("edge %s not found", graphEdgeId));
@@ -44,6 +52,14 @@ public class EdgeGetHistory implements ParameterizedHandler {
                 endTime,
                 authorizations
         );
-        return ClientApiConverter.toClientApi(historicalPropertyValues, locale, resourceBundle, withVisibility);
+        return ClientApiConverter.toClientApi(
+                historicalPropertyValues,
+                cursor,
+                pageSize,
+                locale,
+                resourceBundle,
+                withVisibility != null && withVisibility,
+                includeStreamingContent
+        );
     }
 }
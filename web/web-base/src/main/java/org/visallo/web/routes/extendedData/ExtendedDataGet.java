@@ -1,5 +1,7 @@
 package org.visallo.web.routes.extendedData;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
@@ -10,8 +12,28 @@ import org.vertexium.ElementType;
 import org.vertexium.ExtendedDataRow;
 import org.vertexium.Graph;
 import org.visallo.core.util.ClientApiConverter;
-import org.visallo.web.clientapi.model.ClientApiExtendedDataGetResponse;
+import org.visallo.web.BadRequestException;
+import org.visallo.web.VisalloResponse;
+import org.visallo.web.clientapi.util.ObjectMapperFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Writes the rows of an extended data table as a
+ * {@link org.visallo.web.clientapi.model.ClientApiExtendedDataGetResponse}, one row at a time, so that large tables
+ * are never held in memory.
+ * <p>
+ * The rows can be limited to a range of row ids, from startRowId inclusive to endRowId exclusive, and paged with
+ * offset and size or with afterRowId, the nextRowId of the previous page. The row id range is applied to each row
+ * read, so it does not depend on the order the graph returns the rows in. Paging with afterRowId does: it relies
+ * on the graph returning the rows of a table in row id order, where it does not page with offset and size
+ * instead. When columns are given only those properties of the rows are returned.
+ */
 public class ExtendedDataGet implements ParameterizedHandler {
     private final Graph graph;
 
@@ -21,13 +43,101 @@ public class ExtendedDataGet implements ParameterizedHandler {
     }
 
     @Handle
-    public ClientApiExtendedDataGetResponse handle(
+    public void handle(
             @Required(name = "elementType") ElementType elementType,
             @Required(name = "elementId") String elementId,
             @Required(name = "tableName") String tableName,
-            Authorizations authorizations
+            @Optional(name = "offset", defaultValue = "0") int offset,
+            @Optional(name = "size") Integer size,
+            @Optional(name = "afterRowId") String afterRowId,
+            @Optional(name = "startRowId") String startRowId,
+            @Optional(name = "endRowId") String endRowId,
+            @Optional(name = "columns[]") String[] columns,
+            Authorizations authorizations,
+            VisalloResponse response
     ) throws Exception {
-        Iterable<ExtendedDataRow> rows = graph.getExtendedData(elementType, elementId, tableName, authorizations);
-        return new ClientApiExtendedDataGetResponse(ClientApiConverter.toClientApiExtendedDataRows(rows));
+        if (offset < 0) {
+            throw new BadRequestException("offset", "offset must be greater than or equal to 0");
+        }
+        if (size != null && size < 0) {
+            throw new BadRequestException("size", "size must be greater than or equal to 0");
+        }
+        Set<String> propertyNames = columns == null ? null : new HashSet<>(Arrays.asList(columns));
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+        response.setHeader("Pragma", "no-cache");
+        response.setHeader("Expires", "0");
+        writeRows(
+                response.getOutputStream(),
+                elementType,
+                elementId,
+                tableName,
+                offset,
+                size,
+                afterRowId,
+                startRowId,
+                endRowId,
+                propertyNames,
+                authorizations
+        );
+    }
+
+    /**
+     * @param size          the maximum number of rows to write, or null to write every row
+     * @param propertyNames the names of the properties to write, or null to write every property
+     */
+    public void writeRows(
+            OutputStream out,
+            ElementType elementType,
+            String elementId,
+            String tableName,
+            int offset,
+            Integer size,
+            String afterRowId,
+            String startRowId,
+            String endRowId,
+            Set<String> propertyNames,
+            Authorizations authorizations
+    ) throws IOException {
+        ObjectMapper objectMapper = ObjectMapperFactory.getInstance();
+        Iterator<ExtendedDataRow> rows = graph.getExtendedData(elementType, elementId, tableName, authorizations).iterator();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setCodec(objectMapper);
+            json.writeStartObject();
+            json.writeArrayFieldStart("rows");
+            int skipped = 0;
+            int written = 0;
+            String lastRowId = null;
+            String nextRowId = null;
+            while (rows.hasNext()) {
+                ExtendedDataRow row = rows.next();
+                String rowId = row.getId().getRowId();
+                if ((endRowId != null && rowId.compareTo(endRowId) >= 0)
+                        || (startRowId != null && rowId.compareTo(startRowId) < 0)
+                        || (afterRowId != null && rowId.compareTo(afterRowId) <= 0)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                if (size != null && written >= size) {
+                    // there is at least one more row
+                    nextRowId = lastRowId;
+                    break;
+                }
+                json.writeObject(ClientApiConverter.toClientApiExtendedDataRow(row, null, propertyNames));
+                lastRowId = rowId;
+                written++;
+            }
+            json.writeEndArray();
+            if (nextRowId != null) {
+                json.writeStringField("nextRowId", nextRowId);
+            }
+            json.writeEndObject();
+        }
     }
 }
@@ -0,0 +1,31 @@
+package org.visallo.web.routes.longRunningProcess;
+
+import com.google.inject.Inject;
+import com.v5analytics.webster.ParameterizedHandler;
+import com.v5analytics.webster.annotations.Handle;
+import com.v5analytics.webster.annotations.Required;
+import org.json.JSONObject;
+import org.visallo.core.exception.VisalloResourceNotFoundException;
+import org.visallo.core.model.longRunningProcess.LongRunningProcessRepository;
+import org.visallo.core.user.User;
+
+public class LongRunningProcessResults implements ParameterizedHandler {
+    private final LongRunningProcessRepository longRunningProcessRepository;
+
+    @Inject
+    public LongRunningProcessResults(final LongRunningProcessRepository longRunningProcessRepository) {
+        this.longRunningProcessRepository = longRunningProcessRepository;
+    }
+
+    @Handle
+    public JSONObject handle(
+            User authUser,
+            @Required(name = "longRunningProcessId") String longRunningProcessId
+    ) throws Exception {
+        JSONObject results = longRunningProcessRepository.findResults(longRunningProcessId, authUser);
+        if (results == null) {
+            throw new VisalloResourceNotFoundException("Could not find results of long running process: %s", longRunningProcessId);
+        }
+        return results;
+    }
+}
@@ -8,6 +8,7 @@ import com.v5analytics.webster.annotations.Required;
 import org.json.JSONObject;
 import org.visallo.core.model.workspace.WorkspaceRepository;
 import org.visallo.core.model.workspace.product.Product;
+import org.visallo.core.model.workspace.product.ProductExtendedDataCache;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
 import org.visallo.web.clientapi.model.ClientApiProduct;
@@ -27,10 +28,14 @@ public class ProductGet implements ParameterizedHandler {
             @Required(name = "productId") String productId,
             @Optional(name = "includeExtended", defaultValue = "true") boolean includeExtended,
             @Optional(name = "params") String paramsStr,
+            @Optional(name = "sinceVersion") Long sinceVersion,
             @ActiveWorkspaceId String workspaceId,
             User user
     ) throws Exception {
         JSONObject params = paramsStr == null ? new JSONObject() : new JSONObject(paramsStr);
+        if (sinceVersion != null) {
+            params.put(ProductExtendedDataCache.PARAM_SINCE_VERSION, sinceVersion.longValue());
+        }
         Product product = workspaceRepository.findProductById(workspaceId, productId, params, includeExtended, user);
         return ClientApiConverter.toClientApiProduct(product);
     }
@@ -16,6 +16,11 @@ import javax.servlet.http.HttpServletRequest;
 import java.util.List;
 
 public class SearchRun implements ParameterizedHandler {
+    /**
+     * Set on the forwarded request so that the search route can use
+     * {@link org.visallo.core.model.search.SavedSearchResultCache}.
+     */
+    public static final String SAVED_SEARCH_ID_ATTRIBUTE = "visalloSavedSearchId";
     private final SearchRepository searchRepository;
 
     @Inject
@@ -38,6 +43,7 @@ public class SearchRun implements ParameterizedHandler {
         }
 
         request.setAttribute(VisalloBaseParameterProvider.VISALLO_WORKSPACE_ID_HEADER_NAME, workspaceId);
+        request.setAttribute(SAVED_SEARCH_ID_ATTRIBUTE, id);
         if (savedSearch.parameters != null) {
             for (Object k : savedSearch.parameters.keySet()) {
                 String key = (String) k;
@@ -13,10 +13,15 @@ import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.trace.Trace;
 import org.visallo.core.trace.TraceSpan;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.web.BadRequestException;
 import org.visallo.web.clientapi.model.ClientApiVertex;
 import org.visallo.web.clientapi.model.ClientApiVertexEdges;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 
+import java.util.*;
+
+import static org.vertexium.util.IterableUtils.toList;
+
 public class VertexEdges implements ParameterizedHandler {
     private final Graph graph;
 
@@ -25,6 +30,10 @@ public class VertexEdges implements ParameterizedHandler {
         this.graph = graph;
     }
 
+    /**
+     * @param fetchHintNames the {@link FetchHint}s to load the other vertices of the edges with, defaults to
+     *                       {@link ClientApiConverter#SEARCH_FETCH_HINTS}. The edge labels are always loaded.
+     */
     @Handle
     public ClientApiVertexEdges handle(
             @Required(name = "graphVertexId") String graphVertexId,
@@ -33,11 +42,17 @@ public class VertexEdges implements ParameterizedHandler {
             @Optional(name = "edgeLabel") String edgeLabel,
             @Optional(name = "relatedVertexId") String relatedVertexId,
             @Optional(name = "direction", defaultValue = "BOTH") String directionStr,
+            @Optional(name = "fetchHints[]") String[] fetchHintNames,
             @ActiveWorkspaceId String workspaceId,
             Authorizations authorizations
     ) throws Exception {
+        EnumSet<FetchHint> fetchHints = getFetchHints(fetchHintNames);
+        Direction direction = Direction.valueOf(directionStr.toUpperCase());
+        if (Strings.isNullOrEmpty(edgeLabel)) {
+            edgeLabel = null;
+        }
+
         Vertex vertex;
-        Vertex relatedVertex = null;
         try (TraceSpan trace = Trace.start("getOriginalVertex").data("graphVertexId", graphVertexId)) {
             vertex = graph.getVertex(graphVertexId, authorizations);
             if (vertex == null) {
@@ -45,36 +60,48 @@ public class VertexEdges implements ParameterizedHandler {
             }
         }
 
-        if (relatedVertexId != null) {
-            relatedVertex = graph.getVertex(relatedVertexId, authorizations);
+        List<Edge> edges;
+        Map<String, Vertex> otherVertices = new HashMap<>();
+        long totalReferences;
+        if (!Strings.isNullOrEmpty(relatedVertexId)) {
+            Vertex relatedVertex = graph.getVertex(relatedVertexId, fetchHints, authorizations);
             if (relatedVertex == null) {
                 throw new VisalloResourceNotFoundException("Could not find related vertex: " + relatedVertexId);
             }
+            otherVertices.put(relatedVertex.getId(), relatedVertex);
+
+            // the edges between two vertices are found from the edge ids of the vertex, without an edge query
+            List<String> edgeIds = toList(vertex.getEdgeIds(relatedVertex, direction, edgeLabel, authorizations));
+            totalReferences = edgeIds.size();
+            edges = getEdges(page(edgeIds, offset, size), authorizations);
+        } else {
+            VertexQuery edgesQuery = vertex.query(authorizations);
+            if (edgeLabel != null) {
+                edgesQuery.hasEdgeLabel(edgeLabel);
+            }
+            edgesQuery.hasDirection(direction);
+
+            QueryResultsIterable<Edge> edgesResults = edgesQuery
+                    .skip(offset)
+                    .limit(size)
+                    .edges();
+            edges = toList(edgesResults);
+            totalReferences = edgesResults.getTotalHits();
+
+            try (TraceSpan trace = Trace.start("getOtherVertices").data("edgeCount", Integer.toString(edges.size()))) {
+                Set<String> otherVertexIds = new LinkedHashSet<>();
+                for (Edge edge : edges) {
+                    otherVertexIds.add(edge.getOtherVertexId(graphVertexId));
+                }
+                for (Vertex otherVertex : graph.getVertices(otherVertexIds, fetchHints, authorizations)) {
+                    otherVertices.put(otherVertex.getId(), otherVertex);
+                }
+            }
         }
 
-        VertexQuery edgesQuery = vertex.query(authorizations);
-
-        if (!Strings.isNullOrEmpty(edgeLabel)) {
-            edgesQuery.hasEdgeLabel(edgeLabel);
-        }
-
-        Direction direction = Direction.valueOf(directionStr.toUpperCase());
-        edgesQuery.hasDirection(direction);
-
-        if (!Strings.isNullOrEmpty(relatedVertexId)) {
-            edgesQuery.hasOtherVertexId(relatedVertexId);
-        }
-
-        QueryResultsIterable<Edge> edges = edgesQuery
-                .skip(offset)
-                .limit(size)
-                .edges();
-
         ClientApiVertexEdges result = new ClientApiVertexEdges();
-
         for (Edge edge : edges) {
-            String otherVertexId = edge.getOtherVertexId(graphVertexId);
-            Vertex otherVertex = graph.getVertex(otherVertexId, authorizations);
+            Vertex otherVertex = otherVertices.get(edge.getOtherVertexId(graphVertexId));
             if (otherVertex == null) {
                 continue;
             }
@@ -82,13 +109,51 @@ public class VertexEdges implements ParameterizedHandler {
             result.getRelationships().add(convertEdgeToClientApi(edge, otherVertex, workspaceId, authorizations));
         }
 
-        result.setTotalReferences(edges.getTotalHits());
+        result.setTotalReferences(totalReferences);
 
         return result;
     }
 
+    private List<Edge> getEdges(List<String> edgeIds, Authorizations authorizations) {
+        Map<String, Edge> edgesById = new HashMap<>();
+        for (Edge edge : graph.getEdges(edgeIds, FetchHint.ALL, authorizations)) {
+            edgesById.put(edge.getId(), edge);
+        }
+        List<Edge> edges = new ArrayList<>(edgeIds.size());
+        for (String edgeId : edgeIds) {
+            Edge edge = edgesById.get(edgeId);
+            if (edge != null) {
+                edges.add(edge);
+            }
+        }
+        return edges;
+    }
+
+    private static <T> List<T> page(List<T> list, int offset, int size) {
+        int fromIndex = Math.min(Math.max(offset, 0), list.size());
+        int toIndex = Math.min(fromIndex + Math.max(size, 0), list.size());
+        return list.subList(fromIndex, toIndex);
+    }
+
+    private static EnumSet<FetchHint> getFetchHints(String[] fetchHintNames) {
+        if (fetchHintNames == null || fetchHintNames.length == 0) {
+            return ClientApiConverter.SEARCH_FETCH_HINTS;
+        }
+        EnumSet<FetchHint> fetchHints = EnumSet.of(FetchHint.IN_EDGE_LABELS, FetchHint.OUT_EDGE_LABELS);
+        for (String fetchHintName : fetchHintNames) {
+            try {
+                fetchHints.add(FetchHint.valueOf(fetchHintName.toUpperCase()));
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequestException("fetchHints[]", "Invalid fetch hint: " + fetchHintName);
+            }
+        }
+        return fetchHints;
+    }
+
     /**
      * This is overridable so web plugins can modify the resulting set of edges.
+     *
+     * @param otherVertex the other vertex of the edge, loaded with the requested fetch hints
      */
     protected ClientApiVertexEdges.Edge convertEdgeToClientApi(Edge edge, Vertex otherVertex, String workspaceId, Authorizations authorizations) {
         ClientApiVertexEdges.Edge clientApiEdge = new ClientApiVertexEdges.Edge();
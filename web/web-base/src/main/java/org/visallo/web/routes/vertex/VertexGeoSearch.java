@@ -3,20 +3,41 @@ package org.visallo.web.routes.vertex;
 import com.google.inject.Inject;
 import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
+import com.v5analytics.webster.annotations.Optional;
 import com.v5analytics.webster.annotations.Required;
 import org.vertexium.Authorizations;
+import org.vertexium.FetchHint;
 import org.vertexium.Graph;
 import org.vertexium.Vertex;
-import org.vertexium.query.GeoCompare;
+import org.vertexium.query.*;
 import org.vertexium.type.GeoCircle;
+import org.vertexium.type.GeoPoint;
 import org.visallo.core.model.ontology.OntologyProperty;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.web.BadRequestException;
 import org.visallo.web.clientapi.model.ClientApiElementSearchResponse;
+import org.visallo.web.clientapi.model.ClientApiSearchResponse;
 import org.visallo.web.clientapi.model.PropertyType;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 
+import java.util.*;
+
+/**
+ * Finds the vertices with a value of any geo location property within a circle.
+ * <p>
+ * The vertices are returned a page at a time, each vertex once no matter how many of its geo location properties
+ * are within the circle. When a geohash precision is given, the clusters of the geohash grid of that precision
+ * are returned in the "geohash" aggregate instead of the vertices, with the number of values and the centroid of
+ * each cell.
+ * <p>
+ * Clusters count locations, not vertices: the geohash aggregation of each geo location property only returns the
+ * number of values in each cell, so a vertex with values of two properties in the same cell counts twice in the
+ * cell's count and the max count.
+ */
 public class VertexGeoSearch implements ParameterizedHandler {
+    public static final String GEOHASH_AGGREGATION_NAME = "geohash";
+    private static final int MAX_GEOHASH_PRECISION = 12;
     private final Graph graph;
     private final OntologyRepository ontologyRepository;
 
@@ -34,24 +55,150 @@ public class VertexGeoSearch implements ParameterizedHandler {
             @Required(name = "lat") double latitude,
             @Required(name = "lon") double longitude,
             @Required(name = "radius") double radius,
+            @Optional(name = "offset", defaultValue = "0") int offset,
+            @Optional(name = "size", defaultValue = "100") int size,
+            @Optional(name = "precision") Integer precision,
             @ActiveWorkspaceId String workspaceId,
             Authorizations authorizations
     ) throws Exception {
-        ClientApiElementSearchResponse results = new ClientApiElementSearchResponse();
+        if (offset < 0) {
+            throw new BadRequestException("offset", "offset must be greater than or equal to 0");
+        }
+        if (size < 0) {
+            throw new BadRequestException("size", "size must be greater than or equal to 0");
+        }
+        if (precision != null && (precision < 1 || precision > MAX_GEOHASH_PRECISION)) {
+            throw new BadRequestException("precision", "precision must be between 1 and " + MAX_GEOHASH_PRECISION);
+        }
 
+        GeoCircle geoCircle = new GeoCircle(latitude, longitude, radius);
+        List<String> propertyNames = new ArrayList<>();
         for (OntologyProperty property : this.ontologyRepository.getProperties(workspaceId)) {
-            if (property.getDataType() != PropertyType.GEO_LOCATION) {
-                continue;
+            if (property.getDataType() == PropertyType.GEO_LOCATION) {
+                propertyNames.add(property.getTitle());
             }
+        }
 
-            Iterable<Vertex> vertices = graph.query(authorizations).
-                    has(property.getTitle(), GeoCompare.WITHIN, new GeoCircle(latitude, longitude, radius)).
-                    vertices();
+        if (precision != null) {
+            return findClusters(propertyNames, geoCircle, precision, authorizations);
+        }
+        return findVertices(propertyNames, geoCircle, offset, size, workspaceId, authorizations);
+    }
+
+    private ClientApiElementSearchResponse findVertices(
+            List<String> propertyNames,
+            GeoCircle geoCircle,
+            int offset,
+            int size,
+            String workspaceId,
+            Authorizations authorizations
+    ) {
+        // Vertexium queries can not OR filters on different properties, so every geo location property is queried
+        // for the ids of the first offset + size vertices only, which is enough to page through the merged ids
+        int limit = offset + size;
+        Set<String> vertexIds = new LinkedHashSet<>();
+        boolean complete = true;
+        for (String propertyName : propertyNames) {
+            QueryResultsIterable<Vertex> vertices = graph.query(authorizations)
+                    .has(propertyName, GeoCompare.WITHIN, geoCircle)
+                    .limit(limit)
+                    .vertices(FetchHint.NONE);
             for (Vertex vertex : vertices) {
+                vertexIds.add(vertex.getId());
+            }
+            if (vertices.getTotalHits() > limit) {
+                complete = false;
+            }
+        }
+
+        List<String> pageVertexIds = new ArrayList<>(vertexIds).subList(
+                Math.min(offset, vertexIds.size()),
+                Math.min(limit, vertexIds.size())
+        );
+        Map<String, Vertex> verticesById = new HashMap<>();
+        for (Vertex vertex : graph.getVertices(pageVertexIds, ClientApiConverter.SEARCH_FETCH_HINTS, authorizations)) {
+            verticesById.put(vertex.getId(), vertex);
+        }
+
+        ClientApiElementSearchResponse results = new ClientApiElementSearchResponse();
+        for (String vertexId : pageVertexIds) {
+            Vertex vertex = verticesById.get(vertexId);
+            if (vertex != null) {
                 results.getElements().add(ClientApiConverter.toClientApiVertex(vertex, workspaceId, authorizations));
             }
         }
+        results.setNextOffset(offset + pageVertexIds.size());
+        // the number of distinct vertices is only known when every matching id has been read
+        if (complete) {
+            results.setTotalHits((long) vertexIds.size());
+        }
+        return results;
+    }
+
+    private ClientApiElementSearchResponse findClusters(
+            List<String> propertyNames,
+            GeoCircle geoCircle,
+            int precision,
+            Authorizations authorizations
+    ) {
+        Map<String, GeohashCluster> clusters = new TreeMap<>();
+        for (String propertyName : propertyNames) {
+            Query query = graph.query(authorizations)
+                    .has(propertyName, GeoCompare.WITHIN, geoCircle)
+                    .limit(0);
+            query.addAggregation(new GeohashAggregation(GEOHASH_AGGREGATION_NAME, propertyName, precision));
+            GeohashResult geohashResult = query.vertices(FetchHint.NONE)
+                    .getAggregationResult(GEOHASH_AGGREGATION_NAME, GeohashResult.class);
+            for (GeohashBucket bucket : geohashResult.getBuckets()) {
+                clusters.computeIfAbsent(bucket.getKey(), key -> new GeohashCluster(bucket)).add(bucket);
+            }
+        }
+
+        ClientApiSearchResponse.GeohashAggregateResult result = new ClientApiSearchResponse.GeohashAggregateResult();
+        long maxCount = 0;
+        for (Map.Entry<String, GeohashCluster> entry : clusters.entrySet()) {
+            GeohashCluster cluster = entry.getValue();
+            result.getBuckets().put(entry.getKey(), cluster.toClientApi());
+            maxCount = Math.max(maxCount, cluster.count);
+        }
+        result.setMaxCount(maxCount);
 
+        ClientApiElementSearchResponse results = new ClientApiElementSearchResponse();
+        results.getAggregates().put(GEOHASH_AGGREGATION_NAME, result);
         return results;
     }
+
+    /**
+     * The buckets of one geohash cell for all geo location properties, with the centroid weighted by the count
+     * of each bucket. The count is the number of values in the cell, see the class comment.
+     */
+    private static class GeohashCluster {
+        private final GeohashBucket firstBucket;
+        private long count;
+        private double latitudeSum;
+        private double longitudeSum;
+
+        GeohashCluster(GeohashBucket firstBucket) {
+            this.firstBucket = firstBucket;
+        }
+
+        void add(GeohashBucket bucket) {
+            count += bucket.getCount();
+            GeoPoint point = bucket.getGeoPoint();
+            latitudeSum += point.getLatitude() * bucket.getCount();
+            longitudeSum += point.getLongitude() * bucket.getCount();
+        }
+
+        ClientApiSearchResponse.GeohashAggregateResult.Bucket toClientApi() {
+            GeoPoint centroid = count == 0
+                    ? firstBucket.getGeoPoint()
+                    : new GeoPoint(latitudeSum / count, longitudeSum / count);
+            return new ClientApiSearchResponse.GeohashAggregateResult.Bucket(
+                    ClientApiConverter.toClientApiGeoRect(firstBucket.getGeoCell()),
+                    ClientApiConverter.toClientApiGeoPoint(centroid),
+                    count,
+                    null
+            );
+        }
+    }
 }
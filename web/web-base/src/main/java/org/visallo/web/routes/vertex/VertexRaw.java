@@ -7,13 +7,17 @@ import com.v5analytics.webster.annotations.Optional;
 import com.v5analytics.webster.annotations.Required;
 import org.vertexium.Authorizations;
 import org.vertexium.Graph;
+import org.vertexium.Property;
 import org.vertexium.Vertex;
 import org.vertexium.property.StreamingPropertyValue;
+import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.model.properties.MediaVisalloProperties;
 import org.visallo.core.model.properties.VisalloProperties;
-import org.visallo.core.util.LimitInputStream;
+import org.visallo.core.model.properties.types.StreamingSingleValueVisalloProperty;
+import org.visallo.core.util.ByteRange;
+import org.visallo.core.util.StreamingPropertyValueRangeWriter;
 import org.visallo.web.BadRequestException;
 import org.visallo.web.VisalloResponse;
 
@@ -22,19 +26,27 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class VertexRaw implements ParameterizedHandler {
-    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=([0-9]*)-([0-9]*)");
+    public static final String CONFIG_BUFFER_SIZE = VertexRaw.class.getName() + ".bufferSize";
+    public static final String CONFIG_MAX_SPILL_SIZE_BYTES = VertexRaw.class.getName() + ".maxSpillSizeBytes";
 
     private final Graph graph;
+    private final StreamingPropertyValueRangeWriter rangeWriter;
 
     @Inject
-    public VertexRaw(final Graph graph) {
+    public VertexRaw(final Graph graph, final Configuration configuration) {
         this.graph = graph;
+        this.rangeWriter = new StreamingPropertyValueRangeWriter(
+                configuration.getInt(CONFIG_BUFFER_SIZE, StreamingPropertyValueRangeWriter.DEFAULT_BUFFER_SIZE),
+                null,
+                configuration.getLong(CONFIG_MAX_SPILL_SIZE_BYTES, StreamingPropertyValueRangeWriter.DEFAULT_MAX_SPILL_SIZE_BYTES)
+        );
     }
 
     @Handle
@@ -83,81 +95,101 @@ public class VertexRaw implements ParameterizedHandler {
             throw new BadRequestException("type is required for partial playback");
         }
 
-        InputStream in;
-        Long totalLength;
-        long partialStart = 0;
-        Long partialEnd = null;
-        String range = request.getHeader("Range");
-
-        if (range != null) {
-            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-
-            Matcher m = RANGE_PATTERN.matcher(range);
-            if (m.matches()) {
-                partialStart = Long.parseLong(m.group(1));
-                if (m.group(2).length() > 0) {
-                    partialEnd = Long.parseLong(m.group(2));
-                }
-            }
-        }
+        Property mediaProperty = getMediaProperty(artifactVertex, type);
+        StreamingPropertyValue mediaPropertyValue = (StreamingPropertyValue) mediaProperty.getValue();
+        String cacheKey = getSpillCacheKey(artifactVertex, mediaProperty);
+        long totalLength = mediaPropertyValue.getLength();
 
         response.setCharacterEncoding(null);
-        response.setContentType(type);
+        response.addHeader("Accept-Ranges", "bytes");
         response.addHeader("Content-Disposition", "attachment; filename=" + fileName);
 
-        StreamingPropertyValue mediaPropertyValue = getStreamingPropertyValue(artifactVertex, type);
-
-        totalLength = mediaPropertyValue.getLength();
-        in = mediaPropertyValue.getInputStream();
-
-        if (partialEnd == null) {
-            partialEnd = totalLength;
+        List<ByteRange> ranges = ByteRange.parse(request.getHeader("Range"), totalLength);
+        if (ranges == null) {
+            response.setContentType(type);
+            response.addHeader("Content-Length", "" + totalLength);
+            rangeWriter.write(cacheKey, mediaPropertyValue, new ByteRange(0, totalLength - 1), response.getOutputStream());
+        } else if (ranges.size() == 0) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.addHeader("Content-Range", "bytes */" + totalLength);
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(type);
+            response.addHeader("Content-Range", range.toContentRange(totalLength));
+            response.addHeader("Content-Length", "" + range.getLength());
+            rangeWriter.write(cacheKey, mediaPropertyValue, range, response.getOutputStream());
+        } else {
+            writeMultipartRanges(response, cacheKey, mediaPropertyValue, ranges, totalLength, type);
         }
+        response.flushBuffer();
+        return null;
+    }
 
-        // Ensure that the last byte position is less than the instance-length
-        partialEnd = Math.min(partialEnd, totalLength - 1);
-        long partialLength = totalLength;
-
-        if (range != null) {
-            partialLength = partialEnd - partialStart + 1;
-            response.addHeader("Content-Range", "bytes " + partialStart + "-" + partialEnd + "/" + totalLength);
-            if (partialStart > 0) {
-                in.skip(partialStart);
-            }
+    private void writeMultipartRanges(
+            VisalloResponse response,
+            String cacheKey,
+            StreamingPropertyValue value,
+            List<ByteRange> ranges,
+            long totalLength,
+            String type
+    ) throws IOException {
+        String boundary = UUID.randomUUID().toString();
+        long contentLength = getMultipartEnd(boundary).length;
+        for (ByteRange range : ranges) {
+            contentLength += getMultipartHeader(boundary, type, range, totalLength).length + range.getLength();
         }
 
-        response.addHeader("Content-Length", "" + partialLength);
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.addHeader("Content-Length", "" + contentLength);
+
+        OutputStream out = response.getOutputStream();
+        rangeWriter.write(
+                cacheKey,
+                value,
+                ranges,
+                out,
+                range -> out.write(getMultipartHeader(boundary, type, range, totalLength))
+        );
+        out.write(getMultipartEnd(boundary));
+    }
+
+    private static byte[] getMultipartHeader(String boundary, String type, ByteRange range, long totalLength) {
+        String header = "\r\n--" + boundary + "\r\n"
+                + "Content-Type: " + type + "\r\n"
+                + "Content-Range: " + range.toContentRange(totalLength) + "\r\n"
+                + "\r\n";
+        return header.getBytes(StandardCharsets.US_ASCII);
+    }
 
-        return new LimitInputStream(in, partialLength);
+    private static byte[] getMultipartEnd(String boundary) {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
     }
 
-    private StreamingPropertyValue getStreamingPropertyValue(Vertex artifactVertex, String type) {
-        StreamingPropertyValue mediaPropertyValue;
+    private Property getMediaProperty(Vertex artifactVertex, String type) {
+        StreamingSingleValueVisalloProperty mediaProperty;
         if (MediaVisalloProperties.MIME_TYPE_AUDIO_MP4.equals(type)) {
-            mediaPropertyValue = MediaVisalloProperties.AUDIO_MP4.getPropertyValue(artifactVertex);
-            checkNotNull(mediaPropertyValue, String.format("Could not find %s property on artifact %s", MediaVisalloProperties.MIME_TYPE_AUDIO_MP4, artifactVertex.getId()));
+            mediaProperty = MediaVisalloProperties.AUDIO_MP4;
         } else if (MediaVisalloProperties.MIME_TYPE_AUDIO_OGG.equals(type)) {
-            mediaPropertyValue = MediaVisalloProperties.AUDIO_OGG.getPropertyValue(artifactVertex);
-            checkNotNull(mediaPropertyValue, String.format("Could not find %s property on artifact %s", MediaVisalloProperties.MIME_TYPE_AUDIO_OGG, artifactVertex.getId()));
+            mediaProperty = MediaVisalloProperties.AUDIO_OGG;
         } else if (MediaVisalloProperties.MIME_TYPE_VIDEO_MP4.equals(type)) {
-            mediaPropertyValue = MediaVisalloProperties.VIDEO_MP4.getPropertyValue(artifactVertex);
-            checkNotNull(mediaPropertyValue, String.format("Could not find %s property on artifact %s", MediaVisalloProperties.MIME_TYPE_VIDEO_MP4, artifactVertex.getId()));
+            mediaProperty = MediaVisalloProperties.VIDEO_MP4;
         } else if (MediaVisalloProperties.MIME_TYPE_VIDEO_WEBM.equals(type)) {
-            mediaPropertyValue = MediaVisalloProperties.VIDEO_WEBM.getPropertyValue(artifactVertex);
-            checkNotNull(mediaPropertyValue, String.format("Could not find %s property on artifact %s", MediaVisalloProperties.MIME_TYPE_VIDEO_WEBM, artifactVertex.getId()));
+            mediaProperty = MediaVisalloProperties.VIDEO_WEBM;
         } else {
             throw new VisalloException("Invalid video type: " + type);
         }
-        return mediaPropertyValue;
+        Property property = mediaProperty.getProperty(artifactVertex);
+        checkNotNull(property, String.format("Could not find %s property on artifact %s", type, artifactVertex.getId()));
+        return property;
     }
 
-    private void copy(InputStream in, OutputStream out, Long length) throws IOException {
-        byte[] buffer = new byte[1024];
-        int read;
-        while (length > 0 && (read = in.read(buffer, 0, (int) Math.min(length, buffer.length))) > 0) {
-            out.write(buffer, 0, read);
-            length -= read;
-        }
+    /**
+     * Identifies the value across requests, the timestamp changes whenever the value is replaced.
+     */
+    private static String getSpillCacheKey(Vertex artifactVertex, Property property) {
+        return artifactVertex.getId() + ":" + property.getKey() + ":" + property.getName() + ":" + property.getTimestamp();
     }
 
     private String getMimeType(Vertex artifactVertex) {
@@ -0,0 +1,62 @@
+package org.visallo.web.routes.vertex;
+
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.v5analytics.webster.ParameterizedHandler;
+import com.v5analytics.webster.annotations.Handle;
+import com.v5analytics.webster.annotations.Required;
+import org.vertexium.Authorizations;
+import org.vertexium.Graph;
+import org.vertexium.Vertex;
+import org.visallo.core.exception.VisalloAccessDeniedException;
+import org.visallo.core.model.longRunningProcess.DeleteVerticesLongRunningProcessQueueItem;
+import org.visallo.core.model.longRunningProcess.LongRunningProcessRepository;
+import org.visallo.core.security.ACLProvider;
+import org.visallo.core.user.User;
+import org.visallo.web.clientapi.model.ClientApiLongRunningProcessSubmitResponse;
+import org.visallo.web.parameterProviders.ActiveWorkspaceId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class VertexRemoveMultiple implements ParameterizedHandler {
+    private final Graph graph;
+    private final ACLProvider aclProvider;
+    private final LongRunningProcessRepository longRunningProcessRepository;
+
+    @Inject
+    public VertexRemoveMultiple(
+            Graph graph,
+            ACLProvider aclProvider,
+            LongRunningProcessRepository longRunningProcessRepository
+    ) {
+        this.graph = graph;
+        this.aclProvider = aclProvider;
+        this.longRunningProcessRepository = longRunningProcessRepository;
+    }
+
+    @Handle
+    public ClientApiLongRunningProcessSubmitResponse handle(
+            @Required(name = "vertexIds[]") String[] vertexIdsParam,
+            @ActiveWorkspaceId String workspaceId,
+            User user,
+            Authorizations authorizations
+    ) throws Exception {
+        List<String> vertexIds = new ArrayList<>();
+        for (Vertex vertex : graph.getVertices(Sets.newHashSet(vertexIdsParam), authorizations)) {
+            if (!aclProvider.canDeleteElement(vertex, user, workspaceId)) {
+                throw new VisalloAccessDeniedException("Vertex " + vertex.getId() + " is not deleteable", user, vertex.getId());
+            }
+            vertexIds.add(vertex.getId());
+        }
+
+        DeleteVerticesLongRunningProcessQueueItem queueItem = new DeleteVerticesLongRunningProcessQueueItem(
+                vertexIds.toArray(new String[vertexIds.size()]),
+                workspaceId,
+                user.getUserId(),
+                authorizations
+        );
+        String id = longRunningProcessRepository.enqueue(queueItem.toJson(), user, authorizations);
+        return new ClientApiLongRunningProcessSubmitResponse(id);
+    }
+}
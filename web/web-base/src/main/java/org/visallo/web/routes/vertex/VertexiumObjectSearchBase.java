@@ -1,10 +1,13 @@
 package org.visallo.web.routes.vertex;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
 import com.v5analytics.webster.annotations.Handle;
 import org.vertexium.*;
 import org.vertexium.query.*;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.search.QueryResultsIterableSearchResults;
+import org.visallo.core.model.search.SavedSearchResultCache;
 import org.visallo.core.model.search.SearchOptions;
 import org.visallo.core.model.search.VertexiumObjectSearchRunnerBase;
 import org.visallo.core.user.User;
@@ -15,10 +18,13 @@ import org.visallo.web.clientapi.model.ClientApiElementSearchResponse;
 import org.visallo.web.clientapi.model.ClientApiExtendedDataRow;
 import org.visallo.web.clientapi.model.ClientApiSearchResponse;
 import org.visallo.web.clientapi.model.ClientApiVertexiumObject;
+import org.visallo.web.clientapi.util.ObjectMapperFactory;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
+import org.visallo.web.routes.search.SearchRun;
 import org.visallo.web.routes.search.WebSearchOptionsFactory;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -32,6 +38,7 @@ public abstract class VertexiumObjectSearchBase {
     private static final Pattern DATE_TIME_PATTERN = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}T.*");
     private final VertexiumObjectSearchRunnerBase searchRunner;
     private final Graph graph;
+    private SavedSearchResultCache savedSearchResultCache;
 
     public VertexiumObjectSearchBase(
             Graph graph,
@@ -50,6 +57,34 @@ public abstract class VertexiumObjectSearchBase {
             Authorizations authorizations
     ) throws Exception {
         SearchOptions searchOptions = WebSearchOptionsFactory.create(request, workspaceId);
+        String savedSearchId = (String) request.getAttribute(SearchRun.SAVED_SEARCH_ID_ATTRIBUTE);
+        if (savedSearchId == null || savedSearchResultCache == null) {
+            return search(searchOptions, workspaceId, user, authorizations);
+        }
+
+        SavedSearchResultCache.Key key = savedSearchResultCache.createKey(savedSearchId, searchOptions, authorizations);
+        CachedSearchResponse cachedResponse = savedSearchResultCache.get(key, CachedSearchResponse.class);
+        if (cachedResponse == null) {
+            ClientApiElementSearchResponse results = search(searchOptions, workspaceId, user, authorizations);
+            cachedResponse = new CachedSearchResponse(results);
+            savedSearchResultCache.put(
+                    key,
+                    searchOptions,
+                    cachedResponse,
+                    cachedResponse.getSizeBytes(),
+                    results.getElements().size() > 0
+            );
+            return results;
+        }
+        return cachedResponse.toClientApi();
+    }
+
+    private ClientApiElementSearchResponse search(
+            SearchOptions searchOptions,
+            String workspaceId,
+            User user,
+            Authorizations authorizations
+    ) throws Exception {
         try (QueryResultsIterableSearchResults searchResults = this.searchRunner.run(searchOptions, user, authorizations)) {
             Map<Object, Double> scores = null;
             if (searchResults.getQueryResultsIterable() instanceof IterableWithScores) {
@@ -79,6 +114,11 @@ public abstract class VertexiumObjectSearchBase {
         }
     }
 
+    @Inject
+    public void setSavedSearchResultCache(SavedSearchResultCache savedSearchResultCache) {
+        this.savedSearchResultCache = savedSearchResultCache;
+    }
+
     protected List<ClientApiVertexiumObject> findReferencedElements(
             List<ClientApiVertexiumObject> searchResults,
             String workspaceId,
@@ -278,4 +318,62 @@ public abstract class VertexiumObjectSearchBase {
     protected Integer getCommonCount(VertexiumObjectSearchRunnerBase.QueryAndData queryAndData, VertexiumObject vertexiumObject) {
         return null;
     }
+
+    /**
+     * A search response that can be shared between users. The elements are kept as JSON and read back for every
+     * response because the ACLs of each user are added to them in place before they are written.
+     */
+    private static class CachedSearchResponse {
+        private final byte[] elementsJson;
+        private final byte[] referencedElementsJson;
+        private final Map<String, ClientApiSearchResponse.AggregateResult> aggregates;
+        private final Integer nextOffset;
+        private final Long totalHits;
+        private final Long searchTime;
+        private final long sizeBytes;
+
+        CachedSearchResponse(ClientApiElementSearchResponse results) throws IOException {
+            ObjectMapper objectMapper = ObjectMapperFactory.getInstance();
+            this.elementsJson = toJson(objectMapper, results.getElements());
+            this.referencedElementsJson = toJson(objectMapper, results.getReferencedElements());
+            this.aggregates = Collections.unmodifiableMap(new HashMap<>(results.getAggregates()));
+            this.nextOffset = results.getNextOffset();
+            this.totalHits = results.getTotalHits();
+            this.searchTime = results.getSearchTime();
+            this.sizeBytes = elementsJson.length
+                    + (referencedElementsJson == null ? 0 : referencedElementsJson.length)
+                    + objectMapper.writeValueAsBytes(aggregates).length;
+        }
+
+        private static byte[] toJson(ObjectMapper objectMapper, List<ClientApiVertexiumObject> vertexiumObjects) throws IOException {
+            if (vertexiumObjects == null) {
+                return null;
+            }
+            // arrays keep the element type so the type of each vertexium object is written
+            return objectMapper.writeValueAsBytes(vertexiumObjects.toArray(new ClientApiVertexiumObject[vertexiumObjects.size()]));
+        }
+
+        private static List<ClientApiVertexiumObject> fromJson(ObjectMapper objectMapper, byte[] json) throws IOException {
+            if (json == null) {
+                return null;
+            }
+            return new ArrayList<>(Arrays.asList(objectMapper.readValue(json, ClientApiVertexiumObject[].class)));
+        }
+
+        long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        ClientApiElementSearchResponse toClientApi() throws IOException {
+            ObjectMapper objectMapper = ObjectMapperFactory.getInstance();
+            ClientApiElementSearchResponse results = new ClientApiElementSearchResponse();
+            results.getElements().addAll(fromJson(objectMapper, elementsJson));
+            results.setReferencedElements(fromJson(objectMapper, referencedElementsJson));
+            results.getAggregates().putAll(aggregates);
+            results.setNextOffset(nextOffset);
+            results.setTotalHits(totalHits);
+            results.setSearchTime(searchTime);
+            return results;
+        }
+    }
 }
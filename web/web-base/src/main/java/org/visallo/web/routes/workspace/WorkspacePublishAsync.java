@@ -0,0 +1,43 @@
+package org.visallo.web.routes.workspace;
+
+import com.google.inject.Inject;
+import com.v5analytics.webster.ParameterizedHandler;
+import com.v5analytics.webster.annotations.Handle;
+import com.v5analytics.webster.annotations.Required;
+import org.vertexium.Authorizations;
+import org.visallo.core.model.longRunningProcess.LongRunningProcessRepository;
+import org.visallo.core.model.longRunningProcess.PublishLongRunningProcessQueueItem;
+import org.visallo.core.user.User;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+import org.visallo.web.clientapi.model.ClientApiLongRunningProcessSubmitResponse;
+import org.visallo.web.clientapi.model.ClientApiPublishItem;
+import org.visallo.web.parameterProviders.ActiveWorkspaceId;
+
+public class WorkspacePublishAsync implements ParameterizedHandler {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(WorkspacePublishAsync.class);
+    private final LongRunningProcessRepository longRunningProcessRepository;
+
+    @Inject
+    public WorkspacePublishAsync(LongRunningProcessRepository longRunningProcessRepository) {
+        this.longRunningProcessRepository = longRunningProcessRepository;
+    }
+
+    @Handle
+    public ClientApiLongRunningProcessSubmitResponse handle(
+            @Required(name = "publishData") ClientApiPublishItem[] publishData,
+            @ActiveWorkspaceId String workspaceId,
+            User user,
+            Authorizations authorizations
+    ) throws Exception {
+        LOGGER.debug("queueing publish of %d items", publishData.length);
+        PublishLongRunningProcessQueueItem queueItem = new PublishLongRunningProcessQueueItem(
+                publishData,
+                workspaceId,
+                user.getUserId(),
+                authorizations
+        );
+        String id = longRunningProcessRepository.enqueue(queueItem.toJson(), user, authorizations);
+        return new ClientApiLongRunningProcessSubmitResponse(id);
+    }
+}
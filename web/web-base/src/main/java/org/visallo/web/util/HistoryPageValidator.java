@@ -0,0 +1,24 @@
+package org.visallo.web.util;
+
+import org.visallo.core.util.HistoricalPropertyValueCursor;
+import org.visallo.web.BadRequestException;
+
+public class HistoryPageValidator {
+    public static HistoricalPropertyValueCursor parseContinuationToken(String continuationToken) throws BadRequestException {
+        try {
+            return HistoricalPropertyValueCursor.parse(continuationToken);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("continuationToken", ex.getMessage());
+        }
+    }
+
+    /**
+     * A page without events would return a continuation token for the same position, so clients following the
+     * tokens would never finish.
+     */
+    public static void validatePageSize(Integer pageSize) throws BadRequestException {
+        if (pageSize != null && pageSize <= 0) {
+            throw new BadRequestException("pageSize", "pageSize must be greater than 0");
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.visallo.web.webEventListeners;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.v5analytics.webster.Route;
+import org.visallo.core.status.LatencyHistogram;
+import org.visallo.core.status.PrometheusTextExporter;
+import org.visallo.web.WebApp;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records the latency of every request in a {@link LatencyHistogram} labeled with the route's path template, the
+ * HTTP method and the response status. The histograms are served by the status server's /metrics endpoint.
+ * <p>
+ * This listener runs before every other listener and its {@link #always} runs after them, so the recorded time
+ * covers authentication and error handling too.
+ */
+public class RouteMetricsWebEventListener extends DefaultWebEventListener {
+    private static final String START_TIME_ATTRIBUTE = RouteMetricsWebEventListener.class.getName() + ".startTime";
+    public static final int PRIORITY = CurrentUserWebEventListener.PRIORITY - 100;
+    public static final String METRIC_NAME = "visallo_http_request_duration_seconds";
+    private static final String METRIC_HELP = "Duration of web requests by route";
+    private static final String UNMATCHED = "other";
+    private static final Pattern PATH_PARAMETER_PATTERN = Pattern.compile("\\{[^}]+}");
+    private final ConcurrentMap<RouteKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private volatile Map<String, RouteTemplates> routeTemplatesByMethod;
+
+    @Override
+    public void before(WebApp app, HttpServletRequest request, HttpServletResponse response) {
+        request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+    }
+
+    @Override
+    public void always(WebApp app, HttpServletRequest request, HttpServletResponse response) {
+        Long startTime = (Long) request.getAttribute(START_TIME_ATTRIBUTE);
+        if (startTime == null) {
+            return;
+        }
+        long duration = System.nanoTime() - startTime;
+        String method = request.getMethod();
+        String template = getRouteTemplate(app, method, getPath(request));
+        if (template == null) {
+            // keeps unknown methods sent by clients from adding labels
+            method = UNMATCHED;
+            template = UNMATCHED;
+        }
+        RouteKey key = new RouteKey(template, method, response.getStatus());
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, k -> PrometheusTextExporter.getLatencyHistogram(
+                    METRIC_NAME,
+                    METRIC_HELP,
+                    ImmutableSortedMap.of(
+                            "route", k.template,
+                            "method", k.method,
+                            "status", Integer.toString(k.status)
+                    )
+            ));
+        }
+        histogram.record(duration);
+    }
+
+    private static String getPath(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        if (contextPath != null && path.startsWith(contextPath)) {
+            path = path.substring(contextPath.length());
+        }
+        return path;
+    }
+
+    private String getRouteTemplate(WebApp app, String method, String path) {
+        Map<String, RouteTemplates> routeTemplatesByMethod = this.routeTemplatesByMethod;
+        if (routeTemplatesByMethod == null) {
+            // routes are all added by the time the first request is handled, including those of webapp plugins
+            routeTemplatesByMethod = new HashMap<>();
+            for (Map.Entry<Route.Method, List<Route>> entry : app.getRouter().getRoutes().entrySet()) {
+                routeTemplatesByMethod.put(entry.getKey().name(), new RouteTemplates(entry.getValue()));
+            }
+            this.routeTemplatesByMethod = routeTemplatesByMethod;
+        }
+        RouteTemplates routeTemplates = routeTemplatesByMethod.get(method);
+        if (routeTemplates == null) {
+            return null;
+        }
+        return routeTemplates.find(path);
+    }
+
+    @Override
+    public int getPriority() {
+        return PRIORITY;
+    }
+
+    private static class RouteTemplates {
+        private final Set<String> exactPaths = new HashSet<>();
+        private final Map<Pattern, String> parameterizedPaths = new LinkedHashMap<>();
+
+        private RouteTemplates(List<Route> routes) {
+            for (Route route : routes) {
+                String path = route.getPath();
+                Matcher m = PATH_PARAMETER_PATTERN.matcher(path);
+                if (!m.find()) {
+                    exactPaths.add(path);
+                    continue;
+                }
+                StringBuilder regex = new StringBuilder();
+                int last = 0;
+                do {
+                    regex.append(Pattern.quote(path.substring(last, m.start())));
+                    regex.append(m.group().endsWith("*}") ? ".*" : "[^/]+");
+                    last = m.end();
+                } while (m.find());
+                regex.append(Pattern.quote(path.substring(last)));
+                parameterizedPaths.put(Pattern.compile(regex.toString()), path);
+            }
+        }
+
+        private String find(String path) {
+            if (exactPaths.contains(path)) {
+                return path;
+            }
+            for (Map.Entry<Pattern, String> entry : parameterizedPaths.entrySet()) {
+                if (entry.getKey().matcher(path).matches()) {
+                    return entry.getValue();
+                }
+            }
+            return UNMATCHED;
+        }
+    }
+
+    private static class RouteKey {
+        private final String template;
+        private final String method;
+        private final int status;
+
+        private RouteKey(String template, String method, int status) {
+            this.template = template;
+            this.method = method;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RouteKey routeKey = (RouteKey) o;
+            return status == routeKey.status
+                    && template.equals(routeKey.template)
+                    && method.equals(routeKey.method);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(template, method, status);
+        }
+    }
+}